@@ -0,0 +1,42 @@
+package apap.ti._5.flight_2306211660_be.config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the expression indexes that @Table(indexes = ...) cannot declare. Runs after Hibernate
+ * has built or updated the schema; a database without expression indexes only logs a warning.
+ */
+@Component
+public class FunctionalIndexInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(FunctionalIndexInitializer.class);
+
+    static final List<String> STATEMENTS = List.of(
+            // Customer "my bookings": lower(contact_email) lookup, then keyset order
+            "CREATE INDEX IF NOT EXISTS idx_bookings_contact_email_lower ON bookings (lower(contact_email), created_at, id)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FunctionalIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException ex) {
+                logger.warn("Skipping functional index, not supported by the database: {}", ex.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+}
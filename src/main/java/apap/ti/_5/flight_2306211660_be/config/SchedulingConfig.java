@@ -0,0 +1,10 @@
+package apap.ti._5.flight_2306211660_be.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs such as the seat counter reconciliation
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
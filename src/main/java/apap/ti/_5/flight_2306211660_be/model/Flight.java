@@ -8,6 +8,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -24,7 +25,12 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder(toBuilder = true)
 @Entity
-@Table(name = "flights")
+@Table(name = "flights", indexes = {
+    @Index(name = "idx_flights_route_departure", columnList = "origin_airport_code, destination_airport_code, departure_time"),
+    @Index(name = "idx_flights_airline_departure", columnList = "airline_id, departure_time"),
+    @Index(name = "idx_flights_status_departure", columnList = "status, departure_time"),
+    @Index(name = "idx_flights_status_arrival", columnList = "status, arrival_time")
+})
 public class Flight {
     
     @Id
@@ -0,0 +1,29 @@
+package apap.ti._5.flight_2306211660_be.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Next unreserved number of a generated ID sequence, e.g. the booking codes of one flight route.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "id_counters")
+public class IdCounter {
+
+    @Id
+    @Column(name = "sequence_key")
+    private String sequenceKey;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -25,7 +26,11 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder(toBuilder = true)
 @Entity
-@Table(name = "seats")
+@Table(name = "seats", indexes = {
+    @Index(name = "idx_seats_class_flight_code", columnList = "class_flight_id, seat_code"),
+    @Index(name = "idx_seats_class_flight_booked_code", columnList = "class_flight_id, is_booked, seat_code"),
+    @Index(name = "idx_seats_passenger", columnList = "passenger_id")
+})
 public class Seat {
     
     @Id
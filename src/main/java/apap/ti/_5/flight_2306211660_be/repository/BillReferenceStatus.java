@@ -0,0 +1,7 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import apap.ti._5.flight_2306211660_be.model.Bill;
+
+/** Status of the bill issued for a service reference, such as a booking ID. */
+public record BillReferenceStatus(String serviceReferenceId, Bill.BillStatus status) {
+}
@@ -1,9 +1,12 @@
 package apap.ti._5.flight_2306211660_be.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import apap.ti._5.flight_2306211660_be.model.Bill;
@@ -18,4 +21,12 @@ public interface BillRepository extends JpaRepository<Bill, UUID> {
     List<Bill> findByCustomerIdAndStatus(String customerId, Bill.BillStatus status);
 
     List<Bill> findByServiceNameAndStatus(String serviceName, Bill.BillStatus status);
+
+    // Statuses only, for the given references of one service; customerId null means any customer
+    @Query("SELECT new apap.ti._5.flight_2306211660_be.repository.BillReferenceStatus(b.serviceReferenceId, b.status) "
+            + "FROM Bill b WHERE b.serviceName = :serviceName AND b.serviceReferenceId IN :referenceIds "
+            + "AND (:customerId IS NULL OR b.customerId = :customerId)")
+    List<BillReferenceStatus> findStatusesByServiceReferenceIdIn(@Param("serviceName") String serviceName,
+                                                                 @Param("referenceIds") Collection<String> referenceIds,
+                                                                 @Param("customerId") String customerId);
 }
@@ -0,0 +1,44 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent;
+
+@Repository
+public interface BillingOutboxRepository extends JpaRepository<BillingOutboxEvent, Long> {
+
+    // Due events, oldest first: pending ones, and claimed ones whose run let the lease run out
+    @Query("SELECT e.id FROM BillingOutboxEvent e WHERE e.status IN (apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent.Status.PENDING, "
+            + "apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent.Status.IN_FLIGHT) AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable page);
+
+    // Claims the events no other run took in the meantime; the lease is the next attempt time
+    @Modifying
+    @Query("UPDATE BillingOutboxEvent e SET e.status = apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent.Status.IN_FLIGHT, "
+            + "e.claimToken = :token, e.nextAttemptAt = :leaseUntil WHERE e.id IN :ids "
+            + "AND e.status IN (apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent.Status.PENDING, "
+            + "apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent.Status.IN_FLIGHT) AND e.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<BillingOutboxEvent> findByClaimTokenOrderById(String claimToken);
+
+    @Modifying
+    @Query("UPDATE BillingOutboxEvent e SET e.status = apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent.Status.DISPATCHED, "
+            + "e.dispatchedAt = :now, e.attempts = e.attempts + 1, e.lastError = NULL, e.claimToken = NULL WHERE e.id IN :ids")
+    int markDispatched(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    long countByStatus(BillingOutboxEvent.Status status);
+
+    @Query("SELECT MIN(e.createdAt) FROM BillingOutboxEvent e WHERE e.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") BillingOutboxEvent.Status status);
+}
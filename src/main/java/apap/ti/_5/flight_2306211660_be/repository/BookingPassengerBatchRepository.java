@@ -0,0 +1,16 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Bulk booking-passenger link writes that bypass per-entity persistence.
+ */
+public interface BookingPassengerBatchRepository {
+
+    /**
+     * Links the passengers to the booking using JDBC batches. Pending entity changes are flushed
+     * first so the booking row exists for the foreign key. Returns the number of links inserted.
+     */
+    int insertLinks(String bookingId, Collection<UUID> passengerIds);
+}
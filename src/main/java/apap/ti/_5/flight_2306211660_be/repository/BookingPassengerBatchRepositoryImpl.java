@@ -0,0 +1,60 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * JDBC implementation of {@link BookingPassengerBatchRepository}, picked up by Spring Data as a fragment
+ * of {@link BookingPassengerRepository}. Links have a composite assigned key, so saving one through
+ * the repository costs a read plus an insert; here a whole booking's links go out as one batch.
+ */
+public class BookingPassengerBatchRepositoryImpl implements BookingPassengerBatchRepository {
+
+    static final int BATCH_SIZE = 200;
+
+    private static final String INSERT_LINK =
+            "INSERT INTO booking_passengers (booking_id, passenger_id, created_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookingPassengerBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertLinks(String bookingId, Collection<UUID> passengerIds) {
+        if (passengerIds.isEmpty()) {
+            return 0;
+        }
+
+        // The booking may still sit in the persistence context; write it before referencing it
+        entityManager.flush();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(passengerIds.size());
+        for (UUID passengerId : passengerIds) {
+            rows.add(new Object[] { bookingId, passengerId, now });
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            for (int count : jdbcTemplate.batchUpdate(INSERT_LINK, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())))) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched rows
+                inserted += count < 0 ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,9 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.UUID;
+
+/**
+ * A booking_passengers row without the eagerly fetched booking and passenger entities.
+ */
+public record BookingPassengerLink(String bookingId, UUID passengerId) {
+}
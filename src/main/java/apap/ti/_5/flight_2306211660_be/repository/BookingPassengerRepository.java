@@ -1,18 +1,32 @@
 package apap.ti._5.flight_2306211660_be.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import apap.ti._5.flight_2306211660_be.model.BookingPassenger;
 import apap.ti._5.flight_2306211660_be.model.BookingPassengerId;
 
 @Repository
-public interface BookingPassengerRepository extends JpaRepository<BookingPassenger, BookingPassengerId> {
+public interface BookingPassengerRepository extends JpaRepository<BookingPassenger, BookingPassengerId>, BookingPassengerBatchRepository {
 
     List<BookingPassenger> findByBookingId(String bookingId);
 
     List<BookingPassenger> findByPassengerId(UUID passengerId);
+
+    // Links of a page of bookings in one query, used by the batched booking response assembler
+    @Query("SELECT new apap.ti._5.flight_2306211660_be.repository.BookingPassengerLink(bp.bookingId, bp.passengerId) "
+            + "FROM BookingPassenger bp WHERE bp.bookingId IN :bookingIds")
+    List<BookingPassengerLink> findLinksByBookingIdIn(@Param("bookingIds") Collection<String> bookingIds);
+
+    // Drops several passengers from a booking in one statement
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM BookingPassenger bp WHERE bp.bookingId = :bookingId AND bp.passengerId IN :passengerIds")
+    int deleteLinks(@Param("bookingId") String bookingId, @Param("passengerIds") Collection<UUID> passengerIds);
 }
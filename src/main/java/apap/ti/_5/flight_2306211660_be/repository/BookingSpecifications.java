@@ -0,0 +1,74 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import apap.ti._5.flight_2306211660_be.model.Booking;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Criteria predicates for the booking listing, evaluated by the database instead of in memory.
+ */
+public final class BookingSpecifications {
+
+    // Newest first; id breaks ties between bookings created in the same instant
+    public static final Sort LISTING_ORDER = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private BookingSpecifications() {
+    }
+
+    /**
+     * Bookings matching the listing filters; a null or blank filter is not applied.
+     * Search is a case-insensitive contains on booking id or flight id, contactEmail an exact match.
+     */
+    public static Specification<Booking> matching(String flightId, Boolean includeDeleted, String search,
+                                                  String contactEmail, Integer status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (flightId != null) {
+                predicates.add(cb.equal(root.get("flightId"), flightId));
+            }
+            if (includeDeleted == null || !includeDeleted) {
+                predicates.add(cb.isFalse(root.get("isDeleted")));
+            }
+            if (search != null && !search.trim().isEmpty()) {
+                String pattern = "%" + escapeLike(search.trim().toLowerCase()) + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("id")), pattern, '\\'),
+                        cb.like(cb.lower(root.get("flightId")), pattern, '\\')));
+            }
+            if (contactEmail != null && !contactEmail.isEmpty()) {
+                predicates.add(cb.equal(root.get("contactEmail"), contactEmail));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Bookings whose contact email matches case-insensitively, compared as lower(contact_email)
+     * so the functional index on that expression applies.
+     */
+    public static Specification<Booking> ownedBy(String email) {
+        String normalized = email.toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("contactEmail")), normalized);
+    }
+
+    /** Bookings after the given one in {@link #LISTING_ORDER}. */
+    public static Specification<Booking> after(LocalDateTime createdAt, String id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
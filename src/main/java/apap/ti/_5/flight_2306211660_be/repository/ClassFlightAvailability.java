@@ -0,0 +1,13 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Seat availability of one class flight together with the route and schedule of its flight.
+ */
+public record ClassFlightAvailability(Integer classFlightId, String flightId, String airlineId,
+                                      String originAirportCode, String destinationAirportCode,
+                                      LocalDateTime departureTime, LocalDateTime arrivalTime,
+                                      String classType, Integer availableSeats, BigDecimal price) {
+}
@@ -0,0 +1,21 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.List;
+
+/**
+ * Set-based maintenance of the denormalized class flight seat counters.
+ */
+public interface ClassFlightBatchRepository {
+
+    /**
+     * Compares availableSeats with the free seats of every class flight in one grouped
+     * aggregate and returns only the class flights that differ.
+     */
+    List<SeatCountDrift> findSeatCountDrift();
+
+    /**
+     * Writes the free seat counts in JDBC batches. A row is only updated while its counter still
+     * holds the value seen by {@link #findSeatCountDrift()}; returns the number of rows corrected.
+     */
+    int correctAvailableSeats(List<SeatCountDrift> drifts);
+}
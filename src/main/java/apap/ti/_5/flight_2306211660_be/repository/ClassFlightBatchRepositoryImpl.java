@@ -0,0 +1,54 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JDBC implementation of {@link ClassFlightBatchRepository}, picked up by Spring Data as a fragment
+ * of {@link ClassFlightRepository}.
+ */
+public class ClassFlightBatchRepositoryImpl implements ClassFlightBatchRepository {
+
+    static final int BATCH_SIZE = 200;
+
+    private static final String FIND_DRIFT =
+            "SELECT c.id, c.available_seats, COUNT(s.id) AS free_seats "
+            + "FROM class_flights c "
+            + "LEFT JOIN seats s ON s.class_flight_id = c.id AND s.is_booked = FALSE "
+            + "GROUP BY c.id, c.available_seats "
+            + "HAVING c.available_seats <> COUNT(s.id)";
+
+    // Compare-and-set on the counter so a booking that committed after the scan is not overwritten
+    private static final String CORRECT_AVAILABLE_SEATS =
+            "UPDATE class_flights SET available_seats = ? WHERE id = ? AND available_seats = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClassFlightBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<SeatCountDrift> findSeatCountDrift() {
+        return jdbcTemplate.query(FIND_DRIFT, (rs, rowNum) ->
+                new SeatCountDrift(rs.getInt(1), rs.getInt(2), rs.getInt(3)));
+    }
+
+    @Override
+    public int correctAvailableSeats(List<SeatCountDrift> drifts) {
+        int corrected = 0;
+        for (int[] counts : jdbcTemplate.batchUpdate(CORRECT_AVAILABLE_SEATS, drifts, BATCH_SIZE,
+                (ps, drift) -> {
+                    ps.setInt(1, drift.freeSeats());
+                    ps.setInt(2, drift.classFlightId());
+                    ps.setInt(3, drift.availableSeats());
+                })) {
+            for (int count : counts) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched rows
+                corrected += count < 0 ? 1 : count;
+            }
+        }
+        return corrected;
+    }
+}
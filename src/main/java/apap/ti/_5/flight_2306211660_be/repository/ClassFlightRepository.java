@@ -1,11 +1,72 @@
 package apap.ti._5.flight_2306211660_be.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import apap.ti._5.flight_2306211660_be.model.ClassFlight;
+import jakarta.persistence.LockModeType;
 
 @Repository
-public interface ClassFlightRepository extends JpaRepository<ClassFlight, Integer> {
+public interface ClassFlightRepository extends JpaRepository<ClassFlight, Integer>, ClassFlightBatchRepository {
+
+    List<ClassFlight> findByFlightId(String flightId);
+
+    @Query("SELECT new apap.ti._5.flight_2306211660_be.repository.ClassFlightType(c.id, c.classType) FROM ClassFlight c WHERE c.id IN :ids")
+    List<ClassFlightType> findClassTypesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT new apap.ti._5.flight_2306211660_be.repository.ClassFlightSummary(c.id, c.flightId, c.classType, "
+            + "c.seatCapacity, c.availableSeats, c.price) FROM ClassFlight c WHERE c.flightId IN :flightIds ORDER BY c.id")
+    List<ClassFlightSummary> findSummariesByFlightIdIn(@Param("flightIds") Collection<String> flightIds);
+
+    String AVAILABILITY_SELECT = "SELECT new apap.ti._5.flight_2306211660_be.repository.ClassFlightAvailability(c.id, f.id, "
+            + "f.airlineId, f.originAirportCode, f.destinationAirportCode, f.departureTime, f.arrivalTime, c.classType, "
+            + "c.availableSeats, c.price) FROM ClassFlight c JOIN Flight f ON f.id = c.flightId ";
+
+    // Still bookable: Scheduled or Delayed, not deleted and not yet departed
+    String BOOKABLE = "f.isDeleted = false AND f.status IN (1, 4) AND f.departureTime > :now ";
+
+    @Query(AVAILABILITY_SELECT + "WHERE " + BOOKABLE + "ORDER BY f.departureTime, f.id, c.id")
+    List<ClassFlightAvailability> findBookableAvailability(@Param("now") LocalDateTime now);
+
+    @Query(AVAILABILITY_SELECT + "WHERE f.id IN :flightIds AND " + BOOKABLE + "ORDER BY f.departureTime, f.id, c.id")
+    List<ClassFlightAvailability> findBookableAvailabilityByFlightIdIn(@Param("flightIds") Collection<String> flightIds,
+                                                                       @Param("now") LocalDateTime now);
+
+    @Query(AVAILABILITY_SELECT + "WHERE f.departureTime >= :from AND f.departureTime < :to AND " + BOOKABLE
+            + "ORDER BY f.departureTime, f.id, c.id")
+    List<ClassFlightAvailability> findBookableDepartingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                               @Param("now") LocalDateTime now);
+
+    // A null class type matches every class
+    @Query(AVAILABILITY_SELECT + "WHERE f.originAirportCode = :origin AND f.destinationAirportCode = :destination "
+            + "AND f.departureTime >= :from AND f.departureTime < :to AND " + BOOKABLE
+            + "AND (:classType IS NULL OR LOWER(c.classType) = :classType) AND c.availableSeats >= :seats "
+            + "ORDER BY f.departureTime, f.id, c.id")
+    List<ClassFlightAvailability> findBookableOnRoute(@Param("origin") String origin, @Param("destination") String destination,
+                                                      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                      @Param("classType") String classType, @Param("seats") int seats,
+                                                      @Param("now") LocalDateTime now);
+
+    // SELECT ... FOR UPDATE; serializes capacity changes and seat counter updates on the same class flight
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ClassFlight c WHERE c.id = :id")
+    Optional<ClassFlight> findByIdForUpdate(@Param("id") Integer id);
+
+    // Conditional decrement in a single statement; returns 0 instead of overselling when fewer than n seats are left
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ClassFlight c SET c.availableSeats = c.availableSeats - :n WHERE c.id = :id AND c.availableSeats >= :n")
+    int decrementAvailableSeats(@Param("id") Integer id, @Param("n") int n);
 
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ClassFlight c SET c.availableSeats = c.availableSeats + :n WHERE c.id = :id")
+    int incrementAvailableSeats(@Param("id") Integer id, @Param("n") int n);
 }
@@ -0,0 +1,10 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Listing columns of a class flight, read without loading the flight behind it.
+ */
+public record ClassFlightSummary(Integer id, String flightId, String classType, Integer seatCapacity,
+                                 Integer availableSeats, BigDecimal price) {
+}
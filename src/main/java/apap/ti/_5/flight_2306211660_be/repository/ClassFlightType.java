@@ -0,0 +1,7 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+/**
+ * Class type of a class flight, read without loading the flight behind it.
+ */
+public record ClassFlightType(Integer id, String classType) {
+}
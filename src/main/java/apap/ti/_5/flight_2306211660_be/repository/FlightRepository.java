@@ -1,9 +1,12 @@
 package apap.ti._5.flight_2306211660_be.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,7 +14,7 @@ import org.springframework.stereotype.Repository;
 import apap.ti._5.flight_2306211660_be.model.Flight;
 
 @Repository
-public interface FlightRepository extends JpaRepository<Flight, String> {
+public interface FlightRepository extends JpaRepository<Flight, String>, JpaSpecificationExecutor<Flight> {
 
     @Query("SELECT f FROM Flight f WHERE f.airplaneId = :airplaneId AND f.isDeleted = false AND " +
            "((f.departureTime <= :arrivalTime AND f.arrivalTime >= :departureTime) OR " +
@@ -34,9 +37,36 @@ public interface FlightRepository extends JpaRepository<Flight, String> {
     List<Flight> findByAirlineIdAndIsDeleted(String airlineId, Boolean isDeleted);
     
     List<Flight> findByIsDeleted(Boolean isDeleted);
+
+    @Query("SELECT new apap.ti._5.flight_2306211660_be.repository.FlightRoute(f.id, f.originAirportCode, f.destinationAirportCode) "
+            + "FROM Flight f WHERE f.id IN :ids")
+    List<FlightRoute> findRoutesByIdIn(@Param("ids") Collection<String> ids);
     
     List<Flight> findByAirplaneIdAndIsDeleted(String airplaneId, Boolean isDeleted);
     
+    // Upcoming status boundaries of active flights: departures of Scheduled/Delayed flights, arrivals of unfinished ones
+    @Query("SELECT f.departureTime FROM Flight f WHERE f.isDeleted = false AND f.status IN (1, 4) "
+            + "AND f.departureTime > :from AND f.departureTime <= :to")
+    List<LocalDateTime> findDepartureTimesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT f.arrivalTime FROM Flight f WHERE f.isDeleted = false AND f.status IN (1, 2, 4) "
+            + "AND f.arrivalTime > :from AND f.arrivalTime <= :to")
+    List<LocalDateTime> findArrivalTimesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT f.id FROM Flight f WHERE f.isDeleted = false AND f.status IN (1, 2, 4) AND f.arrivalTime <= :now")
+    List<String> findIdsDueToFinish(@Param("now") LocalDateTime now);
+
+    // Bulk transitions skip @PreUpdate, so updatedAt is set here
+    @Modifying
+    @Query("UPDATE Flight f SET f.status = 3, f.updatedAt = :now WHERE f.isDeleted = false AND f.status IN (1, 2, 4) "
+            + "AND f.arrivalTime <= :now")
+    int markFinished(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Flight f SET f.status = 2, f.updatedAt = :now WHERE f.isDeleted = false AND f.status IN (1, 4) "
+            + "AND f.departureTime <= :now AND f.arrivalTime > :now")
+    int markDeparted(@Param("now") LocalDateTime now);
+
     // For airplane deactivation validation: block if any non-deleted flight has status Scheduled(1), In Flight(2), or Delayed(4)
     List<Flight> findByAirplaneIdAndIsDeletedAndStatusIn(String airplaneId, Boolean isDeleted, List<Integer> statuses);
 }
@@ -0,0 +1,7 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+/**
+ * Origin and destination of a flight, read without its airline and airplane.
+ */
+public record FlightRoute(String id, String originAirportCode, String destinationAirportCode) {
+}
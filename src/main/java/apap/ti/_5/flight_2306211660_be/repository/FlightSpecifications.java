@@ -0,0 +1,104 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import apap.ti._5.flight_2306211660_be.model.Airline;
+import apap.ti._5.flight_2306211660_be.model.Flight;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Criteria predicates for the flight search, evaluated by the database instead of in memory.
+ */
+public final class FlightSpecifications {
+
+    // Earliest departure first; id breaks ties between flights leaving at the same time
+    public static final Sort LISTING_ORDER = Sort.by(Sort.Order.asc("departureTime"), Sort.Order.asc("id"));
+
+    private FlightSpecifications() {
+    }
+
+    /**
+     * Flights matching the search filters; a null or blank filter is not applied. Airport and airline
+     * codes are compared upper-cased against the stored codes so the route and airline indexes apply.
+     * Search is a case-insensitive contains on flight id or airline name. Status is the status the
+     * flight has at {@code now}, whether or not its time-based transitions have been saved yet.
+     */
+    public static Specification<Flight> matching(String originAirportCode, String destinationAirportCode, String airlineId,
+                                                 Integer status, Boolean includeDeleted, String search, LocalDateTime now) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (originAirportCode != null && !originAirportCode.trim().isEmpty()) {
+                predicates.add(cb.equal(root.get("originAirportCode"), normalizeCode(originAirportCode)));
+            }
+            if (destinationAirportCode != null && !destinationAirportCode.trim().isEmpty()) {
+                predicates.add(cb.equal(root.get("destinationAirportCode"), normalizeCode(destinationAirportCode)));
+            }
+            if (airlineId != null && !airlineId.trim().isEmpty()) {
+                predicates.add(cb.equal(root.get("airlineId"), normalizeCode(airlineId)));
+            }
+            if (includeDeleted == null || !includeDeleted) {
+                predicates.add(cb.isFalse(root.get("isDeleted")));
+            }
+            if (status != null) {
+                predicates.add(hasStatusAt(root, cb, status, now));
+            }
+            if (search != null && !search.trim().isEmpty()) {
+                String pattern = "%" + escapeLike(search.trim().toLowerCase()) + "%";
+                Join<Flight, Airline> airline = root.join("airline", JoinType.LEFT);
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("id")), pattern, '\\'),
+                        cb.like(cb.lower(airline.get("name")), pattern, '\\')));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /** Flights after the given one in {@link #LISTING_ORDER}. */
+    public static Specification<Flight> after(LocalDateTime departureTime, String id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("departureTime"), departureTime),
+                cb.and(cb.equal(root.get("departureTime"), departureTime), cb.greaterThan(root.get("id"), id)));
+    }
+
+    /**
+     * The transitions of FlightStatusRules in SQL, for flights the status scheduler has not moved on
+     * yet: Scheduled or Delayed becomes In Flight at departure, and anything not yet Finished becomes
+     * Finished at arrival. Deleted flights keep their stored status.
+     */
+    private static Predicate hasStatusAt(Root<Flight> root, CriteriaBuilder cb, int status, LocalDateTime now) {
+        Path<Integer> stored = root.get("status");
+        Path<LocalDateTime> departure = root.get("departureTime");
+        Path<LocalDateTime> arrival = root.get("arrivalTime");
+        Predicate deleted = cb.isTrue(root.get("isDeleted"));
+        Predicate active = cb.isFalse(root.get("isDeleted"));
+        return switch (status) {
+            case 1, 4 -> cb.and(cb.equal(stored, status), cb.or(deleted, cb.greaterThan(departure, now)));
+            case 2 -> cb.or(
+                    cb.and(cb.equal(stored, 2), cb.or(deleted, cb.greaterThan(arrival, now))),
+                    cb.and(active, stored.in(1, 4), cb.lessThanOrEqualTo(departure, now), cb.greaterThan(arrival, now)));
+            case 3 -> cb.or(
+                    cb.equal(stored, 3),
+                    cb.and(active, stored.in(1, 2, 4), cb.lessThanOrEqualTo(arrival, now)));
+            default -> cb.equal(stored, status);
+        };
+    }
+
+    private static String normalizeCode(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
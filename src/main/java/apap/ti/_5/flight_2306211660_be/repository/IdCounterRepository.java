@@ -0,0 +1,26 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import apap.ti._5.flight_2306211660_be.model.IdCounter;
+
+@Repository
+public interface IdCounterRepository extends JpaRepository<IdCounter, String> {
+
+    // Atomic increment; 0 when the counter does not exist yet
+    @Modifying
+    @Query("UPDATE IdCounter c SET c.nextValue = c.nextValue + :count WHERE c.sequenceKey = :sequenceKey")
+    int advance(@Param("sequenceKey") String sequenceKey, @Param("count") long count);
+
+    // Plain insert, so a counter created concurrently fails on the key instead of being overwritten by a merge
+    @Modifying
+    @Query(value = "INSERT INTO id_counters (sequence_key, next_value) VALUES (:sequenceKey, :nextValue)", nativeQuery = true)
+    int create(@Param("sequenceKey") String sequenceKey, @Param("nextValue") long nextValue);
+
+    @Query("SELECT c.nextValue FROM IdCounter c WHERE c.sequenceKey = :sequenceKey")
+    Long findNextValue(@Param("sequenceKey") String sequenceKey);
+}
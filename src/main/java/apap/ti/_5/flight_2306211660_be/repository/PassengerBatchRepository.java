@@ -0,0 +1,17 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.Collection;
+
+import apap.ti._5.flight_2306211660_be.model.Passenger;
+
+/**
+ * Bulk passenger writes that bypass per-entity persistence.
+ */
+public interface PassengerBatchRepository {
+
+    /**
+     * Inserts new passengers (IDs already assigned) using JDBC batches and stamps their
+     * created/updated times. Returns the number of passengers inserted.
+     */
+    int insertPassengers(Collection<Passenger> passengers);
+}
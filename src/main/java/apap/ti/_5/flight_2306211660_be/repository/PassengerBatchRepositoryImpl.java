@@ -0,0 +1,63 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import apap.ti._5.flight_2306211660_be.model.Passenger;
+
+/**
+ * JDBC implementation of {@link PassengerBatchRepository}, picked up by Spring Data as a fragment of
+ * {@link PassengerRepository}. Saving a passenger with an assigned UUID goes through a merge, which
+ * reads the row before inserting it, so new passengers are written here as batched inserts instead.
+ */
+public class PassengerBatchRepositoryImpl implements PassengerBatchRepository {
+
+    static final int BATCH_SIZE = 200;
+
+    private static final String INSERT_PASSENGER =
+            "INSERT INTO passengers (id, full_name, birth_date, gender, id_passport, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PassengerBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertPassengers(Collection<Passenger> passengers) {
+        if (passengers.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Object[]> rows = new ArrayList<>(passengers.size());
+        for (Passenger passenger : passengers) {
+            passenger.setCreatedAt(now);
+            passenger.setUpdatedAt(now);
+            rows.add(new Object[] {
+                    passenger.getId(),
+                    passenger.getFullName(),
+                    passenger.getBirthDate() != null ? Date.valueOf(passenger.getBirthDate()) : null,
+                    passenger.getGender(),
+                    passenger.getIdPassport(),
+                    timestamp,
+                    timestamp });
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            for (int count : jdbcTemplate.batchUpdate(INSERT_PASSENGER, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())))) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched rows
+                inserted += count < 0 ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+}
@@ -1,5 +1,7 @@
 package apap.ti._5.flight_2306211660_be.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,9 +10,12 @@ import org.springframework.stereotype.Repository;
 import apap.ti._5.flight_2306211660_be.model.Passenger;
 
 @Repository
-public interface PassengerRepository extends JpaRepository<Passenger, UUID> {
+public interface PassengerRepository extends JpaRepository<Passenger, UUID>, PassengerBatchRepository {
 
     boolean existsByIdPassport(String idPassport);
 
     Passenger findByIdPassport(String idPassport);
+
+    // Resolves every passport of a booking request in one query
+    List<Passenger> findByIdPassportIn(Collection<String> idPassports);
 }
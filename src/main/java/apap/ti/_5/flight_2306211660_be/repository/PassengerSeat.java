@@ -0,0 +1,9 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.UUID;
+
+/**
+ * A booked seat of a passenger, read without the class flight and passenger entities.
+ */
+public record PassengerSeat(UUID passengerId, Integer seatId, String seatCode, Integer classFlightId) {
+}
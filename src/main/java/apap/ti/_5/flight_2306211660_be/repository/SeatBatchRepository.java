@@ -0,0 +1,31 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+
+/**
+ * Bulk seat writes that bypass per-entity persistence.
+ */
+public interface SeatBatchRepository {
+
+    /**
+     * Inserts unbooked seats {@code prefix + fromNumber} .. {@code prefix + toNumber} (codes zero-padded
+     * to three digits) for a class flight using JDBC batches. Returns the number of seats inserted.
+     */
+    int insertSeatRange(Integer classFlightId, String prefix, int fromNumber, int toNumber);
+
+    /** Code of the seat {@link #insertSeatRange} writes for {@code number}. */
+    static String seatCode(String prefix, int number) {
+        return String.format("%s%03d", prefix, number);
+    }
+
+    /**
+     * Writes the booked flag and passenger of existing seats using JDBC batches. A seat is only written
+     * while it is free or still booked by its entry in {@code expectedHolders}, so a booking made by
+     * someone else in the meantime is never overwritten. Returns the number of seats updated.
+     */
+    int updateSeatAssignments(Collection<Seat> seats, Map<Integer, UUID> expectedHolders);
+}
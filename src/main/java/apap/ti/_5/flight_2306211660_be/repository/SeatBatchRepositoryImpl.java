@@ -0,0 +1,80 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+
+/**
+ * JDBC implementation of {@link SeatBatchRepository}, picked up by Spring Data as a fragment of
+ * {@link SeatRepository}. Seat IDs come from the identity column, which keeps Hibernate from
+ * batching entity inserts, so the rows are written here as plain batched statements instead.
+ */
+public class SeatBatchRepositoryImpl implements SeatBatchRepository {
+
+    static final int BATCH_SIZE = 200;
+
+    private static final String INSERT_SEAT =
+            "INSERT INTO seats (class_flight_id, seat_code, is_booked, created_at, updated_at) VALUES (?, ?, FALSE, ?, ?)";
+
+    private static final String UPDATE_ASSIGNMENT =
+            "UPDATE seats SET is_booked = ?, passenger_id = ?, updated_at = ? WHERE id = ? AND (is_booked = FALSE OR passenger_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SeatBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertSeatRange(Integer classFlightId, String prefix, int fromNumber, int toNumber) {
+        if (toNumber < fromNumber) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(toNumber - fromNumber + 1);
+        for (int i = fromNumber; i <= toNumber; i++) {
+            rows.add(new Object[] { classFlightId, SeatBatchRepository.seatCode(prefix, i), now, now });
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            for (int count : jdbcTemplate.batchUpdate(INSERT_SEAT, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())))) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched rows
+                inserted += count < 0 ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public int updateSeatAssignments(Collection<Seat> seats, Map<Integer, UUID> expectedHolders) {
+        if (seats.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(seats.size());
+        for (Seat seat : seats) {
+            rows.add(new Object[] { Boolean.TRUE.equals(seat.getIsBooked()), seat.getPassengerId(), now, seat.getId(),
+                    expectedHolders.get(seat.getId()) });
+        }
+
+        int updated = 0;
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            for (int count : jdbcTemplate.batchUpdate(UPDATE_ASSIGNMENT, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())))) {
+                // Drivers may report SUCCESS_NO_INFO (-2) for batched rows
+                updated += count < 0 ? 1 : count;
+            }
+        }
+        return updated;
+    }
+}
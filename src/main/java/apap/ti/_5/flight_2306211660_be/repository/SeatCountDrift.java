@@ -0,0 +1,7 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+/**
+ * A class flight whose availableSeats counter disagrees with the number of free seat rows.
+ */
+public record SeatCountDrift(Integer classFlightId, int availableSeats, int freeSeats) {
+}
@@ -1,11 +1,50 @@
 package apap.ti._5.flight_2306211660_be.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import apap.ti._5.flight_2306211660_be.model.Seat;
 
 @Repository
-public interface SeatRepository extends JpaRepository<Seat, Integer> {
+public interface SeatRepository extends JpaRepository<Seat, Integer>, SeatBatchRepository {
+
+    // Seat map of a single class flight, served by idx_seats_class_flight_code
+    List<Seat> findByClassFlightIdOrderBySeatCodeAsc(Integer classFlightId);
+
+    List<Seat> findByClassFlightIdInOrderBySeatCodeAsc(Collection<Integer> classFlightIds);
+
+    List<Seat> findByClassFlightIdAndSeatCodeInOrderBySeatCodeAsc(Integer classFlightId, Collection<String> seatCodes);
+
+    // Free/booked seats of a class flight in seat code order, served by idx_seats_class_flight_booked_code
+    List<Seat> findByClassFlightIdAndIsBookedOrderBySeatCodeAsc(Integer classFlightId, Boolean isBooked, Limit limit);
+
+    long countByClassFlightIdAndIsBooked(Integer classFlightId, Boolean isBooked);
+
+    // IDs of the highest-coded free seats, the ones a capacity cut removes
+    @Query("SELECT s.id FROM Seat s WHERE s.classFlightId = :classFlightId AND s.isBooked = false ORDER BY s.seatCode DESC")
+    List<Integer> findFreeTailSeatIds(@Param("classFlightId") Integer classFlightId, Limit limit);
+
+    // Deletes only the seats that are still free; returns how many went, so a seat booked meanwhile shows up as a short count
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Seat s WHERE s.id IN :ids AND s.isBooked = false")
+    int deleteFreeByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Seats held by a set of passengers, served by idx_seats_passenger
+    List<Seat> findByPassengerIdIn(Collection<UUID> passengerIds);
+
+    @Query("SELECT new apap.ti._5.flight_2306211660_be.repository.PassengerSeat(s.passengerId, s.id, s.seatCode, s.classFlightId) "
+            + "FROM Seat s WHERE s.passengerId IN :passengerIds AND s.isBooked = true ORDER BY s.seatCode")
+    List<PassengerSeat> findBookedSeatsByPassengerIdIn(@Param("passengerIds") Collection<UUID> passengerIds);
+
+    List<Seat> findByClassFlightIdAndPassengerIdIn(Integer classFlightId, Collection<UUID> passengerIds);
 
+    long countByClassFlightIdAndPassengerIdIn(Integer classFlightId, Collection<UUID> passengerIds);
 }
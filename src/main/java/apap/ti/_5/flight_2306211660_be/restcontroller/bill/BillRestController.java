@@ -17,6 +17,7 @@ import apap.ti._5.flight_2306211660_be.restdto.request.bill.UpdateBillRequestDTO
 import apap.ti._5.flight_2306211660_be.restdto.response.BaseResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.bill.BillResponseDTO;
 import apap.ti._5.flight_2306211660_be.restservice.bill.BillRestService;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.IdempotencyGuard;
 
 import jakarta.validation.Valid;
 
@@ -25,11 +26,13 @@ import jakarta.validation.Valid;
 public class BillRestController {
 
     private final BillRestService billService;
+    private final IdempotencyGuard idempotencyGuard;
 
     private static final List<String> ALLOWED_SERVICES = List.of("Flight", "Accommodation", "Insurance", "VehicleRental", "TourPackage");
 
-    public BillRestController(BillRestService billService) {
+    public BillRestController(BillRestService billService, IdempotencyGuard idempotencyGuard) {
         this.billService = billService;
+        this.idempotencyGuard = idempotencyGuard;
     }
 
     @PostMapping("/create")
@@ -295,7 +298,14 @@ public class BillRestController {
     @PreAuthorize("hasAnyRole('CUSTOMER')")
     public ResponseEntity<BaseResponseDTO<BillResponseDTO>> payBill(
             @PathVariable UUID billId,
-            @RequestBody(required = false) ConfirmPaymentRequestDTO req) {
+            @RequestBody(required = false) ConfirmPaymentRequestDTO req,
+            @RequestHeader(value = IdempotencyGuard.HEADER, required = false) String idempotencyKey) {
+        // A retried payment with the same Idempotency-Key is answered without charging again
+        return idempotencyGuard.execute(idempotencyKey, "bill-pay:" + billId, req, BillResponseDTO.class,
+                () -> pay(billId, req));
+    }
+
+    private ResponseEntity<BaseResponseDTO<BillResponseDTO>> pay(UUID billId, ConfirmPaymentRequestDTO req) {
         var base = new BaseResponseDTO<BillResponseDTO>();
         String callerUserId = CurrentUser.getUserId();
         String customerIdFromBody = (req != null ? req.getCustomerId() : null);
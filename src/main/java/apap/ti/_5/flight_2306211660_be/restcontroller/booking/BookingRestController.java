@@ -1,16 +1,22 @@
 package apap.ti._5.flight_2306211660_be.restcontroller.booking;
 
 import apap.ti._5.flight_2306211660_be.restdto.response.BaseResponseDTO;
-import apap.ti._5.flight_2306211660_be.restdto.request.bill.AddBillRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.AddBookingRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.UpdateBookingRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.ConfirmPaymentRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.bill.BillingOutboxStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingCacheStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
 
 import apap.ti._5.flight_2306211660_be.model.Bill;
 import apap.ti._5.flight_2306211660_be.model.Booking;
 import apap.ti._5.flight_2306211660_be.repository.BookingRepository;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutboxDispatcher;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
 import apap.ti._5.flight_2306211660_be.restservice.booking.BookingRestService;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingSequencer;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.IdempotencyGuard;
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -20,7 +26,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import apap.ti._5.flight_2306211660_be.config.security.CurrentUser;
 import org.springframework.http.HttpStatus;
@@ -36,12 +41,24 @@ public class BookingRestController {
     @Autowired
     private BookingRestService bookingRestService;
 
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Autowired
+    private IdempotencyGuard idempotencyGuard;
+
     @Autowired
     private BookingRepository bookingRepository;
 
     @Autowired
     private apap.ti._5.flight_2306211660_be.restservice.bill.BillRestService billRestService;
 
+    @Autowired
+    private BillingOutboxDispatcher billingOutboxDispatcher;
+
+    @Autowired
+    private BookingDetailCache bookingDetailCache;
+
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(BookingRestController.class);
 
     public static final String BASE_URL = "/booking";
@@ -49,6 +66,8 @@ public class BookingRestController {
     public static final String CREATE_BOOKING = BASE_URL + "/create";
     public static final String UPDATE_BOOKING = BASE_URL + "/update";
     public static final String DELETE_BOOKING = BASE_URL + "/delete/{id}";
+    public static final String BILLING_OUTBOX = BASE_URL + "/billing-outbox";
+    public static final String DETAIL_CACHE = BASE_URL + "/detail-cache";
 
     @GetMapping(BASE_URL)
     @PreAuthorize("hasAnyRole('CUSTOMER','SUPERADMIN','FLIGHT_AIRLINE')")
@@ -57,7 +76,9 @@ public class BookingRestController {
             @RequestParam(required = false) Boolean includeDeleted,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String contactEmail,
-            @RequestParam(required = false) Integer status) {
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         var baseResponseDTO = new BaseResponseDTO<List<BookingResponseDTO>>();
 
         List<BookingResponseDTO> bookings;
@@ -75,42 +96,43 @@ public class BookingRestController {
             }
         }
 
-        if (flightId != null) {
-            bookings = bookingRestService.getBookingsByFlight(flightId, includeDeleted, search, contactEmail, status);
-        } else {
-            // Default: show active only when includeDeleted is null/false; include archives when true
-            bookings = bookingRestService.getAllBookings(includeDeleted, search, contactEmail, status);
-        }
-
-        // Ownership enforcement: if current user is CUSTOMER, only return bookings with contactEmail == user's email
+        // Filters and paging run in the database; active only unless includeDeleted is true.
+        // Customers only ever see bookings under their own email, so ownership is part of the query.
         String role = CurrentUser.getRole();
-        if (role != null && role.contains("ROLE_CUSTOMER")) {
-            String email = CurrentUser.getEmail();
-            if (email != null) {
-                bookings = bookings.stream()
-                        .filter(b -> email.equalsIgnoreCase(b.getContactEmail()))
-                        .toList();
+        boolean customer = role != null && role.contains("ROLE_CUSTOMER");
+        BookingPageResponseDTO page;
+        try {
+            if (!customer) {
+                page = bookingRestService.getBookingPage(flightId, includeDeleted, search, contactEmail, status, cursor, limit);
             } else {
-                bookings = List.of();
+                String email = CurrentUser.getEmail();
+                page = email == null
+                        ? BookingPageResponseDTO.builder().bookings(List.of()).build()
+                        : bookingRestService.getCustomerBookingPage(email, flightId, search, contactEmail, status, cursor, limit);
             }
+        } catch (IllegalArgumentException ex) {
+            baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
+            baseResponseDTO.setMessage("Parameter halaman tidak valid: " + ex.getMessage());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.BAD_REQUEST);
         }
+        bookings = page.getBookings();
 
-        // Adjust booking status based on bill status
-        if (role != null && role.contains("ROLE_CUSTOMER")) {
-            // For customers, fetch their bills and adjust booking statuses
+        // Adjust booking status based on bill status, reading only the bills of the bookings on this page
+        List<String> bookingIds = bookings.stream().map(BookingResponseDTO::getId).toList();
+        if (customer) {
+            // For customers, only their own bills count
             String customerId = CurrentUser.getUserId();
             if (customerId != null) {
-                List<Bill> bills = billRestService.getCustomerBills(customerId, null, null, null);
-                adjustBookingStatuses(bookings, bills);
+                adjustBookingStatuses(bookings, billRestService.getBillStatuses("Flight", bookingIds, customerId));
             }
         } else if (role != null && (role.contains("ROLE_SUPERADMIN") || role.contains("ROLE_FLIGHT_AIRLINE"))) {
-            // For superadmin or flight_airline, fetch all flight bills and adjust all booking statuses
-            List<Bill> bills = billRestService.getServiceBills("Flight", null, null);
-            adjustBookingStatuses(bookings, bills);
+            adjustBookingStatuses(bookings, billRestService.getBillStatuses("Flight", bookingIds, null));
         }
 
         baseResponseDTO.setStatus(HttpStatus.OK.value());
         baseResponseDTO.setData(bookings);
+        baseResponseDTO.setNextCursor(page.getNextCursor());
         baseResponseDTO.setMessage("Data Booking Berhasil Ditemukan");
         baseResponseDTO.setTimestamp(new Date());
         return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
@@ -140,7 +162,15 @@ public class BookingRestController {
                 baseResponseDTO.setTimestamp(new Date());
                 return new ResponseEntity<>(baseResponseDTO, HttpStatus.FORBIDDEN);
             }
+            // For customers, only their own bills count
+            String customerId = CurrentUser.getUserId();
+            if (customerId != null) {
+                adjustBookingStatuses(List.of(booking), billRestService.getBillStatuses("Flight", List.of(id), customerId));
+            }
+        } else if (role != null && role.contains("ROLE_SUPERADMIN")) {
+            adjustBookingStatuses(List.of(booking), billRestService.getBillStatuses("Flight", List.of(id), null));
         }
+        // The service hands out a copy of the cached detail, so the adjusted status stays with this response
         baseResponseDTO.setStatus(HttpStatus.OK.value());
         baseResponseDTO.setData(booking);
         baseResponseDTO.setMessage("Data Booking Berhasil Ditemukan");
@@ -152,7 +182,8 @@ public class BookingRestController {
     @PreAuthorize("hasAnyRole('CUSTOMER','SUPERADMIN')")
     public ResponseEntity<BaseResponseDTO<BookingResponseDTO>> createBooking(
             @Valid @RequestBody AddBookingRequestDTO addBookingRequestDTO,
-            BindingResult bindingResult) {
+            BindingResult bindingResult,
+            @RequestHeader(value = IdempotencyGuard.HEADER, required = false) String idempotencyKey) {
 
         var baseResponseDTO = new BaseResponseDTO<BookingResponseDTO>();
 
@@ -169,6 +200,14 @@ public class BookingRestController {
             return new ResponseEntity<>(baseResponseDTO, HttpStatus.BAD_REQUEST);
         }
 
+        // A retried request with the same Idempotency-Key gets the first response back
+        return idempotencyGuard.execute(idempotencyKey, "booking-create", addBookingRequestDTO, BookingResponseDTO.class,
+                () -> createBookingWithBill(addBookingRequestDTO));
+    }
+
+    private ResponseEntity<BaseResponseDTO<BookingResponseDTO>> createBookingWithBill(AddBookingRequestDTO addBookingRequestDTO) {
+        var baseResponseDTO = new BaseResponseDTO<BookingResponseDTO>();
+
         try {
             // If customer, force contactEmail to current user's email
             String role = CurrentUser.getRole();
@@ -178,25 +217,10 @@ public class BookingRestController {
                     addBookingRequestDTO.setContactEmail(email);
                 }
             }
-            BookingResponseDTO booking = bookingRestService.createBooking(addBookingRequestDTO);
-
-            // Auto-create bill for this booking (best-effort). Use CurrentUser.getUserId() as customerId when available.
-            try {
-                String customerId = CurrentUser.getUserId();
-                if (customerId == null || customerId.isBlank()) customerId = booking.getContactEmail();
-
-                AddBillRequestDTO billReq = new AddBillRequestDTO();
-                billReq.setCustomerId(customerId);
-                billReq.setServiceName("Flight");
-                billReq.setServiceReferenceId(booking.getId());
-                String desc = "Booking Flight " + (booking.getRoute() != null ? booking.getRoute() : booking.getId()) + " - " + (booking.getClassType() != null ? booking.getClassType() : "");
-                billReq.setDescription(desc);
-                billReq.setAmount(booking.getTotalPrice() != null ? booking.getTotalPrice() : java.math.BigDecimal.ZERO);
-
-                billRestService.createBill(billReq);
-            } catch (Exception e) {
-                logger.warn("Failed to create bill for booking {}: {}", booking.getId(), e.getMessage());
-            }
+            // Bill owner for the billing outbox; the bill itself is created after the booking commits
+            addBookingRequestDTO.setBillingCustomerId(CurrentUser.getUserId());
+            // Goes through the per-flight sequencer when booking.sequencer.enabled is set
+            BookingResponseDTO booking = bookingSequencer.createBooking(addBookingRequestDTO);
 
             baseResponseDTO.setStatus(HttpStatus.CREATED.value());
             baseResponseDTO.setData(booking);
@@ -312,6 +336,38 @@ public class BookingRestController {
         }
     }
 
+    @GetMapping(BILLING_OUTBOX)
+    @PreAuthorize("hasRole('SUPERADMIN')")
+    public ResponseEntity<BaseResponseDTO<BillingOutboxStatisticsDTO>> getBillingOutboxStatistics() {
+        var baseResponseDTO = new BaseResponseDTO<BillingOutboxStatisticsDTO>();
+
+        try {
+            baseResponseDTO.setStatus(HttpStatus.OK.value());
+            baseResponseDTO.setData(billingOutboxDispatcher.getStatistics());
+            baseResponseDTO.setMessage("Statistik Billing Outbox Berhasil Ditemukan");
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
+
+        } catch (Exception ex) {
+            baseResponseDTO.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            baseResponseDTO.setMessage("Terjadi kesalahan pada server: " + ex.getMessage());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(DETAIL_CACHE)
+    @PreAuthorize("hasRole('SUPERADMIN')")
+    public ResponseEntity<BaseResponseDTO<BookingCacheStatisticsDTO>> getDetailCacheStatistics() {
+        var baseResponseDTO = new BaseResponseDTO<BookingCacheStatisticsDTO>();
+
+        baseResponseDTO.setStatus(HttpStatus.OK.value());
+        baseResponseDTO.setData(bookingDetailCache.getStatistics());
+        baseResponseDTO.setMessage("Statistik Cache Booking Berhasil Ditemukan");
+        baseResponseDTO.setTimestamp(new Date());
+        return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
+    }
+
     @GetMapping(BASE_URL + "/chart")
     @PreAuthorize("hasAnyRole('SUPERADMIN','FLIGHT_AIRLINE')")
     public ResponseEntity<BaseResponseDTO<Object>> getBookingChart(
@@ -432,11 +488,7 @@ public class BookingRestController {
         }
     }
 
-    private void adjustBookingStatuses(List<BookingResponseDTO> bookings, List<Bill> bills) {
-        // Create a map of serviceReferenceId to bill status for quick lookup
-        Map<String, Bill.BillStatus> billStatusMap = bills.stream()
-                .collect(Collectors.toMap(Bill::getServiceReferenceId, Bill::getStatus));
-
+    private void adjustBookingStatuses(List<BookingResponseDTO> bookings, Map<String, Bill.BillStatus> billStatusMap) {
         // Adjust booking status based on bill status
         for (BookingResponseDTO booking : bookings) {
             Bill.BillStatus billStatus = billStatusMap.get(booking.getId());
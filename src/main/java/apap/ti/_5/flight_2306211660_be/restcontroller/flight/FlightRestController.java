@@ -3,9 +3,14 @@ package apap.ti._5.flight_2306211660_be.restcontroller.flight;
 import apap.ti._5.flight_2306211660_be.restdto.response.BaseResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.AddFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.UpdateFlightRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItinerarySearchResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.RouteIndexStatisticsDTO;
 
 import apap.ti._5.flight_2306211660_be.restservice.flight.FlightRestService;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +21,8 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import java.util.List;
 
@@ -28,6 +35,9 @@ public class FlightRestController {
     @Autowired
     private FlightRestService flightRestService;
 
+    @Autowired
+    private RouteAvailabilityIndex routeAvailabilityIndex;
+
     public static final String BASE_URL = "/flight";
     public static final String ALL_FLIGHTS = BASE_URL + "/all";
     public static final String ACTIVE_FLIGHTS_TODAY = BASE_URL + "/active/today";
@@ -35,6 +45,9 @@ public class FlightRestController {
     public static final String CREATE_FLIGHT = BASE_URL + "/create";
     public static final String UPDATE_FLIGHT = BASE_URL + "/update";
     public static final String DELETE_FLIGHT = BASE_URL + "/delete/{id}";
+    public static final String FLIGHT_AVAILABILITY = BASE_URL + "/availability";
+    public static final String AVAILABILITY_INDEX = FLIGHT_AVAILABILITY + "/index";
+    public static final String FLIGHT_ITINERARIES = BASE_URL + "/itinerary";
 
     @GetMapping(ALL_FLIGHTS)
     @PreAuthorize("hasAnyRole('CUSTOMER','SUPERADMIN','FLIGHT_AIRLINE')")
@@ -44,7 +57,9 @@ public class FlightRestController {
             @RequestParam(required = false) String airlineId,
             @RequestParam(required = false) Integer status,
             @RequestParam(required = false) Boolean includeDeleted,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         var baseResponseDTO = new BaseResponseDTO<List<FlightResponseDTO>>();
 
         try {
@@ -61,11 +76,21 @@ public class FlightRestController {
                 }
             }
 
-            List<FlightResponseDTO> flights = flightRestService.getAllFlightsWithFilters(
-                originAirportCode, destinationAirportCode, airlineId, status, includeDeleted, search);
+            // Filters, search and paging run in the database
+            FlightPageResponseDTO page;
+            try {
+                page = flightRestService.getFlightPage(
+                    originAirportCode, destinationAirportCode, airlineId, status, includeDeleted, search, cursor, limit);
+            } catch (IllegalArgumentException ex) {
+                baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
+                baseResponseDTO.setMessage("Parameter halaman tidak valid: " + ex.getMessage());
+                baseResponseDTO.setTimestamp(new Date());
+                return new ResponseEntity<>(baseResponseDTO, HttpStatus.BAD_REQUEST);
+            }
 
             baseResponseDTO.setStatus(HttpStatus.OK.value());
-            baseResponseDTO.setData(flights);
+            baseResponseDTO.setData(page.getFlights());
+            baseResponseDTO.setNextCursor(page.getNextCursor());
             baseResponseDTO.setMessage("Data Flight Berhasil Ditemukan");
             baseResponseDTO.setTimestamp(new Date());
             return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
@@ -78,6 +103,95 @@ public class FlightRestController {
         }
     }
 
+    @GetMapping(FLIGHT_AVAILABILITY)
+    @PreAuthorize("hasAnyRole('CUSTOMER','SUPERADMIN','FLIGHT_AIRLINE')")
+    public ResponseEntity<BaseResponseDTO<FlightAvailabilityResponseDTO>> searchAvailability(
+            @RequestParam(required = false) String originAirportCode,
+            @RequestParam(required = false) String destinationAirportCode,
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String classType,
+            @RequestParam(required = false) Integer passengers) {
+        var baseResponseDTO = new BaseResponseDTO<FlightAvailabilityResponseDTO>();
+
+        try {
+            FlightAvailabilityResponseDTO result;
+            try {
+                LocalDate departureDate = date == null || date.isBlank() ? null : LocalDate.parse(date.trim());
+                result = flightRestService.searchAvailability(
+                        originAirportCode, destinationAirportCode, departureDate, classType, passengers);
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
+                baseResponseDTO.setMessage("Parameter pencarian tidak valid: " + ex.getMessage());
+                baseResponseDTO.setTimestamp(new Date());
+                return new ResponseEntity<>(baseResponseDTO, HttpStatus.BAD_REQUEST);
+            }
+
+            baseResponseDTO.setStatus(HttpStatus.OK.value());
+            baseResponseDTO.setData(result);
+            baseResponseDTO.setMessage("Ketersediaan Flight Berhasil Ditemukan");
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
+
+        } catch (Exception ex) {
+            baseResponseDTO.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            baseResponseDTO.setMessage("Terjadi kesalahan pada server: " + ex.getMessage());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(FLIGHT_ITINERARIES)
+    @PreAuthorize("hasAnyRole('CUSTOMER','SUPERADMIN','FLIGHT_AIRLINE')")
+    public ResponseEntity<BaseResponseDTO<ItinerarySearchResponseDTO>> searchItineraries(
+            @RequestParam(required = false) String originAirportCode,
+            @RequestParam(required = false) String destinationAirportCode,
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String classType,
+            @RequestParam(required = false) Integer passengers,
+            @RequestParam(required = false) Integer maxConnections,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer limit) {
+        var baseResponseDTO = new BaseResponseDTO<ItinerarySearchResponseDTO>();
+
+        try {
+            ItinerarySearchResponseDTO result;
+            try {
+                LocalDate departureDate = date == null || date.isBlank() ? null : LocalDate.parse(date.trim());
+                result = flightRestService.searchItineraries(originAirportCode, destinationAirportCode, departureDate,
+                        classType, passengers, maxConnections, sort, limit);
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
+                baseResponseDTO.setMessage("Parameter pencarian tidak valid: " + ex.getMessage());
+                baseResponseDTO.setTimestamp(new Date());
+                return new ResponseEntity<>(baseResponseDTO, HttpStatus.BAD_REQUEST);
+            }
+
+            baseResponseDTO.setStatus(HttpStatus.OK.value());
+            baseResponseDTO.setData(result);
+            baseResponseDTO.setMessage("Itinerary Flight Berhasil Ditemukan");
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
+
+        } catch (Exception ex) {
+            baseResponseDTO.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            baseResponseDTO.setMessage("Terjadi kesalahan pada server: " + ex.getMessage());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping(AVAILABILITY_INDEX)
+    @PreAuthorize("hasRole('SUPERADMIN')")
+    public ResponseEntity<BaseResponseDTO<RouteIndexStatisticsDTO>> getAvailabilityIndexStatistics() {
+        var baseResponseDTO = new BaseResponseDTO<RouteIndexStatisticsDTO>();
+
+        baseResponseDTO.setStatus(HttpStatus.OK.value());
+        baseResponseDTO.setData(routeAvailabilityIndex.getStatistics());
+        baseResponseDTO.setMessage("Statistik Indeks Ketersediaan Berhasil Ditemukan");
+        baseResponseDTO.setTimestamp(new Date());
+        return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
+    }
+
     @GetMapping(ACTIVE_FLIGHTS_TODAY)
     @PreAuthorize("hasAnyRole('SUPERADMIN','FLIGHT_AIRLINE')")
     public ResponseEntity<BaseResponseDTO<Long>> getActiveFlightsToday() {
@@ -164,10 +278,23 @@ public class FlightRestController {
 
     @GetMapping(VIEW_FLIGHT)
     @PreAuthorize("hasAnyRole('CUSTOMER','SUPERADMIN','FLIGHT_AIRLINE')")
-    public ResponseEntity<BaseResponseDTO<FlightResponseDTO>> getFlight(@PathVariable String id) {
+    public ResponseEntity<BaseResponseDTO<FlightResponseDTO>> getFlight(
+            @PathVariable String id,
+            @RequestParam(required = false) String seatMap) {
         var baseResponseDTO = new BaseResponseDTO<FlightResponseDTO>();
 
-        FlightResponseDTO flight = flightRestService.getFlightDetail(id);
+        // seatMap=compact swaps the per-seat list of every class for a run-length seat map
+        boolean compactSeatMap = "compact".equalsIgnoreCase(seatMap);
+        if (seatMap != null && !compactSeatMap && !"full".equalsIgnoreCase(seatMap)) {
+            baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
+            baseResponseDTO.setMessage("Format seat map tidak valid, gunakan full atau compact");
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.BAD_REQUEST);
+        }
+
+        FlightResponseDTO flight = compactSeatMap
+                ? flightRestService.getFlightDetail(id, true)
+                : flightRestService.getFlightDetail(id);
 
         if (flight == null) {
             baseResponseDTO.setStatus(HttpStatus.NOT_FOUND.value());
@@ -2,19 +2,25 @@ package apap.ti._5.flight_2306211660_be.restcontroller.seat;
 
 import apap.ti._5.flight_2306211660_be.restdto.response.BaseResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.seat.HoldSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.UpdateSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatHoldResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatReconciliationResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
 
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatCountReconciler;
 import apap.ti._5.flight_2306211660_be.restservice.seat.SeatRestService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api")
@@ -22,11 +28,18 @@ public class SeatRestController {
     @Autowired
     private SeatRestService seatRestService;
 
+    @Autowired
+    private SeatCountReconciler seatCountReconciler;
+
     public static final String BASE_URL = "/seat";
     public static final String VIEW_SEAT = BASE_URL + "/{id}";
     public static final String CREATE_SEAT = BASE_URL + "/create";
     public static final String UPDATE_SEAT = BASE_URL + "/update";
     public static final String DELETE_SEAT = BASE_URL + "/delete/{id}";
+    public static final String HOLD_SEAT = BASE_URL + "/hold";
+    public static final String RELEASE_HOLD = BASE_URL + "/hold/release/{holdToken}";
+    public static final String RECONCILIATION = BASE_URL + "/reconciliation";
+    public static final String RUN_RECONCILIATION = RECONCILIATION + "/run";
 
     @GetMapping(BASE_URL)
     public ResponseEntity<BaseResponseDTO<List<SeatResponseDTO>>> getAllSeats(
@@ -180,4 +193,103 @@ public class SeatRestController {
             return new ResponseEntity<>(baseResponseDTO, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @PostMapping(HOLD_SEAT)
+    public ResponseEntity<BaseResponseDTO<SeatHoldResponseDTO>> holdSeats(
+            @Valid @RequestBody HoldSeatRequestDTO holdSeatRequestDTO,
+            BindingResult bindingResult) {
+
+        var baseResponseDTO = new BaseResponseDTO<SeatHoldResponseDTO>();
+
+        if (bindingResult.hasFieldErrors()) {
+            StringBuilder errorMessages = new StringBuilder();
+            List<FieldError> errors = bindingResult.getFieldErrors();
+            for (FieldError error : errors) {
+                errorMessages.append(error.getDefaultMessage()).append("; ");
+            }
+
+            baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
+            baseResponseDTO.setMessage(errorMessages.toString());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            SeatHoldResponseDTO hold = seatRestService.holdSeats(holdSeatRequestDTO);
+
+            baseResponseDTO.setStatus(HttpStatus.CREATED.value());
+            baseResponseDTO.setData(hold);
+            baseResponseDTO.setMessage("Seat Berhasil Di-hold");
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.CREATED);
+
+        } catch (IllegalArgumentException ex) {
+            baseResponseDTO.setStatus(HttpStatus.BAD_REQUEST.value());
+            baseResponseDTO.setMessage(ex.getMessage());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException ex) {
+            // Seat already held by another customer
+            baseResponseDTO.setStatus(HttpStatus.CONFLICT.value());
+            baseResponseDTO.setMessage(ex.getMessage());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.CONFLICT);
+        } catch (Exception ex) {
+            baseResponseDTO.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            baseResponseDTO.setMessage("Terjadi kesalahan pada server: " + ex.getMessage());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping(RELEASE_HOLD)
+    public ResponseEntity<BaseResponseDTO<Void>> releaseHold(@PathVariable UUID holdToken) {
+        var baseResponseDTO = new BaseResponseDTO<Void>();
+
+        if (!seatRestService.releaseHold(holdToken)) {
+            baseResponseDTO.setStatus(HttpStatus.NOT_FOUND.value());
+            baseResponseDTO.setMessage("Seat Hold Tidak Ditemukan");
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.NOT_FOUND);
+        }
+
+        baseResponseDTO.setStatus(HttpStatus.OK.value());
+        baseResponseDTO.setMessage("Seat Hold Berhasil Dilepas");
+        baseResponseDTO.setTimestamp(new Date());
+        return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
+    }
+
+    @GetMapping(RECONCILIATION)
+    @PreAuthorize("hasRole('SUPERADMIN')")
+    public ResponseEntity<BaseResponseDTO<SeatReconciliationResponseDTO>> getReconciliationStatistics() {
+        var baseResponseDTO = new BaseResponseDTO<SeatReconciliationResponseDTO>();
+
+        baseResponseDTO.setStatus(HttpStatus.OK.value());
+        baseResponseDTO.setData(seatCountReconciler.getStatistics());
+        baseResponseDTO.setMessage("Statistik Rekonsiliasi Seat Berhasil Ditemukan");
+        baseResponseDTO.setTimestamp(new Date());
+        return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
+    }
+
+    @PostMapping(RUN_RECONCILIATION)
+    @PreAuthorize("hasRole('SUPERADMIN')")
+    public ResponseEntity<BaseResponseDTO<SeatReconciliationResponseDTO>> runReconciliation() {
+        var baseResponseDTO = new BaseResponseDTO<SeatReconciliationResponseDTO>();
+
+        try {
+            SeatReconciliationResponseDTO statistics = seatCountReconciler.reconcile();
+
+            baseResponseDTO.setStatus(HttpStatus.OK.value());
+            baseResponseDTO.setData(statistics);
+            baseResponseDTO.setMessage("Rekonsiliasi Seat Berhasil Dijalankan");
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.OK);
+
+        } catch (Exception ex) {
+            baseResponseDTO.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            baseResponseDTO.setMessage("Terjadi kesalahan pada server: " + ex.getMessage());
+            baseResponseDTO.setTimestamp(new Date());
+            return new ResponseEntity<>(baseResponseDTO, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -1,6 +1,9 @@
 package apap.ti._5.flight_2306211660_be.restdto.request.booking;
 
 import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import apap.ti._5.flight_2306211660_be.restdto.request.passenger.AddPassengerRequestDTO;
 import jakarta.validation.constraints.Email;
@@ -42,4 +45,9 @@ public class AddBookingRequestDTO {
     private List<AddPassengerRequestDTO> passengers;
 
     private List<Integer> seatIds; // Optional: specific seat assignments
+
+    private UUID holdToken; // Optional: seats reserved through the seat hold API
+
+    @JsonIgnore
+    private String billingCustomerId; // Set by the controller from the caller's token, never read from the body
 }
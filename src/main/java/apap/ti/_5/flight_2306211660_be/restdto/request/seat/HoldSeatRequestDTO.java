@@ -0,0 +1,25 @@
+package apap.ti._5.flight_2306211660_be.restdto.request.seat;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldSeatRequestDTO {
+
+    @NotNull(message = "Class flight ID cannot be null")
+    private Integer classFlightId;
+
+    @NotEmpty(message = "Seat IDs cannot be empty")
+    @Size(max = 10, message = "Cannot hold more than 10 seats")
+    private List<Integer> seatIds;
+}
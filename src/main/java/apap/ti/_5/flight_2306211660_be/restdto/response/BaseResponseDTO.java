@@ -3,6 +3,7 @@ package apap.ti._5.flight_2306211660_be.restdto.response;
 import java.util.Date;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,4 +18,7 @@ public class BaseResponseDTO<T> {
     @JsonFormat(shape = JsonFormat.Shape.STRING, timezone = "Asia/Jakarta")
     private Date timestamp;
     private T data;
+    // Only set by paged listings; omitted from every other response
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
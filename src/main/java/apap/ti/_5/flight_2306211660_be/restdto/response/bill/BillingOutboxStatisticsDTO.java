@@ -0,0 +1,26 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.bill;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillingOutboxStatisticsDTO {
+
+    private Long pendingEvents;
+    private Long failedEvents;          // Gave up after the maximum number of attempts
+    private Long lagMillis;             // Age of the oldest pending event; 0 when the outbox is drained
+    private LocalDateTime lastRunAt;
+    private Integer lastBatchSize;
+    private Long lastBatchDurationMillis;
+    private Double lastThroughputPerSecond;
+    private Long totalDispatched;
+    private Long totalRetried;
+    private Long totalFailed;
+}
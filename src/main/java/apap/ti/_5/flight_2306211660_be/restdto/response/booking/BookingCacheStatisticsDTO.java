@@ -0,0 +1,21 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingCacheStatisticsDTO {
+
+    private Integer size;
+    private Integer maxEntries;
+    private Long hits;
+    private Long misses;
+    private Long evictions;         // Dropped for space or because the booking changed version
+    private Long invalidations;     // Explicit evictions by booking, class flight or passenger
+    private Double hitRatio;
+}
@@ -3,6 +3,9 @@ package apap.ti._5.flight_2306211660_be.restdto.response.classFlight;
 import java.math.BigDecimal;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.CompactSeatMapDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,4 +25,6 @@ public class ClassFlightResponseDTO {
     private Integer availableSeats;
     private BigDecimal price;
     private List<SeatResponseDTO> seats; // For detailed view
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CompactSeatMapDTO seatMap; // For detailed view with ?seatMap=compact, replaces seats
 }
@@ -0,0 +1,26 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.flight;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightAvailabilityDTO {
+    private String flightId;
+    private String airlineId;
+    private String originAirportCode;
+    private String destinationAirportCode;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private Integer classFlightId;
+    private String classType;
+    private Integer availableSeats;
+    private BigDecimal price;
+}
@@ -0,0 +1,18 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.flight;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightAvailabilityResponseDTO {
+    // "index" when answered from memory, "database" when the index was not built yet
+    private String source;
+    private List<FlightAvailabilityDTO> flights;
+}
@@ -0,0 +1,18 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.flight;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightPageResponseDTO {
+    private List<FlightResponseDTO> flights;
+    // Null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.flight;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItineraryDTO {
+    // Flights in travel order, each with the cheapest class that fits the party
+    private List<FlightAvailabilityDTO> legs;
+    private Integer connections;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private Long durationMinutes;
+    private BigDecimal pricePerPassenger;
+    private BigDecimal totalPrice;
+}
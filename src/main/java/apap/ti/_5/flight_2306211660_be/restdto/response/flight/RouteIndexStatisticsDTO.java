@@ -0,0 +1,30 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.flight;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteIndexStatisticsDTO {
+
+    private Boolean warm;               // False until the first build, searches go to the database meanwhile
+    private Integer routes;
+    private Integer flights;
+    private Integer classFlights;
+    private LocalDateTime builtAt;
+    private Long buildAgeMillis;
+    private Long lastBuildDurationMillis;
+    private Integer pendingRefreshes;   // Changed flights waiting to be re-read
+    private Long oldestPendingMillis;
+    private Long rebuilds;
+    private Long seatUpdates;
+    private Long flightRefreshes;
+    private Long indexSearches;
+    private Long databaseSearches;
+}
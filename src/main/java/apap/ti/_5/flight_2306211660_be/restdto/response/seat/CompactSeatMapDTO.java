@@ -0,0 +1,22 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.seat;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactSeatMapDTO {
+
+    private String codePattern; // String.format pattern of the seat codes, e.g. "EC%03d"
+    private Integer firstNumber;
+    private Integer lastNumber;
+    // Runs over firstNumber..lastNumber: count + F (free), B (booked) or X (no seat), e.g. "12F1B3X"
+    private String occupancy;
+    private Map<String, Boolean> otherSeats; // Seats whose code does not fit the pattern -> booked
+}
@@ -0,0 +1,22 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.seat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldResponseDTO {
+
+    private UUID holdToken;
+    private Integer classFlightId;
+    private List<Integer> seatIds;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,23 @@
+package apap.ti._5.flight_2306211660_be.restdto.response.seat;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatReconciliationResponseDTO {
+
+    private LocalDateTime lastRunAt;
+    private Integer lastDrifted;      // Class flights found out of step in the last run
+    private Integer lastCorrected;    // Of those, rows actually rewritten
+    private Long lastDurationMillis;
+    private Long totalRuns;
+    private Long totalCorrected;
+    private Long totalFailures;
+}
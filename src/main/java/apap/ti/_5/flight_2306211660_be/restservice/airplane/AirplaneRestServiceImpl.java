@@ -2,7 +2,6 @@ package apap.ti._5.flight_2306211660_be.restservice.airplane;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +14,7 @@ import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.airplane.AddAirplaneRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.airplane.UpdateAirplaneRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.airplane.AirplaneResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
 
 @Service
 public class AirplaneRestServiceImpl implements AirplaneRestService {
@@ -25,7 +25,12 @@ public class AirplaneRestServiceImpl implements AirplaneRestService {
     @Autowired
     private FlightRepository flightRepository;
 
-    private static final Random random = new Random();
+    @Autowired
+    private IdAllocator idAllocator;
+
+    // Registrations are the airline ID plus three letters, AAA to ZZZ
+    private static final int REGISTRATION_LETTERS = 3;
+    private static final long REGISTRATIONS_PER_AIRLINE = 26L * 26 * 26;
 
     @Override
     public AirplaneResponseDTO createAirplane(AddAirplaneRequestDTO dto) {
@@ -38,7 +43,7 @@ public class AirplaneRestServiceImpl implements AirplaneRestService {
         String registrationNumber;
         do {
             registrationNumber = generateRegistrationNumber(dto.getAirlineId());
-        } while (airplaneRepository.existsById(registrationNumber)); // check if there is any duplicate in random ABC
+        } while (airplaneRepository.existsById(registrationNumber)); // registrations made before the counter were random and may be taken
 
         Airplane airplane = Airplane.builder()
                 .id(registrationNumber)
@@ -156,12 +161,16 @@ public class AirplaneRestServiceImpl implements AirplaneRestService {
     }
 
     private String generateRegistrationNumber(String airlineId) {
-        String randomChars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < 3; i++) {
-            sb.append(randomChars.charAt(random.nextInt(randomChars.length())));
+        long index = idAllocator.next("airplane:" + airlineId, () -> 0) - 1;
+        if (index >= REGISTRATIONS_PER_AIRLINE) {
+            throw new IllegalStateException("No registration numbers left for airline " + airlineId);
+        }
+        char[] letters = new char[REGISTRATION_LETTERS];
+        for (int i = REGISTRATION_LETTERS - 1; i >= 0; i--) {
+            letters[i] = (char) ('A' + index % 26);
+            index /= 26;
         }
-        return airlineId + "-" + sb.toString();
+        return airlineId + "-" + new String(letters);
     }
 
     private AirplaneResponseDTO convertToAirplaneResponseDTO(Airplane airplane) {
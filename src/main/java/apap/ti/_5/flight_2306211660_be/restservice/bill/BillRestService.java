@@ -1,6 +1,8 @@
 package apap.ti._5.flight_2306211660_be.restservice.bill;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import apap.ti._5.flight_2306211660_be.model.Bill;
@@ -17,6 +19,10 @@ public interface BillRestService {
 
     List<Bill> getServiceBills(String serviceName, String customerId, String status);
 
+    // Bill status per service reference ID, looked up for the given references only; customerId is optional.
+    // References without a bill are absent, and a PAID bill wins over an UNPAID one for the same reference.
+    Map<String, Bill.BillStatus> getBillStatuses(String serviceName, Collection<String> serviceReferenceIds, String customerId);
+
     Bill getBillById(UUID id);
 
     Bill payBill(UUID id, String customerIdFromToken, String couponCode) throws Exception;
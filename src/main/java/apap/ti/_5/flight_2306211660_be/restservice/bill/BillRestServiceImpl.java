@@ -3,7 +3,10 @@ package apap.ti._5.flight_2306211660_be.restservice.bill;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -16,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 import apap.ti._5.flight_2306211660_be.config.security.BookingClient;
 import apap.ti._5.flight_2306211660_be.config.security.ProfileClient;
 import apap.ti._5.flight_2306211660_be.model.Bill;
+import apap.ti._5.flight_2306211660_be.repository.BillReferenceStatus;
 import apap.ti._5.flight_2306211660_be.repository.BillRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.bill.AddBillRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.bill.SaldoUpdateRequestDTO;
@@ -82,6 +86,19 @@ public class BillRestServiceImpl implements BillRestService {
         return filterBills(list, customerId, serviceName, status);
     }
 
+    @Override
+    public Map<String, Bill.BillStatus> getBillStatuses(String serviceName, Collection<String> serviceReferenceIds, String customerId) {
+        Map<String, Bill.BillStatus> statuses = new HashMap<>();
+        if (serviceReferenceIds.isEmpty()) {
+            return statuses;
+        }
+        for (BillReferenceStatus bill : billRepository.findStatusesByServiceReferenceIdIn(serviceName, serviceReferenceIds, customerId)) {
+            statuses.merge(bill.serviceReferenceId(), bill.status(),
+                    (a, b) -> a == Bill.BillStatus.PAID ? a : b);
+        }
+        return statuses;
+    }
+
     @Override
     public Bill getBillById(UUID id) {
         Optional<Bill> opt = billRepository.findById(id);
@@ -0,0 +1,53 @@
+package apap.ti._5.flight_2306211660_be.restservice.bill;
+
+import java.math.BigDecimal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent;
+import apap.ti._5.flight_2306211660_be.repository.BillingOutboxRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+
+/**
+ * Write side of the billing outbox. Bookings record the bill they owe in their own transaction,
+ * so a booking never commits without its bill request and never waits for billing to answer.
+ */
+@Component
+public class BillingOutbox {
+
+    private final BillingOutboxRepository outboxRepository;
+    private final BillingOutboxDispatcher dispatcher;
+
+    @Autowired
+    public BillingOutbox(BillingOutboxRepository outboxRepository, BillingOutboxDispatcher dispatcher) {
+        this.outboxRepository = outboxRepository;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Records the bill for a new booking. Must run inside the booking's transaction; the dispatcher is
+     * woken once it commits. Without a customer ID the bill goes to the booking's contact email.
+     */
+    public BillingOutboxEvent enqueue(BookingResponseDTO booking, String customerId) {
+        BillingOutboxEvent event = outboxRepository.save(BillingOutboxEvent.builder()
+                .bookingId(booking.getId())
+                .customerId(customerId == null || customerId.isBlank() ? booking.getContactEmail() : customerId)
+                .description("Booking Flight " + (booking.getRoute() != null ? booking.getRoute() : booking.getId())
+                        + " - " + (booking.getClassType() != null ? booking.getClassType() : ""))
+                .amount(booking.getTotalPrice() != null ? booking.getTotalPrice() : BigDecimal.ZERO)
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wakeUp();
+                }
+            });
+        }
+        return event;
+    }
+}
@@ -0,0 +1,292 @@
+package apap.ti._5.flight_2306211660_be.restservice.bill;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent;
+import apap.ti._5.flight_2306211660_be.repository.BillingOutboxRepository;
+import apap.ti._5.flight_2306211660_be.restdto.request.bill.AddBillRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.bill.BillingOutboxStatisticsDTO;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Turns billing outbox events into bills outside the booking transaction. A drain is started right
+ * after a booking commits and by a periodic poll that picks up retries; it reads due events in
+ * batches, creates their bills concurrently on virtual threads and records the outcome of the whole
+ * batch in one transaction. Failed events are retried with exponential backoff until
+ * {@code billing.outbox.max-attempts}, and a bill call that outlasts {@code billing.outbox.call-timeout-ms}
+ * counts as failed.
+ * <p>
+ * A run claims its events before billing them: a conditional update moves them to {@code IN_FLIGHT} under the
+ * run's token, so an overlapping run or another instance skips them. The claim is a lease on
+ * {@code next_attempt_at}, long enough for the batch to finish; events of a run that died are due again once
+ * it lapses. Bookings that already have a bill are then only marked dispatched, so a re-run after a crash
+ * does not bill twice.
+ * <p>
+ * Batches are serialised with a {@link ReentrantLock}, not a monitor: the drain runs on a virtual thread
+ * and waits for the bill calls, and waiting inside {@code synchronized} pins its carrier thread, which on
+ * a single-carrier scheduler leaves the bill calls no thread to run on.
+ */
+@Component
+public class BillingOutboxDispatcher {
+
+    static final String SERVICE_NAME = "Flight";
+
+    private static final Logger logger = LoggerFactory.getLogger(BillingOutboxDispatcher.class);
+
+    private final BillingOutboxRepository outboxRepository;
+    private final BillRestService billRestService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration callTimeout;
+    private final ExecutorService executor;
+    private final Clock clock;
+
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final AtomicLong totalDispatched = new AtomicLong();
+    private final AtomicLong totalRetried = new AtomicLong();
+    private final AtomicLong totalFailed = new AtomicLong();
+    private volatile BatchRun lastRun;
+
+    private record BatchRun(LocalDateTime at, int size, long durationMillis) {
+    }
+
+    @Autowired
+    public BillingOutboxDispatcher(BillingOutboxRepository outboxRepository,
+                                   BillRestService billRestService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${billing.outbox.enabled:true}") boolean enabled,
+                                   @Value("${billing.outbox.batch-size:50}") int batchSize,
+                                   @Value("${billing.outbox.max-attempts:8}") int maxAttempts,
+                                   @Value("${billing.outbox.backoff-base-ms:1000}") long backoffBaseMillis,
+                                   @Value("${billing.outbox.backoff-max-ms:300000}") long backoffMaxMillis,
+                                   @Value("${billing.outbox.call-timeout-ms:30000}") long callTimeoutMillis) {
+        this(outboxRepository, billRestService, transactionManager, enabled, batchSize, maxAttempts,
+                Duration.ofMillis(backoffBaseMillis), Duration.ofMillis(backoffMaxMillis), Duration.ofMillis(callTimeoutMillis),
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("billing-outbox-", 0).factory()),
+                Clock.systemDefaultZone());
+    }
+
+    public BillingOutboxDispatcher(BillingOutboxRepository outboxRepository, BillRestService billRestService,
+                                   PlatformTransactionManager transactionManager, boolean enabled, int batchSize,
+                                   int maxAttempts, Duration backoffBase, Duration backoffMax, Duration callTimeout,
+                                   ExecutorService executor, Clock clock) {
+        this.outboxRepository = outboxRepository;
+        this.billRestService = billRestService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.callTimeout = callTimeout;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    @Scheduled(initialDelayString = "${billing.outbox.poll-interval-ms:5000}",
+               fixedDelayString = "${billing.outbox.poll-interval-ms:5000}")
+    void scheduledPoll() {
+        wakeUp();
+    }
+
+    /** Starts a drain unless one is running; a running drain makes one more pass instead. */
+    public void wakeUp() {
+        if (!enabled) {
+            return;
+        }
+        wakeupPending.set(true);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                // Shutting down; whatever is pending is picked up on the next start
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (wakeupPending.getAndSet(false)) {
+                while (dispatchBatch() == batchSize) {
+                    // A full batch means more events may be due
+                }
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Billing outbox drain failed: {}", ex.getMessage());
+        } finally {
+            draining.set(false);
+        }
+        // A wake-up that arrived after the last pass but before the flag was cleared still needs a drain
+        if (wakeupPending.get()) {
+            wakeUp();
+        }
+    }
+
+    /** Claims and dispatches one batch of due events and returns how many were due. */
+    public int dispatchBatch() {
+        batchLock.lock();
+        try {
+            return dispatchBatchLocked();
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    private int dispatchBatchLocked() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<Long> dueIds = outboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (dueIds.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+
+        // Twice the call timeout covers the calls plus recording their outcome
+        String token = UUID.randomUUID().toString();
+        List<BillingOutboxEvent> events = transactionTemplate.execute(status -> {
+            outboxRepository.claim(dueIds, token, now, now.plus(callTimeout.multipliedBy(2)));
+            return outboxRepository.findByClaimTokenOrderById(token);
+        });
+        if (events.isEmpty()) {
+            // Another run claimed all of them first
+            return dueIds.size();
+        }
+
+        // One lookup for the whole batch: bookings billed by an earlier, unrecorded run are not billed again
+        Set<String> billed = billRestService.getBillStatuses(SERVICE_NAME,
+                events.stream().map(BillingOutboxEvent::getBookingId).toList(), null).keySet();
+
+        List<Long> dispatchedIds = new ArrayList<>();
+        Map<BillingOutboxEvent, Future<?>> calls = new LinkedHashMap<>();
+        for (BillingOutboxEvent event : events) {
+            if (billed.contains(event.getBookingId())) {
+                dispatchedIds.add(event.getId());
+            } else {
+                calls.put(event, executor.submit(() -> billRestService.createBill(toBillRequest(event))));
+            }
+        }
+
+        // The calls run side by side, so one deadline covers the whole batch
+        long deadline = System.nanoTime() + callTimeout.toNanos();
+        List<BillingOutboxEvent> failed = new ArrayList<>();
+        for (Map.Entry<BillingOutboxEvent, Future<?>> call : calls.entrySet()) {
+            try {
+                call.getValue().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                dispatchedIds.add(call.getKey().getId());
+            } catch (ExecutionException ex) {
+                failed.add(recordFailure(call.getKey(), ex.getCause(), now));
+            } catch (TimeoutException ex) {
+                call.getValue().cancel(true);
+                failed.add(recordFailure(call.getKey(),
+                        new TimeoutException("Bill call timed out after " + callTimeout.toMillis() + " ms"), now));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failed.add(recordFailure(call.getKey(), ex, now));
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!dispatchedIds.isEmpty()) {
+                outboxRepository.markDispatched(dispatchedIds, now);
+            }
+            if (!failed.isEmpty()) {
+                outboxRepository.saveAll(failed);
+            }
+        });
+
+        totalDispatched.addAndGet(dispatchedIds.size());
+        lastRun = new BatchRun(now, events.size(), (System.nanoTime() - start) / 1_000_000);
+        return dueIds.size();
+    }
+
+    private BillingOutboxEvent recordFailure(BillingOutboxEvent event, Throwable cause, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        String error = cause == null || cause.getMessage() == null ? String.valueOf(cause) : cause.getMessage();
+        event.setAttempts(attempts);
+        event.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        event.setClaimToken(null);
+        if (attempts >= maxAttempts) {
+            event.setStatus(BillingOutboxEvent.Status.FAILED);
+            totalFailed.incrementAndGet();
+            logger.error("Giving up on bill for booking {} after {} attempts: {}", event.getBookingId(), attempts, error);
+        } else {
+            event.setStatus(BillingOutboxEvent.Status.PENDING);
+            event.setNextAttemptAt(now.plus(backoff(attempts)));
+            totalRetried.incrementAndGet();
+            logger.warn("Bill for booking {} failed (attempt {}), retrying: {}", event.getBookingId(), attempts, error);
+        }
+        return event;
+    }
+
+    /** Doubles from the base delay with every failed attempt, capped at the maximum. */
+    Duration backoff(int attempts) {
+        Duration delay = backoffBase.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(backoffMax) > 0 ? backoffMax : delay;
+    }
+
+    private AddBillRequestDTO toBillRequest(BillingOutboxEvent event) {
+        AddBillRequestDTO request = new AddBillRequestDTO();
+        request.setCustomerId(event.getCustomerId());
+        request.setServiceName(SERVICE_NAME);
+        request.setServiceReferenceId(event.getBookingId());
+        request.setDescription(event.getDescription());
+        request.setAmount(event.getAmount());
+        return request;
+    }
+
+    public BillingOutboxStatisticsDTO getStatistics() {
+        LocalDateTime oldestPending = outboxRepository.findOldestCreatedAt(BillingOutboxEvent.Status.PENDING);
+        BatchRun last = lastRun;
+        return BillingOutboxStatisticsDTO.builder()
+                .pendingEvents(outboxRepository.countByStatus(BillingOutboxEvent.Status.PENDING))
+                .failedEvents(outboxRepository.countByStatus(BillingOutboxEvent.Status.FAILED))
+                .lagMillis(oldestPending == null ? 0L : Math.max(0L, Duration.between(oldestPending, LocalDateTime.now(clock)).toMillis()))
+                .lastRunAt(last == null ? null : last.at())
+                .lastBatchSize(last == null ? null : last.size())
+                .lastBatchDurationMillis(last == null ? null : last.durationMillis())
+                .lastThroughputPerSecond(last == null ? null : last.size() * 1000.0 / Math.max(1L, last.durationMillis()))
+                .totalDispatched(totalDispatched.get())
+                .totalRetried(totalRetried.get())
+                .totalFailed(totalFailed.get())
+                .build();
+    }
+}
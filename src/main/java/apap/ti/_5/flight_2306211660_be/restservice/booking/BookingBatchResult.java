@@ -0,0 +1,30 @@
+package apap.ti._5.flight_2306211660_be.restservice.booking;
+
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of one request inside a batched booking create: either the created booking or the
+ * error that rejected the request.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookingBatchResult {
+
+    private final BookingResponseDTO booking;
+    private final RuntimeException error;
+
+    public static BookingBatchResult success(BookingResponseDTO booking) {
+        return new BookingBatchResult(booking, null);
+    }
+
+    public static BookingBatchResult failure(RuntimeException error) {
+        return new BookingBatchResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
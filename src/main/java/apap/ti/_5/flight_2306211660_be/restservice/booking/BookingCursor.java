@@ -0,0 +1,39 @@
+package apap.ti._5.flight_2306211660_be.restservice.booking;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import apap.ti._5.flight_2306211660_be.model.Booking;
+
+/**
+ * Position in the booking listing: the (createdAt, id) of the last booking of a page.
+ * Sent to clients as an opaque URL-safe string.
+ */
+public record BookingCursor(LocalDateTime createdAt, String id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static BookingCursor of(Booking booking) {
+        return new BookingCursor(booking.getCreatedAt(), booking.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid booking cursor");
+            }
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid booking cursor", ex);
+        }
+    }
+}
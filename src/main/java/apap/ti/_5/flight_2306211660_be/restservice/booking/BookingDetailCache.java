@@ -0,0 +1,143 @@
+package apap.ti._5.flight_2306211660_be.restservice.booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingCacheStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.passenger.PassengerResponseDTO;
+
+/**
+ * Bounded LRU of assembled booking details, keyed by booking ID and version. The version is the
+ * booking row's updated_at, so any write to the booking itself (on this or another instance) turns
+ * an entry into a miss. Writes that leave the booking row alone (seats, passengers, links) evict
+ * entries explicitly. Entries hold the booking as stored; callers get copies, so per-user
+ * adjustments such as the bill status never reach the cache.
+ */
+@Component
+public class BookingDetailCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+
+    // Bumped by every invalidation; a detail assembled across an invalidation is not cached
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private record Entry(LocalDateTime version, BookingResponseDTO booking, Set<UUID> passengerIds) {
+    }
+
+    @Autowired
+    public BookingDetailCache(@Value("${booking.detail-cache.max-entries:5000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > BookingDetailCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** A copy of the cached detail of that booking version, or null on a miss. */
+    public synchronized BookingResponseDTO get(String bookingId, LocalDateTime version) {
+        Entry entry = entries.get(bookingId);
+        if (entry == null || !entry.version().equals(version)) {
+            if (entry != null) {
+                entries.remove(bookingId);
+                evictions++;
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(entry.booking());
+    }
+
+    /** Marks the start of a read; pass it to {@link #put} so a detail read across an invalidation is dropped. */
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    public synchronized void put(BookingResponseDTO booking, LocalDateTime version, long stamp) {
+        if (maxEntries <= 0 || version == null || stamp != generation) {
+            return;
+        }
+        Set<UUID> passengerIds = booking.getPassengers() == null ? Set.of()
+                : booking.getPassengers().stream().map(PassengerResponseDTO::getId).collect(Collectors.toSet());
+        entries.put(booking.getId(), new Entry(version, copy(booking), passengerIds));
+    }
+
+    public void invalidate(String bookingId) {
+        invalidateWhere(id -> id.equals(bookingId), entry -> false);
+    }
+
+    /** Seat changes: drops every booking on the class flight. */
+    public void invalidateClassFlight(Integer classFlightId) {
+        invalidateWhere(id -> false, entry -> classFlightId.equals(entry.booking().getClassFlightId()));
+    }
+
+    /** Passenger edits: drops every booking the passenger is on. */
+    public void invalidatePassenger(UUID passengerId) {
+        invalidateWhere(id -> false, entry -> entry.passengerIds().contains(passengerId));
+    }
+
+    private void invalidateWhere(Predicate<String> byId, Predicate<Entry> byEntry) {
+        evict(byId, byEntry, true);
+        // A read between this write and its commit still sees the old rows; evict again once the outcome is known
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(byId, byEntry, false);
+                }
+            });
+        }
+    }
+
+    private synchronized void evict(Predicate<String> byId, Predicate<Entry> byEntry, boolean counted) {
+        generation++;
+        if (counted) {
+            invalidations++;
+        }
+        entries.entrySet().removeIf(e -> byId.test(e.getKey()) || byEntry.test(e.getValue()));
+    }
+
+    public synchronized BookingCacheStatisticsDTO getStatistics() {
+        long lookups = hits + misses;
+        return BookingCacheStatisticsDTO.builder()
+                .size(entries.size())
+                .maxEntries(maxEntries)
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .hitRatio(lookups == 0 ? 0.0 : (double) hits / lookups)
+                .build();
+    }
+
+    private static BookingResponseDTO copy(BookingResponseDTO booking) {
+        return booking.toBuilder()
+                .passengers(booking.getPassengers() == null ? null : new ArrayList<>(booking.getPassengers()))
+                .seatAssignments(booking.getSeatAssignments() == null ? null : new ArrayList<>(booking.getSeatAssignments()))
+                .build();
+    }
+}
@@ -0,0 +1,165 @@
+package apap.ti._5.flight_2306211660_be.restservice.booking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import apap.ti._5.flight_2306211660_be.model.Booking;
+import apap.ti._5.flight_2306211660_be.model.Passenger;
+import apap.ti._5.flight_2306211660_be.repository.BookingPassengerLink;
+import apap.ti._5.flight_2306211660_be.repository.BookingPassengerRepository;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightType;
+import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.FlightRoute;
+import apap.ti._5.flight_2306211660_be.repository.PassengerRepository;
+import apap.ti._5.flight_2306211660_be.repository.PassengerSeat;
+import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.PassengerSeatAssignmentResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.passenger.PassengerResponseDTO;
+
+/**
+ * Builds booking responses for a list of bookings with one IN query per related table
+ * (booking_passengers, passengers, class_flights, flights, seats) instead of a handful of
+ * lookups per booking. The DTOs carry the same fields as a single booking conversion.
+ */
+@Component
+public class BookingResponseAssembler {
+
+    // Keeps every IN list well below the bind parameter limits of the database drivers
+    static final int IN_CHUNK_SIZE = 1000;
+
+    private final BookingPassengerRepository bookingPassengerRepository;
+    private final PassengerRepository passengerRepository;
+    private final ClassFlightRepository classFlightRepository;
+    private final FlightRepository flightRepository;
+    private final SeatRepository seatRepository;
+
+    @Autowired
+    public BookingResponseAssembler(BookingPassengerRepository bookingPassengerRepository,
+                                    PassengerRepository passengerRepository,
+                                    ClassFlightRepository classFlightRepository,
+                                    FlightRepository flightRepository,
+                                    SeatRepository seatRepository) {
+        this.bookingPassengerRepository = bookingPassengerRepository;
+        this.passengerRepository = passengerRepository;
+        this.classFlightRepository = classFlightRepository;
+        this.flightRepository = flightRepository;
+        this.seatRepository = seatRepository;
+    }
+
+    public List<BookingResponseDTO> toResponses(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> bookingIds = new LinkedHashSet<>();
+        Set<Integer> classFlightIds = new LinkedHashSet<>();
+        Set<String> flightIds = new LinkedHashSet<>();
+        for (Booking booking : bookings) {
+            bookingIds.add(booking.getId());
+            classFlightIds.add(booking.getClassFlightId());
+            flightIds.add(booking.getFlightId());
+        }
+
+        Map<String, List<UUID>> passengerIdsByBooking = new HashMap<>();
+        Set<UUID> passengerIds = new LinkedHashSet<>();
+        for (BookingPassengerLink link : inChunks(bookingIds, bookingPassengerRepository::findLinksByBookingIdIn)) {
+            passengerIdsByBooking.computeIfAbsent(link.bookingId(), id -> new ArrayList<>()).add(link.passengerId());
+            passengerIds.add(link.passengerId());
+        }
+
+        Map<UUID, Passenger> passengers = new HashMap<>();
+        // Booked seats per passenger in seat code order; a passenger may hold seats on several flights
+        Map<UUID, List<PassengerSeat>> seatsByPassenger = new HashMap<>();
+        if (!passengerIds.isEmpty()) {
+            for (Passenger passenger : inChunks(passengerIds, passengerRepository::findAllById)) {
+                passengers.put(passenger.getId(), passenger);
+            }
+            for (PassengerSeat seat : inChunks(passengerIds, seatRepository::findBookedSeatsByPassengerIdIn)) {
+                seatsByPassenger.computeIfAbsent(seat.passengerId(), id -> new ArrayList<>()).add(seat);
+            }
+        }
+
+        Map<Integer, String> classTypes = new HashMap<>();
+        for (ClassFlightType classFlight : inChunks(classFlightIds, classFlightRepository::findClassTypesByIdIn)) {
+            classTypes.put(classFlight.id(), classFlight.classType());
+        }
+
+        Map<String, String> routes = new HashMap<>();
+        for (FlightRoute flight : inChunks(flightIds, flightRepository::findRoutesByIdIn)) {
+            routes.put(flight.id(), flight.originAirportCode() + "-" + flight.destinationAirportCode());
+        }
+
+        List<BookingResponseDTO> responses = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            List<UUID> bookingPassengerIds = passengerIdsByBooking.getOrDefault(booking.getId(), List.of());
+            List<PassengerResponseDTO> passengerDTOs = new ArrayList<>();
+            List<PassengerSeatAssignmentResponseDTO> seatAssignments = new ArrayList<>();
+            for (UUID passengerId : bookingPassengerIds) {
+                Passenger passenger = passengers.get(passengerId);
+                if (passenger != null) {
+                    passengerDTOs.add(convertToPassengerResponseDTO(passenger));
+                }
+                seatsByPassenger.getOrDefault(passengerId, List.of()).stream()
+                        .filter(seat -> seat.classFlightId().equals(booking.getClassFlightId()))
+                        .findFirst()
+                        .ifPresent(seat -> seatAssignments.add(new PassengerSeatAssignmentResponseDTO(
+                                passengerId, seat.seatId(), seat.seatCode(), passenger != null ? passenger.getFullName() : null)));
+            }
+
+            responses.add(BookingResponseDTO.builder()
+                    .id(booking.getId())
+                    .flightId(booking.getFlightId())
+                    .route(routes.get(booking.getFlightId()))
+                    .classFlightId(booking.getClassFlightId())
+                    .classType(classTypes.get(booking.getClassFlightId()))
+                    .contactEmail(booking.getContactEmail())
+                    .contactPhone(booking.getContactPhone())
+                    .passengerCount(booking.getPassengerCount())
+                    .status(booking.getStatus())
+                    .totalPrice(booking.getTotalPrice())
+                    .createdAt(booking.getCreatedAt())
+                    .updatedAt(booking.getUpdatedAt())
+                    .isDeleted(booking.getIsDeleted())
+                    .passengers(passengerDTOs)
+                    .seatAssignments(seatAssignments)
+                    .build());
+        }
+        return responses;
+    }
+
+    private PassengerResponseDTO convertToPassengerResponseDTO(Passenger passenger) {
+        return PassengerResponseDTO.builder()
+                .id(passenger.getId())
+                .fullName(passenger.getFullName())
+                .birthDate(passenger.getBirthDate())
+                .gender(passenger.getGender())
+                .idPassport(passenger.getIdPassport())
+                .createdAt(passenger.getCreatedAt())
+                .updatedAt(passenger.getUpdatedAt())
+                .build();
+    }
+
+    private static <K, V> List<V> inChunks(Collection<K> keys, Function<List<K>, List<V>> query) {
+        List<K> all = new ArrayList<>(keys);
+        if (all.size() <= IN_CHUNK_SIZE) {
+            return query.apply(all);
+        }
+        List<V> results = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_CHUNK_SIZE) {
+            results.addAll(query.apply(all.subList(from, Math.min(from + IN_CHUNK_SIZE, all.size()))));
+        }
+        return results;
+    }
+}
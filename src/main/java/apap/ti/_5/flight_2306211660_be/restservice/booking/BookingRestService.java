@@ -7,12 +7,17 @@ import apap.ti._5.flight_2306211660_be.restdto.request.booking.ConfirmPaymentReq
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.UpdateBookingRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingChartResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingChartResultDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
 
 public interface BookingRestService {
 
     BookingResponseDTO createBooking(AddBookingRequestDTO dto);
 
+    // Creates several bookings in one transaction; results are in request order and a rejected
+    // request does not affect the others. Used by BookingSequencer.
+    List<BookingBatchResult> createBookings(List<AddBookingRequestDTO> dtos);
+
     // Existing default (active only)
     List<BookingResponseDTO> getAllBookings();
 
@@ -31,6 +36,16 @@ public interface BookingRestService {
     // New: includeDeleted toggle with search and filters
     List<BookingResponseDTO> getBookingsByFlight(String flightId, Boolean includeDeleted, String search, String contactEmail, Integer status);
 
+    // One page of the filtered listing, newest first; flightId and cursor are optional and
+    // limit is capped by the implementation. Pass the returned nextCursor to fetch the following page.
+    BookingPageResponseDTO getBookingPage(String flightId, Boolean includeDeleted, String search, String contactEmail,
+                                          Integer status, String cursor, Integer limit);
+
+    // Same page, restricted in the query to active bookings whose contact email matches
+    // customerEmail case-insensitively
+    BookingPageResponseDTO getCustomerBookingPage(String customerEmail, String flightId, String search, String contactEmail,
+                                                  Integer status, String cursor, Integer limit);
+
     BookingResponseDTO getBooking(String id);
 
     BookingResponseDTO updateBooking(UpdateBookingRequestDTO dto);
@@ -1,14 +1,25 @@
 package apap.ti._5.flight_2306211660_be.restservice.booking;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,8 +30,10 @@ import apap.ti._5.flight_2306211660_be.model.Flight;
 import apap.ti._5.flight_2306211660_be.model.Passenger;
 import apap.ti._5.flight_2306211660_be.model.Seat;
 import apap.ti._5.flight_2306211660_be.repository.AirlineRepository;
+import apap.ti._5.flight_2306211660_be.repository.BookingPassengerLink;
 import apap.ti._5.flight_2306211660_be.repository.BookingPassengerRepository;
 import apap.ti._5.flight_2306211660_be.repository.BookingRepository;
+import apap.ti._5.flight_2306211660_be.repository.BookingSpecifications;
 import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
 import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
 import apap.ti._5.flight_2306211660_be.repository.PassengerRepository;
@@ -29,15 +42,28 @@ import apap.ti._5.flight_2306211660_be.restdto.request.booking.AddBookingRequest
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.ConfirmPaymentRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.UpdateBookingRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.passenger.AddPassengerRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingChartResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingChartResultDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingChartSummaryDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
-import apap.ti._5.flight_2306211660_be.restdto.response.passenger.PassengerResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutbox;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHold;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHoldRegistry;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
 
 @Service
 public class BookingRestServiceImpl implements BookingRestService {
 
+    // Page size of the booking listing when the client does not ask for one, and the most it may ask for
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    private static final String BOOKING_SEQUENCE = "booking:";
+
     @Autowired
     private BookingRepository bookingRepository;
 
@@ -59,11 +85,150 @@ public class BookingRestServiceImpl implements BookingRestService {
     @Autowired
     private AirlineRepository airlineRepository;
 
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private SeatHoldRegistry seatHoldRegistry;
+
+    @Autowired
+    private BookingResponseAssembler bookingResponseAssembler;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private BillingOutbox billingOutbox;
+
+    @Autowired
+    private BookingDetailCache bookingDetailCache;
+
+    @Autowired
+    private RouteAvailabilityIndex routeAvailabilityIndex;
+
     private static final Logger logger = LoggerFactory.getLogger(BookingRestServiceImpl.class);
 
     @Override
     @Transactional
     public BookingResponseDTO createBooking(AddBookingRequestDTO dto) {
+        lockClassFlights(Collections.singleton(dto.getClassFlightId()));
+        ClassFlight classFlight = validateFlightAndClass(dto);
+
+        // Check if enough seats are available
+        if (classFlight.getAvailableSeats() < dto.getPassengerCount()) {
+            throw new IllegalArgumentException("Not enough seats available in this class");
+        }
+
+        SeatHold hold = consumeHold(dto);
+        try {
+            List<Integer> seatIds = hold != null ? hold.getSeatIds() : dto.getSeatIds();
+            validateSeatsAndPassengers(dto, seatIds, Set.of());
+
+            Booking booking = persistBooking(dto, classFlight, seatIds, Set.of());
+
+            // Take the seats with a conditional decrement; a concurrent booking that got there first makes this fail
+            // instead of overselling
+            if (classFlightRepository.decrementAvailableSeats(classFlight.getId(), dto.getPassengerCount()) == 0) {
+                throw new IllegalArgumentException("Not enough seats available in this class");
+            }
+            routeAvailabilityIndex.seatsChanged(classFlight.getId(), -dto.getPassengerCount());
+
+            // The bill is created after commit by the outbox dispatcher, outside this transaction
+            BookingResponseDTO response = bookingResponseAssembler.toResponses(List.of(booking)).get(0);
+            billingOutbox.enqueue(response, dto.getBillingCustomerId());
+            return response;
+        } catch (RuntimeException ex) {
+            // Give the held seats back to the customer right away instead of waiting for the rollback
+            if (hold != null) {
+                seatHoldRegistry.restore(hold);
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBatchResult> createBookings(List<AddBookingRequestDTO> dtos) {
+        // Validate every request first; a rejected request leaves no writes behind, so it can fail on its own
+        // while the rest of the batch commits together
+        List<BookingBatchResult> results = new ArrayList<>(Collections.nCopies(dtos.size(), null));
+        Map<Integer, Integer> remainingByClass = new HashMap<>();
+        Map<Integer, Integer> takenByClass = new LinkedHashMap<>();
+        Set<Integer> seatsInBatch = new HashSet<>();
+        List<PreparedBooking> accepted = new ArrayList<>();
+        lockClassFlights(dtos.stream().map(AddBookingRequestDTO::getClassFlightId).toList());
+
+        for (int i = 0; i < dtos.size(); i++) {
+            AddBookingRequestDTO dto = dtos.get(i);
+            SeatHold hold = null;
+            try {
+                ClassFlight classFlight = validateFlightAndClass(dto);
+
+                // Availability is tracked across the batch, the counter itself is decremented once per class below
+                int remaining = remainingByClass.computeIfAbsent(classFlight.getId(), id -> classFlight.getAvailableSeats());
+                if (remaining < dto.getPassengerCount()) {
+                    throw new IllegalArgumentException("Not enough seats available in this class");
+                }
+
+                hold = consumeHold(dto);
+                List<Integer> seatIds = hold != null ? hold.getSeatIds() : dto.getSeatIds();
+                validateSeatsAndPassengers(dto, seatIds, seatsInBatch);
+
+                if (seatIds != null) {
+                    seatsInBatch.addAll(seatIds);
+                }
+                remainingByClass.put(classFlight.getId(), remaining - dto.getPassengerCount());
+                takenByClass.merge(classFlight.getId(), dto.getPassengerCount(), Integer::sum);
+                accepted.add(new PreparedBooking(i, dto, classFlight, seatIds));
+            } catch (RuntimeException ex) {
+                if (hold != null) {
+                    seatHoldRegistry.restore(hold);
+                }
+                results.set(i, BookingBatchResult.failure(ex));
+            }
+        }
+
+        List<Booking> bookings = new ArrayList<>(accepted.size());
+        for (PreparedBooking prepared : accepted) {
+            // Seats picked by later requests of the batch are not booked yet, so keep the allocator off them
+            bookings.add(persistBooking(prepared.dto(), prepared.classFlight(), prepared.seatIds(), seatsInBatch));
+        }
+        // One assembly for the whole batch, in the order the bookings were accepted
+        List<BookingResponseDTO> responses = bookingResponseAssembler.toResponses(bookings);
+        for (int i = 0; i < accepted.size(); i++) {
+            PreparedBooking prepared = accepted.get(i);
+            billingOutbox.enqueue(responses.get(i), prepared.dto().getBillingCustomerId());
+            results.set(prepared.index(), BookingBatchResult.success(responses.get(i)));
+        }
+
+        // One conditional decrement per class for the whole batch; losing a race against another writer
+        // rolls the batch back and the caller retries the requests one by one
+        takenByClass.forEach((classFlightId, taken) -> {
+            if (classFlightRepository.decrementAvailableSeats(classFlightId, taken) == 0) {
+                throw new IllegalStateException("Seat counter of class flight " + classFlightId + " changed during batch");
+            }
+            routeAvailabilityIndex.seatsChanged(classFlightId, -taken);
+        });
+
+        return results;
+    }
+
+    private record PreparedBooking(int index, AddBookingRequestDTO dto, ClassFlight classFlight, List<Integer> seatIds) {
+    }
+
+    /**
+     * Locks the class flight rows before any of their seats are written, in ascending ID order.
+     * Capacity changes take the same row lock before deleting seats, so the two cannot deadlock.
+     */
+    private void lockClassFlights(Collection<Integer> classFlightIds) {
+        classFlightIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .forEach(classFlightRepository::findByIdForUpdate);
+    }
+
+    private ClassFlight validateFlightAndClass(AddBookingRequestDTO dto) {
         // Validate flight exists and is active
         Flight flight = flightRepository.findById(dto.getFlightId()).orElse(null);
         if (flight == null || flight.getIsDeleted()) {
@@ -81,16 +246,31 @@ public class BookingRestServiceImpl implements BookingRestService {
         if (classFlight == null) {
             throw new IllegalArgumentException("Class flight not found");
         }
+        return classFlight;
+    }
 
-        // Check if enough seats are available
-        if (classFlight.getAvailableSeats() < dto.getPassengerCount()) {
-            throw new IllegalArgumentException("Not enough seats available in this class");
+    private SeatHold consumeHold(AddBookingRequestDTO dto) {
+        // A hold token stands for the seats reserved through the seat hold API; consuming it is atomic,
+        // so a second booking with the same token fails here instead of late in the transaction
+        if (dto.getHoldToken() == null) {
+            return null;
+        }
+        SeatHold hold = seatHoldRegistry.consume(dto.getHoldToken());
+        if (hold == null) {
+            throw new IllegalArgumentException("Seat hold not found or expired");
+        }
+        if (!hold.getClassFlightId().equals(dto.getClassFlightId())) {
+            seatHoldRegistry.restore(hold);
+            throw new IllegalArgumentException("Seat hold does not belong to the specified class flight");
         }
+        return hold;
+    }
 
+    private void validateSeatsAndPassengers(AddBookingRequestDTO dto, List<Integer> seatIds, Set<Integer> takenSeatIds) {
         // Validate seat IDs if provided
-        if (dto.getSeatIds() != null && !dto.getSeatIds().isEmpty()) {
+        if (seatIds != null && !seatIds.isEmpty()) {
             // Check if all seat IDs belong to the specified class flight
-            for (Integer seatId : dto.getSeatIds()) {
+            for (Integer seatId : seatIds) {
                 Seat seat = seatRepository.findById(seatId).orElse(null);
                 if (seat == null) {
                     throw new IllegalArgumentException("Seat with ID " + seatId + " does not exist");
@@ -98,13 +278,16 @@ public class BookingRestServiceImpl implements BookingRestService {
                 if (!seat.getClassFlightId().equals(dto.getClassFlightId())) {
                     throw new IllegalArgumentException("Seat with ID " + seatId + " does not belong to the specified class flight");
                 }
-                if (seat.getIsBooked()) {
+                if (seat.getIsBooked() || takenSeatIds.contains(seatId)) {
                     throw new IllegalArgumentException("Seat with ID " + seatId + " is already booked");
                 }
+                if (dto.getHoldToken() == null && seatHoldRegistry.isHeld(seatId)) {
+                    throw new IllegalArgumentException("Seat with ID " + seatId + " is currently held by another customer");
+                }
             }
 
             // Check if number of seat IDs matches passenger count
-            if (dto.getSeatIds().size() != dto.getPassengerCount()) {
+            if (seatIds.size() != dto.getPassengerCount()) {
                 throw new IllegalArgumentException("Number of seat IDs must match passenger count");
             }
         }
@@ -118,7 +301,10 @@ public class BookingRestServiceImpl implements BookingRestService {
         if (dto.getPassengers().size() != dto.getPassengerCount()) {
             throw new IllegalArgumentException("Number of passengers does not match passenger count");
         }
+    }
 
+    private Booking persistBooking(AddBookingRequestDTO dto, ClassFlight classFlight, List<Integer> seatIds,
+                                   Set<Integer> reservedSeatIds) {
         // Generate booking code
         String bookingCode = generateBookingCode(dto.getFlightId());
 
@@ -141,95 +327,32 @@ public class BookingRestServiceImpl implements BookingRestService {
         booking = bookingRepository.save(booking);
 
         // Create passengers and booking-passenger relationships
-        for (AddPassengerRequestDTO passengerDto : dto.getPassengers()) {
-            // Check if passenger already exists by ID passport
-            Passenger passenger;
-            if (passengerRepository.existsByIdPassport(passengerDto.getIdPassport())) {
-                // Use existing passenger
-                passenger = passengerRepository.findByIdPassport(passengerDto.getIdPassport());
-            } else {
-                // Create new passenger
-                passenger = Passenger.builder()
-                        .id(java.util.UUID.randomUUID())
-                        .fullName(passengerDto.getFullName())
-                        .birthDate(passengerDto.getBirthDate())
-                        .gender(passengerDto.getGender())
-                        .idPassport(passengerDto.getIdPassport())
-                        .build();
-
-                passenger = passengerRepository.save(passenger);
-            }
-
-            // Create booking-passenger relationship
-            BookingPassenger bookingPassenger = BookingPassenger.builder()
-                    .bookingId(bookingCode)
-                    .passengerId(passenger.getId())
-                    .build();
-
-            bookingPassengerRepository.save(bookingPassenger);
-        }
+        PassengerLinks links = resolvePassengers(dto.getPassengers(), Set.of());
+        linkPassengers(bookingCode, links);
+        List<UUID> passengerIds = new ArrayList<>(links.passengerIds());
 
         // Allocate seats if specified, assigning passengers to specific seats
-        if (dto.getSeatIds() != null && !dto.getSeatIds().isEmpty()) {
-            allocateSeatsToPassengers(bookingCode, dto.getSeatIds());
+        if (seatIds != null && !seatIds.isEmpty()) {
+            allocateSeatsToPassengers(classFlight.getId(), seatIds, passengerIds);
         } else {
-            // If no specific seats requested, just mark seats as booked (no passenger assignment)
-            allocateSeats(bookingCode, dto.getPassengerCount(), classFlight.getId());
+            allocateSeats(passengerIds, dto.getPassengerCount(), classFlight.getId(), reservedSeatIds);
         }
 
-        // Update available seats safely
-        int newAvailableFinal = classFlight.getAvailableSeats() - dto.getPassengerCount();
-        if (newAvailableFinal < 0) throw new IllegalStateException("Available seats would become negative");
-        classFlight.setAvailableSeats(newAvailableFinal);
-        classFlightRepository.save(classFlight);
-
-        // TODO: call billing service to create bill for this booking (async/remote)
-
-        return convertToBookingResponseDTO(booking);
+        return booking;
     }
 
     @Override
     public List<BookingResponseDTO> getAllBookings() {
         List<Booking> bookings = bookingRepository.findByIsDeleted(false);
-        return bookings.stream()
-                .map(this::convertToBookingResponseDTO)
-                .collect(Collectors.toList());
+        return bookingResponseAssembler.toResponses(bookings);
     }
 
     @Override
     public List<BookingResponseDTO> getAllBookings(Boolean includeDeleted, String search, String contactEmail, Integer status) {
-        List<Booking> bookings;
-        if (includeDeleted != null && includeDeleted) {
-            bookings = bookingRepository.findAll();
-        } else {
-            bookings = bookingRepository.findByIsDeleted(false);
-        }
-
-        // Apply search filter: booking id or flight id (case-insensitive)
-        if (search != null && !search.trim().isEmpty()) {
-            String s = search.trim().toLowerCase();
-            bookings = bookings.stream()
-                    .filter(b -> (b.getId() != null && b.getId().toLowerCase().contains(s)) || (b.getFlightId() != null && b.getFlightId().toLowerCase().contains(s)))
-                    .collect(Collectors.toList());
-        }
-
-        // Apply contactEmail filter (case-sensitive exact match)
-        if (contactEmail != null && !contactEmail.isEmpty()) {
-            bookings = bookings.stream()
-                    .filter(b -> contactEmail.equals(b.getContactEmail()))
-                    .collect(Collectors.toList());
-        }
-
-        // Apply status filter
-        if (status != null) {
-            bookings = bookings.stream()
-                    .filter(b -> b.getStatus() != null && b.getStatus().equals(status))
-                    .collect(Collectors.toList());
-        }
-
-        return bookings.stream()
-                .map(this::convertToBookingResponseDTO)
-                .collect(Collectors.toList());
+        List<Booking> bookings = bookingRepository.findAll(
+                BookingSpecifications.matching(null, includeDeleted, search, contactEmail, status),
+                BookingSpecifications.LISTING_ORDER);
+        return bookingResponseAssembler.toResponses(bookings);
     }
 
     @Override
@@ -240,17 +363,13 @@ public class BookingRestServiceImpl implements BookingRestService {
         } else {
             bookings = bookingRepository.findByIsDeleted(false);
         }
-        return bookings.stream()
-                .map(this::convertToBookingResponseDTO)
-                .collect(Collectors.toList());
+        return bookingResponseAssembler.toResponses(bookings);
     }
 
     @Override
     public List<BookingResponseDTO> getBookingsByFlight(String flightId) {
         List<Booking> bookings = bookingRepository.findByFlightIdAndIsDeleted(flightId, false);
-        return bookings.stream()
-                .map(this::convertToBookingResponseDTO)
-                .collect(Collectors.toList());
+        return bookingResponseAssembler.toResponses(bookings);
     }
 
     @Override
@@ -260,38 +379,48 @@ public class BookingRestServiceImpl implements BookingRestService {
 
     @Override
     public List<BookingResponseDTO> getBookingsByFlight(String flightId, Boolean includeDeleted, String search, String contactEmail, Integer status) {
-        List<Booking> bookings;
-        if (includeDeleted != null && includeDeleted) {
-            bookings = bookingRepository.findAll().stream()
-                    .filter(b -> flightId.equals(b.getFlightId()))
-                    .collect(Collectors.toList());
-        } else {
-            bookings = bookingRepository.findByFlightIdAndIsDeleted(flightId, false);
-        }
+        List<Booking> bookings = bookingRepository.findAll(
+                BookingSpecifications.matching(flightId, includeDeleted, search, contactEmail, status),
+                BookingSpecifications.LISTING_ORDER);
+        return bookingResponseAssembler.toResponses(bookings);
+    }
 
-        // Apply search filter (booking id or flight id)
-        if (search != null && !search.trim().isEmpty()) {
-            String s = search.trim().toLowerCase();
-            bookings = bookings.stream()
-                    .filter(b -> (b.getId() != null && b.getId().toLowerCase().contains(s)) || (b.getFlightId() != null && b.getFlightId().toLowerCase().contains(s)))
-                    .collect(Collectors.toList());
-        }
+    @Override
+    public BookingPageResponseDTO getBookingPage(String flightId, Boolean includeDeleted, String search, String contactEmail,
+                                                 Integer status, String cursor, Integer limit) {
+        return findBookingPage(BookingSpecifications.matching(flightId, includeDeleted, search, contactEmail, status), cursor, limit);
+    }
 
-        if (contactEmail != null && !contactEmail.isEmpty()) {
-            bookings = bookings.stream()
-                    .filter(b -> contactEmail.equals(b.getContactEmail()))
-                    .collect(Collectors.toList());
+    @Override
+    public BookingPageResponseDTO getCustomerBookingPage(String customerEmail, String flightId, String search, String contactEmail,
+                                                         Integer status, String cursor, Integer limit) {
+        // Ownership is part of the query, so only the customer's own rows are read and assembled
+        Specification<Booking> spec = BookingSpecifications.ownedBy(customerEmail)
+                .and(BookingSpecifications.matching(flightId, false, search, contactEmail, status));
+        return findBookingPage(spec, cursor, limit);
+    }
+
+    private BookingPageResponseDTO findBookingPage(Specification<Booking> spec, String cursor, Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
         }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
 
-        if (status != null) {
-            bookings = bookings.stream()
-                    .filter(b -> b.getStatus() != null && b.getStatus().equals(status))
-                    .collect(Collectors.toList());
+        if (cursor != null && !cursor.isBlank()) {
+            BookingCursor position = BookingCursor.decode(cursor);
+            spec = spec.and(BookingSpecifications.after(position.createdAt(), position.id()));
         }
 
-        return bookings.stream()
-                .map(this::convertToBookingResponseDTO)
-                .collect(Collectors.toList());
+        // One row past the page tells whether another page follows, without a count query
+        List<Booking> rows = bookingRepository.findBy(spec,
+                query -> query.sortBy(BookingSpecifications.LISTING_ORDER).limit(pageSize + 1).all());
+        boolean hasMore = rows.size() > pageSize;
+        List<Booking> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return BookingPageResponseDTO.builder()
+                .bookings(bookingResponseAssembler.toResponses(page))
+                .nextCursor(hasMore ? BookingCursor.of(page.get(pageSize - 1)).encode() : null)
+                .build();
     }
 
     @Override
@@ -302,7 +431,33 @@ public class BookingRestServiceImpl implements BookingRestService {
         }
         // Only return if not soft-deleted
         if (booking.getIsDeleted() != null && booking.getIsDeleted()) return null;
-        return convertToBookingResponseDTO(booking);
+
+        // The booking row is read every time; its updated_at decides whether the cached detail is still current
+        BookingResponseDTO cached = bookingDetailCache.get(id, booking.getUpdatedAt());
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = bookingDetailCache.stamp();
+        BookingResponseDTO response = bookingResponseAssembler.toResponses(List.of(booking)).get(0);
+        bookingDetailCache.put(response, booking.getUpdatedAt(), stamp);
+        return response;
+    }
+
+    /**
+     * Changes to one booking computed up front from its loaded state: passenger edits, links to drop,
+     * passengers to add, and the seats whose assignment changes. Validation happens while planning,
+     * so nothing is written for a request that is going to be rejected.
+     */
+    private record UpdatePlan(List<Passenger> updatedPassengers,
+                              List<UUID> removedPassengerIds,
+                              PassengerLinks newLinks,
+                              List<UUID> finalPassengerIds,
+                              List<Seat> seatWrites,
+                              List<UUID> unseatedPassengerIds) {
+    }
+
+    /** Passengers to insert and the passenger IDs to link, in request order. */
+    private record PassengerLinks(List<Passenger> created, Set<UUID> passengerIds) {
     }
 
     @Override
@@ -324,176 +479,194 @@ public class BookingRestServiceImpl implements BookingRestService {
             throw new IllegalStateException("Cannot update booking because flight is not scheduled or delayed");
         }
 
-        // Update contact information
-        booking = booking.toBuilder()
+        UpdatePlan plan = planUpdate(booking, dto);
+        bookingDetailCache.invalidate(booking.getId());
+        // Passengers are shared by passport; other bookings they are on keep their own updated_at
+        plan.updatedPassengers().forEach(p -> bookingDetailCache.invalidatePassenger(p.getId()));
+
+        // Seat counter and price follow the new passenger count
+        int oldCount = booking.getPassengerCount();
+        int newCount = plan.finalPassengerIds().size();
+        // Locked before the seat writes below, the same order a capacity change uses
+        ClassFlight cf = classFlightRepository.findByIdForUpdate(booking.getClassFlightId()).orElse(null);
+        if (newCount != oldCount) {
+            if (cf == null) throw new IllegalStateException("Class flight not found for booking");
+            int delta = newCount - oldCount;
+            if (delta > 0) {
+                if (classFlightRepository.decrementAvailableSeats(cf.getId(), delta) == 0) {
+                    throw new IllegalArgumentException("Not enough seats available for additional passengers");
+                }
+            } else {
+                classFlightRepository.incrementAvailableSeats(cf.getId(), -delta);
+            }
+            routeAvailabilityIndex.seatsChanged(cf.getId(), -delta);
+        }
+
+        applyUpdate(booking, plan);
+
+        booking = bookingRepository.save(booking.toBuilder()
                 .contactEmail(dto.getContactEmail())
                 .contactPhone(dto.getContactPhone())
-                .build();
+                .passengerCount(newCount)
+                // Keep pricing consistent with current class price
+                .totalPrice(cf != null ? cf.getPrice().multiply(BigDecimal.valueOf(newCount)) : booking.getTotalPrice())
+                .build());
 
-        booking = bookingRepository.save(booking);
+        return bookingResponseAssembler.toResponses(List.of(booking)).get(0);
+    }
 
-        // Update passengers if provided (add/update/remove) and recompute counts and pricing
-        {
-            // Current relations
-            List<BookingPassenger> currentBps = bookingPassengerRepository.findByBookingId(dto.getId());
-
-            java.util.Set<java.util.UUID> keepIds = new java.util.HashSet<>();
-            if (dto.getPassengers() != null) {
-                for (apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO upd : dto.getPassengers()) {
-                    Passenger p = passengerRepository.findById(upd.getId()).orElse(null);
-                    if (p == null) {
-                        throw new IllegalArgumentException("Passenger to update not found: " + upd.getId());
-                    }
-                    p = p.toBuilder()
-                            .fullName(upd.getFullName())
-                            .birthDate(upd.getBirthDate())
-                            .gender(upd.getGender())
-                            .idPassport(upd.getIdPassport())
-                            .build();
-                    passengerRepository.save(p);
-                    keepIds.add(upd.getId());
+    /**
+     * Loads the booking's links, the passengers to edit and the seat map once, and works out every
+     * change in memory.
+     */
+    private UpdatePlan planUpdate(Booking booking, UpdateBookingRequestDTO dto) {
+        // Link projection: loading BookingPassenger entities would pull each passenger in eagerly
+        List<UUID> currentIds = bookingPassengerRepository.findLinksByBookingIdIn(List.of(booking.getId())).stream()
+                .map(BookingPassengerLink::passengerId)
+                .toList();
+        Set<UUID> currentIdSet = new HashSet<>(currentIds);
+
+        // Passenger edits; passengers left out of a provided list are dropped from the booking
+        List<Passenger> updatedPassengers = new ArrayList<>();
+        Set<UUID> keepIds = new HashSet<>(currentIds);
+        if (dto.getPassengers() != null) {
+            keepIds.clear();
+            Map<UUID, UpdatePassengerRequestDTO> edits = new LinkedHashMap<>();
+            for (UpdatePassengerRequestDTO upd : dto.getPassengers()) {
+                if (!currentIdSet.contains(upd.getId())) {
+                    throw new IllegalArgumentException("Passenger to update not found: " + upd.getId());
                 }
+                edits.put(upd.getId(), upd);
             }
-
-            // Remove booking-passenger relations not in keepIds (only when passengers list provided)
-            if (dto.getPassengers() != null) {
-                for (BookingPassenger bp : currentBps) {
-                    if (!keepIds.contains(bp.getPassengerId())) {
-                        // Deallocate any seat tied to this passenger
-                        List<Seat> seatsOfPassenger = seatRepository.findAll().stream()
-                                .filter(s -> bp.getPassengerId().equals(s.getPassengerId()))
-                                .toList();
-                        for (Seat s : seatsOfPassenger) {
-                            s.setIsBooked(false);
-                            s.setPassengerId(null);
-                            seatRepository.save(s);
-                        }
-                        bookingPassengerRepository.delete(bp);
-                    }
+            Map<UUID, Passenger> loaded = passengerRepository.findAllById(edits.keySet()).stream()
+                    .collect(Collectors.toMap(Passenger::getId, p -> p));
+            for (UpdatePassengerRequestDTO upd : edits.values()) {
+                Passenger p = loaded.get(upd.getId());
+                if (p == null) {
+                    throw new IllegalArgumentException("Passenger to update not found: " + upd.getId());
                 }
+                updatedPassengers.add(p.toBuilder()
+                        .fullName(upd.getFullName())
+                        .birthDate(upd.getBirthDate())
+                        .gender(upd.getGender())
+                        .idPassport(upd.getIdPassport())
+                        .build());
+                keepIds.add(upd.getId());
             }
+        }
 
-            // Add new passengers if provided
-            if (dto.getNewPassengers() != null && !dto.getNewPassengers().isEmpty()) {
-                for (AddPassengerRequestDTO addP : dto.getNewPassengers()) {
-                    Passenger passenger;
-                    if (passengerRepository.existsByIdPassport(addP.getIdPassport())) {
-                        passenger = passengerRepository.findByIdPassport(addP.getIdPassport());
-                    } else {
-                        passenger = Passenger.builder()
-                                .id(java.util.UUID.randomUUID())
-                                .fullName(addP.getFullName())
-                                .birthDate(addP.getBirthDate())
-                                .gender(addP.getGender())
-                                .idPassport(addP.getIdPassport())
-                                .build();
-                        passenger = passengerRepository.save(passenger);
-                    }
-
-                    BookingPassenger newBp = BookingPassenger.builder()
-                            .bookingId(booking.getId())
-                            .passengerId(passenger.getId())
-                            .build();
-                    bookingPassengerRepository.save(newBp);
-                }
+        List<UUID> removedIds = currentIds.stream().filter(id -> !keepIds.contains(id)).toList();
+        List<UUID> finalIds = new ArrayList<>(currentIds.stream().filter(keepIds::contains).toList());
+        PassengerLinks newLinks = dto.getNewPassengers() != null && !dto.getNewPassengers().isEmpty()
+                ? resolvePassengers(dto.getNewPassengers(), keepIds)
+                : new PassengerLinks(List.of(), Set.of());
+        finalIds.addAll(newLinks.passengerIds());
+
+        // Seats of this booking's passengers on its class flight, from the in-memory seat map
+        Map<Integer, Seat> seatsById = new LinkedHashMap<>();
+        Map<UUID, Seat> seatByPassenger = new HashMap<>();
+        for (Seat seat : seatInventory.getSeatMap(booking.getClassFlightId())) {
+            seatsById.put(seat.getId(), seat);
+            if (seat.getPassengerId() != null && currentIdSet.contains(seat.getPassengerId())) {
+                seatByPassenger.putIfAbsent(seat.getPassengerId(), seat);
             }
+        }
 
-            // Recompute passenger count and adjust availability and pricing
-            int oldCount = booking.getPassengerCount();
-            int newCount = bookingPassengerRepository.findByBookingId(booking.getId()).size();
-            if (newCount != oldCount) {
-                ClassFlight cf = classFlightRepository.findById(booking.getClassFlightId()).orElse(null);
-                if (cf == null) throw new IllegalStateException("Class flight not found for booking");
-                int delta = newCount - oldCount;
-                if (delta > 0) {
-                    if (cf.getAvailableSeats() < delta) {
-                        throw new IllegalArgumentException("Not enough seats available for additional passengers");
-                    }
-                    cf.setAvailableSeats(cf.getAvailableSeats() - delta);
-                } else if (delta < 0) {
-                    cf.setAvailableSeats(cf.getAvailableSeats() + (-delta));
+        Map<Integer, Seat> seatWrites = new LinkedHashMap<>();
+        List<UUID> unseated = new ArrayList<>();
+        if (dto.getSeatIds() != null && !dto.getSeatIds().isEmpty()) {
+            validateRequestedSeats(dto.getSeatIds(), finalIds, seatsById, currentIdSet, booking.getClassFlightId());
+
+            // Release every seat of the booking, then assign the requested ones in passenger order
+            for (Seat seat : seatByPassenger.values()) {
+                seatWrites.put(seat.getId(), seat.toBuilder().isBooked(false).passengerId(null).build());
+            }
+            for (int i = 0; i < dto.getSeatIds().size(); i++) {
+                Seat seat = seatsById.get(dto.getSeatIds().get(i));
+                seatWrites.put(seat.getId(), seat.toBuilder().isBooked(true).passengerId(finalIds.get(i)).build());
+            }
+            // Seats that end up as they started need no write
+            seatWrites.values().removeIf(write -> {
+                Seat before = seatsById.get(write.getId());
+                return Objects.equals(before.getIsBooked(), write.getIsBooked()) && Objects.equals(before.getPassengerId(), write.getPassengerId());
+            });
+        } else {
+            for (UUID removedId : removedIds) {
+                Seat seat = seatByPassenger.get(removedId);
+                // A passenger dropped and added back in the same request keeps the seat
+                if (seat != null && !finalIds.contains(removedId)) {
+                    seatWrites.put(seat.getId(), seat.toBuilder().isBooked(false).passengerId(null).build());
                 }
-                classFlightRepository.save(cf);
-                booking = booking.toBuilder()
-                        .passengerCount(newCount)
-                        .totalPrice(cf.getPrice().multiply(java.math.BigDecimal.valueOf(newCount)))
-                        .build();
-                booking = bookingRepository.save(booking);
-            } else {
-                // Keep pricing consistent with current class price
-                ClassFlight cf = classFlightRepository.findById(booking.getClassFlightId()).orElse(null);
-                if (cf != null) {
-                    booking = booking.toBuilder()
-                            .totalPrice(cf.getPrice().multiply(java.math.BigDecimal.valueOf(booking.getPassengerCount())))
-                            .build();
-                    booking = bookingRepository.save(booking);
+            }
+            // Passengers without a seat on this class flight get one picked by the allocator
+            for (UUID id : finalIds) {
+                if (!seatByPassenger.containsKey(id)) {
+                    unseated.add(id);
                 }
             }
         }
 
-        // Update seat allocations if provided, else ensure new passengers have seats
-        if (dto.getSeatIds() != null && !dto.getSeatIds().isEmpty()) {
-            // Validate provided seats length matches current passengerCount
-            if (dto.getSeatIds().size() != booking.getPassengerCount()) {
-                throw new IllegalArgumentException("Number of seat IDs must match current passenger count");
-            }
+        return new UpdatePlan(updatedPassengers, removedIds, newLinks, finalIds, new ArrayList<>(seatWrites.values()), unseated);
+    }
 
-            // Validate distinct seat IDs
-            java.util.Set<Integer> distinctSeatIds = new java.util.HashSet<>(dto.getSeatIds());
-            if (distinctSeatIds.size() != dto.getSeatIds().size()) {
-                throw new IllegalArgumentException("Duplicate seat IDs provided");
-            }
+    private void validateRequestedSeats(List<Integer> seatIds, List<UUID> finalIds, Map<Integer, Seat> seatsById,
+                                        Set<UUID> currentIds, Integer classFlightId) {
+        // Validate provided seats length matches current passengerCount
+        if (seatIds.size() != finalIds.size()) {
+            throw new IllegalArgumentException("Number of seat IDs must match current passenger count");
+        }
 
-            // Build current passenger id set for this booking (after add/remove above)
-            java.util.List<BookingPassenger> allBps = bookingPassengerRepository.findByBookingId(booking.getId());
-            java.util.Set<java.util.UUID> bpIds = allBps.stream()
-                    .map(BookingPassenger::getPassengerId)
-                    .collect(java.util.stream.Collectors.toSet());
+        // Validate distinct seat IDs
+        if (new HashSet<>(seatIds).size() != seatIds.size()) {
+            throw new IllegalArgumentException("Duplicate seat IDs provided");
+        }
 
-            // Validate each requested seat:
-            // - belongs to the same classFlight
-            // - either unbooked OR currently booked by a passenger of this booking (allow remap)
-            for (Integer seatId : dto.getSeatIds()) {
-                Seat seat = seatRepository.findById(seatId).orElse(null);
-                if (seat == null) {
-                    throw new IllegalArgumentException("Seat with ID " + seatId + " does not exist");
-                }
-                if (!seat.getClassFlightId().equals(booking.getClassFlightId())) {
-                    throw new IllegalArgumentException("Seat with ID " + seatId + " does not belong to the booking's class flight");
-                }
-                if (Boolean.TRUE.equals(seat.getIsBooked())) {
-                    if (seat.getPassengerId() == null || !bpIds.contains(seat.getPassengerId())) {
-                        throw new IllegalArgumentException("Seat with ID " + seatId + " is already booked");
-                    }
-                }
+        // Seats missing from the seat map either do not exist or belong to another class flight
+        Integer unknown = seatIds.stream().filter(id -> !seatsById.containsKey(id)).findFirst().orElse(null);
+        if (unknown != null) {
+            if (!seatRepository.existsById(unknown)) {
+                throw new IllegalArgumentException("Seat with ID " + unknown + " does not exist");
             }
+            throw new IllegalArgumentException("Seat with ID " + unknown + " does not belong to the booking's class flight");
+        }
 
-            // Deallocate old seats and allocate new ones (preserve passenger mapping order)
-            deallocateSeats(dto.getId());
-            allocateSeatsToPassengers(dto.getId(), dto.getSeatIds());
-        } else {
-            // If passenger count increased or some passengers have no seats, allocate missing seats automatically
-            java.util.List<BookingPassenger> allBps = bookingPassengerRepository.findByBookingId(booking.getId());
-            java.util.Set<java.util.UUID> bpIds = allBps.stream()
-                    .map(BookingPassenger::getPassengerId)
-                    .collect(java.util.stream.Collectors.toSet());
-
-            final Integer classFlightIdForFilter = booking.getClassFlightId();
-            long bookedSeatsForBooking = seatRepository.findAll().stream()
-                    .filter(s -> s.getClassFlightId().equals(classFlightIdForFilter)
-                            && s.getPassengerId() != null
-                            && bpIds.contains(s.getPassengerId()))
-                    .count();
-
-            int missing = booking.getPassengerCount() - (int) bookedSeatsForBooking;
-            if (missing > 0) {
-                allocateSeats(booking.getId(), missing, booking.getClassFlightId());
+        // Each seat is either unbooked (and not held) or booked by a passenger of this booking (remap)
+        Set<UUID> bookingIds = new HashSet<>(currentIds);
+        bookingIds.addAll(finalIds);
+        for (Integer seatId : seatIds) {
+            Seat seat = seatsById.get(seatId);
+            if (Boolean.TRUE.equals(seat.getIsBooked())) {
+                if (seat.getPassengerId() == null || !bookingIds.contains(seat.getPassengerId())) {
+                    throw new IllegalArgumentException("Seat with ID " + seatId + " is already booked");
+                }
+            } else if (seatHoldRegistry.isHeld(seatId)) {
+                throw new IllegalArgumentException("Seat with ID " + seatId + " is currently held by another customer");
             }
         }
+    }
 
-        return convertToBookingResponseDTO(booking);
+    /** Writes a plan: one statement or batch per kind of change. */
+    private void applyUpdate(Booking booking, UpdatePlan plan) {
+        if (!plan.updatedPassengers().isEmpty()) {
+            passengerRepository.saveAll(plan.updatedPassengers());
+        }
+        if (!plan.removedPassengerIds().isEmpty()) {
+            bookingPassengerRepository.deleteLinks(booking.getId(), plan.removedPassengerIds());
+        }
+        linkPassengers(booking.getId(), plan.newLinks());
+        seatInventory.saveAll(booking.getClassFlightId(), plan.seatWrites());
+
+        if (!plan.unseatedPassengerIds().isEmpty()) {
+            List<Seat> allocated = seatInventory.allocate(booking.getClassFlightId(), plan.unseatedPassengerIds().size(), seatHoldRegistry::isHeld);
+            for (int i = 0; i < allocated.size(); i++) {
+                allocated.get(i).setIsBooked(true);
+                allocated.get(i).setPassengerId(plan.unseatedPassengerIds().get(i));
+            }
+            seatInventory.saveAll(booking.getClassFlightId(), allocated);
+        }
     }
 
+
     @Override
     @Transactional
     public BookingResponseDTO deleteBooking(String id) {
@@ -518,22 +691,22 @@ public class BookingRestServiceImpl implements BookingRestService {
         }
         // TODO: refund handling for Paid status (booking.status == 2)
 
+        bookingDetailCache.invalidate(id);
+        lockClassFlights(Collections.singleton(booking.getClassFlightId()));
+
         // Deallocate seats
         deallocateSeats(id);
 
         // Restore available seats
-        ClassFlight classFlight = classFlightRepository.findById(booking.getClassFlightId()).orElse(null);
-        if (classFlight != null) {
-            classFlight.setAvailableSeats(classFlight.getAvailableSeats() + booking.getPassengerCount());
-            classFlightRepository.save(classFlight);
-        }
+        classFlightRepository.incrementAvailableSeats(booking.getClassFlightId(), booking.getPassengerCount());
+        routeAvailabilityIndex.seatsChanged(booking.getClassFlightId(), booking.getPassengerCount());
 
         // Soft delete booking
         booking.setIsDeleted(true);
         booking.setStatus(3); // Cancelled
         booking = bookingRepository.save(booking);
 
-        return convertToBookingResponseDTO(booking);
+        return bookingResponseAssembler.toResponses(List.of(booking)).get(0);
     }
 
     @Override
@@ -545,155 +718,119 @@ public class BookingRestServiceImpl implements BookingRestService {
     }
 
     private String generateBookingCode(String flightId) {
-        String prefix = flightId + "-" +
-                       flightRepository.findById(flightId).get().getOriginAirportCode() + "-" +
-                       flightRepository.findById(flightId).get().getDestinationAirportCode();
+        Flight flight = flightRepository.findById(flightId).get();
+        String prefix = flightId + "-" + flight.getOriginAirportCode() + "-" + flight.getDestinationAirportCode();
 
-        Integer maxNumber = bookingRepository.findMaxBookingNumberByPrefix(prefix + "-");
-        int nextNumber = (maxNumber != null) ? maxNumber + 1 : 1;
+        // Numbers come from the route's counter; existing codes only seed a counter created for the first time
+        long nextNumber = idAllocator.next(BOOKING_SEQUENCE + prefix, () -> {
+            Integer maxNumber = bookingRepository.findMaxBookingNumberByPrefix(prefix + "-");
+            return maxNumber != null ? maxNumber : 0;
+        });
 
         return String.format("%s-%03d", prefix, nextNumber);
     }
 
-    private void allocateSeats(String bookingId, Integer passengerCount, Integer classFlightId) {
-        // Find available seats in the class flight (stable order)
-        List<Seat> availableSeats = seatRepository.findAll().stream()
-                .filter(seat -> seat.getClassFlightId().equals(classFlightId) && !seat.getIsBooked())
-                .sorted(java.util.Comparator.comparing(Seat::getSeatCode))
-                .limit(passengerCount)
-                .toList();
+    /**
+     * Resolves the requested passengers by passport in one query, creating the unknown ones, and
+     * returns which of them still need a link to the booking.
+     */
+    private PassengerLinks resolvePassengers(List<AddPassengerRequestDTO> passengerDtos, Set<UUID> linkedIds) {
+        Map<String, Passenger> byPassport = new HashMap<>();
+        for (Passenger existing : passengerRepository.findByIdPassportIn(
+                passengerDtos.stream().map(AddPassengerRequestDTO::getIdPassport).distinct().toList())) {
+            byPassport.put(existing.getIdPassport(), existing);
+        }
+
+        List<Passenger> created = new ArrayList<>();
+        // A passport listed twice still maps to a single passenger and link
+        Set<UUID> passengerIds = new LinkedHashSet<>();
+        for (AddPassengerRequestDTO passengerDto : passengerDtos) {
+            Passenger passenger = byPassport.computeIfAbsent(passengerDto.getIdPassport(), idPassport -> {
+                Passenger fresh = Passenger.builder()
+                        .id(UUID.randomUUID())
+                        .fullName(passengerDto.getFullName())
+                        .birthDate(passengerDto.getBirthDate())
+                        .gender(passengerDto.getGender())
+                        .idPassport(idPassport)
+                        .build();
+                created.add(fresh);
+                return fresh;
+            });
+            if (!linkedIds.contains(passenger.getId())) {
+                passengerIds.add(passenger.getId());
+            }
+        }
+        return new PassengerLinks(created, passengerIds);
+    }
+
+    /** Inserts the new passengers and the booking links, one batch each whatever the passenger count. */
+    private void linkPassengers(String bookingId, PassengerLinks links) {
+        if (links.passengerIds().isEmpty()) {
+            return;
+        }
+        passengerRepository.insertPassengers(links.created());
+        bookingPassengerRepository.insertLinks(bookingId, links.passengerIds());
+    }
 
-        // Map seats to passengers in deterministic order for this booking
-        List<BookingPassenger> bookingPassengers = bookingPassengerRepository.findByBookingId(bookingId);
+    private void allocateSeats(List<UUID> passengerIds, Integer passengerCount, Integer classFlightId, Set<Integer> reservedSeatIds) {
+        // Let the seat allocator pick seats from the in-memory seat map (adjacent seats by default), skipping held seats
+        // and seats reserved for other bookings of the same batch
+        List<Seat> availableSeats = seatInventory.allocate(classFlightId, passengerCount,
+                seatId -> reservedSeatIds.contains(seatId) || seatHoldRegistry.isHeld(seatId));
 
+        // Seats go to the passengers in request order, written in one batch
         for (int i = 0; i < availableSeats.size(); i++) {
             Seat seat = availableSeats.get(i);
             seat.setIsBooked(true);
-            if (i < bookingPassengers.size()) {
-                seat.setPassengerId(bookingPassengers.get(i).getPassengerId());
+            if (i < passengerIds.size()) {
+                seat.setPassengerId(passengerIds.get(i));
             }
-            seatRepository.save(seat);
         }
+        seatInventory.saveAll(classFlightId, availableSeats);
     }
 
-    private void allocateSeatsToPassengers(String bookingId, List<Integer> seatIds) {
-        // Get the passengers that were created for this booking
-        List<BookingPassenger> bookingPassengers = bookingPassengerRepository.findByBookingId(bookingId);
+    private void allocateSeatsToPassengers(Integer classFlightId, List<Integer> seatIds, List<UUID> passengerIds) {
+        Map<Integer, Seat> seatMap = new HashMap<>();
+        for (Seat seat : seatInventory.getSeatMap(classFlightId)) {
+            seatMap.put(seat.getId(), seat);
+        }
 
-        for (int i = 0; i < seatIds.size() && i < bookingPassengers.size(); i++) {
+        List<Seat> assigned = new ArrayList<>();
+        for (int i = 0; i < seatIds.size() && i < passengerIds.size(); i++) {
             Integer seatId = seatIds.get(i);
-            UUID passengerId = bookingPassengers.get(i).getPassengerId();
 
-            Seat seat = seatRepository.findById(seatId).orElse(null);
-            if (seat != null && !seat.getIsBooked()) {
-                seat.setIsBooked(true);
-                seat.setPassengerId(passengerId);
-                seatRepository.save(seat);
+            // Validated earlier in the transaction; a seat gone since then fails the booking instead of dropping a passenger
+            Seat seat = seatMap.get(seatId);
+            if (seat == null) {
+                throw new IllegalArgumentException("Seat with ID " + seatId + " does not exist");
+            }
+            if (Boolean.TRUE.equals(seat.getIsBooked())) {
+                throw new IllegalArgumentException("Seat with ID " + seatId + " is already booked");
             }
+            seat.setIsBooked(true);
+            seat.setPassengerId(passengerIds.get(i));
+            assigned.add(seat);
         }
+        seatInventory.saveAll(classFlightId, assigned);
     }
 
     private void deallocateSeats(String bookingId) {
         // Find all seats allocated to passengers in this booking
-        List<BookingPassenger> bookingPassengers = bookingPassengerRepository.findByBookingId(bookingId);
-
-        for (BookingPassenger bp : bookingPassengers) {
-            // Find seats assigned to this passenger
-            List<Seat> passengerSeats = seatRepository.findAll().stream()
-                    .filter(seat -> bp.getPassengerId().equals(seat.getPassengerId()))
-                    .toList();
-
-            // Deallocate seats
-            for (Seat seat : passengerSeats) {
-                seat.setIsBooked(false);
-                seat.setPassengerId(null);
-                seatRepository.save(seat);
-            }
+        List<UUID> passengerIds = bookingPassengerRepository.findByBookingId(bookingId).stream()
+                .map(BookingPassenger::getPassengerId)
+                .toList();
+        if (passengerIds.isEmpty()) {
+            return;
         }
-    }
 
-    private BookingResponseDTO convertToBookingResponseDTO(Booking booking) {
-        // Get passengers for this booking through BookingPassenger junction table
-        List<PassengerResponseDTO> passengers = getPassengersForBooking(booking.getId());
-
-        // Resolve class type for readability
-        ClassFlight cf = classFlightRepository.findById(booking.getClassFlightId()).orElse(null);
-        String classType = (cf != null) ? cf.getClassType() : null;
-
-        // Build seat assignments for booking detail display
-        List<apap.ti._5.flight_2306211660_be.restdto.response.booking.PassengerSeatAssignmentResponseDTO> seatAssignments =
-                getSeatAssignmentsForBooking(booking.getId(), booking.getClassFlightId());
-
-        return BookingResponseDTO.builder()
-                .id(booking.getId())
-                .flightId(booking.getFlightId())
-            .route((flightRepository.findById(booking.getFlightId()).isPresent()) ?
-                (flightRepository.findById(booking.getFlightId()).get().getOriginAirportCode() + "-" + flightRepository.findById(booking.getFlightId()).get().getDestinationAirportCode()) : null)
-                .classFlightId(booking.getClassFlightId())
-                .classType(classType)
-                .contactEmail(booking.getContactEmail())
-                .contactPhone(booking.getContactPhone())
-                .passengerCount(booking.getPassengerCount())
-                .status(booking.getStatus())
-                .totalPrice(booking.getTotalPrice())
-                .createdAt(booking.getCreatedAt())
-                .updatedAt(booking.getUpdatedAt())
-                .isDeleted(booking.getIsDeleted())
-                .passengers(passengers)
-                .seatAssignments(seatAssignments)
-                .build();
-    }
-
-    private List<PassengerResponseDTO> getPassengersForBooking(String bookingId) {
-        // Get booking-passenger relationships
-        List<BookingPassenger> bookingPassengers = bookingPassengerRepository.findByBookingId(bookingId);
-
-        // Convert to passenger response DTOs
-        return bookingPassengers.stream()
-                .map(bp -> {
-                    Passenger passenger = passengerRepository.findById(bp.getPassengerId()).orElse(null);
-                    if (passenger != null) {
-                        return PassengerResponseDTO.builder()
-                                .id(passenger.getId())
-                                .fullName(passenger.getFullName())
-                                .birthDate(passenger.getBirthDate())
-                                .gender(passenger.getGender())
-                                .idPassport(passenger.getIdPassport())
-                                .createdAt(passenger.getCreatedAt())
-                                .updatedAt(passenger.getUpdatedAt())
-                                .build();
-                    }
-                    return null;
-                })
-                .filter(java.util.Objects::nonNull)
-                .collect(java.util.stream.Collectors.toList());
+        // Deallocate seats assigned to these passengers
+        for (Seat seat : seatRepository.findByPassengerIdIn(passengerIds)) {
+            seat.setIsBooked(false);
+            seat.setPassengerId(null);
+            seatInventory.save(seat);
+        }
     }
 
-    private List<apap.ti._5.flight_2306211660_be.restdto.response.booking.PassengerSeatAssignmentResponseDTO> getSeatAssignmentsForBooking(String bookingId, Integer classFlightId) {
-        List<BookingPassenger> bookingPassengers = bookingPassengerRepository.findByBookingId(bookingId);
-        List<Seat> seats = seatRepository.findAll().stream()
-                .filter(seat -> seat.getClassFlightId().equals(classFlightId) && seat.getIsBooked() && seat.getPassengerId() != null)
-                .toList();
-
-        return bookingPassengers.stream()
-                .map(bp -> {
-                    var seatOpt = seats.stream()
-                            .filter(s -> bp.getPassengerId().equals(s.getPassengerId()))
-                            .findFirst();
-                    if (seatOpt.isPresent()) {
-                        Seat s = seatOpt.get();
-                        Passenger p = passengerRepository.findById(bp.getPassengerId()).orElse(null);
-                        String pname = (p != null) ? p.getFullName() : null;
-                        return new apap.ti._5.flight_2306211660_be.restdto.response.booking.PassengerSeatAssignmentResponseDTO(
-                                bp.getPassengerId(), s.getId(), s.getSeatCode(), pname
-                        );
-                    }
-                    return null;
-                })
-                .filter(java.util.Objects::nonNull)
-                .collect(java.util.stream.Collectors.toList());
-    }
- 
     @Override
     @Transactional
     public BookingResponseDTO confirmPayment(ConfirmPaymentRequestDTO dto) {
@@ -702,12 +839,13 @@ public class BookingRestServiceImpl implements BookingRestService {
         // Fetch booking and update status to Paid (2)
         Booking booking = bookingRepository.findById(bookingId).orElse(null);
         if (booking != null) {
+            bookingDetailCache.invalidate(bookingId);
             booking.setStatus(2); // Paid
             booking = bookingRepository.save(booking);
             logger.info("Booking {} status updated to Paid", bookingId);
         }
         
-        return booking != null ? convertToBookingResponseDTO(booking) : null;
+        return booking != null ? bookingResponseAssembler.toResponses(List.of(booking)).get(0) : null;
     }
 
     @Override
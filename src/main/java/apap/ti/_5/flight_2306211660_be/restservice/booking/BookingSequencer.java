@@ -0,0 +1,169 @@
+package apap.ti._5.flight_2306211660_be.restservice.booking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import apap.ti._5.flight_2306211660_be.restdto.request.booking.AddBookingRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional single-writer path for booking creation (booking.sequencer.enabled). Requests are queued
+ * per flight and one drainer per flight turns whatever has queued up into a batch committed in a
+ * single transaction, so a sale no longer means one transaction per booking fighting over the same
+ * class flight row. When disabled, bookings go straight to {@link BookingRestService#createBooking}.
+ */
+@Component
+public class BookingSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingSequencer.class);
+
+    private final BookingRestService bookingRestService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final ExecutorService drainers;
+    private final ConcurrentMap<String, FlightQueue> queues = new ConcurrentHashMap<>();
+
+    /** Pending bookings of one flight; at most one drainer works on a queue at a time. */
+    private static final class FlightQueue {
+        private final ConcurrentLinkedQueue<PendingBooking> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    private record PendingBooking(AddBookingRequestDTO dto, CompletableFuture<BookingResponseDTO> result) {
+    }
+
+    @Autowired
+    public BookingSequencer(BookingRestService bookingRestService,
+                            @Value("${booking.sequencer.enabled:false}") boolean enabled,
+                            @Value("${booking.sequencer.max-batch-size:32}") int maxBatchSize) {
+        this(bookingRestService, enabled, maxBatchSize, Executors.newCachedThreadPool(new DrainerThreadFactory()));
+    }
+
+    public BookingSequencer(BookingRestService bookingRestService, boolean enabled, int maxBatchSize, ExecutorService drainers) {
+        this.bookingRestService = bookingRestService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.drainers = drainers;
+    }
+
+    @PreDestroy
+    void stop() {
+        drainers.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Creates the booking and waits for the result. Errors surface as the same exceptions
+     * {@link BookingRestService#createBooking} throws.
+     */
+    public BookingResponseDTO createBooking(AddBookingRequestDTO dto) {
+        if (!enabled) {
+            return bookingRestService.createBooking(dto);
+        }
+        try {
+            return submit(dto).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /** Queues the booking on its flight; the future completes after the batch holding it commits. */
+    public CompletableFuture<BookingResponseDTO> submit(AddBookingRequestDTO dto) {
+        CompletableFuture<BookingResponseDTO> result = new CompletableFuture<>();
+        FlightQueue queue = queues.computeIfAbsent(dto.getFlightId(), id -> new FlightQueue());
+        queue.pending.add(new PendingBooking(dto, result));
+        scheduleDrain(queue);
+        return result;
+    }
+
+    private void scheduleDrain(FlightQueue queue) {
+        if (queue.draining.compareAndSet(false, true)) {
+            drainers.execute(() -> drain(queue));
+        }
+    }
+
+    private void drain(FlightQueue queue) {
+        try {
+            List<PendingBooking> batch;
+            while (!(batch = nextBatch(queue)).isEmpty()) {
+                runBatch(batch);
+            }
+        } finally {
+            queue.draining.set(false);
+        }
+        // A request queued after the last poll but before the flag was cleared still needs a drainer
+        if (!queue.pending.isEmpty()) {
+            scheduleDrain(queue);
+        }
+    }
+
+    private List<PendingBooking> nextBatch(FlightQueue queue) {
+        List<PendingBooking> batch = new ArrayList<>();
+        PendingBooking next;
+        while (batch.size() < maxBatchSize && (next = queue.pending.poll()) != null) {
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void runBatch(List<PendingBooking> batch) {
+        List<BookingBatchResult> results;
+        try {
+            results = bookingRestService.createBookings(batch.stream().map(PendingBooking::dto).toList());
+        } catch (RuntimeException ex) {
+            // The batch rolled back as a whole; fall back to one transaction per booking
+            logger.warn("Booking batch of {} failed, retrying individually: {}", batch.size(), ex.getMessage());
+            for (PendingBooking pending : batch) {
+                try {
+                    pending.result().complete(bookingRestService.createBooking(pending.dto()));
+                } catch (RuntimeException single) {
+                    pending.result().completeExceptionally(single);
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            BookingBatchResult result = results.get(i);
+            if (result.isSuccess()) {
+                batch.get(i).result().complete(result.getBooking());
+            } else {
+                batch.get(i).result().completeExceptionally(result.getError());
+            }
+        }
+    }
+
+    private static final class DrainerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "booking-sequencer-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
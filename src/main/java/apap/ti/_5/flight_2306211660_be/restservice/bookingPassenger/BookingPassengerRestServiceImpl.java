@@ -13,6 +13,7 @@ import apap.ti._5.flight_2306211660_be.repository.BookingPassengerRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.bookingPassenger.AddBookingPassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.bookingPassenger.UpdateBookingPassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.bookingPassanger.BookingPassengerResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
 
 @Service
 public class BookingPassengerRestServiceImpl implements BookingPassengerRestService {
@@ -20,6 +21,9 @@ public class BookingPassengerRestServiceImpl implements BookingPassengerRestServ
     @Autowired
     private BookingPassengerRepository bookingPassengerRepository;
 
+    @Autowired
+    private BookingDetailCache bookingDetailCache;
+
     @Override
     public BookingPassengerResponseDTO createBookingPassenger(AddBookingPassengerRequestDTO dto) {
         BookingPassengerId id = new BookingPassengerId(dto.getBookingId(), dto.getPassengerId());
@@ -30,6 +34,7 @@ public class BookingPassengerRestServiceImpl implements BookingPassengerRestServ
                 .build();
 
         bookingPassenger = bookingPassengerRepository.save(bookingPassenger);
+        bookingDetailCache.invalidate(bookingPassenger.getBookingId());
         return convertToBookingPassengerResponseDTO(bookingPassenger);
     }
 
@@ -74,6 +79,7 @@ public class BookingPassengerRestServiceImpl implements BookingPassengerRestServ
         }
 
         bookingPassenger = bookingPassengerRepository.save(bookingPassenger);
+        bookingDetailCache.invalidate(bookingPassenger.getBookingId());
         return convertToBookingPassengerResponseDTO(bookingPassenger);
     }
 
@@ -86,6 +92,7 @@ public class BookingPassengerRestServiceImpl implements BookingPassengerRestServ
         }
 
         bookingPassengerRepository.delete(bookingPassenger);
+        bookingDetailCache.invalidate(bookingId);
         return convertToBookingPassengerResponseDTO(bookingPassenger);
     }
 
@@ -18,6 +18,9 @@ public interface ClassFlightRestService {
 
     ClassFlightResponseDTO getClassFlightDetail(Integer id);
 
+    // Detail with the seats as a compact run-length seat map instead of one DTO per seat
+    ClassFlightResponseDTO getClassFlightDetail(Integer id, boolean compactSeatMap);
+
     ClassFlightResponseDTO updateClassFlight(UpdateClassFlightRequestDTO dto);
 
     ClassFlightResponseDTO deleteClassFlight(Integer id);
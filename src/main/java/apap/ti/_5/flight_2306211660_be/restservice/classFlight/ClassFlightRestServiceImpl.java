@@ -1,21 +1,22 @@
 package apap.ti._5.flight_2306211660_be.restservice.classFlight;
 
-import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import apap.ti._5.flight_2306211660_be.model.ClassFlight;
-import apap.ti._5.flight_2306211660_be.model.Seat;
 import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
 import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.classFlight.AddClassFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.classFlight.UpdateClassFlightRequestDTO;
-import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.classFlight.ClassFlightResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
 import apap.ti._5.flight_2306211660_be.restservice.seat.SeatRestService;
 
 @Service
@@ -24,11 +25,17 @@ public class ClassFlightRestServiceImpl implements ClassFlightRestService {
     @Autowired
     private ClassFlightRepository classFlightRepository;
 
+    @Autowired
+    private SeatRepository seatRepository;
+
     @Autowired
     private SeatRestService seatRestService;
 
     @Autowired
-    private SeatRepository seatRepository;
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private RouteAvailabilityIndex routeAvailabilityIndex;
 
     @Override
     public ClassFlightResponseDTO createClassFlight(AddClassFlightRequestDTO dto) {
@@ -40,7 +47,9 @@ public class ClassFlightRestServiceImpl implements ClassFlightRestService {
                 .price(dto.getPrice())
                 .build();
 
-        return convertToClassFlightResponseDTO(classFlightRepository.save(classFlight));
+        classFlight = classFlightRepository.save(classFlight);
+        routeAvailabilityIndex.flightChanged(classFlight.getFlightId());
+        return convertToClassFlightResponseDTO(classFlight);
     }
 
     @Override
@@ -53,9 +62,8 @@ public class ClassFlightRestServiceImpl implements ClassFlightRestService {
 
     @Override
     public List<ClassFlightResponseDTO> getClassFlightsByFlight(String flightId) {
-        List<ClassFlight> classFlights = classFlightRepository.findAll();
+        List<ClassFlight> classFlights = classFlightRepository.findByFlightId(flightId);
         return classFlights.stream()
-                .filter(cf -> flightId.equals(cf.getFlightId()))
                 .map(this::convertToClassFlightResponseDTO)
                 .collect(Collectors.toList());
     }
@@ -71,80 +79,62 @@ public class ClassFlightRestServiceImpl implements ClassFlightRestService {
 
     @Override
     public ClassFlightResponseDTO getClassFlightDetail(Integer id) {
+        return getClassFlightDetail(id, false);
+    }
+
+    @Override
+    public ClassFlightResponseDTO getClassFlightDetail(Integer id, boolean compactSeatMap) {
         ClassFlight classFlight = classFlightRepository.findById(id).orElse(null);
         if (classFlight == null) {
             return null;
         }
+        if (compactSeatMap) {
+            ClassFlightResponseDTO response = convertToClassFlightResponseDTO(classFlight);
+            response.setSeatMap(seatRestService.getCompactSeatMap(classFlight.getId()));
+            return response;
+        }
         return convertToClassFlightDetailResponseDTO(classFlight);
     }
 
     @Override
+    @Transactional
     public ClassFlightResponseDTO updateClassFlight(UpdateClassFlightRequestDTO dto) {
-        ClassFlight classFlight = classFlightRepository.findById(dto.getId()).orElse(null);
+        // Row lock on the class flight before any seat is touched; booking writes take the same lock first,
+        // so they and other resizes wait until this one commits
+        ClassFlight classFlight = classFlightRepository.findByIdForUpdate(dto.getId()).orElse(null);
 
         if (classFlight == null) return null;
 
         int oldCap = classFlight.getSeatCapacity();
         int newCap = dto.getSeatCapacity();
-
-        // Fetch existing seats for this class flight
         final Integer classFlightId = classFlight.getId();
-        List<Seat> existingSeats = seatRepository.findAll().stream()
-                .filter(seat -> seat.getClassFlightId().equals(classFlightId))
-                .sorted(Comparator.comparing(Seat::getSeatCode))
-                .toList();
 
         // Validation: new capacity cannot be less than currently booked seats
-        long bookedCount = existingSeats.stream()
-                .filter(s -> Boolean.TRUE.equals(s.getIsBooked()))
-                .count();
+        long bookedCount = seatRepository.countByClassFlightIdAndIsBooked(classFlightId, true);
         if (newCap < bookedCount) {
             throw new IllegalStateException("Cannot set seat capacity below currently booked seats (" + bookedCount + ")");
         }
 
         if (newCap > oldCap) {
-            // Add new seats with sequential codes
-            String classType = classFlight.getClassType() == null ? "" : classFlight.getClassType().toLowerCase();
-            String prefix;
-            switch (classType) {
-                case "economy": prefix = "EC"; break;
-                case "business": prefix = "BU"; break;
-                case "first": prefix = "FI"; break;
-                default: prefix = "EC"; break;
-            }
-            for (int i = oldCap + 1; i <= newCap; i++) {
-                String code = String.format("%s%03d", prefix, i);
-                AddSeatRequestDTO seatDto = AddSeatRequestDTO.builder()
-                        .classFlightId(classFlight.getId())
-                        .seatCode(code)
-                        .build();
-                seatRestService.createSeat(seatDto);
-            }
+            // Add new seats with sequential codes in one batch
+            seatRestService.generateSeats(classFlightId, classFlight.getClassType(), oldCap + 1, newCap);
         } else if (newCap < oldCap) {
-            // Determine seats to remove: choose highest-numbered UNBOOKED seats only
+            // Remove the highest-numbered UNBOOKED seats in a single DELETE ... WHERE id IN
             int seatsToRemove = oldCap - newCap;
-
-            List<Seat> removable = existingSeats.stream()
-                    .filter(s -> !Boolean.TRUE.equals(s.getIsBooked()))
-                    .sorted(Comparator.comparing(Seat::getSeatCode).reversed())
-                    .limit(seatsToRemove)
-                    .toList();
+            List<Integer> removable = seatRepository.findFreeTailSeatIds(classFlightId, Limit.of(seatsToRemove));
 
             if (removable.size() < seatsToRemove) {
                 throw new IllegalStateException("Cannot decrease seat capacity: not enough unbooked tail seats available to remove");
             }
 
-            // Delete the selected seats
-            for (Seat s : removable) {
-                seatRepository.delete(s);
+            // A seat booked between the lookup and the delete stays; the resize then fails instead of shrinking short
+            if (seatInventory.deleteFreeSeats(classFlightId, removable) < seatsToRemove) {
+                throw new IllegalStateException("Cannot decrease seat capacity: seats were booked while resizing, try again");
             }
         }
 
         // Recalculate available seats after adjustments
-        List<Seat> seatsAfter = seatRepository.findAll().stream()
-                .filter(seat -> seat.getClassFlightId().equals(classFlightId))
-                .toList();
-        int availableSeats = (int) seatsAfter.stream().filter(seat -> !Boolean.TRUE.equals(seat.getIsBooked())).count();
+        int availableSeats = (int) seatRepository.countByClassFlightIdAndIsBooked(classFlightId, false);
 
         classFlight = classFlight.toBuilder()
                 .seatCapacity(newCap)
@@ -152,7 +142,9 @@ public class ClassFlightRestServiceImpl implements ClassFlightRestService {
                 .price(dto.getPrice())
                 .build();
 
-        return convertToClassFlightResponseDTO(classFlightRepository.save(classFlight));
+        classFlight = classFlightRepository.save(classFlight);
+        routeAvailabilityIndex.flightChanged(classFlight.getFlightId());
+        return convertToClassFlightResponseDTO(classFlight);
     }
 
     @Override
@@ -163,6 +155,8 @@ public class ClassFlightRestServiceImpl implements ClassFlightRestService {
         }
 
         classFlightRepository.delete(classFlight);
+        seatInventory.evict(List.of(id));
+        routeAvailabilityIndex.flightChanged(classFlight.getFlightId());
         return convertToClassFlightResponseDTO(classFlight);
     }
 
@@ -0,0 +1,39 @@
+package apap.ti._5.flight_2306211660_be.restservice.flight;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import apap.ti._5.flight_2306211660_be.model.Flight;
+
+/**
+ * Position in the flight search: the (departureTime, id) of the last flight of a page.
+ * Sent to clients as an opaque URL-safe string.
+ */
+public record FlightCursor(LocalDateTime departureTime, String id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static FlightCursor of(Flight flight) {
+        return new FlightCursor(flight.getDepartureTime(), flight.getId());
+    }
+
+    public String encode() {
+        String raw = departureTime + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FlightCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid flight cursor");
+            }
+            return new FlightCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid flight cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package apap.ti._5.flight_2306211660_be.restservice.flight;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import apap.ti._5.flight_2306211660_be.model.Airport;
+import apap.ti._5.flight_2306211660_be.model.Flight;
+import apap.ti._5.flight_2306211660_be.repository.AirportRepository;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightSummary;
+import apap.ti._5.flight_2306211660_be.restdto.response.airport.AirportResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.classFlight.ClassFlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightResponseDTO;
+
+/**
+ * Builds flight responses for a list of flights with one IN query for their class flights and one
+ * for the airports they connect, instead of a class_flights scan and two airport lookups per flight.
+ * The DTOs carry the same fields as a single flight conversion.
+ */
+@Component
+public class FlightResponseAssembler {
+
+    // Keeps every IN list well below the bind parameter limits of the database drivers
+    static final int IN_CHUNK_SIZE = 1000;
+
+    private final ClassFlightRepository classFlightRepository;
+    private final AirportRepository airportRepository;
+
+    @Autowired
+    public FlightResponseAssembler(ClassFlightRepository classFlightRepository, AirportRepository airportRepository) {
+        this.classFlightRepository = classFlightRepository;
+        this.airportRepository = airportRepository;
+    }
+
+    public List<FlightResponseDTO> toResponses(List<Flight> flights) {
+        if (flights.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> flightIds = new LinkedHashSet<>();
+        Set<String> airportCodes = new LinkedHashSet<>();
+        for (Flight flight : flights) {
+            flightIds.add(flight.getId());
+            if (flight.getOriginAirportCode() != null) {
+                airportCodes.add(flight.getOriginAirportCode());
+            }
+            if (flight.getDestinationAirportCode() != null) {
+                airportCodes.add(flight.getDestinationAirportCode());
+            }
+        }
+
+        Map<String, List<ClassFlightResponseDTO>> classesByFlight = new HashMap<>();
+        for (ClassFlightSummary classFlight : inChunks(flightIds, classFlightRepository::findSummariesByFlightIdIn)) {
+            classesByFlight.computeIfAbsent(classFlight.flightId(), id -> new ArrayList<>())
+                    .add(convertToClassFlightResponseDTO(classFlight));
+        }
+
+        // A page of flights touches only a handful of airports
+        Map<String, AirportResponseDTO> airports = new HashMap<>();
+        for (Airport airport : inChunks(airportCodes, airportRepository::findAllById)) {
+            airports.put(airport.getIataCode(), convertToAirportResponseDTO(airport));
+        }
+
+        List<FlightResponseDTO> responses = new ArrayList<>(flights.size());
+        for (Flight flight : flights) {
+            Long duration = null;
+            if (flight.getDepartureTime() != null && flight.getArrivalTime() != null) {
+                duration = Duration.between(flight.getDepartureTime(), flight.getArrivalTime()).toMinutes();
+            }
+
+            responses.add(FlightResponseDTO.builder()
+                    .id(flight.getId())
+                    .airlineId(flight.getAirlineId())
+                    .airplaneId(flight.getAirplaneId())
+                    .originAirportCode(flight.getOriginAirportCode())
+                    .destinationAirportCode(flight.getDestinationAirportCode())
+                    .departureTime(flight.getDepartureTime())
+                    .arrivalTime(flight.getArrivalTime())
+                    .terminal(flight.getTerminal())
+                    .gate(flight.getGate())
+                    .baggageAllowance(flight.getBaggageAllowance())
+                    .facilities(flight.getFacilities())
+                    .status(flight.getStatus())
+                    .createdAt(flight.getCreatedAt())
+                    .updatedAt(flight.getUpdatedAt())
+                    .isDeleted(flight.getIsDeleted())
+                    .durationMinutes(duration)
+                    .originAirport(airports.get(flight.getOriginAirportCode()))
+                    .destinationAirport(airports.get(flight.getDestinationAirportCode()))
+                    .classes(classesByFlight.getOrDefault(flight.getId(), new ArrayList<>()))
+                    .build());
+        }
+        return responses;
+    }
+
+    private ClassFlightResponseDTO convertToClassFlightResponseDTO(ClassFlightSummary classFlight) {
+        return ClassFlightResponseDTO.builder()
+                .id(classFlight.id())
+                .flightId(classFlight.flightId())
+                .classType(classFlight.classType())
+                .seatCapacity(classFlight.seatCapacity())
+                .availableSeats(classFlight.availableSeats())
+                .price(classFlight.price())
+                .build();
+    }
+
+    private AirportResponseDTO convertToAirportResponseDTO(Airport airport) {
+        return AirportResponseDTO.builder()
+                .iataCode(airport.getIataCode())
+                .name(airport.getName())
+                .city(airport.getCity())
+                .country(airport.getCountry())
+                .latitude(airport.getLatitude())
+                .longitude(airport.getLongitude())
+                .timezone(airport.getTimezone())
+                .createdAt(airport.getCreatedAt())
+                .updatedAt(airport.getUpdatedAt())
+                .build();
+    }
+
+    private static <K, V> List<V> inChunks(Collection<K> keys, Function<List<K>, List<V>> query) {
+        List<K> all = new ArrayList<>(keys);
+        if (all.size() <= IN_CHUNK_SIZE) {
+            return query.apply(all);
+        }
+        List<V> results = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_CHUNK_SIZE) {
+            results.addAll(query.apply(all.subList(from, Math.min(from + IN_CHUNK_SIZE, all.size()))));
+        }
+        return results;
+    }
+}
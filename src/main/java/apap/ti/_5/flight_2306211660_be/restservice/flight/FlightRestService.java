@@ -1,10 +1,14 @@
 package apap.ti._5.flight_2306211660_be.restservice.flight;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.AddFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.UpdateFlightRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItinerarySearchResponseDTO;
 
 public interface FlightRestService {
 
@@ -19,13 +23,30 @@ public interface FlightRestService {
     List<FlightResponseDTO> getAllFlightsWithFilters(String originAirportCode, String destinationAirportCode,
                                                    String airlineId, Integer status, Boolean includeDeleted, String search);
 
+    // Keyset page of the filtered search in departure order; cursor is the previous page's nextCursor
+    FlightPageResponseDTO getFlightPage(String originAirportCode, String destinationAirportCode, String airlineId,
+                                        Integer status, Boolean includeDeleted, String search, String cursor, Integer limit);
+
     // Reminder: upcoming flights within interval (hours). If customerId provided, only include flights booked (Paid) by that customer.
     java.util.List<apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightReminderResponseDTO> getFlightReminders(Integer intervalHours, String customerUserId);
 
+    // Bookable flights on a route and day with at least `passengers` seats in the class (any class when null),
+    // answered from the in-memory route availability index once it is built
+    FlightAvailabilityResponseDTO searchAvailability(String originAirportCode, String destinationAirportCode,
+                                                     LocalDate date, String classType, Integer passengers);
+
+    // Best itineraries with up to two connections; sort is arrival (default), legs or price, limit defaults to 5
+    ItinerarySearchResponseDTO searchItineraries(String originAirportCode, String destinationAirportCode, LocalDate date,
+                                                 String classType, Integer passengers, Integer maxConnections,
+                                                 String sort, Integer limit);
+
     long getActiveFlightsTodayCount();
 
     FlightResponseDTO getFlightDetail(String id);
 
+    // Detail with every class seat map in the compact run-length format
+    FlightResponseDTO getFlightDetail(String id, boolean compactSeatMap);
+
     FlightResponseDTO updateFlight(UpdateFlightRequestDTO dto);
 
     FlightResponseDTO deleteFlight(String id);
@@ -1,11 +1,14 @@
 package apap.ti._5.flight_2306211660_be.restservice.flight;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,17 +23,24 @@ import apap.ti._5.flight_2306211660_be.repository.AirlineRepository;
 import apap.ti._5.flight_2306211660_be.repository.AirplaneRepository;
 import apap.ti._5.flight_2306211660_be.repository.BookingPassengerRepository;
 import apap.ti._5.flight_2306211660_be.repository.BookingRepository;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightAvailability;
 import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
 import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.FlightSpecifications;
 import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.classFlight.AddClassFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.AddFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.UpdateFlightRequestDTO;
-import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.classFlight.ClassFlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItinerarySearchResponseDTO;
 import apap.ti._5.flight_2306211660_be.restservice.airport.AirportRestService;
 import apap.ti._5.flight_2306211660_be.restservice.classFlight.ClassFlightRestService;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
 import apap.ti._5.flight_2306211660_be.restservice.seat.SeatRestService;
 
 @Service
@@ -38,6 +48,13 @@ public class FlightRestServiceImpl implements FlightRestService {
 
     private static final ZoneId APP_ZONE = ZoneId.of("Asia/Jakarta");
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    // Itineraries returned when the client does not ask for a number, and the most it may ask for
+    static final int DEFAULT_ITINERARY_LIMIT = 5;
+    static final int MAX_ITINERARY_LIMIT = 20;
+
     @Autowired
     private FlightRepository flightRepository;
 
@@ -59,6 +76,9 @@ public class FlightRestServiceImpl implements FlightRestService {
     @Autowired
     private SeatRepository seatRepository;
 
+    @Autowired
+    private SeatInventory seatInventory;
+
     @Autowired
     private ClassFlightRepository classFlightRepository;
 
@@ -71,7 +91,23 @@ public class FlightRestServiceImpl implements FlightRestService {
     @Autowired
     private apap.ti._5.flight_2306211660_be.config.security.ProfileClient profileClient;
 
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private FlightResponseAssembler flightResponseAssembler;
+
+    @Autowired
+    private FlightStatusScheduler flightStatusScheduler;
+
+    @Autowired
+    private RouteAvailabilityIndex routeAvailabilityIndex;
+
+    @Autowired
+    private ItineraryPlanner itineraryPlanner;
+
         @Override
+        @Transactional(readOnly = true)
         public java.util.List<apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightReminderResponseDTO> getFlightReminders(Integer intervalHours, String customerUserId) {
         // Validate interval
         int hours = (intervalHours == null || intervalHours <= 0) ? 3 : intervalHours;
@@ -81,9 +117,11 @@ public class FlightRestServiceImpl implements FlightRestService {
 
         // Find candidate flights: not deleted, status Scheduled(1) or Delayed(4), departure after now and <= end
         List<Flight> candidates = flightRepository.findByIsDeleted(false).stream()
-            .map(this::updateFlightStatusBasedOnTime)
             .filter(f -> f.getIsDeleted() != null && !f.getIsDeleted())
-            .filter(f -> f.getStatus() != null && (f.getStatus() == 1 || f.getStatus() == 4))
+            .filter(f -> {
+                Integer status = currentStatus(f, now);
+                return status != null && (status == 1 || status == 4);
+            })
             .filter(f -> f.getDepartureTime() != null && f.getDepartureTime().isAfter(now) && !f.getDepartureTime().isAfter(end))
             .collect(Collectors.toList());
 
@@ -131,7 +169,7 @@ public class FlightRestServiceImpl implements FlightRestService {
                     .destination(f.getDestinationAirportCode())
                     .departureTime(f.getDepartureTime())
                     .remainingTimeMinutes(remainingMinutes)
-                    .status(f.getStatus())
+                    .status(currentStatus(f, now))
                     .totalPaidBookings(paid)
                     .totalUnpaidBookings(unpaid)
                     .build();
@@ -205,6 +243,8 @@ public class FlightRestServiceImpl implements FlightRestService {
                 .build();
 
         flight = flightRepository.save(flight);
+        flightStatusScheduler.track(flight.getDepartureTime(), flight.getArrivalTime());
+        routeAvailabilityIndex.flightChanged(flightId);
 
         // Create class flights and seats
         for (AddClassFlightRequestDTO classDto : dto.getClasses()) {
@@ -229,96 +269,144 @@ public class FlightRestServiceImpl implements FlightRestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<FlightResponseDTO> getAllFlights() {
         List<Flight> flights = flightRepository.findByIsDeleted(false);
-        return flights.stream()
-                .map(this::convertToFlightResponseDTO)
-                .collect(Collectors.toList());
+        return withCurrentStatus(flightResponseAssembler.toResponses(flights));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<FlightResponseDTO> searchFlightsByAirline(String airlineId) {
         List<Flight> flights = flightRepository.findByAirlineIdAndIsDeleted(airlineId, false);
-        return flights.stream()
-                .map(this::convertToFlightResponseDTO)
-                .collect(Collectors.toList());
+        return withCurrentStatus(flightResponseAssembler.toResponses(flights));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public FlightResponseDTO getFlight(String id) {
         Flight flight = flightRepository.findById(id).orElse(null);
         if (flight == null || flight.getIsDeleted()) {
             return null;
         }
 
-        // Update status based on current time
-        flight = updateFlightStatusBasedOnTime(flight);
-
-        return convertToFlightResponseDTO(flight);
+        return withCurrentStatus(convertToFlightResponseDTO(flight));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<FlightResponseDTO> getAllFlightsWithFilters(String originAirportCode, String destinationAirportCode,
                                                           String airlineId, Integer status, Boolean includeDeleted, String search) {
-        List<Flight> flights;
+        LocalDateTime now = LocalDateTime.now(APP_ZONE);
+        List<Flight> flights = flightRepository.findAll(
+                FlightSpecifications.matching(originAirportCode, destinationAirportCode, airlineId, status, includeDeleted, search, now),
+                FlightSpecifications.LISTING_ORDER);
+        return withCurrentStatus(flightResponseAssembler.toResponses(flights));
+    }
 
-        if (includeDeleted != null && includeDeleted) {
-            flights = flightRepository.findAll();
-        } else {
-            flights = flightRepository.findByIsDeleted(false);
+    @Override
+    @Transactional(readOnly = true)
+    public FlightPageResponseDTO getFlightPage(String originAirportCode, String destinationAirportCode, String airlineId,
+                                               Integer status, Boolean includeDeleted, String search, String cursor, Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
         }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
 
-        // Update status for all flights based on current time
-        flights = flights.stream()
-                .map(this::updateFlightStatusBasedOnTime)
-                .collect(Collectors.toList());
+        // Filters, search on airline name and ordering all run in one query
+        LocalDateTime now = LocalDateTime.now(APP_ZONE);
+        Specification<Flight> spec = FlightSpecifications.matching(
+                originAirportCode, destinationAirportCode, airlineId, status, includeDeleted, search, now);
+        if (cursor != null && !cursor.isBlank()) {
+            FlightCursor position = FlightCursor.decode(cursor);
+            spec = spec.and(FlightSpecifications.after(position.departureTime(), position.id()));
+        }
+
+        // One row past the page tells whether another page follows, without a count query
+        List<Flight> rows = flightRepository.findBy(spec,
+                query -> query.sortBy(FlightSpecifications.LISTING_ORDER).limit(pageSize + 1).all());
+        boolean hasMore = rows.size() > pageSize;
+        List<Flight> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return FlightPageResponseDTO.builder()
+                .flights(withCurrentStatus(flightResponseAssembler.toResponses(page)))
+                .nextCursor(hasMore ? FlightCursor.of(page.get(pageSize - 1)).encode() : null)
+                .build();
+    }
 
-        // Apply filters
-        if (originAirportCode != null && !originAirportCode.trim().isEmpty()) {
-            flights = flights.stream()
-                    .filter(f -> originAirportCode.equalsIgnoreCase(f.getOriginAirportCode()))
-                    .toList();
-        }
+    @Override
+    public FlightAvailabilityResponseDTO searchAvailability(String originAirportCode, String destinationAirportCode,
+                                                            LocalDate date, String classType, Integer passengers) {
+        validateRouteSearch(originAirportCode, destinationAirportCode, date, passengers);
+        int seats = passengers == null ? 1 : passengers;
+        String normalizedClass = normalizeClassType(classType);
+
+        List<FlightAvailabilityDTO> flights = routeAvailabilityIndex.search(
+                originAirportCode, destinationAirportCode, date, normalizedClass, seats);
+        if (flights != null) {
+            return FlightAvailabilityResponseDTO.builder().source("index").flights(flights).build();
+        }
+
+        // Index not built yet (startup, or disabled): the same query in SQL
+        List<ClassFlightAvailability> rows = classFlightRepository.findBookableOnRoute(
+                originAirportCode.trim().toUpperCase(Locale.ROOT), destinationAirportCode.trim().toUpperCase(Locale.ROOT),
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), normalizedClass, seats, LocalDateTime.now(APP_ZONE));
+        return FlightAvailabilityResponseDTO.builder()
+                .source("database")
+                .flights(rows.stream().map(this::convertToFlightAvailabilityDTO).toList())
+                .build();
+    }
 
-        if (destinationAirportCode != null && !destinationAirportCode.trim().isEmpty()) {
-            flights = flights.stream()
-                    .filter(f -> destinationAirportCode.equalsIgnoreCase(f.getDestinationAirportCode()))
-                    .toList();
+    @Override
+    public ItinerarySearchResponseDTO searchItineraries(String originAirportCode, String destinationAirportCode, LocalDate date,
+                                                        String classType, Integer passengers, Integer maxConnections,
+                                                        String sort, Integer limit) {
+        validateRouteSearch(originAirportCode, destinationAirportCode, date, passengers);
+        if (originAirportCode.trim().equalsIgnoreCase(destinationAirportCode.trim())) {
+            throw new IllegalArgumentException("Origin and destination airports cannot be the same");
         }
-
-        if (airlineId != null && !airlineId.trim().isEmpty()) {
-            flights = flights.stream()
-                    .filter(f -> airlineId.equalsIgnoreCase(f.getAirlineId()))
-                    .toList();
+        if (maxConnections != null && (maxConnections < 0 || maxConnections > ItineraryPlanner.MAX_CONNECTIONS)) {
+            throw new IllegalArgumentException("Connections must be between 0 and " + ItineraryPlanner.MAX_CONNECTIONS);
         }
-
-        if (status != null) {
-            flights = flights.stream()
-                    .filter(f -> status.equals(f.getStatus()))
-                    .toList();
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("Itinerary limit must be at least 1");
         }
+        ItineraryPlanner.Ranking ranking = ItineraryPlanner.Ranking.parse(sort);
+
+        return itineraryPlanner.plan(originAirportCode, destinationAirportCode, date, normalizeClassType(classType),
+                passengers == null ? 1 : passengers,
+                maxConnections == null ? ItineraryPlanner.MAX_CONNECTIONS : maxConnections,
+                ranking,
+                limit == null ? DEFAULT_ITINERARY_LIMIT : Math.min(limit, MAX_ITINERARY_LIMIT));
+    }
 
-        // Search by flight id (flight number) or airline name (case-insensitive)
-        if (search != null && !search.trim().isEmpty()) {
-            String s = search.trim().toLowerCase();
-            flights = flights.stream()
-                    .filter(f -> {
-                        if (f.getId() != null && f.getId().toLowerCase().contains(s)) return true;
-                        var airline = airlineRepository.findById(f.getAirlineId()).orElse(null);
-                        if (airline != null && airline.getName() != null && airline.getName().toLowerCase().contains(s)) return true;
-                        return false;
-                    })
-                    .toList();
+    private void validateRouteSearch(String originAirportCode, String destinationAirportCode, LocalDate date, Integer passengers) {
+        if (originAirportCode == null || originAirportCode.isBlank()
+                || destinationAirportCode == null || destinationAirportCode.isBlank() || date == null) {
+            throw new IllegalArgumentException("Origin, destination and date are required");
         }
+        if (passengers != null && passengers < 1) {
+            throw new IllegalArgumentException("Passenger count must be at least 1");
+        }
+    }
 
-        // Sort by departure time ascending
-        flights = flights.stream()
-                .sorted((f1, f2) -> f1.getDepartureTime().compareTo(f2.getDepartureTime()))
-                .toList();
+    private String normalizeClassType(String classType) {
+        return classType == null || classType.isBlank() ? null : classType.trim().toLowerCase(Locale.ROOT);
+    }
 
-        return flights.stream()
-            .map(this::convertToFlightResponseDTO)
-            .collect(Collectors.toList());
+    private FlightAvailabilityDTO convertToFlightAvailabilityDTO(ClassFlightAvailability row) {
+        return FlightAvailabilityDTO.builder()
+                .flightId(row.flightId())
+                .airlineId(row.airlineId())
+                .originAirportCode(row.originAirportCode())
+                .destinationAirportCode(row.destinationAirportCode())
+                .departureTime(row.departureTime())
+                .arrivalTime(row.arrivalTime())
+                .classFlightId(row.classFlightId())
+                .classType(row.classType())
+                .availableSeats(row.availableSeats())
+                .price(row.price())
+                .build();
     }
 
     @Override
@@ -332,15 +420,18 @@ public class FlightRestServiceImpl implements FlightRestService {
 
     @Override
     public FlightResponseDTO getFlightDetail(String id) {
+        return getFlightDetail(id, false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FlightResponseDTO getFlightDetail(String id, boolean compactSeatMap) {
         Flight flight = flightRepository.findById(id).orElse(null);
         if (flight == null || flight.getIsDeleted()) {
             return null;
         }
 
-        // Update status based on current time
-        flight = updateFlightStatusBasedOnTime(flight);
-
-        return convertToFlightDetailResponseDTO(flight);
+        return withCurrentStatus(convertToFlightDetailResponseDTO(flight, compactSeatMap));
     }
 
     @Override
@@ -398,6 +489,8 @@ public class FlightRestServiceImpl implements FlightRestService {
         }
 
         flight = flightRepository.save(flight);
+        flightStatusScheduler.track(flight.getDepartureTime(), flight.getArrivalTime());
+        routeAvailabilityIndex.flightChanged(flight.getId());
         System.out.println("Flight " + flight.getId() + " saved with status: " + flight.getStatus());
 
         // Update classes if provided
@@ -431,11 +524,8 @@ public class FlightRestServiceImpl implements FlightRestService {
             var bps = bookingPassengerRepository.findByBookingId(b.getId());
             var passengerIds = bps.stream().map(BookingPassenger::getPassengerId).toList();
 
-            List<Seat> seats = seatRepository.findAll().stream()
-                    .filter(s -> s.getClassFlightId().equals(b.getClassFlightId())
-                            && s.getPassengerId() != null
-                            && passengerIds.contains(s.getPassengerId()))
-                    .toList();
+            List<Seat> seats = passengerIds.isEmpty() ? List.of()
+                    : seatRepository.findByClassFlightIdAndPassengerIdIn(b.getClassFlightId(), passengerIds);
 
             for (Seat s : seats) {
                 s.setIsBooked(false);
@@ -459,36 +549,23 @@ public class FlightRestServiceImpl implements FlightRestService {
         flight.setIsDeleted(true);
         flight.setStatus(5); // Cancelled
         flight = flightRepository.save(flight);
+        evictSeatInventory(flight.getId());
+        routeAvailabilityIndex.flightChanged(flight.getId());
 
         return convertToFlightResponseDTO(flight);
     }
 
     private String generateFlightId(String airplaneId) {
-        Integer maxNumber = flightRepository.findMaxFlightNumberByAirplaneId(airplaneId);
-        int nextNumber = (maxNumber != null) ? maxNumber + 1 : 1;
+        // Numbers come from the airplane's counter; existing IDs only seed a counter created for the first time
+        long nextNumber = idAllocator.next("flight:" + airplaneId, () -> {
+            Integer maxNumber = flightRepository.findMaxFlightNumberByAirplaneId(airplaneId);
+            return maxNumber != null ? maxNumber : 0;
+        });
         return String.format("%s-%03d", airplaneId, nextNumber);
     }
 
     private void generateSeatsForClass(Integer classFlightId, Integer seatCapacity, String classType) {
-        String prefix = getClassPrefix(classType);
-
-        for (int i = 1; i <= seatCapacity; i++) {
-            AddSeatRequestDTO seatDto = AddSeatRequestDTO.builder()
-                    .classFlightId(classFlightId)
-                    .seatCode(String.format("%s%03d", prefix, i))
-                    .build();
-
-            seatRestService.createSeat(seatDto);
-        }
-    }
-
-    private String getClassPrefix(String classType) {
-        switch (classType.toLowerCase()) {
-            case "economy": return "EC";
-            case "business": return "BU";
-            case "first": return "FI";
-            default: return "EC";
-        }
+        seatRestService.generateSeats(classFlightId, classType, 1, seatCapacity);
     }
 
     private FlightResponseDTO convertToFlightResponseDTO(Flight flight) {
@@ -533,11 +610,11 @@ public class FlightRestServiceImpl implements FlightRestService {
                 .build();
     }
 
-    private FlightResponseDTO convertToFlightDetailResponseDTO(Flight flight) {
+    private FlightResponseDTO convertToFlightDetailResponseDTO(Flight flight, boolean compactSeatMap) {
         // Get class flights with seats for this flight (detailed view)
         List<ClassFlightResponseDTO> classFlights = classFlightRestService.getClassFlightsByFlight(flight.getId())
                 .stream()
-                .map(cf -> classFlightRestService.getClassFlightDetail(cf.getId()))
+                .map(cf -> classFlightRestService.getClassFlightDetail(cf.getId(), compactSeatMap))
                 .toList();
         Long duration = null;
         if (flight.getDepartureTime() != null && flight.getArrivalTime() != null) {
@@ -572,40 +649,30 @@ public class FlightRestServiceImpl implements FlightRestService {
                 .build();
     }
 
-    private Flight updateFlightStatusBasedOnTime(Flight flight) {
-        LocalDateTime now = LocalDateTime.now(APP_ZONE);
-
-        // Only update status for active flights (not cancelled/deleted)
-        if (flight.getIsDeleted()) {
-            return flight;
-        }
-
-        int currentStatus = flight.getStatus();
-
-        // Status transitions based on time:
-        // 1. Scheduled -> In Flight: departureTime ≤ now < arrivalTime
-        // 2. In Flight -> Finished: now ≥ arrivalTime
-        // 3. Scheduled -> Delayed: handled in updateFlight method
+    private Integer currentStatus(Flight flight, LocalDateTime now) {
+        return FlightStatusRules.statusAt(flight.getStatus(), flight.getIsDeleted(),
+                flight.getDepartureTime(), flight.getArrivalTime(), now);
+    }
 
-        if (currentStatus == 1 || currentStatus == 4) { // Scheduled or Delayed
-            if (now.isAfter(flight.getDepartureTime()) || now.equals(flight.getDepartureTime())) {
-                if (now.isBefore(flight.getArrivalTime())) {
-                    flight.setStatus(2); // In Flight
-                } else if (now.isAfter(flight.getArrivalTime()) || now.equals(flight.getArrivalTime())) {
-                    flight.setStatus(3); // Finished
-                }
-            }
-        } else if (currentStatus == 2) { // In Flight
-            if (now.isAfter(flight.getArrivalTime()) || now.equals(flight.getArrivalTime())) {
-                flight.setStatus(3); // Finished
-            }
-        }
+    /**
+     * Reads never write: the stored status is kept current by {@link FlightStatusScheduler}, and a
+     * boundary passed since its last tick is applied to the response only.
+     */
+    private FlightResponseDTO withCurrentStatus(FlightResponseDTO flight) {
+        flight.setStatus(FlightStatusRules.statusAt(flight.getStatus(), flight.isDeleted(),
+                flight.getDepartureTime(), flight.getArrivalTime(), LocalDateTime.now(APP_ZONE)));
+        return flight;
+    }
 
-        // Save the updated flight if status changed
-        if (currentStatus != flight.getStatus()) {
-            flight = flightRepository.save(flight);
-        }
+    private List<FlightResponseDTO> withCurrentStatus(List<FlightResponseDTO> flights) {
+        flights.forEach(this::withCurrentStatus);
+        return flights;
+    }
 
-        return flight;
+    private void evictSeatInventory(String flightId) {
+        List<Integer> classFlightIds = classFlightRepository.findByFlightId(flightId).stream()
+                .map(ClassFlight::getId)
+                .toList();
+        seatInventory.evict(classFlightIds);
     }
 }
\ No newline at end of file
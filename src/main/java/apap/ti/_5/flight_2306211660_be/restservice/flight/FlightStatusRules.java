@@ -0,0 +1,35 @@
+package apap.ti._5.flight_2306211660_be.restservice.flight;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time-based flight status transitions: Scheduled or Delayed becomes In Flight at departure, and
+ * anything not yet Finished becomes Finished at arrival. Deleted (cancelled) flights keep their
+ * stored status. {@link FlightStatusScheduler} writes these transitions; reads apply them on top of
+ * the stored status for the moments between two scheduler ticks.
+ */
+public final class FlightStatusRules {
+
+    public static final int SCHEDULED = 1;
+    public static final int IN_FLIGHT = 2;
+    public static final int FINISHED = 3;
+    public static final int DELAYED = 4;
+
+    private FlightStatusRules() {
+    }
+
+    public static Integer statusAt(Integer storedStatus, Boolean deleted, LocalDateTime departureTime,
+                                   LocalDateTime arrivalTime, LocalDateTime now) {
+        if (storedStatus == null || Boolean.TRUE.equals(deleted) || departureTime == null || arrivalTime == null) {
+            return storedStatus;
+        }
+        boolean pending = storedStatus == SCHEDULED || storedStatus == DELAYED;
+        if ((pending || storedStatus == IN_FLIGHT) && !now.isBefore(arrivalTime)) {
+            return FINISHED;
+        }
+        if (pending && !now.isBefore(departureTime)) {
+            return IN_FLIGHT;
+        }
+        return storedStatus;
+    }
+}
@@ -0,0 +1,155 @@
+package apap.ti._5.flight_2306211660_be.restservice.flight;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightSummary;
+import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
+
+/**
+ * Saves the time-based flight status transitions ({@link FlightStatusRules}) when they happen,
+ * so reading a flight never writes. Upcoming departure and arrival times within a horizon are
+ * kept in a priority queue; each tick only looks at its head and, once a boundary has passed,
+ * moves every due flight on with two bulk UPDATEs. The queue is reloaded from the database
+ * periodically, which also picks up flights created or moved on other instances.
+ */
+@Component
+public class FlightStatusScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightStatusScheduler.class);
+
+    // The first run after a long downtime may finish many flights at once
+    static final int IN_CHUNK_SIZE = 1000;
+
+    private final FlightRepository flightRepository;
+    private final ClassFlightRepository classFlightRepository;
+    private final SeatInventory seatInventory;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration horizon;
+    private final Duration reloadInterval;
+    private final Clock clock;
+
+    private final PriorityQueue<LocalDateTime> boundaries = new PriorityQueue<>();
+    // Boundaries up to here are in the queue; null until the first load
+    private LocalDateTime loadedUntil;
+    private LocalDateTime nextReloadAt;
+
+    @Autowired
+    public FlightStatusScheduler(FlightRepository flightRepository,
+                                 ClassFlightRepository classFlightRepository,
+                                 SeatInventory seatInventory,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${flight.status.enabled:true}") boolean enabled,
+                                 @Value("${flight.status.horizon-minutes:1440}") long horizonMinutes,
+                                 @Value("${flight.status.reload-interval-ms:60000}") long reloadIntervalMillis) {
+        this(flightRepository, classFlightRepository, seatInventory, transactionManager, enabled,
+                Duration.ofMinutes(horizonMinutes), Duration.ofMillis(reloadIntervalMillis),
+                Clock.system(ZoneId.of("Asia/Jakarta")));
+    }
+
+    public FlightStatusScheduler(FlightRepository flightRepository, ClassFlightRepository classFlightRepository,
+                                 SeatInventory seatInventory, PlatformTransactionManager transactionManager,
+                                 boolean enabled, Duration horizon, Duration reloadInterval, Clock clock) {
+        this.flightRepository = flightRepository;
+        this.classFlightRepository = classFlightRepository;
+        this.seatInventory = seatInventory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.horizon = horizon;
+        this.reloadInterval = reloadInterval;
+        this.clock = clock;
+    }
+
+    @Scheduled(initialDelayString = "${flight.status.tick-ms:1000}",
+               fixedDelayString = "${flight.status.tick-ms:1000}")
+    void scheduledTick() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            tick();
+        } catch (RuntimeException ex) {
+            logger.warn("Flight status transition failed: {}", ex.getMessage());
+        }
+    }
+
+    /** Applies the transitions whose boundary has passed and returns how many flights changed status. */
+    public synchronized int tick() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (loadedUntil == null || !now.isBefore(nextReloadAt)) {
+            // A reload also catches up on boundaries passed while the queue was stale or the application was down
+            reload(now);
+            return transition(now);
+        }
+        if (boundaries.isEmpty() || boundaries.peek().isAfter(now)) {
+            return 0;
+        }
+        while (!boundaries.isEmpty() && !boundaries.peek().isAfter(now)) {
+            boundaries.poll();
+        }
+        return transition(now);
+    }
+
+    /** Queues the boundaries of a flight created or moved on this instance. */
+    public synchronized void track(LocalDateTime departureTime, LocalDateTime arrivalTime) {
+        if (loadedUntil == null) {
+            return;
+        }
+        for (LocalDateTime boundary : List.of(departureTime, arrivalTime)) {
+            // Later boundaries come with the reload that reaches them
+            if (boundary != null && !boundary.isAfter(loadedUntil)) {
+                boundaries.add(boundary);
+            }
+        }
+    }
+
+    /** Departure and arrival times still waiting in the queue. */
+    public synchronized int queuedBoundaries() {
+        return boundaries.size();
+    }
+
+    private void reload(LocalDateTime now) {
+        LocalDateTime until = now.plus(horizon);
+        boundaries.clear();
+        boundaries.addAll(flightRepository.findDepartureTimesBetween(now, until));
+        boundaries.addAll(flightRepository.findArrivalTimesBetween(now, until));
+        loadedUntil = until;
+        nextReloadAt = now.plus(reloadInterval);
+    }
+
+    private int transition(LocalDateTime now) {
+        int[] changed = transactionTemplate.execute(status -> {
+            List<String> finishedIds = flightRepository.findIdsDueToFinish(now);
+            int finished = finishedIds.isEmpty() ? 0 : flightRepository.markFinished(now);
+            int departed = flightRepository.markDeparted(now);
+            // Finished flights take no more bookings, release their seat bitmaps
+            for (int from = 0; from < finishedIds.size(); from += IN_CHUNK_SIZE) {
+                List<String> chunk = finishedIds.subList(from, Math.min(from + IN_CHUNK_SIZE, finishedIds.size()));
+                seatInventory.evict(classFlightRepository.findSummariesByFlightIdIn(chunk).stream()
+                        .map(ClassFlightSummary::id)
+                        .toList());
+            }
+            return new int[] { departed, finished };
+        });
+        if (changed[0] + changed[1] > 0) {
+            logger.info("Flight status transitions at {}: {} in flight, {} finished", now, changed[0], changed[1]);
+        }
+        return changed[0] + changed[1];
+    }
+}
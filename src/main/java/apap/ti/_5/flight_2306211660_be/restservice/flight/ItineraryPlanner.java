@@ -0,0 +1,251 @@
+package apap.ti._5.flight_2306211660_be.restservice.flight;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightAvailability;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItineraryDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItinerarySearchResponseDTO;
+
+/**
+ * Plans itineraries of up to three flights over the route availability index. Airports are the nodes and
+ * bookable flights the edges. A connection may leave no earlier than the minimum connection time after the
+ * previous arrival and no later than the maximum layover. The last leg is looked up on its route directly,
+ * so only the first two legs fan out over every destination of an airport. The best K itineraries are kept
+ * in a bounded heap.
+ */
+@Component
+public class ItineraryPlanner {
+
+    public static final int MAX_CONNECTIONS = 2;
+
+    public enum Ranking {
+        EARLIEST_ARRIVAL, FEWEST_LEGS, CHEAPEST;
+
+        /** Parses {@code arrival}, {@code legs} or {@code price}; null means earliest arrival. */
+        public static Ranking parse(String value) {
+            if (value == null || value.isBlank()) {
+                return EARLIEST_ARRIVAL;
+            }
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "arrival" -> EARLIEST_ARRIVAL;
+                case "legs" -> FEWEST_LEGS;
+                case "price" -> CHEAPEST;
+                default -> throw new IllegalArgumentException("Unknown sort: " + value + " (use arrival, legs or price)");
+            };
+        }
+    }
+
+    private final RouteAvailabilityIndex routeAvailabilityIndex;
+    private final ClassFlightRepository classFlightRepository;
+    private final Duration minConnection;
+    private final Duration maxLayover;
+    private final Clock clock;
+
+    @Autowired
+    public ItineraryPlanner(RouteAvailabilityIndex routeAvailabilityIndex,
+                            ClassFlightRepository classFlightRepository,
+                            @Value("${flight.itinerary.min-connection-minutes:60}") long minConnectionMinutes,
+                            @Value("${flight.itinerary.max-layover-minutes:720}") long maxLayoverMinutes) {
+        this(routeAvailabilityIndex, classFlightRepository, Duration.ofMinutes(minConnectionMinutes),
+                Duration.ofMinutes(maxLayoverMinutes), Clock.system(ZoneId.of("Asia/Jakarta")));
+    }
+
+    public ItineraryPlanner(RouteAvailabilityIndex routeAvailabilityIndex, ClassFlightRepository classFlightRepository,
+                            Duration minConnection, Duration maxLayover, Clock clock) {
+        this.routeAvailabilityIndex = routeAvailabilityIndex;
+        this.classFlightRepository = classFlightRepository;
+        this.minConnection = minConnection;
+        this.maxLayover = maxLayover;
+        this.clock = clock;
+    }
+
+    /**
+     * The best {@code limit} itineraries from origin to destination whose first flight departs on the given day,
+     * with at most {@code maxConnections} connections and {@code seats} free seats on every leg.
+     */
+    public ItinerarySearchResponseDTO plan(String origin, String destination, LocalDate date, String classType, int seats,
+                                           int maxConnections, Ranking ranking, int limit) {
+        String from = RouteAvailabilityIndex.normalize(origin);
+        String to = RouteAvailabilityIndex.normalize(destination);
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
+
+        String source = "index";
+        LegSource legs = (airport, next, start, end) ->
+                routeAvailabilityIndex.departures(airport, next, start, end, classType, seats);
+        List<FlightAvailabilityDTO> firstLegs = legs.departing(from, null, dayStart, dayEnd);
+        if (firstLegs == null) {
+            // Index not built yet: every flight the search can reach, read once
+            DatabaseLegs loaded = new DatabaseLegs(classFlightRepository.findBookableDepartingBetween(
+                    dayStart, dayEnd.plus(maxLayover.multipliedBy(MAX_CONNECTIONS)).plusDays(1), LocalDateTime.now(clock)),
+                    classType, seats);
+            legs = loaded::departing;
+            firstLegs = legs.departing(from, null, dayStart, dayEnd);
+            source = "database";
+        }
+
+        Comparator<Candidate> order = comparator(ranking);
+        PriorityQueue<Candidate> best = new PriorityQueue<>(order.reversed());
+        for (FlightAvailabilityDTO first : firstLegs) {
+            String stop = first.getDestinationAirportCode();
+            if (stop.equals(to)) {
+                offer(best, order, limit, new Candidate(List.of(first)));
+                continue;
+            }
+            if (maxConnections < 1 || stop.equals(from)) {
+                continue;
+            }
+            for (FlightAvailabilityDTO second : connections(legs, first, maxConnections >= 2 ? null : to)) {
+                String secondStop = second.getDestinationAirportCode();
+                if (secondStop.equals(to)) {
+                    offer(best, order, limit, new Candidate(List.of(first, second)));
+                } else if (maxConnections >= 2 && !secondStop.equals(from) && !secondStop.equals(stop)) {
+                    for (FlightAvailabilityDTO third : connections(legs, second, to)) {
+                        offer(best, order, limit, new Candidate(List.of(first, second, third)));
+                    }
+                }
+            }
+        }
+
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(order);
+        return ItinerarySearchResponseDTO.builder()
+                .source(source)
+                .itineraries(ranked.stream().map(candidate -> candidate.toResponse(seats)).toList())
+                .build();
+    }
+
+    private List<FlightAvailabilityDTO> connections(LegSource legs, FlightAvailabilityDTO arriving, String destination) {
+        LocalDateTime arrival = arriving.getArrivalTime();
+        // Departure times are kept to the second; a flight leaving exactly at the maximum layover still connects
+        return legs.departing(arriving.getDestinationAirportCode(), destination,
+                arrival.plus(minConnection), arrival.plus(maxLayover).plusSeconds(1));
+    }
+
+    private static void offer(PriorityQueue<Candidate> best, Comparator<Candidate> order, int limit, Candidate candidate) {
+        if (best.size() < limit) {
+            best.add(candidate);
+        } else if (order.compare(candidate, best.peek()) < 0) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+
+    private static Comparator<Candidate> comparator(Ranking ranking) {
+        Comparator<Candidate> byArrival = Comparator.comparing(Candidate::arrival);
+        Comparator<Candidate> byLegs = Comparator.comparingInt(Candidate::legCount);
+        Comparator<Candidate> byPrice = Comparator.comparing(Candidate::price);
+        // Flight IDs keep the order stable between equally ranked itineraries
+        Comparator<Candidate> byFlights = Comparator.comparing(Candidate::flightIds);
+        return switch (ranking) {
+            case EARLIEST_ARRIVAL -> byArrival.thenComparing(byLegs).thenComparing(byPrice).thenComparing(byFlights);
+            case FEWEST_LEGS -> byLegs.thenComparing(byArrival).thenComparing(byPrice).thenComparing(byFlights);
+            case CHEAPEST -> byPrice.thenComparing(byArrival).thenComparing(byLegs).thenComparing(byFlights);
+        };
+    }
+
+    @FunctionalInterface
+    private interface LegSource {
+        List<FlightAvailabilityDTO> departing(String origin, String destination, LocalDateTime from, LocalDateTime to);
+    }
+
+    private record Candidate(List<FlightAvailabilityDTO> legs, BigDecimal price, String flightIds) {
+
+        Candidate(List<FlightAvailabilityDTO> legs) {
+            this(legs,
+                    legs.stream().map(FlightAvailabilityDTO::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add),
+                    legs.stream().map(FlightAvailabilityDTO::getFlightId).collect(Collectors.joining(",")));
+        }
+
+        LocalDateTime arrival() {
+            return legs.get(legs.size() - 1).getArrivalTime();
+        }
+
+        int legCount() {
+            return legs.size();
+        }
+
+        ItineraryDTO toResponse(int seats) {
+            LocalDateTime departure = legs.get(0).getDepartureTime();
+            return ItineraryDTO.builder()
+                    .legs(legs)
+                    .connections(legs.size() - 1)
+                    .departureTime(departure)
+                    .arrivalTime(arrival())
+                    .durationMinutes(Duration.between(departure, arrival()).toMinutes())
+                    .pricePerPassenger(price)
+                    .totalPrice(price.multiply(BigDecimal.valueOf(seats)))
+                    .build();
+        }
+    }
+
+    /** Flights read from the database for one search, grouped by origin like the index. */
+    private static final class DatabaseLegs {
+        private final Map<String, List<FlightAvailabilityDTO>> byOrigin = new HashMap<>();
+
+        DatabaseLegs(List<ClassFlightAvailability> rows, String classType, int seats) {
+            // Rows come grouped by flight; keep the cheapest class that fits
+            Map<String, ClassFlightAvailability> cheapest = new HashMap<>();
+            List<String> order = new ArrayList<>();
+            for (ClassFlightAvailability row : rows) {
+                if (availableSeats(row) < seats || (classType != null && !classType.equalsIgnoreCase(row.classType()))) {
+                    continue;
+                }
+                ClassFlightAvailability current = cheapest.get(row.flightId());
+                if (current == null) {
+                    order.add(row.flightId());
+                }
+                if (current == null || row.price().compareTo(current.price()) < 0) {
+                    cheapest.put(row.flightId(), row);
+                }
+            }
+            for (String flightId : order) {
+                ClassFlightAvailability row = cheapest.get(flightId);
+                byOrigin.computeIfAbsent(RouteAvailabilityIndex.normalize(row.originAirportCode()), origin -> new ArrayList<>())
+                        .add(FlightAvailabilityDTO.builder()
+                                .flightId(row.flightId())
+                                .airlineId(row.airlineId())
+                                .originAirportCode(RouteAvailabilityIndex.normalize(row.originAirportCode()))
+                                .destinationAirportCode(RouteAvailabilityIndex.normalize(row.destinationAirportCode()))
+                                .departureTime(row.departureTime())
+                                .arrivalTime(row.arrivalTime())
+                                .classFlightId(row.classFlightId())
+                                .classType(row.classType())
+                                .availableSeats(availableSeats(row))
+                                .price(row.price())
+                                .build());
+            }
+        }
+
+        // A class without a seat counter has nothing to sell, as in the index
+        private static int availableSeats(ClassFlightAvailability row) {
+            return row.availableSeats() == null ? 0 : row.availableSeats();
+        }
+
+        List<FlightAvailabilityDTO> departing(String origin, String destination, LocalDateTime from, LocalDateTime to) {
+            return byOrigin.getOrDefault(origin, List.of()).stream()
+                    .filter(leg -> destination == null || destination.equals(leg.getDestinationAirportCode()))
+                    .filter(leg -> !leg.getDepartureTime().isBefore(from) && leg.getDepartureTime().isBefore(to))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package apap.ti._5.flight_2306211660_be.restservice.flight;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightAvailability;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.RouteIndexStatisticsDTO;
+
+/**
+ * In-memory seat availability of bookable flights for the shopping query "origin to destination on a day
+ * with at least N seats in a class". Flights are kept per origin and destination in departure-sorted arrays
+ * with one int counter per class flight, so a search is a binary search plus a scan of that day's flights.
+ * <p>
+ * The index is built from the database on startup and rebuilt periodically. In between, seat counter changes
+ * are applied as deltas once their transaction commits, and flights whose schedule or classes changed are
+ * queued and re-read in the background. Until the first build, {@link #search} returns null so the caller
+ * can answer from the database.
+ */
+@Component
+public class RouteAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteAvailabilityIndex.class);
+
+    static final int IN_CHUNK_SIZE = 1000;
+
+    private static final Comparator<ClassFlightAvailability> ROW_ORDER = Comparator
+            .comparing(ClassFlightAvailability::departureTime)
+            .thenComparing(ClassFlightAvailability::flightId)
+            .thenComparing(ClassFlightAvailability::classFlightId);
+
+    private final ClassFlightRepository classFlightRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Clock clock;
+
+    // origin -> destination -> flights; published whole by a rebuild, single routes are swapped under the lock
+    private volatile ConcurrentMap<String, ConcurrentMap<String, RouteFlights>> routes;
+
+    // Guarded by this: where every indexed flight and class flight currently lives
+    private final Map<String, RouteKey> flightRoutes = new HashMap<>();
+    private final Map<Integer, Slot> slots = new HashMap<>();
+    private boolean rebuilding;
+    // Guarded by this: flights a refresh is re-reading, and class flights whose deltas found no slot during maintenance
+    private final Set<String> refreshing = new HashSet<>();
+    private final Set<Integer> unindexedDeltas = new HashSet<>();
+
+    // Flight ID -> when its change was queued
+    private final ConcurrentMap<String, LocalDateTime> pendingRefreshes = new ConcurrentHashMap<>();
+    // Rebuilds and refreshes never overlap, a refresh read before a rebuild snapshot must not land after it
+    private final Object maintenanceLock = new Object();
+
+    private volatile LocalDateTime builtAt;
+    private volatile long lastBuildDurationMillis;
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong seatUpdates = new AtomicLong();
+    private final AtomicLong flightRefreshes = new AtomicLong();
+    private final AtomicLong indexSearches = new AtomicLong();
+    private final AtomicLong databaseSearches = new AtomicLong();
+
+    @Autowired
+    public RouteAvailabilityIndex(ClassFlightRepository classFlightRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${flight.availability-index.enabled:true}") boolean enabled) {
+        this(classFlightRepository, transactionManager, enabled, Clock.system(ZoneId.of("Asia/Jakarta")));
+    }
+
+    public RouteAvailabilityIndex(ClassFlightRepository classFlightRepository, PlatformTransactionManager transactionManager,
+                                  boolean enabled, Clock clock) {
+        this.classFlightRepository = classFlightRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.clock = clock;
+    }
+
+    @Scheduled(initialDelayString = "${flight.availability-index.initial-delay-ms:0}",
+               fixedDelayString = "${flight.availability-index.rebuild-interval-ms:600000}")
+    void scheduledRebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            logger.warn("Route availability index rebuild failed: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${flight.availability-index.refresh-interval-ms:500}",
+               fixedDelayString = "${flight.availability-index.refresh-interval-ms:500}")
+    void scheduledRefresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            applyPendingRefreshes();
+        } catch (RuntimeException ex) {
+            logger.warn("Route availability index refresh failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Bookable flights from origin to destination departing on the given day that have at least
+     * {@code seats} free seats in the class; a null class type matches every class. One entry per
+     * matching class flight, in departure order. Returns null while the index is not built.
+     */
+    public List<FlightAvailabilityDTO> search(String origin, String destination, LocalDate date, String classType, int seats) {
+        Map<String, ConcurrentMap<String, RouteFlights>> snapshot = routes;
+        if (snapshot == null) {
+            databaseSearches.incrementAndGet();
+            return null;
+        }
+        indexSearches.incrementAndGet();
+
+        List<FlightAvailabilityDTO> results = new ArrayList<>();
+        Map<String, RouteFlights> byDestination = snapshot.get(normalize(origin));
+        RouteFlights route = byDestination == null ? null : byDestination.get(normalize(destination));
+        if (route == null) {
+            return results;
+        }
+
+        // Departed flights are skipped here, the next rebuild drops them
+        long now = key(LocalDateTime.now(clock));
+        long to = key(date.plusDays(1).atStartOfDay());
+        for (int i = route.firstDepartingFrom(key(date.atStartOfDay())); i < route.size() && route.departures[i] < to; i++) {
+            if (route.departures[i] <= now) {
+                continue;
+            }
+            for (int c = route.firstClass[i]; c < route.firstClass[i + 1]; c++) {
+                int available = route.availableSeats.get(c);
+                if (available >= seats && (classType == null || classType.equalsIgnoreCase(route.classTypes[c]))) {
+                    results.add(route.toResponse(i, c, available));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Bookable flights leaving an airport with a departure in {@code [from, to)}, to one destination or to any when
+     * {@code destination} is null. Each flight comes once, with its cheapest class that has at least {@code seats}
+     * free seats (of the given class type when set). Returns null while the index is not built.
+     */
+    public List<FlightAvailabilityDTO> departures(String origin, String destination, LocalDateTime from, LocalDateTime to,
+                                                  String classType, int seats) {
+        Map<String, ConcurrentMap<String, RouteFlights>> snapshot = routes;
+        if (snapshot == null) {
+            return null;
+        }
+
+        List<FlightAvailabilityDTO> results = new ArrayList<>();
+        Map<String, RouteFlights> byDestination = snapshot.get(normalize(origin));
+        if (byDestination == null) {
+            return results;
+        }
+        Collection<RouteFlights> candidates;
+        if (destination == null) {
+            candidates = byDestination.values();
+        } else {
+            RouteFlights route = byDestination.get(normalize(destination));
+            candidates = route == null ? List.of() : List.of(route);
+        }
+
+        long now = key(LocalDateTime.now(clock));
+        long end = key(to);
+        for (RouteFlights route : candidates) {
+            for (int i = route.firstDepartingFrom(key(from)); i < route.size() && route.departures[i] < end; i++) {
+                if (route.departures[i] <= now) {
+                    continue;
+                }
+                int cheapest = -1;
+                for (int c = route.firstClass[i]; c < route.firstClass[i + 1]; c++) {
+                    if (route.availableSeats.get(c) >= seats
+                            && (classType == null || classType.equalsIgnoreCase(route.classTypes[c]))
+                            && (cheapest < 0 || route.prices[c].compareTo(route.prices[cheapest]) < 0)) {
+                        cheapest = c;
+                    }
+                }
+                if (cheapest >= 0) {
+                    results.add(route.toResponse(i, cheapest, route.availableSeats.get(cheapest)));
+                }
+            }
+        }
+        return results;
+    }
+
+    /** Applies a seat counter change once the surrounding transaction commits; nothing happens on rollback. */
+    public void seatsChanged(Integer classFlightId, int delta) {
+        afterCommit(() -> applySeatDelta(classFlightId, delta));
+    }
+
+    /** Queues a flight whose schedule, status or classes changed, once the surrounding transaction commits. */
+    public void flightChanged(String flightId) {
+        afterCommit(() -> pendingRefreshes.putIfAbsent(flightId, LocalDateTime.now(clock)));
+    }
+
+    /** Queues the flights of class flights whose counters were corrected outside the request path. */
+    public void classFlightsChanged(Collection<Integer> classFlightIds) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        synchronized (this) {
+            for (Integer classFlightId : classFlightIds) {
+                Slot slot = slots.get(classFlightId);
+                if (slot != null) {
+                    pendingRefreshes.putIfAbsent(slot.flightId(), now);
+                }
+            }
+        }
+    }
+
+    /** Reloads every bookable flight from the database and replaces the whole index. */
+    public void rebuild() {
+        synchronized (maintenanceLock) {
+            synchronized (this) {
+                rebuilding = true;
+            }
+            try {
+                long start = System.nanoTime();
+                LocalDateTime now = LocalDateTime.now(clock);
+                List<ClassFlightAvailability> rows = readOnlyTransaction.execute(
+                        status -> classFlightRepository.findBookableAvailability(now));
+
+                Map<RouteKey, List<ClassFlightAvailability>> byRoute = groupByRoute(rows);
+                ConcurrentMap<String, ConcurrentMap<String, RouteFlights>> built = new ConcurrentHashMap<>();
+                synchronized (this) {
+                    flightRoutes.clear();
+                    slots.clear();
+                    byRoute.forEach((routeKey, routeRows) -> put(built, routeKey, new RouteFlights(routeRows)));
+                    routes = built;
+                }
+
+                lastBuildDurationMillis = (System.nanoTime() - start) / 1_000_000;
+                builtAt = now;
+                rebuilds.incrementAndGet();
+                logger.info("Route availability index built: {} routes, {} class flights in {} ms",
+                        byRoute.size(), rows.size(), lastBuildDurationMillis);
+            } finally {
+                synchronized (this) {
+                    rebuilding = false;
+                    requeueUnindexedDeltas();
+                }
+            }
+        }
+    }
+
+    /** Re-reads the queued flights and returns how many were refreshed. */
+    public int applyPendingRefreshes() {
+        synchronized (maintenanceLock) {
+            if (routes == null || pendingRefreshes.isEmpty()) {
+                return 0;
+            }
+            // Taken off the queue before reading; a change arriving meanwhile queues the flight again
+            List<String> flightIds = new ArrayList<>(pendingRefreshes.keySet());
+            flightIds.forEach(pendingRefreshes::remove);
+            synchronized (this) {
+                refreshing.addAll(flightIds);
+            }
+
+            try {
+                LocalDateTime now = LocalDateTime.now(clock);
+                List<ClassFlightAvailability> rows = readOnlyTransaction.execute(status -> {
+                    List<ClassFlightAvailability> found = new ArrayList<>();
+                    for (int from = 0; from < flightIds.size(); from += IN_CHUNK_SIZE) {
+                        List<String> chunk = flightIds.subList(from, Math.min(from + IN_CHUNK_SIZE, flightIds.size()));
+                        found.addAll(classFlightRepository.findBookableAvailabilityByFlightIdIn(chunk, now));
+                    }
+                    return found;
+                });
+                replaceFlights(new HashSet<>(flightIds), rows);
+            } finally {
+                synchronized (this) {
+                    refreshing.clear();
+                    requeueUnindexedDeltas();
+                }
+            }
+            flightRefreshes.addAndGet(flightIds.size());
+            return flightIds.size();
+        }
+    }
+
+    public synchronized RouteIndexStatisticsDTO getStatistics() {
+        Map<String, ConcurrentMap<String, RouteFlights>> snapshot = routes;
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime oldestPending = pendingRefreshes.values().stream().min(Comparator.naturalOrder()).orElse(null);
+        LocalDateTime built = builtAt;
+        return RouteIndexStatisticsDTO.builder()
+                .warm(snapshot != null)
+                .routes(snapshot == null ? 0 : snapshot.values().stream().mapToInt(Map::size).sum())
+                .flights(flightRoutes.size())
+                .classFlights(slots.size())
+                .builtAt(built)
+                .buildAgeMillis(built == null ? null : Duration.between(built, now).toMillis())
+                .lastBuildDurationMillis(built == null ? null : lastBuildDurationMillis)
+                .pendingRefreshes(pendingRefreshes.size())
+                .oldestPendingMillis(oldestPending == null ? null : Duration.between(oldestPending, now).toMillis())
+                .rebuilds(rebuilds.get())
+                .seatUpdates(seatUpdates.get())
+                .flightRefreshes(flightRefreshes.get())
+                .indexSearches(indexSearches.get())
+                .databaseSearches(databaseSearches.get())
+                .build();
+    }
+
+    private synchronized void applySeatDelta(Integer classFlightId, int delta) {
+        Slot slot = slots.get(classFlightId);
+        if (slot == null) {
+            // Not bookable, or not indexed yet; a rebuild or refresh under way may add it from a read taken before the change
+            if (rebuilding || !refreshing.isEmpty()) {
+                unindexedDeltas.add(classFlightId);
+            }
+            return;
+        }
+        slot.route().availableSeats.addAndGet(slot.index(), delta);
+        seatUpdates.incrementAndGet();
+        if (rebuilding || refreshing.contains(slot.flightId())) {
+            // The rebuild or refresh may have read this counter before or after the change, read it again afterwards
+            pendingRefreshes.putIfAbsent(slot.flightId(), LocalDateTime.now(clock));
+        }
+    }
+
+    // Callers hold the lock
+    private void requeueUnindexedDeltas() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (Integer classFlightId : unindexedDeltas) {
+            Slot slot = slots.get(classFlightId);
+            if (slot != null) {
+                pendingRefreshes.putIfAbsent(slot.flightId(), now);
+            }
+        }
+        unindexedDeltas.clear();
+    }
+
+    private synchronized void replaceFlights(Set<String> flightIds, List<ClassFlightAvailability> rows) {
+        ConcurrentMap<String, ConcurrentMap<String, RouteFlights>> current = routes;
+        Map<RouteKey, List<ClassFlightAvailability>> added = groupByRoute(rows);
+
+        // A flight may have moved to another route, so both its old and its new route are rebuilt
+        Set<RouteKey> touched = new HashSet<>(added.keySet());
+        for (String flightId : flightIds) {
+            RouteKey routeKey = flightRoutes.get(flightId);
+            if (routeKey != null) {
+                touched.add(routeKey);
+            }
+        }
+
+        for (RouteKey routeKey : touched) {
+            Map<String, RouteFlights> byDestination = current.get(routeKey.origin());
+            RouteFlights old = byDestination == null ? null : byDestination.get(routeKey.destination());
+            List<ClassFlightAvailability> merged = new ArrayList<>();
+            if (old != null) {
+                for (ClassFlightAvailability row : old.rows()) {
+                    if (!flightIds.contains(row.flightId())) {
+                        merged.add(row);
+                    }
+                }
+                unlink(old);
+            }
+            merged.addAll(added.getOrDefault(routeKey, List.of()));
+            if (merged.isEmpty()) {
+                if (byDestination != null) {
+                    byDestination.remove(routeKey.destination());
+                }
+            } else {
+                merged.sort(ROW_ORDER);
+                put(current, routeKey, new RouteFlights(merged));
+            }
+        }
+    }
+
+    // Callers hold the lock
+    private void put(ConcurrentMap<String, ConcurrentMap<String, RouteFlights>> target, RouteKey routeKey, RouteFlights route) {
+        for (int i = 0; i < route.size(); i++) {
+            flightRoutes.put(route.flightIds[i], routeKey);
+            for (int c = route.firstClass[i]; c < route.firstClass[i + 1]; c++) {
+                slots.put(route.classFlightIds[c], new Slot(route, c, route.flightIds[i]));
+            }
+        }
+        target.computeIfAbsent(routeKey.origin(), origin -> new ConcurrentHashMap<>()).put(routeKey.destination(), route);
+    }
+
+    private void unlink(RouteFlights route) {
+        for (int i = 0; i < route.size(); i++) {
+            flightRoutes.remove(route.flightIds[i]);
+        }
+        for (int classFlightId : route.classFlightIds) {
+            slots.remove(classFlightId);
+        }
+    }
+
+    private static Map<RouteKey, List<ClassFlightAvailability>> groupByRoute(List<ClassFlightAvailability> rows) {
+        Map<RouteKey, List<ClassFlightAvailability>> byRoute = new HashMap<>();
+        for (ClassFlightAvailability row : rows) {
+            byRoute.computeIfAbsent(new RouteKey(normalize(row.originAirportCode()), normalize(row.destinationAirportCode())),
+                    routeKey -> new ArrayList<>()).add(row);
+        }
+        return byRoute;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    static String normalize(String code) {
+        return code == null ? null : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static long key(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime time(long key) {
+        return LocalDateTime.ofEpochSecond(key, 0, ZoneOffset.UTC);
+    }
+
+    private record RouteKey(String origin, String destination) {
+    }
+
+    private record Slot(RouteFlights route, int index, String flightId) {
+    }
+
+    /**
+     * The flights of one route in departure order. Flight i owns the class entries
+     * {@code firstClass[i]} up to {@code firstClass[i + 1]}. Only the seat counters change in place,
+     * anything else replaces the whole route.
+     */
+    private static final class RouteFlights {
+        final String[] flightIds;
+        final String[] airlineIds;
+        final String originAirportCode;
+        final String destinationAirportCode;
+        final long[] departures;
+        final long[] arrivals;
+        final int[] firstClass;
+        final int[] classFlightIds;
+        final String[] classTypes;
+        final BigDecimal[] prices;
+        final AtomicIntegerArray availableSeats;
+
+        RouteFlights(List<ClassFlightAvailability> rows) {
+            int flights = 0;
+            for (int r = 0; r < rows.size(); r++) {
+                if (r == 0 || !rows.get(r).flightId().equals(rows.get(r - 1).flightId())) {
+                    flights++;
+                }
+            }
+            flightIds = new String[flights];
+            airlineIds = new String[flights];
+            departures = new long[flights];
+            arrivals = new long[flights];
+            firstClass = new int[flights + 1];
+            classFlightIds = new int[rows.size()];
+            classTypes = new String[rows.size()];
+            prices = new BigDecimal[rows.size()];
+            availableSeats = new AtomicIntegerArray(rows.size());
+            originAirportCode = normalize(rows.get(0).originAirportCode());
+            destinationAirportCode = normalize(rows.get(0).destinationAirportCode());
+
+            int i = -1;
+            for (int r = 0; r < rows.size(); r++) {
+                ClassFlightAvailability row = rows.get(r);
+                if (i < 0 || !row.flightId().equals(flightIds[i])) {
+                    i++;
+                    flightIds[i] = row.flightId();
+                    airlineIds[i] = row.airlineId();
+                    departures[i] = key(row.departureTime());
+                    arrivals[i] = key(row.arrivalTime());
+                    firstClass[i] = r;
+                }
+                classFlightIds[r] = row.classFlightId();
+                classTypes[r] = row.classType();
+                prices[r] = row.price();
+                availableSeats.set(r, row.availableSeats() == null ? 0 : row.availableSeats());
+            }
+            firstClass[flights] = rows.size();
+        }
+
+        int size() {
+            return flightIds.length;
+        }
+
+        /** Index of the first flight departing at or after the given time. */
+        int firstDepartingFrom(long from) {
+            int low = 0;
+            int high = departures.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (departures[mid] < from) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        FlightAvailabilityDTO toResponse(int i, int c, int available) {
+            return FlightAvailabilityDTO.builder()
+                    .flightId(flightIds[i])
+                    .airlineId(airlineIds[i])
+                    .originAirportCode(originAirportCode)
+                    .destinationAirportCode(destinationAirportCode)
+                    .departureTime(time(departures[i]))
+                    .arrivalTime(time(arrivals[i]))
+                    .classFlightId(classFlightIds[c])
+                    .classType(classTypes[c])
+                    .availableSeats(available)
+                    .price(prices[c])
+                    .build();
+        }
+
+        /** The route as rows again, with the current seat counters. */
+        List<ClassFlightAvailability> rows() {
+            List<ClassFlightAvailability> rows = new ArrayList<>(classFlightIds.length);
+            for (int i = 0; i < size(); i++) {
+                for (int c = firstClass[i]; c < firstClass[i + 1]; c++) {
+                    rows.add(new ClassFlightAvailability(classFlightIds[c], flightIds[i], airlineIds[i],
+                            originAirportCode, destinationAirportCode, time(departures[i]), time(arrivals[i]),
+                            classTypes[c], availableSeats.get(c), prices[c]));
+                }
+            }
+            return rows;
+        }
+    }
+}
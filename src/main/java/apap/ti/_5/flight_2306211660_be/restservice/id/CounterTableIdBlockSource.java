@@ -0,0 +1,50 @@
+package apap.ti._5.flight_2306211660_be.restservice.id;
+
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.repository.IdCounterRepository;
+
+/**
+ * Reserves blocks with an atomic increment of the sequence's row in id_counters. Each reservation
+ * commits in its own short transaction: the row lock is not held for the caller's transaction, and a
+ * caller that rolls back cannot return numbers that were already handed out.
+ */
+@Component
+public class CounterTableIdBlockSource implements IdBlockSource {
+
+    private final IdCounterRepository idCounterRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CounterTableIdBlockSource(IdCounterRepository idCounterRepository, PlatformTransactionManager transactionManager) {
+        this.idCounterRepository = idCounterRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long reserve(String sequenceKey, int size, LongSupplier highestExisting) {
+        try {
+            return transactionTemplate.execute(status -> reserveInTransaction(sequenceKey, size, highestExisting));
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance created the counter at the same time; it exists now, so this increments it
+            return transactionTemplate.execute(status -> reserveInTransaction(sequenceKey, size, highestExisting));
+        }
+    }
+
+    private long reserveInTransaction(String sequenceKey, int size, LongSupplier highestExisting) {
+        if (idCounterRepository.advance(sequenceKey, size) == 1) {
+            return idCounterRepository.findNextValue(sequenceKey) - size;
+        }
+        long first = highestExisting.getAsLong() + 1;
+        idCounterRepository.create(sequenceKey, first + size);
+        return first;
+    }
+}
@@ -0,0 +1,54 @@
+package apap.ti._5.flight_2306211660_be.restservice.id;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hi/lo number allocation for generated IDs (booking codes, flight IDs, airplane registrations).
+ * Each sequence reserves a block of numbers from the {@link IdBlockSource} and serves the block from
+ * memory, so only one allocation in blockSize goes to the database. Numbers are unique but may have
+ * gaps: the rest of a block is skipped when the application restarts.
+ */
+@Component
+public class IdAllocator {
+
+    private final IdBlockSource idBlockSource;
+    private final int blockSize;
+    private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /** Reserved numbers [next, end) of one sequence. */
+    private static final class Block {
+        private long next;
+        private long end;
+    }
+
+    @Autowired
+    public IdAllocator(IdBlockSource idBlockSource, @Value("${id.allocation.block-size:20}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        this.idBlockSource = idBlockSource;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Next number of the sequence. {@code highestExisting} gives the highest number already in use
+     * and is only called when the sequence is first created.
+     */
+    public long next(String sequenceKey, LongSupplier highestExisting) {
+        Block block = blocks.computeIfAbsent(sequenceKey, key -> new Block());
+        synchronized (block) {
+            if (block.next >= block.end) {
+                long first = idBlockSource.reserve(sequenceKey, blockSize, highestExisting);
+                block.next = first;
+                block.end = first + blockSize;
+            }
+            return block.next++;
+        }
+    }
+}
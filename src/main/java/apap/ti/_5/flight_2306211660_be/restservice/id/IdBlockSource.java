@@ -0,0 +1,17 @@
+package apap.ti._5.flight_2306211660_be.restservice.id;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out blocks of consecutive numbers of a sequence; no number is ever handed out twice,
+ * also across application instances. Numbers of a block that is not used up are lost.
+ */
+public interface IdBlockSource {
+
+    /**
+     * Reserves {@code size} consecutive numbers of the sequence and returns the first one.
+     * A sequence that does not exist yet starts right after {@code highestExisting}, which is
+     * only consulted then, so IDs created before the sequence existed are not handed out again.
+     */
+    long reserve(String sequenceKey, int size, LongSupplier highestExisting);
+}
@@ -0,0 +1,34 @@
+package apap.ti._5.flight_2306211660_be.restservice.idempotency;
+
+/**
+ * Result of claiming an idempotency key. Only {@link Outcome#REPLAY} carries a stored response.
+ */
+public record IdempotencyClaim(Outcome outcome, Integer statusCode, String responseBody) {
+
+    public enum Outcome {
+        // First request with the key; the caller runs it and completes or releases the key
+        ACQUIRED,
+        // Same key and request already answered
+        REPLAY,
+        // Same key still held by a request that has not finished
+        IN_PROGRESS,
+        // Same key used earlier for a different request
+        MISMATCH
+    }
+
+    public static IdempotencyClaim acquired() {
+        return new IdempotencyClaim(Outcome.ACQUIRED, null, null);
+    }
+
+    public static IdempotencyClaim inProgress() {
+        return new IdempotencyClaim(Outcome.IN_PROGRESS, null, null);
+    }
+
+    public static IdempotencyClaim mismatch() {
+        return new IdempotencyClaim(Outcome.MISMATCH, null, null);
+    }
+
+    public static IdempotencyClaim replay(int statusCode, String responseBody) {
+        return new IdempotencyClaim(Outcome.REPLAY, statusCode, responseBody);
+    }
+}
@@ -0,0 +1,152 @@
+package apap.ti._5.flight_2306211660_be.restservice.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import apap.ti._5.flight_2306211660_be.config.security.CurrentUser;
+import apap.ti._5.flight_2306211660_be.restdto.response.BaseResponseDTO;
+
+/**
+ * Runs a mutating endpoint at most once per Idempotency-Key. The first request with a key runs and
+ * its response is stored; a retry with the same key and body gets the stored response back without
+ * reaching the services again. Server errors release the key so the client can retry for real.
+ * Keys are scoped to the operation and the calling user.
+ */
+@Component
+public class IdempotencyGuard {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyGuard.class);
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    @Autowired
+    public IdempotencyGuard(IdempotencyStore store, ObjectMapper objectMapper,
+                            @Value("${idempotency.ttl-minutes:1440}") long ttlMinutes) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * Runs {@code action} unless a request with the same key was already answered. Without a key the
+     * action simply runs. {@code request} is fingerprinted so a reused key with another body is refused.
+     */
+    public <T> ResponseEntity<BaseResponseDTO<T>> execute(String idempotencyKey, String operation, Object request,
+                                                          Class<T> dataType, Supplier<ResponseEntity<BaseResponseDTO<T>>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return reject(HttpStatus.BAD_REQUEST, "Idempotency-Key tidak valid: maksimal " + MAX_KEY_LENGTH + " karakter");
+        }
+
+        String key = operation + ":" + caller() + ":" + idempotencyKey;
+        IdempotencyClaim claim = store.claim(key, fingerprint(operation, request), ttl);
+        if (claim.outcome() == IdempotencyClaim.Outcome.REPLAY) {
+            return replay(claim, dataType);
+        }
+        if (claim.outcome() == IdempotencyClaim.Outcome.IN_PROGRESS) {
+            return reject(HttpStatus.CONFLICT, "Permintaan dengan Idempotency-Key ini masih diproses");
+        }
+        if (claim.outcome() == IdempotencyClaim.Outcome.MISMATCH) {
+            return reject(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key sudah digunakan untuk permintaan yang berbeda");
+        }
+
+        ResponseEntity<BaseResponseDTO<T>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException ex) {
+            store.release(key);
+            throw ex;
+        }
+
+        if (response.getStatusCode().is5xxServerError()) {
+            store.release(key);
+            return response;
+        }
+        try {
+            store.complete(key, response.getStatusCode().value(), objectMapper.writeValueAsString(response.getBody()));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            // The work is done; an unrecorded key only means a retry runs it again
+            logger.warn("Failed to store idempotent response for {}: {}", operation, ex.getMessage());
+            store.release(key);
+        }
+        return response;
+    }
+
+    @Scheduled(initialDelayString = "${idempotency.purge-interval-ms:600000}",
+               fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        try {
+            int removed = store.purgeExpired();
+            if (removed > 0) {
+                logger.info("Purged {} expired idempotency keys", removed);
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Idempotency key purge failed: {}", ex.getMessage());
+        }
+    }
+
+    private <T> ResponseEntity<BaseResponseDTO<T>> replay(IdempotencyClaim claim, Class<T> dataType) {
+        JavaType type = objectMapper.getTypeFactory().constructParametricType(BaseResponseDTO.class, dataType);
+        BaseResponseDTO<T> body;
+        try {
+            body = objectMapper.readValue(claim.responseBody(), type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", ex);
+        }
+        return ResponseEntity.status(claim.statusCode()).header(REPLAYED_HEADER, "true").body(body);
+    }
+
+    private static <T> ResponseEntity<BaseResponseDTO<T>> reject(HttpStatus status, String message) {
+        var body = new BaseResponseDTO<T>();
+        body.setStatus(status.value());
+        body.setMessage(message);
+        body.setTimestamp(new Date());
+        return new ResponseEntity<>(body, status);
+    }
+
+    private static String caller() {
+        String userId = CurrentUser.getUserId();
+        if (userId != null && !userId.isBlank()) {
+            return userId;
+        }
+        String username = CurrentUser.getUsername();
+        return username != null ? username : "anonymous";
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot fingerprint request for " + operation, ex);
+        }
+    }
+}
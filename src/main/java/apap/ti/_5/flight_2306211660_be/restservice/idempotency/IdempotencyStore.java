@@ -0,0 +1,25 @@
+package apap.ti._5.flight_2306211660_be.restservice.idempotency;
+
+import java.time.Duration;
+
+/**
+ * Request fingerprints and serialized responses per idempotency key, kept for a limited time.
+ * The active store is selected with {@code idempotency.store} ({@code memory} or {@code jdbc}).
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims the key for a request with the given fingerprint. An expired entry counts as absent;
+     * a claimed key lives for {@code ttl} unless it is released.
+     */
+    IdempotencyClaim claim(String key, String fingerprint, Duration ttl);
+
+    /** Stores the response of the request that claimed the key. */
+    void complete(String key, int statusCode, String responseBody);
+
+    /** Forgets the key so a retry runs the request again, e.g. after a server error. */
+    void release(String key);
+
+    /** Drops expired entries and returns how many were removed. */
+    int purgeExpired();
+}
@@ -0,0 +1,102 @@
+package apap.ti._5.flight_2306211660_be.restservice.idempotency;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-instance store: a map bounded to {@code idempotency.max-entries}, dropping the oldest
+ * key when full. Keys are not shared between replicas; use the JDBC store for that.
+ */
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final Instant expiresAt;
+        private Integer statusCode;
+        private String responseBody;
+
+        private Entry(String fingerprint, Instant expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+
+    @Autowired
+    public InMemoryIdempotencyStore(@Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this(maxEntries, Clock.systemUTC());
+    }
+
+    public InMemoryIdempotencyStore(int maxEntries, Clock clock) {
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized IdempotencyClaim claim(String key, String fingerprint, Duration ttl) {
+        Instant now = clock.instant();
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.expiresAt.isAfter(now)) {
+            // Re-insert so an expired key moves to the young end of the eviction order
+            entries.remove(key);
+            entries.put(key, new Entry(fingerprint, now.plus(ttl)));
+            return IdempotencyClaim.acquired();
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return IdempotencyClaim.mismatch();
+        }
+        if (entry.statusCode == null) {
+            return IdempotencyClaim.inProgress();
+        }
+        return IdempotencyClaim.replay(entry.statusCode, entry.responseBody);
+    }
+
+    @Override
+    public synchronized void complete(String key, int statusCode, String responseBody) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.statusCode = statusCode;
+            entry.responseBody = responseBody;
+        }
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized int purgeExpired() {
+        Instant now = clock.instant();
+        int removed = 0;
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+            if (!it.next().expiresAt.isAfter(now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
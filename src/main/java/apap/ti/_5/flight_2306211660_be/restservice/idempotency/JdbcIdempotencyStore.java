@@ -0,0 +1,88 @@
+package apap.ti._5.flight_2306211660_be.restservice.idempotency;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Store on the idempotency_keys table, so a retry that lands on another replica still sees the
+ * first attempt. The key row is claimed with a plain insert; the primary key decides the winner.
+ */
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "jdbc")
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final String DELETE_EXPIRED_KEY =
+            "DELETE FROM idempotency_keys WHERE idempotency_key = ? AND expires_at <= ?";
+    private static final String INSERT_KEY =
+            "INSERT INTO idempotency_keys (idempotency_key, fingerprint, created_at, expires_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_KEY =
+            "SELECT fingerprint, status_code, response_body FROM idempotency_keys WHERE idempotency_key = ?";
+
+    private record Row(String fingerprint, Integer statusCode, String responseBody) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    @Autowired
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Clock.systemDefaultZone());
+    }
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    @Override
+    public IdempotencyClaim claim(String key, String fingerprint, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        jdbcTemplate.update(DELETE_EXPIRED_KEY, key, Timestamp.valueOf(now));
+        try {
+            jdbcTemplate.update(INSERT_KEY, key, fingerprint, Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl)));
+            return IdempotencyClaim.acquired();
+        } catch (DuplicateKeyException ex) {
+            // Another request holds or answered the key
+        }
+
+        List<Row> rows = jdbcTemplate.query(SELECT_KEY, (rs, rowNum) -> new Row(
+                rs.getString("fingerprint"), (Integer) rs.getObject("status_code", Integer.class), rs.getString("response_body")), key);
+        if (rows.isEmpty()) {
+            // Released between our insert and read; the client may simply retry
+            return IdempotencyClaim.inProgress();
+        }
+        Row row = rows.get(0);
+        if (!row.fingerprint().equals(fingerprint)) {
+            return IdempotencyClaim.mismatch();
+        }
+        if (row.statusCode() == null) {
+            return IdempotencyClaim.inProgress();
+        }
+        return IdempotencyClaim.replay(row.statusCode(), row.responseBody());
+    }
+
+    @Override
+    public void complete(String key, int statusCode, String responseBody) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET status_code = ?, response_body = ? WHERE idempotency_key = ?",
+                statusCode, responseBody, key);
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idempotency_key = ?", key);
+    }
+
+    @Override
+    public int purgeExpired() {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at <= ?", Timestamp.valueOf(LocalDateTime.now(clock)));
+    }
+}
@@ -12,6 +12,7 @@ import apap.ti._5.flight_2306211660_be.repository.PassengerRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.passenger.AddPassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.passenger.PassengerResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
 
 @Service
 public class PassengerRestServiceImpl implements PassengerRestService {
@@ -19,6 +20,9 @@ public class PassengerRestServiceImpl implements PassengerRestService {
     @Autowired
     private PassengerRepository passengerRepository;
 
+    @Autowired
+    private BookingDetailCache bookingDetailCache;
+
     @Override
     public PassengerResponseDTO createPassenger(AddPassengerRequestDTO dto) {
         Passenger passenger = Passenger.builder()
@@ -65,6 +69,7 @@ public class PassengerRestServiceImpl implements PassengerRestService {
                 .build();
 
         passenger = passengerRepository.save(passenger);
+        bookingDetailCache.invalidatePassenger(passenger.getId());
         return convertToPassengerResponseDTO(passenger);
     }
 
@@ -76,6 +81,7 @@ public class PassengerRestServiceImpl implements PassengerRestService {
         }
 
         passengerRepository.delete(passenger);
+        bookingDetailCache.invalidatePassenger(passenger.getId());
         return convertToPassengerResponseDTO(passenger);
     }
 
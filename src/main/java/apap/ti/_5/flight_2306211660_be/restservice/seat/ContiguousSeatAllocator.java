@@ -0,0 +1,44 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seats a group side by side: takes the shortest run of adjacent free seats that fits the whole
+ * group, so large runs stay intact for later groups. Falls back to the lowest free seats when no
+ * run is long enough. This is the default strategy.
+ */
+@Component
+@ConditionalOnProperty(name = "seat.allocator", havingValue = "contiguous", matchIfMissing = true)
+public class ContiguousSeatAllocator implements SeatAllocator {
+
+    private final SeatAllocator fallback = new FirstFreeSeatAllocator();
+
+    @Override
+    public List<Integer> choose(SeatBitmap bitmap, int count, Predicate<Integer> skip) {
+        if (count <= 0) {
+            return List.of();
+        }
+        for (Map.Entry<Integer, NavigableSet<Integer>> runs : bitmap.freeRunsOfAtLeast(count).entrySet()) {
+            int length = runs.getKey();
+            for (int start : runs.getValue()) {
+                // Held seats are not in the bitmap; they break a run into shorter windows
+                int windowStart = start;
+                for (int ordinal = start; ordinal < start + length; ordinal++) {
+                    if (skip.test(bitmap.seatId(ordinal))) {
+                        windowStart = ordinal + 1;
+                    } else if (ordinal - windowStart + 1 == count) {
+                        return IntStream.range(windowStart, windowStart + count).boxed().toList();
+                    }
+                }
+            }
+        }
+        return fallback.choose(bitmap, count, skip);
+    }
+}
@@ -0,0 +1,27 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** Takes the lowest free seats in seat code order, wherever they are. */
+@Component
+@ConditionalOnProperty(name = "seat.allocator", havingValue = "first-free")
+public class FirstFreeSeatAllocator implements SeatAllocator {
+
+    @Override
+    public List<Integer> choose(SeatBitmap bitmap, int count, Predicate<Integer> skip) {
+        List<Integer> chosen = new ArrayList<>();
+        int ordinal = bitmap.nextFree(0);
+        while (chosen.size() < count && ordinal < bitmap.size()) {
+            if (!skip.test(bitmap.seatId(ordinal))) {
+                chosen.add(ordinal);
+            }
+            ordinal = bitmap.nextFree(ordinal + 1);
+        }
+        return chosen;
+    }
+}
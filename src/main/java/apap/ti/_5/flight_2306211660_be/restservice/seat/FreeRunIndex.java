@@ -0,0 +1,91 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maximal runs of adjacent free seats of one class flight, indexed both by start ordinal and by
+ * length so the shortest run that fits a group is a single ceiling lookup. Kept in step with the
+ * booked bits by {@link SeatBitmap}; not thread-safe on its own.
+ */
+class FreeRunIndex {
+
+    private final TreeMap<Integer, Integer> lengthByStart = new TreeMap<>();
+    private final TreeMap<Integer, TreeSet<Integer>> startsByLength = new TreeMap<>();
+
+    void rebuild(BitSet booked, int size) {
+        lengthByStart.clear();
+        startsByLength.clear();
+        int start = booked.nextClearBit(0);
+        while (start < size) {
+            int end = booked.nextSetBit(start);
+            if (end < 0 || end > size) {
+                end = size;
+            }
+            addRun(start, end - start);
+            start = booked.nextClearBit(end);
+        }
+    }
+
+    /** Seat at {@code ordinal} became booked: split the run that contained it. */
+    void occupy(int ordinal) {
+        Map.Entry<Integer, Integer> run = lengthByStart.floorEntry(ordinal);
+        if (run == null || ordinal >= run.getKey() + run.getValue()) {
+            return;
+        }
+        int start = run.getKey();
+        int end = start + run.getValue();
+        removeRun(start, run.getValue());
+        if (ordinal > start) {
+            addRun(start, ordinal - start);
+        }
+        if (end > ordinal + 1) {
+            addRun(ordinal + 1, end - ordinal - 1);
+        }
+    }
+
+    /** Seat at {@code ordinal} became free: merge it with the runs on either side. */
+    void release(int ordinal) {
+        Map.Entry<Integer, Integer> left = lengthByStart.floorEntry(ordinal);
+        if (left != null && ordinal < left.getKey() + left.getValue()) {
+            return;
+        }
+        int start = ordinal;
+        int length = 1;
+        if (left != null && left.getKey() + left.getValue() == ordinal) {
+            removeRun(left.getKey(), left.getValue());
+            start = left.getKey();
+            length += left.getValue();
+        }
+        Integer right = lengthByStart.get(ordinal + 1);
+        if (right != null) {
+            removeRun(ordinal + 1, right);
+            length += right;
+        }
+        addRun(start, length);
+    }
+
+    /** Start ordinals of runs at least {@code minLength} long, keyed by run length, shortest first. */
+    NavigableMap<Integer, NavigableSet<Integer>> runsOfAtLeast(int minLength) {
+        return Collections.unmodifiableNavigableMap(startsByLength.tailMap(minLength, true));
+    }
+
+    private void addRun(int start, int length) {
+        lengthByStart.put(start, length);
+        startsByLength.computeIfAbsent(length, l -> new TreeSet<>()).add(start);
+    }
+
+    private void removeRun(int start, int length) {
+        lengthByStart.remove(start);
+        TreeSet<Integer> starts = startsByLength.get(length);
+        starts.remove(start);
+        if (starts.isEmpty()) {
+            startsByLength.remove(length);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel for hold expiry. Scheduling is O(1): a deadline is hashed into
+ * the bucket of its tick, and entries due in a later lap of the wheel are kept in
+ * the bucket until their tick comes round. Advanced by a single ticker thread.
+ */
+class HoldTimingWheel {
+
+    private final long tickMillis;
+    private final List<Queue<Entry>> buckets;
+    private long nextTick;
+
+    HoldTimingWheel(long tickMillis, int size, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+        this.nextTick = startMillis / tickMillis;
+    }
+
+    void schedule(UUID token, long deadlineMillis) {
+        // Round up so an entry never fires before its deadline
+        long tick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        buckets.get(bucketOf(tick)).add(new Entry(token, tick));
+    }
+
+    /** Moves the wheel up to {@code nowMillis} and returns the tokens whose deadline passed. */
+    synchronized List<UUID> advance(long nowMillis) {
+        List<UUID> due = new ArrayList<>();
+        long nowTick = nowMillis / tickMillis;
+        // A full lap visits every bucket once, no need to walk further after a long pause
+        long from = Math.max(nextTick, nowTick - buckets.size() + 1);
+        for (long tick = from; tick <= nowTick; tick++) {
+            Queue<Entry> bucket = buckets.get(bucketOf(tick));
+            for (int pending = bucket.size(); pending > 0; pending--) {
+                Entry entry = bucket.poll();
+                if (entry == null) {
+                    break;
+                }
+                if (entry.tick <= nowTick) {
+                    due.add(entry.token);
+                } else {
+                    bucket.add(entry);
+                }
+            }
+        }
+        nextTick = nowTick + 1;
+        return due;
+    }
+
+    private int bucketOf(long tick) {
+        return (int) Math.floorMod(tick, (long) buckets.size());
+    }
+
+    private static final class Entry {
+        private final UUID token;
+        private final long tick;
+
+        private Entry(UUID token, long tick) {
+            this.token = token;
+            this.tick = tick;
+        }
+    }
+}
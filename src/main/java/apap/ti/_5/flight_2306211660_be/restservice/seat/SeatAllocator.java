@@ -0,0 +1,18 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Strategy that picks which free seats a booking gets when the customer did not choose any.
+ * The active strategy is selected with {@code seat.allocator} ({@code contiguous} or {@code first-free}).
+ */
+public interface SeatAllocator {
+
+    /**
+     * Returns the ordinals of the free seats to book for a group of {@code count}, or fewer when
+     * not enough seats are free. Free seats whose ID matches {@code skip} must not be chosen.
+     * Called with the bitmap lock held.
+     */
+    List<Integer> choose(SeatBitmap bitmap, int count, Predicate<Integer> skip);
+}
@@ -0,0 +1,177 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.UUID;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+
+/**
+ * Occupancy of a single class flight. Seats are addressed by ordinal (position in
+ * seat code order); bit i of {@code booked} is set when seat i is taken.
+ * Not thread-safe on its own, callers synchronize on the instance.
+ */
+class SeatBitmap {
+
+    private final List<Seat> seats = new ArrayList<>();
+    private final Map<String, Integer> ordinalByCode = new HashMap<>();
+    private final Map<Integer, Integer> ordinalById = new HashMap<>();
+    private final BitSet booked = new BitSet();
+    private final FreeRunIndex freeRuns = new FreeRunIndex();
+
+    SeatBitmap(List<Seat> loaded) {
+        for (Seat seat : loaded) {
+            seats.add(copy(seat));
+        }
+        reindex();
+    }
+
+    int size() {
+        return seats.size();
+    }
+
+    int countFree() {
+        return seats.size() - booked.cardinality();
+    }
+
+    Integer ordinalOf(String seatCode) {
+        return ordinalByCode.get(seatCode);
+    }
+
+    boolean isFree(int ordinal) {
+        return ordinal >= 0 && ordinal < seats.size() && !booked.get(ordinal);
+    }
+
+    /** Next free ordinal at or after {@code from}, or {@link #size()} when there is none. */
+    int nextFree(int from) {
+        return Math.min(booked.nextClearBit(from), seats.size());
+    }
+
+    Integer seatId(int ordinal) {
+        return seats.get(ordinal).getId();
+    }
+
+    /** Passenger booked on the seat, or null when the seat is free or not tracked. */
+    UUID passengerOf(Integer seatId) {
+        Integer ordinal = ordinalById.get(seatId);
+        return ordinal != null ? seats.get(ordinal).getPassengerId() : null;
+    }
+
+    /** Runs of adjacent free seats at least {@code minLength} long, see {@link FreeRunIndex#runsOfAtLeast(int)}. */
+    NavigableMap<Integer, NavigableSet<Integer>> freeRunsOfAtLeast(int minLength) {
+        return freeRuns.runsOfAtLeast(minLength);
+    }
+
+    /** Marks the given free seats as booked and returns copies of them. */
+    List<Seat> claim(List<Integer> ordinals) {
+        List<Seat> claimed = new ArrayList<>(ordinals.size());
+        for (int ordinal : ordinals) {
+            Seat seat = seats.get(ordinal);
+            setBooked(ordinal, true);
+            claimed.add(copy(seat));
+            seat.setIsBooked(true);
+        }
+        return claimed;
+    }
+
+    /** Applies a persisted seat row, inserting it when it is not tracked yet. */
+    void put(Seat seat) {
+        Integer ordinal = ordinalById.get(seat.getId());
+        if (ordinal != null) {
+            seats.set(ordinal, copy(seat));
+            setBooked(ordinal, Boolean.TRUE.equals(seat.getIsBooked()));
+            return;
+        }
+        boolean append = seats.isEmpty()
+                || seats.get(seats.size() - 1).getSeatCode().compareTo(seat.getSeatCode()) < 0;
+        seats.add(copy(seat));
+        if (append) {
+            int last = seats.size() - 1;
+            ordinalByCode.put(seat.getSeatCode(), last);
+            ordinalById.put(seat.getId(), last);
+            // New ordinals start out booked so the run index only ever sees known seats
+            booked.set(last);
+            setBooked(last, Boolean.TRUE.equals(seat.getIsBooked()));
+        } else {
+            reindex();
+        }
+    }
+
+    void remove(Seat seat) {
+        Integer ordinal = ordinalById.get(seat.getId());
+        if (ordinal == null) {
+            return;
+        }
+        seats.remove((int) ordinal);
+        reindex();
+    }
+
+    /** Drops the tracked seats among {@code seatIds} that are free here; booked ones stay. */
+    void removeFree(Collection<Integer> seatIds) {
+        boolean removed = false;
+        for (Integer seatId : seatIds) {
+            Integer ordinal = ordinalById.get(seatId);
+            if (ordinal != null && !booked.get(ordinal)) {
+                seats.set(ordinal, null);
+                removed = true;
+            }
+        }
+        if (removed) {
+            seats.removeIf(Objects::isNull);
+            reindex();
+        }
+    }
+
+    /** Copies of all seats in seat code order. */
+    List<Seat> snapshot() {
+        List<Seat> result = new ArrayList<>(seats.size());
+        for (Seat seat : seats) {
+            result.add(copy(seat));
+        }
+        return result;
+    }
+
+    private void reindex() {
+        seats.sort(Comparator.comparing(Seat::getSeatCode));
+        ordinalByCode.clear();
+        ordinalById.clear();
+        booked.clear();
+        for (int i = 0; i < seats.size(); i++) {
+            Seat seat = seats.get(i);
+            ordinalByCode.put(seat.getSeatCode(), i);
+            ordinalById.put(seat.getId(), i);
+            if (Boolean.TRUE.equals(seat.getIsBooked())) {
+                booked.set(i);
+            }
+        }
+        freeRuns.rebuild(booked, seats.size());
+    }
+
+    private void setBooked(int ordinal, boolean value) {
+        if (booked.get(ordinal) == value) {
+            return;
+        }
+        booked.set(ordinal, value);
+        if (value) {
+            freeRuns.occupy(ordinal);
+        } else {
+            freeRuns.release(ordinal);
+        }
+    }
+
+    private static Seat copy(Seat seat) {
+        // Detached copy without the eager associations, safe to hand out and mutate
+        return seat.toBuilder()
+                .classFlight(null)
+                .passenger(null)
+                .build();
+    }
+}
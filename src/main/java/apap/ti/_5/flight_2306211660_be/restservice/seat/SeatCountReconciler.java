@@ -0,0 +1,116 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.SeatCountDrift;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatReconciliationResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+
+/**
+ * Brings ClassFlight.availableSeats back in line with the free seat rows. The counter is
+ * maintained by hand on every booking and capacity change and drifts when one of those
+ * requests fails halfway; this job finds the drifted rows with a single grouped aggregate
+ * and rewrites only those.
+ */
+@Component
+public class SeatCountReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatCountReconciler.class);
+
+    private final ClassFlightRepository classFlightRepository;
+    private final RouteAvailabilityIndex routeAvailabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private final AtomicLong totalRuns = new AtomicLong();
+    private final AtomicLong totalCorrected = new AtomicLong();
+    private final AtomicLong totalFailures = new AtomicLong();
+    private volatile SeatReconciliationResponseDTO lastRun;
+
+    @Autowired
+    public SeatCountReconciler(ClassFlightRepository classFlightRepository,
+                               RouteAvailabilityIndex routeAvailabilityIndex,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${seat.reconciliation.enabled:true}") boolean enabled) {
+        this.classFlightRepository = classFlightRepository;
+        this.routeAvailabilityIndex = routeAvailabilityIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    @Scheduled(initialDelayString = "${seat.reconciliation.initial-delay-ms:60000}",
+               fixedDelayString = "${seat.reconciliation.interval-ms:600000}")
+    void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (RuntimeException ex) {
+            logger.warn("Seat count reconciliation failed: {}", ex.getMessage());
+        }
+    }
+
+    /** Runs one reconciliation pass and returns the updated statistics. */
+    public synchronized SeatReconciliationResponseDTO reconcile() {
+        long start = System.nanoTime();
+        int[] result;
+        List<SeatCountDrift> drifts = new ArrayList<>();
+        try {
+            result = transactionTemplate.execute(status -> {
+                drifts.addAll(classFlightRepository.findSeatCountDrift());
+                int corrected = drifts.isEmpty() ? 0 : classFlightRepository.correctAvailableSeats(drifts);
+                return new int[] { drifts.size(), corrected };
+            });
+        } catch (RuntimeException ex) {
+            totalFailures.incrementAndGet();
+            throw ex;
+        }
+        if (result[1] > 0) {
+            // The route index re-reads the corrected counters instead of trusting its own deltas
+            routeAvailabilityIndex.classFlightsChanged(drifts.stream().map(SeatCountDrift::classFlightId).toList());
+        }
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+
+        totalRuns.incrementAndGet();
+        totalCorrected.addAndGet(result[1]);
+        if (result[0] > 0) {
+            logger.info("Seat count reconciliation: {} class flights drifted, {} corrected in {} ms",
+                    result[0], result[1], durationMillis);
+        }
+
+        lastRun = SeatReconciliationResponseDTO.builder()
+                .lastRunAt(LocalDateTime.now())
+                .lastDrifted(result[0])
+                .lastCorrected(result[1])
+                .lastDurationMillis(durationMillis)
+                .build();
+        return getStatistics();
+    }
+
+    public SeatReconciliationResponseDTO getStatistics() {
+        SeatReconciliationResponseDTO last = lastRun;
+        return SeatReconciliationResponseDTO.builder()
+                .lastRunAt(last == null ? null : last.getLastRunAt())
+                .lastDrifted(last == null ? null : last.getLastDrifted())
+                .lastCorrected(last == null ? null : last.getLastCorrected())
+                .lastDurationMillis(last == null ? null : last.getLastDurationMillis())
+                .totalRuns(totalRuns.get())
+                .totalCorrected(totalCorrected.get())
+                .totalFailures(totalFailures.get())
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Short-lived reservation of specific seats, identified by its token.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatHold {
+
+    private final UUID token;
+    private final Integer classFlightId;
+    private final List<Integer> seatIds;
+    private final Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
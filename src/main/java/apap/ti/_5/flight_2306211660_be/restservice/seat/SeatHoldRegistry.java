@@ -0,0 +1,202 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Lock-free table of seat holds keyed by seat ID. A seat is claimed with a single
+ * putIfAbsent, a hold is consumed with a single remove, so two customers can never
+ * end up holding or booking the same seat. A consumed hold keeps its seats until the
+ * booking transaction commits, when the seats are booked in the database. Expiry runs
+ * on a hashed timing wheel.
+ */
+@Component
+public class SeatHoldRegistry {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final HoldTimingWheel wheel;
+    private final ConcurrentMap<Integer, UUID> tokenBySeat = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, SeatHold> holdsByToken = new ConcurrentHashMap<>();
+    // Holds being turned into a booking; they no longer expire and cannot be consumed again
+    private final ConcurrentMap<UUID, SeatHold> consumedByToken = new ConcurrentHashMap<>();
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public SeatHoldRegistry(@Value("${seat.hold.ttl-seconds:300}") long ttlSeconds) {
+        this(Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    public SeatHoldRegistry(Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        this.wheel = new HoldTimingWheel(TICK_MILLIS, WHEEL_SIZE, clock.millis());
+    }
+
+    @PostConstruct
+    void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-hold-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::expireDue, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Holds all given seats under a new token, or none of them when any seat is
+     * already held by someone else.
+     */
+    public SeatHold hold(Integer classFlightId, List<Integer> seatIds) {
+        Instant now = clock.instant();
+        SeatHold hold = new SeatHold(UUID.randomUUID(), classFlightId, List.copyOf(seatIds), now.plus(ttl));
+
+        Integer conflict = claimSeats(hold, now);
+        if (conflict != null) {
+            throw new IllegalStateException("Seat with ID " + conflict + " is currently held by another customer");
+        }
+        return hold;
+    }
+
+    /**
+     * Takes the hold so it can be turned into a booking. Only one caller can consume a
+     * token; returns null when it is unknown or expired. Inside a transaction the seats
+     * stay held until it completes: they are let go after commit, once they are booked,
+     * and the hold is put back otherwise. Outside a transaction they are let go at once.
+     */
+    public SeatHold consume(UUID token) {
+        SeatHold hold = holdsByToken.remove(token);
+        if (hold == null) {
+            return null;
+        }
+        boolean expired = hold.isExpired(clock.instant());
+        if (expired || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseSeats(hold);
+            return expired ? null : hold;
+        }
+
+        consumedByToken.put(token, hold);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    // A hold restored during the transaction (its request failed) stays held
+                    if (consumedByToken.remove(token, hold)) {
+                        releaseSeats(hold);
+                    }
+                } else {
+                    restore(hold);
+                }
+            }
+        });
+        return hold;
+    }
+
+    /** Puts a consumed hold back, unless it expired or its seats were taken meanwhile. */
+    public void restore(SeatHold hold) {
+        consumedByToken.remove(hold.getToken(), hold);
+        Instant now = clock.instant();
+        if (hold.isExpired(now) || claimSeats(hold, now) != null) {
+            releaseSeats(hold);
+        }
+    }
+
+    public boolean release(UUID token) {
+        SeatHold hold = holdsByToken.remove(token);
+        if (hold == null) {
+            return false;
+        }
+        releaseSeats(hold);
+        return true;
+    }
+
+    public boolean isHeld(Integer seatId) {
+        UUID token = tokenBySeat.get(seatId);
+        return token != null && isLive(token, clock.instant());
+    }
+
+    /** Drops holds whose TTL passed. Called by the wheel ticker every second. */
+    public int expireDue() {
+        int expired = 0;
+        Instant now = clock.instant();
+        for (UUID token : wheel.advance(now.toEpochMilli())) {
+            SeatHold hold = holdsByToken.get(token);
+            // A restored hold is rescheduled, only the entry matching an expired hold removes it
+            if (hold != null && hold.isExpired(now) && holdsByToken.remove(token, hold)) {
+                releaseSeats(hold);
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    /** Claims every seat of the hold or none; returns the first conflicting seat ID, or null on success. */
+    private Integer claimSeats(SeatHold hold, Instant now) {
+        // Publish the hold first so other claimers see the token as live
+        holdsByToken.put(hold.getToken(), hold);
+        List<Integer> claimed = new ArrayList<>();
+        for (Integer seatId : hold.getSeatIds()) {
+            if (!claimSeat(seatId, hold.getToken(), now)) {
+                claimed.forEach(id -> tokenBySeat.remove(id, hold.getToken()));
+                holdsByToken.remove(hold.getToken(), hold);
+                return seatId;
+            }
+            claimed.add(seatId);
+        }
+        wheel.schedule(hold.getToken(), hold.getExpiresAt().toEpochMilli());
+        return null;
+    }
+
+    private boolean claimSeat(Integer seatId, UUID token, Instant now) {
+        UUID current = tokenBySeat.putIfAbsent(seatId, token);
+        if (current == null || current.equals(token)) {
+            return true;
+        }
+        // Take over a seat whose previous hold is gone or expired but not swept yet
+        if (!isLive(current, now)) {
+            return tokenBySeat.replace(seatId, current, token);
+        }
+        return false;
+    }
+
+    /** A token still owns its seats while it is held and unexpired, or consumed by an open booking. */
+    private boolean isLive(UUID token, Instant now) {
+        if (consumedByToken.containsKey(token)) {
+            return true;
+        }
+        SeatHold hold = holdsByToken.get(token);
+        return hold != null && !hold.isExpired(now);
+    }
+
+    private void releaseSeats(SeatHold hold) {
+        hold.getSeatIds().forEach(seatId -> tokenBySeat.remove(seatId, hold.getToken()));
+    }
+}
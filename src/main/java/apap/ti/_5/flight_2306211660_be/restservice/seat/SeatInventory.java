@@ -0,0 +1,211 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+import apap.ti._5.flight_2306211660_be.repository.SeatBatchRepository;
+import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
+
+/**
+ * In-memory seat occupancy per class flight, kept as a bitmap over seat ordinals.
+ * Bitmaps are loaded lazily from the seats table on first access and every seat
+ * write goes through this component so memory and database stay in step.
+ */
+@Component
+public class SeatInventory {
+
+    private final SeatRepository seatRepository;
+    private final SeatAllocator seatAllocator;
+    private final ConcurrentMap<Integer, SeatBitmap> bitmaps = new ConcurrentHashMap<>();
+
+    public SeatInventory(SeatRepository seatRepository) {
+        this(seatRepository, new ContiguousSeatAllocator());
+    }
+
+    @Autowired
+    public SeatInventory(SeatRepository seatRepository, SeatAllocator seatAllocator) {
+        this.seatRepository = seatRepository;
+        this.seatAllocator = seatAllocator;
+    }
+
+    /** Seats of a class flight in seat code order. */
+    public List<Seat> getSeatMap(Integer classFlightId) {
+        SeatBitmap bitmap = bitmap(classFlightId);
+        synchronized (bitmap) {
+            return bitmap.snapshot();
+        }
+    }
+
+    public int countFree(Integer classFlightId) {
+        SeatBitmap bitmap = bitmap(classFlightId);
+        synchronized (bitmap) {
+            return bitmap.countFree();
+        }
+    }
+
+    public boolean isFree(Integer classFlightId, String seatCode) {
+        SeatBitmap bitmap = bitmap(classFlightId);
+        synchronized (bitmap) {
+            Integer ordinal = bitmap.ordinalOf(seatCode);
+            return ordinal != null && bitmap.isFree(ordinal);
+        }
+    }
+
+    /**
+     * Reserves up to {@code count} free seats picked by the configured {@link SeatAllocator} and returns them.
+     * The caller must persist each returned seat through {@link #save(Seat)}.
+     */
+    public List<Seat> allocate(Integer classFlightId, int count) {
+        return allocate(classFlightId, count, seatId -> false);
+    }
+
+    /** Same as {@link #allocate(Integer, int)}, passing over free seats matched by {@code skip}. */
+    public List<Seat> allocate(Integer classFlightId, int count, Predicate<Integer> skip) {
+        SeatBitmap bitmap = bitmap(classFlightId);
+        List<Seat> claimed;
+        synchronized (bitmap) {
+            claimed = bitmap.claim(seatAllocator.choose(bitmap, count, skip));
+        }
+        if (!claimed.isEmpty()) {
+            evictOnRollback(classFlightId);
+        }
+        return claimed;
+    }
+
+    /** Persists the seat and applies it to the loaded bitmap, if any. */
+    public Seat save(Seat seat) {
+        Seat saved = seatRepository.save(seat);
+        SeatBitmap bitmap = bitmaps.get(saved.getClassFlightId());
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                bitmap.put(saved);
+            }
+            evictOnRollback(saved.getClassFlightId());
+        }
+        return saved;
+    }
+
+    /**
+     * Persists changed bookings of existing seats of one class flight in one JDBC batch and applies
+     * them to the bitmap. Each seat is written only while it is free or still held by the passenger
+     * the bitmap knows; a seat taken by someone else meanwhile fails the whole write.
+     */
+    public void saveAll(Integer classFlightId, List<Seat> seats) {
+        if (seats.isEmpty()) {
+            return;
+        }
+        SeatBitmap bitmap = bitmap(classFlightId);
+        Map<Integer, UUID> expectedHolders = new HashMap<>();
+        synchronized (bitmap) {
+            for (Seat seat : seats) {
+                expectedHolders.put(seat.getId(), bitmap.passengerOf(seat.getId()));
+            }
+        }
+        if (seatRepository.updateSeatAssignments(seats, expectedHolders) < seats.size()) {
+            throw new IllegalStateException("Seats of class flight " + classFlightId + " were booked concurrently");
+        }
+        synchronized (bitmap) {
+            for (Seat seat : seats) {
+                bitmap.put(seat);
+            }
+        }
+        evictOnRollback(classFlightId);
+    }
+
+    /**
+     * Bulk-inserts a range of unbooked seats. The new rows only get their IDs in the database,
+     * so a loaded bitmap reads them back by seat code and is extended in place.
+     */
+    public int insertSeatRange(Integer classFlightId, String prefix, int fromNumber, int toNumber) {
+        int inserted = seatRepository.insertSeatRange(classFlightId, prefix, fromNumber, toNumber);
+        SeatBitmap bitmap = bitmaps.get(classFlightId);
+        if (bitmap != null && inserted > 0) {
+            List<String> codes = new ArrayList<>(toNumber - fromNumber + 1);
+            for (int number = fromNumber; number <= toNumber; number++) {
+                codes.add(SeatBatchRepository.seatCode(prefix, number));
+            }
+            List<Seat> added = seatRepository.findByClassFlightIdAndSeatCodeInOrderBySeatCodeAsc(classFlightId, codes);
+            synchronized (bitmap) {
+                for (Seat seat : added) {
+                    bitmap.put(seat);
+                }
+            }
+            evictOnRollback(classFlightId);
+        }
+        return inserted;
+    }
+
+    public void delete(Seat seat) {
+        seatRepository.delete(seat);
+        SeatBitmap bitmap = bitmaps.get(seat.getClassFlightId());
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                bitmap.remove(seat);
+            }
+            evictOnRollback(seat.getClassFlightId());
+        }
+    }
+
+    /**
+     * Deletes those of the seats that are still free in one statement and returns how many were deleted.
+     * The loaded bitmap drops the same seats in place, keeping seats other transactions have claimed.
+     */
+    public int deleteFreeSeats(Integer classFlightId, Collection<Integer> seatIds) {
+        if (seatIds.isEmpty()) {
+            return 0;
+        }
+        int deleted = seatRepository.deleteFreeByIdIn(seatIds);
+        SeatBitmap bitmap = bitmaps.get(classFlightId);
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                bitmap.removeFree(seatIds);
+            }
+            evictOnRollback(classFlightId);
+        }
+        return deleted;
+    }
+
+    /** Drops the bitmaps of the given class flights; they are reloaded on next access. */
+    public void evict(Collection<Integer> classFlightIds) {
+        for (Integer classFlightId : classFlightIds) {
+            bitmaps.remove(classFlightId);
+        }
+    }
+
+    public boolean isLoaded(Integer classFlightId) {
+        return bitmaps.containsKey(classFlightId);
+    }
+
+    private SeatBitmap bitmap(Integer classFlightId) {
+        return bitmaps.computeIfAbsent(classFlightId,
+                id -> new SeatBitmap(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(id)));
+    }
+
+    private void evictOnRollback(Integer classFlightId) {
+        // Memory is updated before commit; a rolled back transaction forces a cold reload
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    bitmaps.remove(classFlightId);
+                }
+            }
+        });
+    }
+}
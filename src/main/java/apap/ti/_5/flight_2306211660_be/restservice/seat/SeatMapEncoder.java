@@ -0,0 +1,110 @@
+package apap.ti._5.flight_2306211660_be.restservice.seat;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.CompactSeatMapDTO;
+
+/**
+ * Encodes a class seat map as a run-length string over the seat numbers. Generated seat
+ * codes are a class prefix plus a zero-padded number (EC001, BU012), so a wide-body cabin
+ * of a few hundred seats usually collapses to a handful of runs.
+ */
+public final class SeatMapEncoder {
+
+    static final char FREE = 'F';
+    static final char BOOKED = 'B';
+    static final char NO_SEAT = 'X';
+
+    private static final Pattern SEAT_CODE = Pattern.compile("([A-Za-z]*)(\\d+)");
+    // Up to nine digits always fits an int
+    private static final int MAX_DIGITS = 9;
+    // Number ranges wider than this many slots per seat are mostly X runs; the plain list is smaller
+    private static final int MAX_SLOTS_PER_SEAT = 4;
+
+    private SeatMapEncoder() {
+    }
+
+    public static CompactSeatMapDTO encode(List<Seat> seats) {
+        // The first well-formed code fixes prefix and width; anything else goes to otherSeats
+        String prefix = null;
+        int width = 0;
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        Map<Integer, Boolean> bookedByNumber = new LinkedHashMap<>();
+        Map<String, Boolean> otherSeats = new LinkedHashMap<>();
+
+        for (Seat seat : seats) {
+            boolean booked = Boolean.TRUE.equals(seat.getIsBooked());
+            Matcher m = seat.getSeatCode() == null ? null : SEAT_CODE.matcher(seat.getSeatCode());
+            if (m == null || !m.matches()) {
+                otherSeats.put(seat.getSeatCode(), booked);
+                continue;
+            }
+            if (m.group(2).length() > MAX_DIGITS) {
+                return allAsOtherSeats(seats);
+            }
+            if (prefix == null) {
+                prefix = m.group(1);
+                width = m.group(2).length();
+            }
+            if (!prefix.equals(m.group(1)) || width != m.group(2).length()) {
+                otherSeats.put(seat.getSeatCode(), booked);
+                continue;
+            }
+            int number = Integer.parseInt(m.group(2));
+            bookedByNumber.put(number, booked);
+            first = Math.min(first, number);
+            last = Math.max(last, number);
+        }
+
+        if (prefix == null) {
+            return CompactSeatMapDTO.builder()
+                    .occupancy("")
+                    .otherSeats(otherSeats)
+                    .build();
+        }
+
+        if ((long) last - first + 1 > (long) MAX_SLOTS_PER_SEAT * seats.size()) {
+            return allAsOtherSeats(seats);
+        }
+
+        StringBuilder occupancy = new StringBuilder();
+        char runSymbol = 0;
+        int runLength = 0;
+        for (int number = first; number <= last; number++) {
+            Boolean booked = bookedByNumber.get(number);
+            char symbol = booked == null ? NO_SEAT : booked ? BOOKED : FREE;
+            if (symbol != runSymbol && runLength > 0) {
+                occupancy.append(runLength).append(runSymbol);
+                runLength = 0;
+            }
+            runSymbol = symbol;
+            runLength++;
+        }
+        occupancy.append(runLength).append(runSymbol);
+
+        return CompactSeatMapDTO.builder()
+                .codePattern(prefix + "%0" + width + "d")
+                .firstNumber(first)
+                .lastNumber(last)
+                .occupancy(occupancy.toString())
+                .otherSeats(otherSeats)
+                .build();
+    }
+
+    private static CompactSeatMapDTO allAsOtherSeats(List<Seat> seats) {
+        Map<String, Boolean> otherSeats = new LinkedHashMap<>();
+        for (Seat seat : seats) {
+            otherSeats.put(seat.getSeatCode(), Boolean.TRUE.equals(seat.getIsBooked()));
+        }
+        return CompactSeatMapDTO.builder()
+                .occupancy("")
+                .otherSeats(otherSeats)
+                .build();
+    }
+}
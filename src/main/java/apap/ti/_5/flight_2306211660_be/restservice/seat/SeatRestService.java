@@ -1,19 +1,29 @@
 package apap.ti._5.flight_2306211660_be.restservice.seat;
 
 import java.util.List;
+import java.util.UUID;
 
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.seat.HoldSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.UpdateSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.CompactSeatMapDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatHoldResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
 
 public interface SeatRestService {
 
     SeatResponseDTO createSeat(AddSeatRequestDTO dto);
 
+    // Bulk-creates seats fromNumber..toNumber of a class flight, coded by class type (EC001, BU001, ...)
+    int generateSeats(Integer classFlightId, String classType, int fromNumber, int toNumber);
+
     List<SeatResponseDTO> getAllSeats();
 
     List<SeatResponseDTO> getSeatsByClassFlight(Integer classFlightId);
 
+    // Same seats as a run-length occupancy string, for large cabins
+    CompactSeatMapDTO getCompactSeatMap(Integer classFlightId);
+
     List<SeatResponseDTO> getSeatsByFlight(String flightId);
 
     SeatResponseDTO getSeat(Integer id);
@@ -21,4 +31,8 @@ public interface SeatRestService {
     SeatResponseDTO updateSeat(UpdateSeatRequestDTO dto);
 
     SeatResponseDTO deleteSeat(Integer id);
+
+    SeatHoldResponseDTO holdSeats(HoldSeatRequestDTO dto);
+
+    boolean releaseHold(UUID holdToken);
 }
@@ -1,7 +1,12 @@
 package apap.ti._5.flight_2306211660_be.restservice.seat;
 
-import java.util.Comparator;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,8 +17,12 @@ import apap.ti._5.flight_2306211660_be.model.Seat;
 import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
 import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.seat.HoldSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.UpdateSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.CompactSeatMapDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatHoldResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
 
 @Service
 public class SeatRestServiceImpl implements SeatRestService {
@@ -24,6 +33,15 @@ public class SeatRestServiceImpl implements SeatRestService {
     @Autowired
     private ClassFlightRepository classFlightRepository;
 
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private SeatHoldRegistry seatHoldRegistry;
+
+    @Autowired
+    private BookingDetailCache bookingDetailCache;
+
     @Override
     public SeatResponseDTO createSeat(AddSeatRequestDTO dto) {
         Seat seat = Seat.builder()
@@ -32,7 +50,13 @@ public class SeatRestServiceImpl implements SeatRestService {
                 .isBooked(false)
                 .build();
 
-        return convertToSeatResponseDTO(seatRepository.save(seat));
+        return convertToSeatResponseDTO(seatInventory.save(seat));
+    }
+
+    @Override
+    public int generateSeats(Integer classFlightId, String classType, int fromNumber, int toNumber) {
+        // One batched insert instead of a createSeat round-trip per seat
+        return seatInventory.insertSeatRange(classFlightId, getClassPrefix(classType), fromNumber, toNumber);
     }
 
     @Override
@@ -45,15 +69,18 @@ public class SeatRestServiceImpl implements SeatRestService {
 
     @Override
     public List<SeatResponseDTO> getSeatsByClassFlight(Integer classFlightId) {
-        // Filter in memory and return in stable, sorted order by seat code
-        List<Seat> seats = seatRepository.findAll();
+        // Served from the in-memory seat map, already in seat code order
+        List<Seat> seats = seatInventory.getSeatMap(classFlightId);
         return seats.stream()
-                .filter(seat -> classFlightId.equals(seat.getClassFlightId()))
-                .sorted(Comparator.comparing(Seat::getSeatCode))
                 .map(this::convertToSeatResponseDTO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CompactSeatMapDTO getCompactSeatMap(Integer classFlightId) {
+        return SeatMapEncoder.encode(seatInventory.getSeatMap(classFlightId));
+    }
+
     @Override
     public SeatResponseDTO getSeat(Integer id) {
         Seat seat = seatRepository.findById(id).orElse(null);
@@ -74,7 +101,10 @@ public class SeatRestServiceImpl implements SeatRestService {
                 .isBooked(dto.getPassengerId() != null)
                 .build();
 
-        return convertToSeatResponseDTO(seatRepository.save(seat));
+        Seat saved = seatInventory.save(seat);
+        // Booking details show seat assignments; dropped after the write so a concurrent read cannot re-cache the old seat
+        bookingDetailCache.invalidateClassFlight(saved.getClassFlightId());
+        return convertToSeatResponseDTO(saved);
     }
 
     @Override
@@ -84,32 +114,71 @@ public class SeatRestServiceImpl implements SeatRestService {
             return null;
         }
 
-        seatRepository.delete(seat);
+        seatInventory.delete(seat);
+        bookingDetailCache.invalidateClassFlight(seat.getClassFlightId());
         return convertToSeatResponseDTO(seat);
     }
 
     @Override
     public List<SeatResponseDTO> getSeatsByFlight(String flightId) {
         // Get all class flights for this flight
-        List<ClassFlight> classFlights = classFlightRepository.findAll().stream()
-                .filter(cf -> flightId.equals(cf.getFlightId()))
-                .toList();
-
-        // Get all seats for these class flights
-        List<Integer> classFlightIds = classFlights.stream()
+        List<Integer> classFlightIds = classFlightRepository.findByFlightId(flightId).stream()
                 .map(ClassFlight::getId)
                 .toList();
+        if (classFlightIds.isEmpty()) {
+            return List.of();
+        }
 
-        List<Seat> seats = seatRepository.findAll().stream()
-                .filter(seat -> classFlightIds.contains(seat.getClassFlightId()))
-                .sorted(Comparator.comparing(Seat::getSeatCode))
-                .toList();
+        // Get all seats for these class flights in one query
+        List<Seat> seats = seatRepository.findByClassFlightIdInOrderBySeatCodeAsc(classFlightIds);
 
         return seats.stream()
                 .map(this::convertToSeatResponseDTO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public SeatHoldResponseDTO holdSeats(HoldSeatRequestDTO dto) {
+        if (new HashSet<>(dto.getSeatIds()).size() != dto.getSeatIds().size()) {
+            throw new IllegalArgumentException("Duplicate seat IDs are not allowed");
+        }
+
+        // Seats must belong to the class flight and be free; checked against the in-memory seat map
+        Map<Integer, Seat> seatsById = seatInventory.getSeatMap(dto.getClassFlightId()).stream()
+                .collect(Collectors.toMap(Seat::getId, Function.identity()));
+        for (Integer seatId : dto.getSeatIds()) {
+            Seat seat = seatsById.get(seatId);
+            if (seat == null) {
+                throw new IllegalArgumentException("Seat with ID " + seatId + " does not belong to the specified class flight");
+            }
+            if (Boolean.TRUE.equals(seat.getIsBooked())) {
+                throw new IllegalArgumentException("Seat with ID " + seatId + " is already booked");
+            }
+        }
+
+        SeatHold hold = seatHoldRegistry.hold(dto.getClassFlightId(), dto.getSeatIds());
+        return SeatHoldResponseDTO.builder()
+                .holdToken(hold.getToken())
+                .classFlightId(hold.getClassFlightId())
+                .seatIds(hold.getSeatIds())
+                .expiresAt(LocalDateTime.ofInstant(hold.getExpiresAt(), ZoneId.systemDefault()))
+                .build();
+    }
+
+    @Override
+    public boolean releaseHold(UUID holdToken) {
+        return seatHoldRegistry.release(holdToken);
+    }
+
+    private String getClassPrefix(String classType) {
+        switch (classType == null ? "" : classType.toLowerCase()) {
+            case "economy": return "EC";
+            case "business": return "BU";
+            case "first": return "FI";
+            default: return "EC";
+        }
+    }
+
     private SeatResponseDTO convertToSeatResponseDTO(Seat seat) {
         return SeatResponseDTO.builder()
                 .id(seat.getId())
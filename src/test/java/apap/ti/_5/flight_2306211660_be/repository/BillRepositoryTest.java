@@ -0,0 +1,70 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Bill;
+
+/**
+ * Bill status lookup by service reference against an embedded database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BillRepositoryTest {
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = BillRepository.class)
+    @EntityScan(basePackageClasses = Bill.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM bills");
+        insert("cust1", "Flight", "BK-1", "PAID");
+        insert("cust2", "Flight", "BK-2", "UNPAID");
+        insert("cust1", "Flight", "BK-3", "UNPAID");
+        insert("cust1", "Hotel", "BK-1", "UNPAID");
+    }
+
+    private void insert(String customerId, String serviceName, String reference, String status) {
+        jdbcTemplate.update("INSERT INTO bills (id, customer_id, service_name, service_reference_id, description, amount, status, "
+                + "created_at, updated_at) VALUES (?, ?, ?, ?, 'desc', 100, ?, NOW(), NOW())",
+                UUID.randomUUID(), customerId, serviceName, reference, status);
+    }
+
+    private List<String> statuses(List<BillReferenceStatus> rows) {
+        return rows.stream().map(row -> row.serviceReferenceId() + "=" + row.status()).sorted().toList();
+    }
+
+    @Test
+    void findStatusesByServiceReferenceIdIn_onlyRequestedReferencesOfTheService() {
+        assertEquals(List.of("BK-1=PAID", "BK-2=UNPAID"),
+                statuses(billRepository.findStatusesByServiceReferenceIdIn("Flight", List.of("BK-1", "BK-2"), null)));
+    }
+
+    @Test
+    void findStatusesByServiceReferenceIdIn_scopedToCustomer() {
+        assertEquals(List.of("BK-1=PAID"),
+                statuses(billRepository.findStatusesByServiceReferenceIdIn("Flight", List.of("BK-1", "BK-2"), "cust1")));
+    }
+}
@@ -0,0 +1,123 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Booking;
+
+/**
+ * Listing filters and keyset paging of bookings against an embedded database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookingSpecificationsTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = BookingRepository.class)
+    @EntityScan(basePackageClasses = Booking.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Booking rows only, skip the flight/class fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM bookings");
+    }
+
+    private void insert(String id, String flightId, String email, int status, boolean deleted, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO bookings (id, flight_id, class_flight_id, contact_email, contact_phone, passenger_count, "
+                + "status, total_price, created_at, updated_at, is_deleted) VALUES (?, ?, 1, ?, '0812', 1, ?, 1000000, ?, ?, ?)",
+                id, flightId, email, status, createdAt, createdAt, deleted);
+    }
+
+    private List<String> ids(Specification<Booking> spec) {
+        return bookingRepository.findAll(spec, BookingSpecifications.LISTING_ORDER).stream().map(Booking::getId).toList();
+    }
+
+    @Test
+    void matching_appliesEveryFilterInTheQuery() {
+        insert("BK-1", "GA-100", "a@x.com", 1, false, BASE);
+        insert("BK-2", "GA-100", "b@x.com", 2, false, BASE.plusMinutes(1));
+        insert("BK-3", "QZ-7", "a@x.com", 1, false, BASE.plusMinutes(2));
+        insert("BK-4", "GA-100", "a@x.com", 1, true, BASE.plusMinutes(3));
+        insert("BK_5", "QZ-7", "a@x.com", 1, false, BASE.plusMinutes(4));
+
+        assertEquals(List.of("BK_5", "BK-3", "BK-2", "BK-1"), ids(BookingSpecifications.matching(null, null, null, null, null)));
+        assertEquals(List.of("BK-4", "BK-2", "BK-1"), ids(BookingSpecifications.matching("GA-100", true, null, null, null)));
+        // Case-insensitive contains on booking id or flight id
+        assertEquals(List.of("BK_5", "BK-3"), ids(BookingSpecifications.matching(null, false, "qz", null, null)));
+        // LIKE wildcards in the search term are matched literally
+        assertEquals(List.of("BK_5"), ids(BookingSpecifications.matching(null, false, "k_", null, null)));
+        assertEquals(List.of("BK-1"), ids(BookingSpecifications.matching("GA-100", false, "bk", "a@x.com", 1)));
+        assertEquals(List.of("BK-2"), ids(BookingSpecifications.matching(null, null, null, null, 2)));
+    }
+
+    @Test
+    void ownedBy_matchesContactEmailIgnoringCase() {
+        insert("BK-1", "GA-100", "Customer@Mail.com", 1, false, BASE);
+        insert("BK-2", "GA-100", "customer@mail.com", 1, true, BASE.plusMinutes(1));
+        insert("BK-3", "GA-100", "other@mail.com", 1, false, BASE.plusMinutes(2));
+        insert("BK-4", "QZ-7", "CUSTOMER@MAIL.COM", 2, false, BASE.plusMinutes(3));
+
+        Specification<Booking> mine = BookingSpecifications.ownedBy("customer@MAIL.com");
+
+        assertEquals(List.of("BK-4", "BK-2", "BK-1"), ids(mine));
+        assertEquals(List.of("BK-4", "BK-1"), ids(mine.and(BookingSpecifications.matching(null, false, null, null, null))));
+        assertEquals(List.of("BK-1"), ids(mine.and(BookingSpecifications.matching("GA-100", false, null, null, 1))));
+    }
+
+    @Test
+    void after_walksEveryBookingOnceAcrossPages() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 25; i >= 1; i--) {
+            // Pairs of bookings share a creation time so the id tie-break is exercised
+            insert(String.format("BK-%02d", i), "GA-100", "a@x.com", 1, false, BASE.plusMinutes(i / 2));
+        }
+        for (int i = 25; i >= 1; i--) {
+            // Newest first, and the higher id first within a tie
+            expected.add(String.format("BK-%02d", i));
+        }
+
+        Specification<Booking> filter = BookingSpecifications.matching("GA-100", false, null, null, null);
+        List<String> walked = new ArrayList<>();
+        Booking last = null;
+        int pages = 0;
+        do {
+            Specification<Booking> spec = last == null ? filter
+                    : filter.and(BookingSpecifications.after(last.getCreatedAt(), last.getId()));
+            List<Booking> page = bookingRepository.findBy(spec,
+                    query -> query.sortBy(BookingSpecifications.LISTING_ORDER).limit(7).all());
+            page.forEach(booking -> walked.add(booking.getId()));
+            last = page.isEmpty() ? null : page.get(page.size() - 1);
+            pages++;
+        } while (last != null);
+
+        assertEquals(expected, walked);
+        // Four full or partial pages and the empty one that ends the walk
+        assertEquals(5, pages);
+    }
+}
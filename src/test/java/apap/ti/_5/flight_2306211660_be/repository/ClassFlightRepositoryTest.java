@@ -0,0 +1,116 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.model.ClassFlight;
+
+/**
+ * Stress test for the conditional seat decrement against an embedded database.
+ * Each thread books in its own committed transaction, like concurrent createBooking calls.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ClassFlightRepositoryTest {
+
+    private static final int CLASS_FLIGHT_ID = 1;
+    private static final int THREADS = 64;
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = ClassFlightRepository.class)
+    @EntityScan(basePackageClasses = ClassFlight.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private ClassFlightRepository classFlightRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        // Only the counter row matters here, skip the flight/airline/airplane fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM class_flights");
+        jdbcTemplate.update("INSERT INTO class_flights (id, flight_id, class_type, seat_capacity, available_seats, price) "
+                + "VALUES (?, 'FL-STRESS', 'economy', 100, 10, 1000000)", CLASS_FLIGHT_ID);
+    }
+
+    private int availableSeats() {
+        return jdbcTemplate.queryForObject("SELECT available_seats FROM class_flights WHERE id = ?", Integer.class, CLASS_FLIGHT_ID);
+    }
+
+    private int bookConcurrently(int seatsPerBooking) throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return tx.execute(status -> classFlightRepository.decrementAvailableSeats(CLASS_FLIGHT_ID, seatsPerBooking));
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        // Single-row conditional updates must drain quickly; a lock pile-up would blow this bound
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS), "bookings did not finish in time");
+
+        int successes = 0;
+        for (Future<Integer> result : results) {
+            successes += result.get();
+        }
+        return successes;
+    }
+
+    @Test
+    void lastTenSeats_sixtyFourThreads_noOversell() throws Exception {
+        int successes = bookConcurrently(1);
+
+        assertEquals(10, successes);
+        assertEquals(0, availableSeats());
+    }
+
+    @Test
+    void multiSeatBookings_neverGoNegative() throws Exception {
+        int successes = bookConcurrently(3);
+
+        // 10 seats fit three bookings of 3, the remaining seat cannot be taken by a 3-seat booking
+        assertEquals(3, successes);
+        assertEquals(1, availableSeats());
+    }
+
+    @Test
+    void increment_restoresSeats() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> classFlightRepository.decrementAvailableSeats(CLASS_FLIGHT_ID, 4));
+        tx.executeWithoutResult(status -> classFlightRepository.incrementAvailableSeats(CLASS_FLIGHT_ID, 4));
+
+        assertEquals(10, availableSeats());
+    }
+}
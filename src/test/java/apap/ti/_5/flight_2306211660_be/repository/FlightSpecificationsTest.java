@@ -0,0 +1,135 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Flight;
+
+/**
+ * Flight search filters and keyset paging against an embedded database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class FlightSpecificationsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = FlightRepository.class)
+    @EntityScan(basePackageClasses = Flight.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Flight and airline rows only, skip the airplane fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM flights");
+        jdbcTemplate.update("DELETE FROM airlines");
+        airline("GA", "Garuda Indonesia");
+        airline("QZ", "Indonesia AirAsia");
+    }
+
+    private void airline(String id, String name) {
+        jdbcTemplate.update("INSERT INTO airlines (id, name, country, created_at, updated_at) VALUES (?, ?, 'Indonesia', ?, ?)",
+                id, name, NOW, NOW);
+    }
+
+    private void insert(String id, String airlineId, String origin, String destination, LocalDateTime departure,
+                        LocalDateTime arrival, int status, boolean deleted) {
+        jdbcTemplate.update("INSERT INTO flights (id, airline_id, airplane_id, origin_airport_code, destination_airport_code, "
+                + "departure_time, arrival_time, terminal, gate, baggage_allowance, status, created_at, updated_at, is_deleted) "
+                + "VALUES (?, ?, 'AP-1', ?, ?, ?, ?, 'T1', 'G1', 20, ?, ?, ?, ?)",
+                id, airlineId, origin, destination, departure, arrival, status, NOW, NOW, deleted);
+    }
+
+    private List<String> ids(Specification<Flight> spec) {
+        return flightRepository.findAll(spec, FlightSpecifications.LISTING_ORDER).stream().map(Flight::getId).toList();
+    }
+
+    private Specification<Flight> matching(String origin, String destination, String airlineId, Integer status,
+                                           Boolean includeDeleted, String search) {
+        return FlightSpecifications.matching(origin, destination, airlineId, status, includeDeleted, search, NOW);
+    }
+
+    @Test
+    void matching_appliesRouteAirlineAndSearchInTheQuery() {
+        insert("GA-002", "GA", "CGK", "DPS", NOW.plusHours(3), NOW.plusHours(5), 1, false);
+        insert("GA-001", "GA", "CGK", "DPS", NOW.plusHours(1), NOW.plusHours(3), 1, false);
+        insert("QZ-001", "QZ", "CGK", "DPS", NOW.plusHours(2), NOW.plusHours(4), 1, false);
+        insert("QZ-002", "QZ", "SUB", "DPS", NOW.plusHours(2), NOW.plusHours(4), 1, false);
+        insert("GA-003", "GA", "CGK", "DPS", NOW.plusHours(4), NOW.plusHours(6), 5, true);
+
+        // Departure order, codes matched regardless of the case they were typed in
+        assertEquals(List.of("GA-001", "QZ-001", "GA-002"), ids(matching("cgk", "DPS", null, null, null, null)));
+        assertEquals(List.of("GA-001", "GA-002", "GA-003"), ids(matching("CGK", null, "ga", null, true, null)));
+        // Search covers flight id and airline name
+        assertEquals(List.of("QZ-001", "QZ-002"), ids(matching(null, null, null, null, false, "airasia")));
+        assertEquals(List.of("GA-002"), ids(matching(null, null, null, null, false, "a-002")));
+        assertEquals(List.of(), ids(matching(null, null, null, null, false, "%")));
+    }
+
+    @Test
+    void matching_statusIsTheStatusAtQueryTime() {
+        // Stored as Scheduled but already departed or landed
+        insert("F-AIR", "GA", "CGK", "DPS", NOW.minusHours(1), NOW.plusHours(1), 1, false);
+        insert("F-LANDED", "GA", "CGK", "DPS", NOW.minusHours(3), NOW.minusHours(1), 4, false);
+        insert("F-STALE", "GA", "CGK", "DPS", NOW.minusHours(4), NOW.minusHours(2), 2, false);
+        insert("F-LATER", "GA", "CGK", "DPS", NOW.plusHours(1), NOW.plusHours(2), 1, false);
+        insert("F-DELAYED", "GA", "CGK", "DPS", NOW.plusHours(2), NOW.plusHours(3), 4, false);
+        // Deleted flights keep what is stored
+        insert("F-CANCELLED", "GA", "CGK", "DPS", NOW.minusHours(5), NOW.minusHours(4), 1, true);
+
+        assertEquals(List.of("F-LATER"), ids(matching(null, null, null, 1, false, null)));
+        assertEquals(List.of("F-CANCELLED", "F-LATER"), ids(matching(null, null, null, 1, true, null)));
+        assertEquals(List.of("F-AIR"), ids(matching(null, null, null, 2, false, null)));
+        assertEquals(List.of("F-STALE", "F-LANDED"), ids(matching(null, null, null, 3, false, null)));
+        assertEquals(List.of("F-DELAYED"), ids(matching(null, null, null, 4, false, null)));
+    }
+
+    @Test
+    void after_walksEveryFlightOnceAcrossPages() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 17; i++) {
+            // Pairs of flights share a departure time so the id tie-break is exercised
+            String id = String.format("GA-%03d", i);
+            insert(id, "GA", "CGK", "DPS", NOW.plusHours(i / 2 + 1), NOW.plusHours(i / 2 + 3), 1, false);
+            expected.add(id);
+        }
+
+        Specification<Flight> filter = matching("CGK", "DPS", null, null, false, null);
+        List<String> walked = new ArrayList<>();
+        Flight last = null;
+        do {
+            Specification<Flight> spec = last == null ? filter
+                    : filter.and(FlightSpecifications.after(last.getDepartureTime(), last.getId()));
+            List<Flight> page = flightRepository.findBy(spec,
+                    query -> query.sortBy(FlightSpecifications.LISTING_ORDER).limit(5).all());
+            page.forEach(flight -> walked.add(flight.getId()));
+            last = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (last != null);
+
+        assertEquals(expected, walked);
+    }
+}
@@ -0,0 +1,100 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.model.Passenger;
+
+/**
+ * Bulk passenger and booking-passenger writes against an embedded database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PassengerBatchRepositoryTest {
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = PassengerRepository.class)
+    @EntityScan(basePackageClasses = Passenger.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private BookingPassengerRepository bookingPassengerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM booking_passengers");
+        jdbcTemplate.update("DELETE FROM passengers");
+    }
+
+    private Passenger passenger(String idPassport) {
+        return Passenger.builder()
+                .id(UUID.randomUUID())
+                .fullName("Name " + idPassport)
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .gender(1)
+                .idPassport(idPassport)
+                .build();
+    }
+
+    @Test
+    void insertLinks_linksEveryPassengerOfTheBooking() {
+        List<Passenger> passengers = List.of(passenger("L1"), passenger("L2"), passenger("L3"));
+        passengerRepository.insertPassengers(passengers);
+
+        // Links flush the persistence context first, so they need a transaction like the booking service has
+        int inserted = new TransactionTemplate(transactionManager).execute(status ->
+                bookingPassengerRepository.insertLinks("BK-3", passengers.stream().map(Passenger::getId).toList()));
+
+        assertEquals(3, inserted);
+        assertEquals(3, bookingPassengerRepository.findByBookingId("BK-3").size());
+    }
+
+    @Test
+    void insertPassengers_stampsTimesAndIsFoundByPassport() {
+        Passenger passenger = passenger("X1");
+
+        assertEquals(1, passengerRepository.insertPassengers(List.of(passenger)));
+
+        List<Passenger> found = passengerRepository.findByIdPassportIn(List.of("X1", "X2"));
+        assertEquals(1, found.size());
+        assertEquals(passenger.getId(), found.get(0).getId());
+        assertEquals(passenger.getCreatedAt().withNano(0), found.get(0).getCreatedAt().withNano(0));
+    }
+
+    @Test
+    void insertPassengers_duplicatePassportRejected() {
+        passengerRepository.insertPassengers(List.of(passenger("X1")));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> passengerRepository.insertPassengers(List.of(passenger("X1"))));
+    }
+}
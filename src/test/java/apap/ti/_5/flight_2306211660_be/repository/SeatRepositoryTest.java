@@ -0,0 +1,125 @@
+package apap.ti._5.flight_2306211660_be.repository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+
+/**
+ * Batched seat generation against an embedded database, with a rough timing comparison
+ * against the old one-insert-per-seat path for typical class sizes.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SeatRepositoryTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatRepositoryTest.class);
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = SeatRepository.class)
+    @EntityScan(basePackageClasses = Seat.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        // Seats only, skip the class flight fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM seats");
+    }
+
+    @Test
+    void insertSeatRange_writesCodedUnbookedSeats() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        int inserted = tx.execute(status -> seatRepository.insertSeatRange(7, "BU", 1, 450));
+
+        assertEquals(450, inserted);
+        List<Seat> seats = seatRepository.findByClassFlightIdOrderBySeatCodeAsc(7);
+        assertEquals(450, seats.size());
+        assertEquals("BU001", seats.get(0).getSeatCode());
+        assertEquals("BU450", seats.get(449).getSeatCode());
+        assertEquals(0, seats.stream().filter(Seat::getIsBooked).count());
+        assertEquals(0, seats.stream().filter(s -> s.getCreatedAt() == null || s.getId() == null).count());
+    }
+
+    @Test
+    void insertSeatRange_appendsAfterExistingSeats() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> seatRepository.insertSeatRange(8, "EC", 1, 2));
+
+        tx.execute(status -> seatRepository.insertSeatRange(8, "EC", 3, 4));
+
+        assertEquals(List.of("EC001", "EC002", "EC003", "EC004"),
+                seatRepository.findByClassFlightIdOrderBySeatCodeAsc(8).stream().map(Seat::getSeatCode).toList());
+        assertEquals(0, (int) tx.execute(status -> seatRepository.insertSeatRange(8, "EC", 5, 4)));
+    }
+
+    @Test
+    void findFreeTailSeatIds_skipsBookedSeatsAndDeletesInOneBatch() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> seatRepository.insertSeatRange(9, "EC", 1, 5));
+        jdbcTemplate.update("UPDATE seats SET is_booked = TRUE WHERE class_flight_id = 9 AND seat_code = 'EC004'");
+
+        List<Integer> tail = seatRepository.findFreeTailSeatIds(9, Limit.of(2));
+        tx.executeWithoutResult(status -> seatRepository.deleteAllByIdInBatch(tail));
+
+        assertEquals(List.of("EC001", "EC002", "EC004"),
+                seatRepository.findByClassFlightIdOrderBySeatCodeAsc(9).stream().map(Seat::getSeatCode).toList());
+        assertEquals(2, seatRepository.countByClassFlightIdAndIsBooked(9, false));
+    }
+
+    @Test
+    void batchedVersusPerSeatInsert_timing() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int classFlightId = 100;
+        for (int seatCount : new int[] { 100, 400, 800 }) {
+            int perSeatId = classFlightId++;
+            long start = System.nanoTime();
+            tx.executeWithoutResult(status -> {
+                for (int i = 1; i <= seatCount; i++) {
+                    seatRepository.save(Seat.builder()
+                            .classFlightId(perSeatId)
+                            .seatCode(String.format("EC%03d", i))
+                            .isBooked(false)
+                            .build());
+                }
+            });
+            long perSeatMillis = (System.nanoTime() - start) / 1_000_000;
+
+            int batchedId = classFlightId++;
+            start = System.nanoTime();
+            tx.execute(status -> seatRepository.insertSeatRange(batchedId, "EC", 1, seatCount));
+            long batchedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            logger.info("{} seats: per-seat save {} ms, batched insert {} ms", seatCount, perSeatMillis, batchedMillis);
+            assertEquals(seatCount, seatRepository.findByClassFlightIdOrderBySeatCodeAsc(batchedId).size());
+        }
+    }
+}
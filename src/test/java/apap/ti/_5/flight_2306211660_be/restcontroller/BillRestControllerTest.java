@@ -16,6 +16,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -41,6 +42,8 @@ import apap.ti._5.flight_2306211660_be.restdto.request.bill.ConfirmPaymentReques
 import apap.ti._5.flight_2306211660_be.restdto.request.bill.UpdateBillRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.bill.BillResponseDTO;
 import apap.ti._5.flight_2306211660_be.restservice.bill.BillRestService;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.IdempotencyGuard;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.InMemoryIdempotencyStore;
 
 @ExtendWith(MockitoExtension.class)
 class BillRestControllerTest {
@@ -54,7 +57,8 @@ class BillRestControllerTest {
 
     @BeforeEach
     void setup() {
-        BillRestController controller = new BillRestController(billRestService);
+        BillRestController controller = new BillRestController(billRestService,
+                new IdempotencyGuard(new InMemoryIdempotencyStore(100), new ObjectMapper().findAndRegisterModules(), 60));
         mockMvc = MockMvcBuilders.standaloneSetup(controller)
                 .addFilter((request, response, chain) -> {
                     SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("cust1", "password",
@@ -686,6 +690,32 @@ class BillRestControllerTest {
         }
     }
 
+    @Test
+    @DisplayName("POST /api/bill/{billId}/pay retried with the same Idempotency-Key charges once")
+    void payBill_idempotentRetry() throws Exception {
+        UUID billId = UUID.randomUUID();
+        var bill = sampleBill(billId, "cust1", "Flight", "ref1", "desc", BigDecimal.valueOf(100.0), Bill.BillStatus.UNPAID);
+        var paidBill = sampleBill(billId, "cust1", "Flight", "ref1", "desc", BigDecimal.valueOf(100.0), Bill.BillStatus.PAID);
+
+        when(billRestService.getBillById(billId)).thenReturn(bill);
+        when(billRestService.payBill(eq(billId), eq("cust1"), any())).thenReturn(paidBill);
+
+        try (var mocked = mockStatic(CurrentUser.class)) {
+            mocked.when(CurrentUser::getUserId).thenReturn("cust1");
+
+            for (int attempt = 0; attempt < 2; attempt++) {
+                mockMvc.perform(post("/api/bill/{billId}/pay", billId)
+                        .header("Idempotency-Key", "pay-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.data.status").value("PAID"));
+            }
+        }
+
+        verify(billRestService, times(1)).payBill(eq(billId), eq("cust1"), any());
+    }
+
     @Test
     @DisplayName("POST /api/bill/{billId}/pay returns 403 when customer ID mismatch from body")
     void payBill_customerIdMismatchBody() throws Exception {
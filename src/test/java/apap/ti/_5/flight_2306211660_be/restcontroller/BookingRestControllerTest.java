@@ -4,18 +4,24 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
@@ -29,6 +35,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -37,13 +44,22 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import apap.ti._5.flight_2306211660_be.model.Bill;
 import apap.ti._5.flight_2306211660_be.repository.BookingRepository;
 import apap.ti._5.flight_2306211660_be.restcontroller.booking.BookingRestController;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.AddBookingRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.ConfirmPaymentRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.UpdateBookingRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.bill.BillingOutboxStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingCacheStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutboxDispatcher;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
 import apap.ti._5.flight_2306211660_be.restservice.booking.BookingRestService;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingSequencer;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.IdempotencyGuard;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.InMemoryIdempotencyStore;
 
 /**
  * Standalone MockMvc tests to push coverage for
@@ -61,6 +77,12 @@ class BookingRestControllerTest {
     @Mock
     private apap.ti._5.flight_2306211660_be.restservice.bill.BillRestService billRestService;
 
+    @Mock
+    private BillingOutboxDispatcher billingOutboxDispatcher;
+
+    @Mock
+    private BookingDetailCache bookingDetailCache;
+
     @InjectMocks
     private BookingRestController controller;
 
@@ -71,12 +93,19 @@ class BookingRestControllerTest {
     void setup() {
         controller = new BookingRestController();
         ReflectionTestUtils.setField(controller, "bookingRestService", bookingRestService);
+        // Sequencer disabled: bookings go straight to the mocked service
+        ReflectionTestUtils.setField(controller, "bookingSequencer",
+                new BookingSequencer(bookingRestService, false, 32, ForkJoinPool.commonPool()));
         ReflectionTestUtils.setField(controller, "bookingRepository", bookingRepository);
         ReflectionTestUtils.setField(controller, "billRestService", billRestService);
+        ReflectionTestUtils.setField(controller, "billingOutboxDispatcher", billingOutboxDispatcher);
+        ReflectionTestUtils.setField(controller, "bookingDetailCache", bookingDetailCache);
 
         mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ReflectionTestUtils.setField(controller, "idempotencyGuard",
+                new IdempotencyGuard(new InMemoryIdempotencyStore(100), mapper, 60));
 
         HttpMessageConverter<?> jsonConverter = new MappingJackson2HttpMessageConverter(mapper);
         mockMvc = MockMvcBuilders.standaloneSetup(controller)
@@ -113,36 +142,41 @@ class BookingRestControllerTest {
                 .build();
     }
 
+    private BookingPageResponseDTO page(List<BookingResponseDTO> bookings, String nextCursor) {
+        return BookingPageResponseDTO.builder().bookings(bookings).nextCursor(nextCursor).build();
+    }
+
     // GET /api/booking (list)
 
     @Test
-    @DisplayName("GET /api/booking without params -> 200, calls getAllBookings(includeDeleted=null)")
+    @DisplayName("GET /api/booking without params -> 200, calls getBookingPage with no filters")
     void getAll_noParams() throws Exception {
-        when(bookingRestService.getAllBookings(null, null, null, null)).thenReturn(Collections.emptyList());
+        when(bookingRestService.getBookingPage(null, null, null, null, null, null, null)).thenReturn(page(Collections.emptyList(), null));
 
         mockMvc.perform(get("/api/booking"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.status").value(200));
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
 
-        verify(bookingRestService).getAllBookings(null, null, null, null);
+        verify(bookingRestService).getBookingPage(null, null, null, null, null, null, null);
     }
 
     @Test
-    @DisplayName("GET /api/booking with flightId only -> 200, calls getBookingsByFlight(flightId, null)")
+    @DisplayName("GET /api/booking with flightId only -> 200, calls getBookingPage(flightId)")
     void getAll_withFlightId() throws Exception {
-        when(bookingRestService.getBookingsByFlight("FL-1", null, null, null, null)).thenReturn(Collections.emptyList());
+        when(bookingRestService.getBookingPage("FL-1", null, null, null, null, null, null)).thenReturn(page(Collections.emptyList(), null));
 
         mockMvc.perform(get("/api/booking").param("flightId", "FL-1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(200));
 
-        verify(bookingRestService).getBookingsByFlight("FL-1", null, null, null, null);
+        verify(bookingRestService).getBookingPage("FL-1", null, null, null, null, null, null);
     }
 
     @Test
     @DisplayName("GET /api/booking with flightId and includeDeleted=true -> 200")
     void getAll_withFlightIdIncludeDeleted() throws Exception {
-        when(bookingRestService.getBookingsByFlight("FL-1", true, null, null, null)).thenReturn(Collections.emptyList());
+        when(bookingRestService.getBookingPage("FL-1", true, null, null, null, null, null)).thenReturn(page(Collections.emptyList(), null));
 
         mockMvc.perform(get("/api/booking")
                         .param("flightId", "FL-1")
@@ -150,11 +184,50 @@ class BookingRestControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(200));
 
-        verify(bookingRestService).getBookingsByFlight("FL-1", true, null, null, null);
+        verify(bookingRestService).getBookingPage("FL-1", true, null, null, null, null, null);
     }
 
     @Test
-    @DisplayName("GET /api/booking filters by customer email when role is CUSTOMER")
+    @DisplayName("GET /api/booking with cursor and limit -> 200, passes them through and returns nextCursor")
+    void getAll_keysetPage() throws Exception {
+        when(bookingRestService.getBookingPage(null, null, null, null, null, "abc", 2))
+                .thenReturn(page(List.of(bookingDTO("B-3"), bookingDTO("B-2")), "next"));
+
+        mockMvc.perform(get("/api/booking").param("cursor", "abc").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    @DisplayName("GET /api/booking as SUPERADMIN marks bookings with a PAID bill as paid, reading bills of the page only")
+    void getAll_billStatusesForPageOnly() throws Exception {
+        when(bookingRestService.getBookingPage(null, null, null, null, null, null, null))
+                .thenReturn(page(List.of(bookingDTO("B-1"), bookingDTO("B-2")), null));
+        when(billRestService.getBillStatuses("Flight", List.of("B-1", "B-2"), null))
+                .thenReturn(Map.of("B-1", Bill.BillStatus.PAID, "B-2", Bill.BillStatus.UNPAID));
+
+        mockMvc.perform(get("/api/booking"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].status").value(2))
+                .andExpect(jsonPath("$.data[1].status").value(1));
+
+        verify(billRestService, never()).getServiceBills(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/booking with malformed cursor -> 400")
+    void getAll_invalidCursor() throws Exception {
+        when(bookingRestService.getBookingPage(null, null, null, null, null, "###", null))
+                .thenThrow(new IllegalArgumentException("Invalid booking cursor"));
+
+        mockMvc.perform(get("/api/booking").param("cursor", "###"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    @DisplayName("GET /api/booking scopes the query to the customer's email when role is CUSTOMER")
     void getAll_customerOwnershipFilter() throws Exception {
         var booking1 = BookingResponseDTO.builder()
                 .id("B-1")
@@ -168,19 +241,7 @@ class BookingRestControllerTest {
                 .totalPrice(new BigDecimal("1000000"))
                 .isDeleted(false)
                 .build();
-        var booking2 = BookingResponseDTO.builder()
-                .id("B-2")
-                .flightId("FL-1")
-                .classFlightId(10)
-                .classType("economy")
-                .contactEmail("other@y.com")
-                .contactPhone("08123")
-                .passengerCount(1)
-                .status(1)
-                .totalPrice(new BigDecimal("1000000"))
-                .isDeleted(false)
-                .build();
-        when(bookingRestService.getAllBookings(null, null, null, null)).thenReturn(List.of(booking1, booking2));
+        when(bookingRestService.getCustomerBookingPage("customer@x.com", null, null, null, null, null, null)).thenReturn(page(List.of(booking1), null));
 
         // Set CUSTOMER role for this test
         var auth = new UsernamePasswordAuthenticationToken("customer", "password",
@@ -197,6 +258,24 @@ class BookingRestControllerTest {
                     .andExpect(jsonPath("$.data.length()").value(1))
                     .andExpect(jsonPath("$.data[0].id").value("B-1"));
         }
+        verify(bookingRestService, never()).getBookingPage(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/booking as CUSTOMER without an email -> 200 with no bookings and no query")
+    void getAll_customerWithoutEmail() throws Exception {
+        var auth = new UsernamePasswordAuthenticationToken("customer", "password",
+                java.util.List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+        SecurityContextHolder.getContext().setAuthentication(auth);
+
+        try (MockedStatic<apap.ti._5.flight_2306211660_be.config.security.CurrentUser> mocked = mockStatic(apap.ti._5.flight_2306211660_be.config.security.CurrentUser.class)) {
+            mocked.when(apap.ti._5.flight_2306211660_be.config.security.CurrentUser::getRole).thenReturn("ROLE_CUSTOMER");
+
+            mockMvc.perform(get("/api/booking"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.length()").value(0));
+        }
+        verifyNoInteractions(bookingRestService);
     }
 
     @Test
@@ -260,6 +339,29 @@ class BookingRestControllerTest {
         }
     }
 
+    @Test
+    @DisplayName("GET /api/booking/{id} customer sees the status of their own bill")
+    void get_one_customerBillStatusApplied() throws Exception {
+        var booking = BookingResponseDTO.builder()
+                .id("B-1")
+                .contactEmail("customer@x.com")
+                .status(1)
+                .build();
+        when(bookingRestService.getBooking("B-1")).thenReturn(booking);
+        when(billRestService.getBillStatuses("Flight", List.of("B-1"), "cust1"))
+                .thenReturn(Map.of("B-1", Bill.BillStatus.PAID));
+
+        try (MockedStatic<apap.ti._5.flight_2306211660_be.config.security.CurrentUser> mocked = mockStatic(apap.ti._5.flight_2306211660_be.config.security.CurrentUser.class)) {
+            mocked.when(apap.ti._5.flight_2306211660_be.config.security.CurrentUser::getRole).thenReturn("ROLE_CUSTOMER");
+            mocked.when(apap.ti._5.flight_2306211660_be.config.security.CurrentUser::getEmail).thenReturn("customer@x.com");
+            mocked.when(apap.ti._5.flight_2306211660_be.config.security.CurrentUser::getUserId).thenReturn("cust1");
+
+            mockMvc.perform(get("/api/booking/B-1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.status").value(2));
+        }
+    }
+
     // POST /api/booking/create
 
     @Test
@@ -281,7 +383,6 @@ class BookingRestControllerTest {
                 ))
                 .build();
 
-        lenient().when(billRestService.createBill(any())).thenReturn(null);
         when(bookingRestService.createBooking(any(AddBookingRequestDTO.class))).thenReturn(bookingDTO("NEW-1"));
 
         mockMvc.perform(post("/api/booking/create")
@@ -292,6 +393,57 @@ class BookingRestControllerTest {
                 .andExpect(jsonPath("$.data.id").value("NEW-1"));
     }
 
+    private AddBookingRequestDTO createRequest(String idPassport) {
+        return AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).contactEmail("x@y.com").contactPhone("08123").passengerCount(1)
+                .passengers(List.of(apap.ti._5.flight_2306211660_be.restdto.request.passenger.AddPassengerRequestDTO.builder()
+                        .fullName("A").birthDate(LocalDate.now().minusYears(20)).gender(1).idPassport(idPassport).build()))
+                .build();
+    }
+
+    @Test
+    @DisplayName("POST /api/booking/create retried with the same Idempotency-Key replays the first response")
+    void create_idempotentRetry() throws Exception {
+        when(bookingRestService.createBooking(any(AddBookingRequestDTO.class))).thenReturn(bookingDTO("NEW-1"));
+
+        mockMvc.perform(post("/api/booking/create")
+                        .header("Idempotency-Key", "k-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(createRequest("P1"))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.id").value("NEW-1"));
+        mockMvc.perform(post("/api/booking/create")
+                        .header("Idempotency-Key", "k-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(createRequest("P1"))))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.data.id").value("NEW-1"));
+
+        verify(bookingRestService, times(1)).createBooking(any(AddBookingRequestDTO.class));
+        // The bill goes through the billing outbox inside createBooking, not through the controller
+        verify(billRestService, never()).createBill(any());
+    }
+
+    @Test
+    @DisplayName("POST /api/booking/create reusing an Idempotency-Key for another body -> 422")
+    void create_idempotencyKeyReusedForOtherRequest() throws Exception {
+        when(bookingRestService.createBooking(any(AddBookingRequestDTO.class))).thenReturn(bookingDTO("NEW-1"));
+
+        mockMvc.perform(post("/api/booking/create")
+                        .header("Idempotency-Key", "k-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(createRequest("P1"))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/booking/create")
+                        .header("Idempotency-Key", "k-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(toJson(createRequest("P2"))))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(bookingRestService, times(1)).createBooking(any(AddBookingRequestDTO.class));
+    }
+
     @Test
     @DisplayName("POST /api/booking/create invalid binding -> 400")
     void create_invalidBinding() throws Exception {
@@ -716,7 +868,6 @@ class BookingRestControllerTest {
                 ))
                 .build();
 
-        lenient().when(billRestService.createBill(any())).thenReturn(null);
         lenient().when(bookingRestService.createBooking(any(AddBookingRequestDTO.class))).thenReturn(bookingDTO("NEW-1"));
 
         var auth = new UsernamePasswordAuthenticationToken("customer", "password",
@@ -767,8 +918,8 @@ class BookingRestControllerTest {
 
 
     @Test
-    @DisplayName("POST /api/booking/create auto bill creation works")
-    void create_billAutoCreation() throws Exception {
+    @DisplayName("POST /api/booking/create passes the caller as bill owner to the booking service")
+    void create_passesBillingCustomer() throws Exception {
         AddBookingRequestDTO req = AddBookingRequestDTO.builder()
                 .flightId("FL-1")
                 .classFlightId(10)
@@ -785,7 +936,6 @@ class BookingRestControllerTest {
                 ))
                 .build();
 
-        lenient().when(billRestService.createBill(any())).thenReturn(null);
         lenient().when(bookingRestService.createBooking(any(AddBookingRequestDTO.class))).thenReturn(bookingDTO("NEW-1"));
 
         try (MockedStatic<apap.ti._5.flight_2306211660_be.config.security.CurrentUser> mocked = mockStatic(apap.ti._5.flight_2306211660_be.config.security.CurrentUser.class)) {
@@ -797,6 +947,42 @@ class BookingRestControllerTest {
                     .andExpect(status().isCreated())
                     .andExpect(jsonPath("$.status").value(201));
         }
+
+        verify(bookingRestService).createBooking(argThat(dto -> "cust1".equals(dto.getBillingCustomerId())));
+        verify(billRestService, never()).createBill(any());
+    }
+
+    @Test
+    @DisplayName("GET /api/booking/billing-outbox returns dispatcher statistics")
+    void billingOutboxStatistics() throws Exception {
+        when(billingOutboxDispatcher.getStatistics()).thenReturn(BillingOutboxStatisticsDTO.builder()
+                .pendingEvents(3L)
+                .lagMillis(1500L)
+                .totalDispatched(40L)
+                .build());
+
+        mockMvc.perform(get("/api/booking/billing-outbox"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.pendingEvents").value(3))
+                .andExpect(jsonPath("$.data.lagMillis").value(1500))
+                .andExpect(jsonPath("$.data.totalDispatched").value(40));
+    }
+
+    @Test
+    @DisplayName("GET /api/booking/detail-cache returns cache statistics")
+    void detailCacheStatistics() throws Exception {
+        when(bookingDetailCache.getStatistics()).thenReturn(BookingCacheStatisticsDTO.builder()
+                .size(12)
+                .hits(30L)
+                .misses(10L)
+                .hitRatio(0.75)
+                .build());
+
+        mockMvc.perform(get("/api/booking/detail-cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.size").value(12))
+                .andExpect(jsonPath("$.data.hits").value(30))
+                .andExpect(jsonPath("$.data.hitRatio").value(0.75));
     }
 
     @Test
@@ -818,7 +1004,6 @@ class BookingRestControllerTest {
                 ))
                 .build();
 
-        lenient().when(billRestService.createBill(any())).thenReturn(null);
         lenient().when(bookingRestService.createBooking(any(AddBookingRequestDTO.class))).thenReturn(bookingDTO("NEW-1"));
 
         var auth = new UsernamePasswordAuthenticationToken("customer", "password",
@@ -8,9 +8,17 @@ import apap.ti._5.flight_2306211660_be.restdto.request.classFlight.AddClassFligh
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.AddFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.UpdateFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.classFlight.ClassFlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItineraryDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItinerarySearchResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.RouteIndexStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.CompactSeatMapDTO;
 import apap.ti._5.flight_2306211660_be.restcontroller.flight.FlightRestController;
 import apap.ti._5.flight_2306211660_be.restservice.flight.FlightRestService;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -29,14 +37,18 @@ import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.MockedStatic;
 
@@ -53,6 +65,9 @@ public class FlightRestControllerTest {
     @Mock
     private FlightRestService flightRestService;
 
+    @Mock
+    private RouteAvailabilityIndex routeAvailabilityIndex;
+
     @InjectMocks
     private FlightRestController controller;
 
@@ -63,6 +78,7 @@ public class FlightRestControllerTest {
     void setup() {
         controller = new FlightRestController();
         ReflectionTestUtils.setField(controller, "flightRestService", flightRestService);
+        ReflectionTestUtils.setField(controller, "routeAvailabilityIndex", routeAvailabilityIndex);
 
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
 
@@ -102,21 +118,21 @@ public class FlightRestControllerTest {
     @Test
     @DisplayName("GET /api/flight/all without filters -> 200")
     void getAllFlights_ok_noFilters() throws Exception {
-        when(flightRestService.getAllFlightsWithFilters(null, null, null, null, null, null))
-                .thenReturn(Collections.emptyList());
+        when(flightRestService.getFlightPage(null, null, null, null, null, null, null, null))
+                .thenReturn(FlightPageResponseDTO.builder().flights(Collections.emptyList()).build());
 
         mockMvc.perform(get("/api/flight/all"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(200));
 
-        verify(flightRestService).getAllFlightsWithFilters(null, null, null, null, null, null);
+        verify(flightRestService).getFlightPage(null, null, null, null, null, null, null, null);
     }
 
     @Test
     @DisplayName("GET /api/flight/all with filters -> 200 and calls service with params")
     void getAllFlights_ok_withFilters() throws Exception {
-        when(flightRestService.getAllFlightsWithFilters("CGK", "DPS", "AL-1", 3, true, null))
-                .thenReturn(Collections.emptyList());
+        when(flightRestService.getFlightPage("CGK", "DPS", "AL-1", 3, true, null, null, null))
+                .thenReturn(FlightPageResponseDTO.builder().flights(Collections.emptyList()).build());
 
         mockMvc.perform(get("/api/flight/all")
                         .param("originAirportCode", "CGK")
@@ -127,13 +143,13 @@ public class FlightRestControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(200));
 
-        verify(flightRestService).getAllFlightsWithFilters("CGK", "DPS", "AL-1", 3, true, null);
+        verify(flightRestService).getFlightPage("CGK", "DPS", "AL-1", 3, true, null, null, null);
     }
 
     @Test
     @DisplayName("GET /api/flight/all -> 500 on service exception")
     void getAllFlights_internalError() throws Exception {
-        when(flightRestService.getAllFlightsWithFilters(any(), any(), any(), any(), any(), any()))
+        when(flightRestService.getFlightPage(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenThrow(new RuntimeException("boom"));
 
         mockMvc.perform(get("/api/flight/all"))
@@ -141,6 +157,29 @@ public class FlightRestControllerTest {
                 .andExpect(jsonPath("$.status").value(500));
     }
 
+    @Test
+    @DisplayName("GET /api/flight/all with cursor and limit -> page plus nextCursor")
+    void getAllFlights_keysetPage() throws Exception {
+        when(flightRestService.getFlightPage(null, null, null, null, null, null, "c1", 1))
+                .thenReturn(FlightPageResponseDTO.builder().flights(List.of(sampleFlight("F-1"))).nextCursor("c2").build());
+
+        mockMvc.perform(get("/api/flight/all").param("cursor", "c1").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("c2"));
+    }
+
+    @Test
+    @DisplayName("GET /api/flight/all with invalid cursor -> 400")
+    void getAllFlights_invalidCursor() throws Exception {
+        when(flightRestService.getFlightPage(null, null, null, null, null, null, "bad", null))
+                .thenThrow(new IllegalArgumentException("Invalid flight cursor"));
+
+        mockMvc.perform(get("/api/flight/all").param("cursor", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
     @Test
     @DisplayName("GET /api/flight/all with includeDeleted forbidden for customer -> 403")
     void getAllFlights_includeDeleted_forbidden() throws Exception {
@@ -166,6 +205,36 @@ public class FlightRestControllerTest {
                 .andExpect(jsonPath("$.data.id").value("F-1"));
     }
 
+    @Test
+    @DisplayName("GET /api/flight/{id}?seatMap=compact -> classes carry a run-length seat map")
+    void getFlight_compactSeatMap() throws Exception {
+        var dto = sampleFlight("F-2");
+        dto.setClasses(List.of(ClassFlightResponseDTO.builder()
+                .id(3)
+                .classType("economy")
+                .seatMap(CompactSeatMapDTO.builder()
+                        .codePattern("EC%03d").firstNumber(1).lastNumber(300).occupancy("12B288F")
+                        .otherSeats(Map.of())
+                        .build())
+                .build()));
+        when(flightRestService.getFlightDetail("F-2", true)).thenReturn(dto);
+
+        mockMvc.perform(get("/api/flight/F-2").param("seatMap", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.classes[0].seatMap.occupancy").value("12B288F"))
+                .andExpect(jsonPath("$.data.classes[0].seatMap.codePattern").value("EC%03d"));
+        verify(flightRestService, never()).getFlightDetail("F-2");
+    }
+
+    @Test
+    @DisplayName("GET /api/flight/{id}?seatMap=unknown -> 400")
+    void getFlight_unknownSeatMapFormat() throws Exception {
+        mockMvc.perform(get("/api/flight/F-1").param("seatMap", "bitmap"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+        verifyNoInteractions(flightRestService);
+    }
+
     @Test
     @DisplayName("GET /api/flight/{id} not found -> 404")
     void getFlight_notFound() throws Exception {
@@ -502,4 +571,102 @@ public class FlightRestControllerTest {
                     .andExpect(jsonPath("$.data[0].flightNumber").value("FL-1"));
         }
     }
+
+    @Test
+    @DisplayName("GET /api/flight/availability -> 200 with the index result")
+    void searchAvailability_ok() throws Exception {
+        var result = FlightAvailabilityResponseDTO.builder()
+                .source("index")
+                .flights(List.of(FlightAvailabilityDTO.builder().flightId("F1").classType("economy").availableSeats(12).build()))
+                .build();
+        when(flightRestService.searchAvailability("CGK", "DPS", LocalDate.of(2030, 1, 1), "economy", 2)).thenReturn(result);
+
+        mockMvc.perform(get("/api/flight/availability")
+                        .param("originAirportCode", "CGK")
+                        .param("destinationAirportCode", "DPS")
+                        .param("date", "2030-01-01")
+                        .param("classType", "economy")
+                        .param("passengers", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.source").value("index"))
+                .andExpect(jsonPath("$.data.flights[0].flightId").value("F1"));
+    }
+
+    @Test
+    @DisplayName("GET /api/flight/availability with a malformed date -> 400")
+    void searchAvailability_badDate() throws Exception {
+        mockMvc.perform(get("/api/flight/availability")
+                        .param("originAirportCode", "CGK")
+                        .param("destinationAirportCode", "DPS")
+                        .param("date", "01-01-2030"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(flightRestService);
+    }
+
+    @Test
+    @DisplayName("GET /api/flight/availability without a route -> 400")
+    void searchAvailability_missingRoute() throws Exception {
+        when(flightRestService.searchAvailability(null, null, LocalDate.of(2030, 1, 1), null, null))
+                .thenThrow(new IllegalArgumentException("Origin, destination and date are required"));
+
+        mockMvc.perform(get("/api/flight/availability").param("date", "2030-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Parameter pencarian tidak valid: Origin, destination and date are required"));
+    }
+
+    @Test
+    @DisplayName("GET /api/flight/availability/index -> 200 with index statistics")
+    void availabilityIndexStatistics_ok() throws Exception {
+        when(routeAvailabilityIndex.getStatistics())
+                .thenReturn(RouteIndexStatisticsDTO.builder().warm(true).routes(3).flights(10).pendingRefreshes(0).build());
+
+        mockMvc.perform(get("/api/flight/availability/index"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.warm").value(true))
+                .andExpect(jsonPath("$.data.routes").value(3));
+    }
+
+    @Test
+    @DisplayName("GET /api/flight/itinerary -> 200 with ranked itineraries")
+    void searchItineraries_ok() throws Exception {
+        var result = ItinerarySearchResponseDTO.builder()
+                .source("index")
+                .itineraries(List.of(ItineraryDTO.builder()
+                        .legs(List.of(FlightAvailabilityDTO.builder().flightId("F1").build(),
+                                FlightAvailabilityDTO.builder().flightId("F2").build()))
+                        .connections(1)
+                        .build()))
+                .build();
+        when(flightRestService.searchItineraries("CGK", "DPS", LocalDate.of(2030, 1, 1), null, 2, 1, "price", 3))
+                .thenReturn(result);
+
+        mockMvc.perform(get("/api/flight/itinerary")
+                        .param("originAirportCode", "CGK")
+                        .param("destinationAirportCode", "DPS")
+                        .param("date", "2030-01-01")
+                        .param("passengers", "2")
+                        .param("maxConnections", "1")
+                        .param("sort", "price")
+                        .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.source").value("index"))
+                .andExpect(jsonPath("$.data.itineraries[0].connections").value(1))
+                .andExpect(jsonPath("$.data.itineraries[0].legs[1].flightId").value("F2"));
+    }
+
+    @Test
+    @DisplayName("GET /api/flight/itinerary with an unknown sort -> 400")
+    void searchItineraries_badSort() throws Exception {
+        when(flightRestService.searchItineraries("CGK", "DPS", LocalDate.of(2030, 1, 1), null, null, null, "fastest", null))
+                .thenThrow(new IllegalArgumentException("Unknown sort: fastest (use arrival, legs or price)"));
+
+        mockMvc.perform(get("/api/flight/itinerary")
+                        .param("originAirportCode", "CGK")
+                        .param("destinationAirportCode", "DPS")
+                        .param("date", "2030-01-01")
+                        .param("sort", "fastest"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Parameter pencarian tidak valid: Unknown sort: fastest (use arrival, legs or price)"));
+    }
 }
@@ -3,6 +3,7 @@ package apap.ti._5.flight_2306211660_be.restcontroller;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 import org.hamcrest.Matchers;
@@ -34,8 +35,12 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import apap.ti._5.flight_2306211660_be.restcontroller.seat.SeatRestController;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.seat.HoldSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.UpdateSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatHoldResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatReconciliationResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatCountReconciler;
 import apap.ti._5.flight_2306211660_be.restservice.seat.SeatRestService;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,10 +52,14 @@ class SeatRestControllerTest {
     @Mock
     private SeatRestService seatRestService;
 
+    @Mock
+    private SeatCountReconciler seatCountReconciler;
+
     @BeforeEach
     void setup() {
         var controller = new SeatRestController();
         ReflectionTestUtils.setField(controller, "seatRestService", seatRestService);
+        ReflectionTestUtils.setField(controller, "seatCountReconciler", seatCountReconciler);
 
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
@@ -316,4 +325,115 @@ class SeatRestControllerTest {
                 .andExpect(jsonPath("$.status").value(500))
                 .andExpect(jsonPath("$.message").value(Matchers.containsString("error")));
     }
+
+    // POST /api/seat/hold 201/400/409, POST /api/seat/hold/release/{token} 200/404
+    @Test
+    @DisplayName("POST /api/seat/hold returns 201 with the hold token")
+    void hold_valid() throws Exception {
+        UUID token = UUID.randomUUID();
+        var req = HoldSeatRequestDTO.builder().classFlightId(10).seatIds(List.of(1, 2)).build();
+        when(seatRestService.holdSeats(any(HoldSeatRequestDTO.class))).thenReturn(SeatHoldResponseDTO.builder()
+                .holdToken(token).classFlightId(10).seatIds(List.of(1, 2))
+                .expiresAt(LocalDateTime.now().plusMinutes(5))
+                .build());
+
+        mockMvc.perform(post("/api/seat/hold")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value(201))
+                .andExpect(jsonPath("$.data.holdToken").value(token.toString()));
+    }
+
+    @Test
+    @DisplayName("POST /api/seat/hold returns 400 when seat IDs are missing")
+    void hold_invalid() throws Exception {
+        var invalid = HoldSeatRequestDTO.builder().classFlightId(10).seatIds(List.of()).build();
+
+        mockMvc.perform(post("/api/seat/hold")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalid)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+
+        verify(seatRestService, never()).holdSeats(any());
+    }
+
+    @Test
+    @DisplayName("POST /api/seat/hold returns 409 when a seat is held by someone else")
+    void hold_conflict() throws Exception {
+        var req = HoldSeatRequestDTO.builder().classFlightId(10).seatIds(List.of(1)).build();
+        when(seatRestService.holdSeats(any(HoldSeatRequestDTO.class)))
+                .thenThrow(new IllegalStateException("Seat with ID 1 is currently held by another customer"));
+
+        mockMvc.perform(post("/api/seat/hold")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.message").value(Matchers.containsString("held")));
+    }
+
+    @Test
+    @DisplayName("POST /api/seat/hold returns 400 when a seat is already booked")
+    void hold_seatBooked() throws Exception {
+        var req = HoldSeatRequestDTO.builder().classFlightId(10).seatIds(List.of(1)).build();
+        when(seatRestService.holdSeats(any(HoldSeatRequestDTO.class)))
+                .thenThrow(new IllegalArgumentException("Seat with ID 1 is already booked"));
+
+        mockMvc.perform(post("/api/seat/hold")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    @DisplayName("POST /api/seat/hold/release/{token} returns 200 when released, 404 when unknown")
+    void releaseHold() throws Exception {
+        UUID live = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        when(seatRestService.releaseHold(live)).thenReturn(true);
+        when(seatRestService.releaseHold(unknown)).thenReturn(false);
+
+        mockMvc.perform(post("/api/seat/hold/release/{holdToken}", live))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200));
+        mockMvc.perform(post("/api/seat/hold/release/{holdToken}", unknown))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+    }
+
+    @Test
+    @DisplayName("GET /api/seat/reconciliation -> 200 with counters")
+    void getReconciliationStatistics() throws Exception {
+        when(seatCountReconciler.getStatistics()).thenReturn(SeatReconciliationResponseDTO.builder()
+                .totalRuns(4L).totalCorrected(2L).totalFailures(0L).build());
+
+        mockMvc.perform(get("/api/seat/reconciliation"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalRuns").value(4))
+                .andExpect(jsonPath("$.data.totalCorrected").value(2));
+    }
+
+    @Test
+    @DisplayName("POST /api/seat/reconciliation/run -> 200 with last run")
+    void runReconciliation() throws Exception {
+        when(seatCountReconciler.reconcile()).thenReturn(SeatReconciliationResponseDTO.builder()
+                .lastDrifted(3).lastCorrected(3).lastDurationMillis(12L).totalRuns(1L).totalCorrected(3L).build());
+
+        mockMvc.perform(post("/api/seat/reconciliation/run"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.lastCorrected").value(3));
+    }
+
+    @Test
+    @DisplayName("POST /api/seat/reconciliation/run failure -> 500")
+    void runReconciliation_failure() throws Exception {
+        when(seatCountReconciler.reconcile()).thenThrow(new RuntimeException("db down"));
+
+        mockMvc.perform(post("/api/seat/reconciliation/run"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value(Matchers.containsString("db down")));
+    }
 }
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -11,6 +12,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,6 +26,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import apap.ti._5.flight_2306211660_be.model.Airplane;
 import apap.ti._5.flight_2306211660_be.model.Flight;
@@ -33,6 +36,7 @@ import apap.ti._5.flight_2306211660_be.restdto.request.airplane.AddAirplaneReque
 import apap.ti._5.flight_2306211660_be.restdto.request.airplane.UpdateAirplaneRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.airplane.AirplaneResponseDTO;
 import apap.ti._5.flight_2306211660_be.restservice.airplane.AirplaneRestServiceImpl;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
 
 @ExtendWith(MockitoExtension.class)
 public class AirplaneRestServiceTest {
@@ -46,6 +50,12 @@ public class AirplaneRestServiceTest {
     @InjectMocks
     private AirplaneRestServiceImpl airplaneRestService;
 
+    @BeforeEach
+    void setUp() {
+        // Block size 1 and a counter that always starts after the mocked max existing number
+        ReflectionTestUtils.setField(airplaneRestService, "idAllocator", new IdAllocator((key, size, highestExisting) -> highestExisting.getAsLong() + 1, 1));
+    }
+
     private Airplane buildAirplane(String id, String airlineId, String model, int seats, int year, boolean isDeleted) {
         return Airplane.builder()
                 .id(id)
@@ -88,6 +98,31 @@ public class AirplaneRestServiceTest {
         verify(airplaneRepository).save(any(Airplane.class));
     }
 
+    @Test
+    void createAirplane_registrationFromCounter_skipsTakenRegistration() {
+        AtomicLong counter = new AtomicLong(1);
+        ReflectionTestUtils.setField(airplaneRestService, "idAllocator",
+                new IdAllocator((key, size, highestExisting) -> counter.getAndAdd(size), 5));
+        var dto = AddAirplaneRequestDTO.builder()
+                .airlineId("GA")
+                .model("A320")
+                .seatCapacity(150)
+                .manufactureYear(2019)
+                .build();
+
+        // GA-AAA was issued randomly before the counter existed
+        when(airplaneRepository.existsById("GA-AAA")).thenReturn(true);
+        when(airplaneRepository.existsById("GA-AAB")).thenReturn(false);
+        when(airplaneRepository.save(any(Airplane.class))).thenAnswer(inv -> {
+            Airplane a = inv.getArgument(0);
+            a.setIsDeleted(false);
+            return a;
+        });
+        when(airplaneRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        assertEquals("GA-AAB", airplaneRestService.createAirplane(dto).getId());
+    }
+
     @Test
     void createAirplane_futureYear_throws() {
         var dto = AddAirplaneRequestDTO.builder()
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,6 +13,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
@@ -20,11 +22,13 @@ import org.mockito.Mock;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import apap.ti._5.flight_2306211660_be.config.security.ProfileClient;
 import apap.ti._5.flight_2306211660_be.model.Bill;
+import apap.ti._5.flight_2306211660_be.repository.BillReferenceStatus;
 import apap.ti._5.flight_2306211660_be.repository.BillRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.bill.AddBillRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.bill.UpdateBillRequestDTO;
@@ -120,6 +124,26 @@ public class BillRestServiceTest {
         verify(billRepository).findByServiceName("Flight");
     }
 
+    @Test
+    void getBillStatuses_onlyRequestedReferences_paidWins() {
+        List<String> refs = List.of("B-1", "B-2");
+        when(billRepository.findStatusesByServiceReferenceIdIn("Flight", refs, null)).thenReturn(List.of(
+                new BillReferenceStatus("B-1", Bill.BillStatus.PAID),
+                new BillReferenceStatus("B-1", Bill.BillStatus.UNPAID),
+                new BillReferenceStatus("B-2", Bill.BillStatus.UNPAID)));
+
+        Map<String, Bill.BillStatus> result = billRestService.getBillStatuses("Flight", refs, null);
+
+        assertEquals(Map.of("B-1", Bill.BillStatus.PAID, "B-2", Bill.BillStatus.UNPAID), result);
+        verify(billRepository, never()).findByServiceName("Flight");
+    }
+
+    @Test
+    void getBillStatuses_noReferences_noQuery() {
+        assertTrue(billRestService.getBillStatuses("Flight", List.of(), "cust1").isEmpty());
+        verifyNoInteractions(billRepository);
+    }
+
     @Test
     void getBillById_found() {
         UUID id = UUID.randomUUID();
@@ -0,0 +1,290 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import org.mockito.Mockito;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.model.Bill;
+import apap.ti._5.flight_2306211660_be.model.BillingOutboxEvent;
+import apap.ti._5.flight_2306211660_be.repository.BillingOutboxRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.bill.BillingOutboxStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillRestService;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutbox;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutboxDispatcher;
+
+/**
+ * Billing outbox writes and dispatch against an embedded database, with the bill service mocked.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BillingOutboxDispatcherTest {
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = BillingOutboxRepository.class)
+    @EntityScan(basePackageClasses = BillingOutboxEvent.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private BillingOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BillRestService billRestService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM billing_outbox");
+        billRestService = Mockito.mock(BillRestService.class);
+    }
+
+    private BillingOutboxDispatcher dispatcher(boolean enabled, int maxAttempts, Clock clock) {
+        return dispatcher(enabled, maxAttempts, Duration.ofSeconds(30), clock);
+    }
+
+    private BillingOutboxDispatcher dispatcher(boolean enabled, int maxAttempts, Duration callTimeout, Clock clock) {
+        return new BillingOutboxDispatcher(outboxRepository, billRestService, transactionManager, enabled, 50, maxAttempts,
+                Duration.ofSeconds(1), Duration.ofMinutes(5), callTimeout, Executors.newVirtualThreadPerTaskExecutor(), clock);
+    }
+
+    private BookingResponseDTO booking(String id) {
+        return BookingResponseDTO.builder()
+                .id(id)
+                .route("CGK-DPS")
+                .classType("economy")
+                .contactEmail(id.toLowerCase() + "@x.com")
+                .totalPrice(new BigDecimal("1000000"))
+                .build();
+    }
+
+    private void enqueue(BillingOutbox outbox, String... bookingIds) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (String bookingId : bookingIds) {
+                outbox.enqueue(booking(bookingId), "cust-" + bookingId);
+            }
+        });
+    }
+
+    private BillingOutboxEvent event(String bookingId) {
+        return outboxRepository.findAll().stream().filter(e -> e.getBookingId().equals(bookingId)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void dispatchBatch_createsBillsForAllDueEvents() throws Exception {
+        BillingOutboxDispatcher dispatcher = dispatcher(false, 8, Clock.systemDefaultZone());
+        enqueue(new BillingOutbox(outboxRepository, dispatcher), "BK-1", "BK-2", "BK-3", "BK-4", "BK-5");
+        when(billRestService.getBillStatuses(eq("Flight"), anyCollection(), isNull())).thenReturn(Map.of());
+
+        assertEquals(5, dispatcher.dispatchBatch());
+
+        verify(billRestService, times(5)).createBill(any());
+        verify(billRestService).createBill(argThat(req -> req.getServiceReferenceId().equals("BK-1")
+                && req.getCustomerId().equals("cust-BK-1")
+                && req.getDescription().equals("Booking Flight CGK-DPS - economy")
+                && req.getAmount().compareTo(new BigDecimal("1000000")) == 0));
+        assertTrue(outboxRepository.findAll().stream().allMatch(e -> e.getStatus() == BillingOutboxEvent.Status.DISPATCHED));
+        assertEquals(0, dispatcher.dispatchBatch());
+
+        BillingOutboxStatisticsDTO statistics = dispatcher.getStatistics();
+        assertEquals(0L, statistics.getPendingEvents());
+        assertEquals(0L, statistics.getLagMillis());
+        assertEquals(5L, statistics.getTotalDispatched());
+        assertEquals(5, statistics.getLastBatchSize());
+    }
+
+    @Test
+    void failedBill_retriedWithBackoffThenGivenUp() throws Exception {
+        BillingOutboxDispatcher first = dispatcher(false, 2, Clock.systemDefaultZone());
+        enqueue(new BillingOutbox(outboxRepository, first), "BK-1", "BK-2");
+        when(billRestService.getBillStatuses(eq("Flight"), anyCollection(), isNull())).thenReturn(Map.of());
+        when(billRestService.createBill(argThat(req -> req != null && req.getServiceReferenceId().equals("BK-1"))))
+                .thenThrow(new IllegalStateException("bill service down"));
+
+        assertEquals(2, first.dispatchBatch());
+
+        BillingOutboxEvent failed = event("BK-1");
+        assertEquals(BillingOutboxEvent.Status.PENDING, failed.getStatus());
+        assertEquals(1, failed.getAttempts());
+        assertEquals("bill service down", failed.getLastError());
+        assertTrue(failed.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(BillingOutboxEvent.Status.DISPATCHED, event("BK-2").getStatus());
+        // Not due again until the backoff has passed
+        assertEquals(0, first.dispatchBatch());
+        assertEquals(1L, first.getStatistics().getPendingEvents());
+        assertEquals(1L, first.getStatistics().getTotalRetried());
+
+        BillingOutboxDispatcher later = dispatcher(false, 2, Clock.offset(Clock.systemDefaultZone(), Duration.ofSeconds(5)));
+        assertEquals(1, later.dispatchBatch());
+
+        failed = event("BK-1");
+        assertEquals(BillingOutboxEvent.Status.FAILED, failed.getStatus());
+        assertEquals(2, failed.getAttempts());
+        assertEquals(1L, later.getStatistics().getFailedEvents());
+        assertEquals(1L, later.getStatistics().getTotalFailed());
+        assertEquals(0, later.dispatchBatch());
+    }
+
+    @Test
+    void slowBill_timesOutAndIsRetried() throws Exception {
+        BillingOutboxDispatcher dispatcher = dispatcher(false, 8, Duration.ofMillis(200), Clock.systemDefaultZone());
+        enqueue(new BillingOutbox(outboxRepository, dispatcher), "BK-1", "BK-2");
+        when(billRestService.getBillStatuses(eq("Flight"), anyCollection(), isNull())).thenReturn(Map.of());
+        when(billRestService.createBill(argThat(req -> req != null && req.getServiceReferenceId().equals("BK-1"))))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(10_000);
+                    return null;
+                });
+
+        long start = System.nanoTime();
+        assertEquals(2, dispatcher.dispatchBatch());
+
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        BillingOutboxEvent slow = event("BK-1");
+        assertEquals(BillingOutboxEvent.Status.PENDING, slow.getStatus());
+        assertEquals(1, slow.getAttempts());
+        assertEquals("Bill call timed out after 200 ms", slow.getLastError());
+        assertEquals(BillingOutboxEvent.Status.DISPATCHED, event("BK-2").getStatus());
+    }
+
+    @Test
+    void claimedEvent_isSkippedUntilItsLeaseLapses() throws Exception {
+        BillingOutboxDispatcher dispatcher = dispatcher(false, 8, Clock.systemDefaultZone());
+        enqueue(new BillingOutbox(outboxRepository, dispatcher), "BK-1", "BK-2");
+        when(billRestService.getBillStatuses(eq("Flight"), anyCollection(), isNull())).thenReturn(Map.of());
+        // Another instance holds BK-1 for a minute
+        LocalDateTime now = LocalDateTime.now();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                outboxRepository.claim(List.of(event("BK-1").getId()), "other-run", now, now.plusMinutes(1)));
+
+        assertEquals(1, dispatcher.dispatchBatch());
+
+        verify(billRestService, never()).createBill(argThat(req -> req.getServiceReferenceId().equals("BK-1")));
+        assertEquals(BillingOutboxEvent.Status.IN_FLIGHT, event("BK-1").getStatus());
+        assertEquals(BillingOutboxEvent.Status.DISPATCHED, event("BK-2").getStatus());
+
+        // That run never finished; once its lease is over the event is due again
+        BillingOutboxDispatcher later = dispatcher(false, 8, Clock.offset(Clock.systemDefaultZone(), Duration.ofMinutes(2)));
+        assertEquals(1, later.dispatchBatch());
+
+        verify(billRestService, times(1)).createBill(argThat(req -> req.getServiceReferenceId().equals("BK-1")));
+        BillingOutboxEvent reclaimed = event("BK-1");
+        assertEquals(BillingOutboxEvent.Status.DISPATCHED, reclaimed.getStatus());
+        assertNull(reclaimed.getClaimToken());
+    }
+
+    @Test
+    void overlappingRuns_billEachBookingOnce() throws Exception {
+        BillingOutboxDispatcher first = dispatcher(false, 8, Clock.systemDefaultZone());
+        BillingOutboxDispatcher second = dispatcher(false, 8, Clock.systemDefaultZone());
+        String[] bookingIds = IntStream.rangeClosed(1, 20).mapToObj(i -> "BK-" + i).toArray(String[]::new);
+        enqueue(new BillingOutbox(outboxRepository, first), bookingIds);
+        when(billRestService.getBillStatuses(eq("Flight"), anyCollection(), isNull())).thenReturn(Map.of());
+        when(billRestService.createBill(any())).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return null;
+        });
+
+        ExecutorService runs = Executors.newFixedThreadPool(2);
+        try {
+            for (var run : runs.invokeAll(List.<Callable<Integer>>of(first::dispatchBatch, second::dispatchBatch))) {
+                run.get();
+            }
+        } finally {
+            runs.shutdown();
+        }
+
+        verify(billRestService, times(20)).createBill(any());
+        for (String bookingId : bookingIds) {
+            verify(billRestService).createBill(argThat(req -> req.getServiceReferenceId().equals(bookingId)));
+        }
+        assertTrue(outboxRepository.findAll().stream().allMatch(e -> e.getStatus() == BillingOutboxEvent.Status.DISPATCHED));
+    }
+
+    @Test
+    void alreadyBilledBooking_isOnlyMarkedDispatched() throws Exception {
+        BillingOutboxDispatcher dispatcher = dispatcher(false, 8, Clock.systemDefaultZone());
+        enqueue(new BillingOutbox(outboxRepository, dispatcher), "BK-1", "BK-2");
+        when(billRestService.getBillStatuses(eq("Flight"), anyCollection(), isNull()))
+                .thenReturn(Map.of("BK-1", Bill.BillStatus.UNPAID));
+
+        assertEquals(2, dispatcher.dispatchBatch());
+
+        verify(billRestService, never()).createBill(argThat(req -> req.getServiceReferenceId().equals("BK-1")));
+        verify(billRestService, times(1)).createBill(any());
+        assertEquals(BillingOutboxEvent.Status.DISPATCHED, event("BK-1").getStatus());
+        assertEquals(BillingOutboxEvent.Status.DISPATCHED, event("BK-2").getStatus());
+    }
+
+    @Test
+    void enqueue_billCreatedAfterCommit() throws Exception {
+        BillingOutboxDispatcher dispatcher = dispatcher(true, 8, Clock.systemDefaultZone());
+        when(billRestService.getBillStatuses(eq("Flight"), anyCollection(), isNull())).thenReturn(Map.of());
+
+        enqueue(new BillingOutbox(outboxRepository, dispatcher), "BK-1");
+
+        LocalDateTime deadline = LocalDateTime.now().plusSeconds(10);
+        while (event("BK-1").getStatus() != BillingOutboxEvent.Status.DISPATCHED && LocalDateTime.now().isBefore(deadline)) {
+            Thread.sleep(20);
+        }
+        BillingOutboxEvent event = event("BK-1");
+        assertEquals(BillingOutboxEvent.Status.DISPATCHED, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertNull(event.getLastError());
+        assertNotNull(event.getDispatchedAt());
+        verify(billRestService).createBill(argThat(req -> req.getCustomerId().equals("cust-BK-1")));
+    }
+
+    @Test
+    void rolledBackBooking_leavesNoOutboxEvent() {
+        BillingOutboxDispatcher dispatcher = dispatcher(true, 8, Clock.systemDefaultZone());
+        BillingOutbox outbox = new BillingOutbox(outboxRepository, dispatcher);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outbox.enqueue(booking("BK-1"), null);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxRepository.count());
+        verify(billRestService, never()).getBillStatuses(any(), anyCollection(), any());
+    }
+}
@@ -0,0 +1,120 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingCacheStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.passenger.PassengerResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
+
+public class BookingDetailCacheTest {
+
+    private static final LocalDateTime V1 = LocalDateTime.of(2025, 1, 1, 10, 0);
+    private static final LocalDateTime V2 = LocalDateTime.of(2025, 1, 1, 11, 0);
+
+    private BookingDetailCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookingDetailCache(2);
+    }
+
+    private BookingResponseDTO booking(String id, Integer classFlightId, UUID... passengerIds) {
+        return BookingResponseDTO.builder()
+                .id(id)
+                .classFlightId(classFlightId)
+                .status(1)
+                .passengers(Arrays.stream(passengerIds)
+                        .map(p -> PassengerResponseDTO.builder().id(p).fullName("P").build())
+                        .toList())
+                .build();
+    }
+
+    private void put(BookingResponseDTO booking, LocalDateTime version) {
+        cache.put(booking, version, cache.stamp());
+    }
+
+    @Test
+    void get_hitOnSameVersionMissOnNewer() {
+        put(booking("B1", 10), V1);
+
+        assertNotNull(cache.get("B1", V1));
+        assertNull(cache.get("B1", V2));
+        // The stale entry is gone, so even the old version misses now
+        assertNull(cache.get("B1", V1));
+
+        BookingCacheStatisticsDTO statistics = cache.getStatistics();
+        assertEquals(1L, statistics.getHits());
+        assertEquals(2L, statistics.getMisses());
+        assertEquals(1L, statistics.getEvictions());
+        assertEquals(0, statistics.getSize());
+    }
+
+    @Test
+    void get_returnsCopiesThatDoNotReachTheCache() {
+        put(booking("B1", 10, UUID.randomUUID()), V1);
+
+        BookingResponseDTO first = cache.get("B1", V1);
+        first.setStatus(2);
+        first.getPassengers().clear();
+
+        BookingResponseDTO second = cache.get("B1", V1);
+        assertEquals(1, second.getStatus());
+        assertEquals(1, second.getPassengers().size());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedBeyondBound() {
+        put(booking("B1", 10), V1);
+        put(booking("B2", 10), V1);
+        cache.get("B1", V1);
+        put(booking("B3", 10), V1);
+
+        assertNotNull(cache.get("B1", V1));
+        assertNull(cache.get("B2", V1));
+        assertNotNull(cache.get("B3", V1));
+        assertEquals(2, cache.getStatistics().getSize());
+        assertEquals(1L, cache.getStatistics().getEvictions());
+    }
+
+    @Test
+    void put_droppedWhenInvalidatedDuringRead() {
+        long stamp = cache.stamp();
+        cache.invalidate("OTHER");
+        cache.put(booking("B1", 10), V1, stamp);
+
+        assertNull(cache.get("B1", V1));
+    }
+
+    @Test
+    void invalidate_byClassFlightAndPassenger() {
+        UUID shared = UUID.randomUUID();
+        put(booking("B1", 10, shared), V1);
+        put(booking("B2", 20), V1);
+
+        cache.invalidateClassFlight(20);
+        assertNotNull(cache.get("B1", V1));
+        assertNull(cache.get("B2", V1));
+
+        cache.invalidatePassenger(shared);
+        assertNull(cache.get("B1", V1));
+        assertEquals(2L, cache.getStatistics().getInvalidations());
+    }
+
+    @Test
+    void disabledCache_storesNothing() {
+        cache = new BookingDetailCache(0);
+        put(booking("B1", 10), V1);
+
+        assertNull(cache.get("B1", V1));
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+}
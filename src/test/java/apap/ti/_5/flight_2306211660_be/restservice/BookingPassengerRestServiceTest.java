@@ -27,6 +27,7 @@ import apap.ti._5.flight_2306211660_be.repository.BookingPassengerRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.bookingPassenger.AddBookingPassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.bookingPassenger.UpdateBookingPassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.bookingPassanger.BookingPassengerResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
 import apap.ti._5.flight_2306211660_be.restservice.bookingPassenger.BookingPassengerRestServiceImpl;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +36,9 @@ public class BookingPassengerRestServiceTest {
     @Mock
     private BookingPassengerRepository bookingPassengerRepository;
 
+    @Mock
+    private BookingDetailCache bookingDetailCache;
+
     @InjectMocks
     private BookingPassengerRestServiceImpl bookingPassengerRestService;
 
@@ -192,6 +196,7 @@ public class BookingPassengerRestServiceTest {
         assertEquals(bookingId, res.getBookingId());
         assertEquals(passengerId, res.getPassengerId());
         verify(bookingPassengerRepository).delete(existing);
+        verify(bookingDetailCache).invalidate(bookingId);
     }
 
     @Test
@@ -0,0 +1,139 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Booking;
+import apap.ti._5.flight_2306211660_be.repository.BookingRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingResponseAssembler;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the statements the batched booking assembler issues against an embedded database.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookingResponseAssemblerTest {
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = BookingRepository.class)
+    @EntityScan(basePackageClasses = Booking.class)
+    @Import(BookingResponseAssembler.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private BookingResponseAssembler assembler;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Flights, classes, bookings, passengers and seats only, skip the airline/airplane fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        clearBookings();
+        jdbcTemplate.update("DELETE FROM class_flights");
+        jdbcTemplate.update("DELETE FROM flights");
+        for (int f = 1; f <= 3; f++) {
+            jdbcTemplate.update("INSERT INTO flights (id, airline_id, airplane_id, origin_airport_code, destination_airport_code, "
+                    + "departure_time, arrival_time, terminal, gate, baggage_allowance, status, created_at, updated_at, is_deleted) "
+                    + "VALUES (?, 'AL', 'AP', 'CGK', 'DPS', DATEADD('DAY', 7, NOW()), DATEADD('DAY', 8, NOW()), 'T1', 'G1', 20, 1, NOW(), NOW(), FALSE)",
+                    "FL-" + f);
+            jdbcTemplate.update("INSERT INTO class_flights (id, flight_id, class_type, seat_capacity, available_seats, price) "
+                    + "VALUES (?, ?, 'economy', 200, 200, 1000000)", f, "FL-" + f);
+        }
+    }
+
+    private void clearBookings() {
+        jdbcTemplate.update("DELETE FROM booking_passengers");
+        jdbcTemplate.update("DELETE FROM bookings");
+        jdbcTemplate.update("DELETE FROM seats");
+        jdbcTemplate.update("DELETE FROM passengers");
+    }
+
+    /** Seeds bookings of two passengers each, spread over three flights, each passenger on a booked seat. */
+    private void seedBookings(int count) {
+        for (int i = 1; i <= count; i++) {
+            int classFlightId = i % 3 + 1;
+            String bookingId = "BK-" + i;
+            jdbcTemplate.update("INSERT INTO bookings (id, flight_id, class_flight_id, contact_email, contact_phone, passenger_count, "
+                    + "status, total_price, created_at, updated_at, is_deleted) VALUES (?, ?, ?, 'c@x.com', '0812', 2, 1, 2000000, NOW(), NOW(), FALSE)",
+                    bookingId, "FL-" + classFlightId, classFlightId);
+            for (int p = 0; p < 2; p++) {
+                UUID passengerId = UUID.randomUUID();
+                jdbcTemplate.update("INSERT INTO passengers (id, full_name, birth_date, gender, id_passport, created_at, updated_at) "
+                        + "VALUES (?, ?, DATE '1990-01-01', 1, ?, NOW(), NOW())", passengerId, "P " + i + "-" + p, "PP" + i + "-" + p);
+                jdbcTemplate.update("INSERT INTO booking_passengers (booking_id, passenger_id, created_at) VALUES (?, ?, NOW())",
+                        bookingId, passengerId);
+                jdbcTemplate.update("INSERT INTO seats (class_flight_id, passenger_id, seat_code, is_booked, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, TRUE, NOW(), NOW())", classFlightId, passengerId, String.format("EC%03d", i * 2 + p));
+            }
+        }
+    }
+
+    private long statementsFor(List<Booking> bookings, List<BookingResponseDTO> out) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        out.addAll(assembler.toResponses(bookings));
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void statementCount_doesNotGrowWithResultSize() {
+        seedBookings(3);
+        List<BookingResponseDTO> small = new ArrayList<>();
+        long smallStatements = statementsFor(bookingRepository.findAll(), small);
+
+        clearBookings();
+        seedBookings(60);
+        List<BookingResponseDTO> large = new ArrayList<>();
+        long largeStatements = statementsFor(bookingRepository.findAll(), large);
+
+        assertEquals(3, small.size());
+        assertEquals(60, large.size());
+        // booking_passengers, passengers, seats, class_flights, flights
+        assertEquals(5, smallStatements);
+        assertEquals(smallStatements, largeStatements);
+    }
+
+    @Test
+    void responses_carryPassengersSeatsRouteAndClass() {
+        seedBookings(4);
+
+        List<BookingResponseDTO> responses = assembler.toResponses(bookingRepository.findAll());
+
+        assertEquals(4, responses.size());
+        for (BookingResponseDTO response : responses) {
+            assertEquals("CGK-DPS", response.getRoute());
+            assertEquals("economy", response.getClassType());
+            assertEquals(2, response.getPassengers().size());
+            assertEquals(2, response.getSeatAssignments().size());
+            assertEquals(response.getPassengers().get(0).getFullName(), response.getSeatAssignments().get(0).getPassengerName());
+        }
+    }
+}
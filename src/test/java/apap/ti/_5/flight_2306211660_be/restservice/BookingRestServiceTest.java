@@ -2,26 +2,49 @@ package apap.ti._5.flight_2306211660_be.restservice;
 
 import apap.ti._5.flight_2306211660_be.model.*;
 import apap.ti._5.flight_2306211660_be.repository.AirlineRepository;
+import apap.ti._5.flight_2306211660_be.repository.BookingPassengerLink;
 import apap.ti._5.flight_2306211660_be.repository.BookingPassengerRepository;
 import apap.ti._5.flight_2306211660_be.repository.BookingRepository;
+import apap.ti._5.flight_2306211660_be.repository.BookingSpecifications;
 import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightType;
 import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.FlightRoute;
 import apap.ti._5.flight_2306211660_be.repository.PassengerRepository;
+import apap.ti._5.flight_2306211660_be.repository.PassengerSeat;
 import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.AddBookingRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.booking.UpdateBookingRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.passenger.AddPassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutbox;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingBatchResult;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingCursor;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingResponseAssembler;
 import apap.ti._5.flight_2306211660_be.restservice.booking.BookingRestServiceImpl;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHold;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHoldRegistry;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -43,10 +66,24 @@ public class BookingRestServiceTest {
     @Mock private ClassFlightRepository classFlightRepository;
     @Mock private SeatRepository seatRepository;
     @Mock private AirlineRepository airlineRepository;
+    @Mock private BillingOutbox billingOutbox;
+    @Mock private RouteAvailabilityIndex routeAvailabilityIndex;
 
     @InjectMocks
     private BookingRestServiceImpl service;
 
+    @BeforeEach
+    void setUp() {
+        // Real in-memory inventory backed by the mocked seat repository
+        ReflectionTestUtils.setField(service, "seatInventory", new SeatInventory(seatRepository));
+        ReflectionTestUtils.setField(service, "seatHoldRegistry", new SeatHoldRegistry(Duration.ofMinutes(5), Clock.systemUTC()));
+        ReflectionTestUtils.setField(service, "bookingResponseAssembler", new BookingResponseAssembler(
+                bookingPassengerRepository, passengerRepository, classFlightRepository, flightRepository, seatRepository));
+        // Block size 1 and a counter that always starts after the mocked max existing number
+        ReflectionTestUtils.setField(service, "idAllocator", new IdAllocator((key, size, highestExisting) -> highestExisting.getAsLong() + 1, 1));
+        ReflectionTestUtils.setField(service, "bookingDetailCache", new BookingDetailCache(100));
+    }
+
     private Flight flight(String id, String origin, String dest, int status, boolean deleted) {
         return Flight.builder()
                 .id(id)
@@ -154,6 +191,30 @@ public class BookingRestServiceTest {
         assertTrue(ex.getMessage().contains("Not enough seats"));
     }
 
+    @Test
+    @DisplayName("createBooking: seats taken concurrently -> conditional decrement fails, no oversell")
+    void createBooking_lostRaceOnDecrement() {
+        AddBookingRequestDTO dto = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1)
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P1").fullName("A").build()))
+                .build();
+
+        // Stale read still shows one seat left
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 1, "1000000")));
+        when(bookingRepository.findMaxBookingNumberByPrefix("FL-1-CGK-DPS-")).thenReturn(null);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(classFlightRepository.decrementAvailableSeats(10, 1)).thenReturn(0);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.createBooking(dto));
+        assertTrue(ex.getMessage().contains("Not enough seats"));
+        verify(classFlightRepository, never()).save(any(ClassFlight.class));
+        // The class row is locked before any seat is written, the same order a capacity change uses
+        InOrder order = inOrder(classFlightRepository, bookingRepository);
+        order.verify(classFlightRepository).findByIdForUpdate(10);
+        order.verify(bookingRepository).save(any(Booking.class));
+    }
+
     @Test
     @DisplayName("createBooking: passenger count <=0 -> IllegalArgumentException")
     void createBooking_passengerCountZero() {
@@ -268,37 +329,39 @@ public class BookingRestServiceTest {
         });
 
         // Passengers: none pre-exist
-        when(passengerRepository.existsByIdPassport(anyString())).thenReturn(false);
-        when(passengerRepository.save(any(Passenger.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        // Booking-passengers created; later lookup for allocation
-        UUID p1 = UUID.randomUUID();
-        UUID p2 = UUID.randomUUID();
-        when(bookingPassengerRepository.findByBookingId("FL-1-CGK-DPS-001"))
-                .thenReturn(List.of(
-                        BookingPassenger.builder().bookingId("FL-1-CGK-DPS-001").passengerId(p1).build(),
-                        BookingPassenger.builder().bookingId("FL-1-CGK-DPS-001").passengerId(p2).build()
-                ));
-
-        // Available seats for allocation
+        // Seat map cold-loaded once into the inventory; the first free seats are claimed
         List<Seat> seats = List.of(
                 seat(1, 10, "EC001", false, null),
                 seat(2, 10, "EC002", false, null),
                 seat(3, 10, "EC003", true, UUID.randomUUID()) // booked -> ignored
         );
-        when(seatRepository.findAll()).thenReturn(seats);
-        when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(seats);
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
 
-        // Update classFlight availability
-        when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
+        // Seats taken with the conditional decrement
+        when(classFlightRepository.decrementAvailableSeats(10, 2)).thenReturn(1);
 
         BookingResponseDTO res = service.createBooking(dto);
 
         assertNotNull(res);
         assertEquals("FL-1-CGK-DPS-001", res.getId());
         assertEquals(2, res.getPassengerCount());
-        verify(seatRepository, times(2)).save(any(Seat.class));
-        verify(classFlightRepository).save(any(ClassFlight.class));
+        // Both seats go to the new passengers in one batch
+        verify(seatRepository).updateSeatAssignments(argThat(written -> written.stream().map(Seat::getSeatCode).toList()
+                .equals(List.of("EC001", "EC002")) && written.stream().allMatch(seat -> seat.getPassengerId() != null)), anyMap());
+        verify(seatRepository, never()).save(any(Seat.class));
+        verify(seatRepository, times(1)).findByClassFlightIdOrderBySeatCodeAsc(10);
+        verify(bookingPassengerRepository, never()).findByBookingId(anyString());
+        verify(classFlightRepository).decrementAvailableSeats(10, 2);
+        verify(classFlightRepository, never()).save(any(ClassFlight.class));
+        verify(seatRepository, never()).findAll();
+        // Both passengers resolved with one lookup and written in one batch each
+        verify(passengerRepository).findByIdPassportIn(anyCollection());
+        verify(passengerRepository).insertPassengers(argThat(created -> created.size() == 2));
+        verify(bookingPassengerRepository).insertLinks(eq("FL-1-CGK-DPS-001"), argThat(ids -> ids.size() == 2));
+        // The bill is requested through the outbox in the same transaction
+        verify(billingOutbox).enqueue(res, null);
     }
 
     @Test
@@ -323,28 +386,75 @@ public class BookingRestServiceTest {
             return b;
         });
 
-        when(passengerRepository.existsByIdPassport(anyString())).thenReturn(false);
-        when(passengerRepository.save(any(Passenger.class))).thenAnswer(inv -> inv.getArgument(0));
-
-        UUID p1 = UUID.randomUUID();
-        UUID p2 = UUID.randomUUID();
-        when(bookingPassengerRepository.findByBookingId("FL-1-CGK-DPS-006"))
-                .thenReturn(List.of(
-                        BookingPassenger.builder().bookingId("FL-1-CGK-DPS-006").passengerId(p1).build(),
-                        BookingPassenger.builder().bookingId("FL-1-CGK-DPS-006").passengerId(p2).build()
-                ));
-
         // Explicit seats exist, unbooked, in same class
         when(seatRepository.findById(1)).thenReturn(Optional.of(seat(1, 10, "EC001", false, null)));
         when(seatRepository.findById(2)).thenReturn(Optional.of(seat(2, 10, "EC002", false, null)));
-        when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, 10, "EC001", false, null), seat(2, 10, "EC002", false, null)));
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
+        when(classFlightRepository.decrementAvailableSeats(10, 2)).thenReturn(1);
 
         BookingResponseDTO res = service.createBooking(dto);
         assertNotNull(res);
         assertEquals("FL-1-CGK-DPS-006", res.getId());
-        verify(seatRepository, times(2)).save(any(Seat.class));
-        verify(classFlightRepository).save(any(ClassFlight.class));
+        verify(seatRepository).updateSeatAssignments(argThat(written -> written.stream().map(Seat::getId).toList().equals(List.of(1, 2))), anyMap());
+        verify(classFlightRepository).decrementAvailableSeats(10, 2);
+        verify(classFlightRepository, never()).save(any(ClassFlight.class));
+    }
+
+    @Test
+    @DisplayName("createBooking: hold token books the held seats and cannot be reused")
+    void createBooking_success_withHoldToken() {
+        SeatHoldRegistry registry = (SeatHoldRegistry) ReflectionTestUtils.getField(service, "seatHoldRegistry");
+        SeatHold hold = registry.hold(10, List.of(1));
+        AddBookingRequestDTO dto = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1)
+                .holdToken(hold.getToken())
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P1").fullName("A").build()))
+                .build();
+
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 10, "1000000")));
+        when(bookingRepository.findMaxBookingNumberByPrefix("FL-1-CGK-DPS-")).thenReturn(null);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> {
+            Booking b = inv.getArgument(0);
+            if (b.getId() == null) b.setId("FL-1-CGK-DPS-001");
+            return b;
+        });
+        when(seatRepository.findById(1)).thenReturn(Optional.of(seat(1, 10, "EC001", false, null)));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(seat(1, 10, "EC001", false, null)));
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
+        when(classFlightRepository.decrementAvailableSeats(10, 1)).thenReturn(1);
+
+        BookingResponseDTO res = service.createBooking(dto);
+
+        assertNotNull(res);
+        verify(seatRepository).updateSeatAssignments(argThat(written -> written.size() == 1
+                && written.iterator().next().getId() == 1 && written.iterator().next().getIsBooked()), anyMap());
+        assertFalse(registry.isHeld(1));
+        // The token was consumed by the first booking
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.createBooking(dto));
+        assertEquals("Seat hold not found or expired", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("createBooking: explicit seat held by another customer -> IllegalArgumentException")
+    void createBooking_seatHeldByOther() {
+        SeatHoldRegistry registry = (SeatHoldRegistry) ReflectionTestUtils.getField(service, "seatHoldRegistry");
+        registry.hold(10, List.of(1));
+        AddBookingRequestDTO dto = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1)
+                .seatIds(List.of(1))
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P1").fullName("A").build()))
+                .build();
+
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 10, "1000000")));
+        when(seatRepository.findById(1)).thenReturn(Optional.of(seat(1, 10, "EC001", false, null)));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.createBooking(dto));
+        assertTrue(ex.getMessage().contains("currently held by another customer"));
+        verify(bookingRepository, never()).save(any(Booking.class));
     }
 
     @Test
@@ -372,32 +482,181 @@ public class BookingRestServiceTest {
 
         // Passenger exists
         UUID existingP1 = UUID.randomUUID();
-        when(passengerRepository.existsByIdPassport("P1")).thenReturn(true);
-        when(passengerRepository.findByIdPassport("P1")).thenReturn(Passenger.builder().id(existingP1).fullName("Existing A").idPassport("P1").build());
-
-        // Booking-passengers
-        when(bookingPassengerRepository.findByBookingId("FL-1-CGK-DPS-001"))
-                .thenReturn(List.of(
-                        BookingPassenger.builder().bookingId("FL-1-CGK-DPS-001").passengerId(existingP1).build()
-                ));
+        when(passengerRepository.findByIdPassportIn(List.of("P1"))).thenReturn(List.of(Passenger.builder().id(existingP1).fullName("Existing A").idPassport("P1").build()));
 
         // Available seats
         List<Seat> seats = List.of(seat(1, 10, "EC001", false, null));
-        when(seatRepository.findAll()).thenReturn(seats);
-        when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(seats);
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
 
-        // Update classFlight
-        when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
+        // Seats taken with the conditional decrement
+        when(classFlightRepository.decrementAvailableSeats(10, 1)).thenReturn(1);
 
         BookingResponseDTO res = service.createBooking(dto);
 
         assertNotNull(res);
         assertEquals("FL-1-CGK-DPS-001", res.getId());
         assertEquals(1, res.getPassengerCount());
-        verify(seatRepository, times(1)).save(any(Seat.class));
-        verify(classFlightRepository).save(any(ClassFlight.class));
-        // Verify no new passenger saved
+        verify(seatRepository).updateSeatAssignments(argThat(written -> written.size() == 1
+                && existingP1.equals(written.iterator().next().getPassengerId())), anyMap());
+        verify(classFlightRepository).decrementAvailableSeats(10, 1);
+        verify(classFlightRepository, never()).save(any(ClassFlight.class));
+        // Verify no new passenger saved, the existing one is linked
         verify(passengerRepository, never()).save(any(Passenger.class));
+        verify(passengerRepository).insertPassengers(List.of());
+        verify(bookingPassengerRepository).insertLinks("FL-1-CGK-DPS-001", Set.of(existingP1));
+    }
+
+    // -------------------- createBookings (batch) --------------------
+
+    @Test
+    @DisplayName("createBookings: valid requests commit together, rejected ones fail alone, one decrement per class")
+    void createBookings_mixedBatch() {
+        AddBookingRequestDTO first = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1)
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P1").fullName("A").build()))
+                .build();
+        AddBookingRequestDTO unknownClass = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(99).passengerCount(1)
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P2").fullName("B").build()))
+                .build();
+        AddBookingRequestDTO second = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1)
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P3").fullName("C").build()))
+                .build();
+
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 10, "1000000")));
+        when(classFlightRepository.findById(99)).thenReturn(Optional.empty());
+        // Within one transaction the second code sees the first booking
+        when(bookingRepository.findMaxBookingNumberByPrefix("FL-1-CGK-DPS-")).thenReturn(null, 1);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, 10, "EC001", false, null), seat(2, 10, "EC002", false, null)));
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
+        when(classFlightRepository.decrementAvailableSeats(10, 2)).thenReturn(1);
+
+        List<BookingBatchResult> results = service.createBookings(List.of(first, unknownClass, second));
+
+        assertEquals(3, results.size());
+        assertEquals("FL-1-CGK-DPS-001", results.get(0).getBooking().getId());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Class flight not found", results.get(1).getError().getMessage());
+        assertEquals("FL-1-CGK-DPS-002", results.get(2).getBooking().getId());
+        verify(classFlightRepository, times(1)).decrementAvailableSeats(10, 2);
+        verify(classFlightRepository, never()).decrementAvailableSeats(eq(10), eq(1));
+        // Only the accepted bookings owe a bill
+        verify(billingOutbox, times(2)).enqueue(any(BookingResponseDTO.class), any());
+    }
+
+    @Test
+    @DisplayName("createBookings: the same explicit seat twice in a batch -> second request rejected")
+    void createBookings_sameSeatTwice() {
+        AddBookingRequestDTO first = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1).seatIds(List.of(1))
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P1").fullName("A").build()))
+                .build();
+        AddBookingRequestDTO second = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1).seatIds(List.of(1))
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P2").fullName("B").build()))
+                .build();
+
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 10, "1000000")));
+        when(seatRepository.findById(1)).thenReturn(Optional.of(seat(1, 10, "EC001", false, null)));
+        when(bookingRepository.findMaxBookingNumberByPrefix("FL-1-CGK-DPS-")).thenReturn(null);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(seat(1, 10, "EC001", false, null)));
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
+        when(classFlightRepository.decrementAvailableSeats(10, 1)).thenReturn(1);
+
+        List<BookingBatchResult> results = service.createBookings(List.of(first, second));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).getError().getMessage().contains("Seat with ID 1 is already booked"));
+    }
+
+    @Test
+    @DisplayName("createBookings: auto-allocated request leaves seats picked later in the batch alone")
+    void createBookings_autoAllocationSkipsSeatsPickedInBatch() {
+        AddBookingRequestDTO auto = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1)
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P1").fullName("A").build()))
+                .build();
+        AddBookingRequestDTO explicit = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1).seatIds(List.of(1))
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P2").fullName("B").build()))
+                .build();
+        UUID explicitPassenger = UUID.randomUUID();
+
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 10, "1000000")));
+        when(seatRepository.findById(1)).thenReturn(Optional.of(seat(1, 10, "EC001", false, null)));
+        when(bookingRepository.findMaxBookingNumberByPrefix("FL-1-CGK-DPS-")).thenReturn(null, 1);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        // The explicit request's passenger is already known by passport
+        when(passengerRepository.findByIdPassportIn(anyCollection())).thenAnswer(inv -> inv.<Collection<String>>getArgument(0).contains("P2")
+                ? List.of(Passenger.builder().id(explicitPassenger).fullName("B").idPassport("P2").build())
+                : List.of());
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, 10, "EC001", false, null), seat(2, 10, "EC002", false, null)));
+        List<Seat> saved = new ArrayList<>();
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> {
+            Collection<Seat> written = inv.getArgument(0);
+            saved.addAll(written);
+            return written.size();
+        });
+        when(classFlightRepository.decrementAvailableSeats(10, 2)).thenReturn(1);
+
+        List<BookingBatchResult> results = service.createBookings(List.of(auto, explicit));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        // EC001 would be the allocator's first pick, but the second request asked for it
+        assertEquals(List.of(2, 1), saved.stream().map(Seat::getId).toList());
+        assertEquals(explicitPassenger, saved.get(1).getPassengerId());
+    }
+
+    @Test
+    @DisplayName("createBooking: requested seat booked after validation -> IllegalArgumentException, no passenger left without a seat")
+    void createBooking_seatTakenBeforePersist_throws() {
+        AddBookingRequestDTO dto = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1).seatIds(List.of(1))
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P1").fullName("A").build()))
+                .build();
+
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 10, "1000000")));
+        when(seatRepository.findById(1)).thenReturn(Optional.of(seat(1, 10, "EC001", false, null)));
+        // The seat map already shows the seat taken when the booking writes it
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, 10, "EC001", true, UUID.randomUUID())));
+        when(bookingRepository.findMaxBookingNumberByPrefix("FL-1-CGK-DPS-")).thenReturn(null);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.createBooking(dto));
+        assertEquals("Seat with ID 1 is already booked", ex.getMessage());
+        verify(seatRepository, never()).updateSeatAssignments(any(), any());
+        verify(classFlightRepository, never()).decrementAvailableSeats(anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("createBookings: counter race -> whole batch fails so the caller can retry one by one")
+    void createBookings_counterRace_throws() {
+        AddBookingRequestDTO dto = AddBookingRequestDTO.builder()
+                .flightId("FL-1").classFlightId(10).passengerCount(1)
+                .passengers(List.of(AddPassengerRequestDTO.builder().idPassport("P1").fullName("A").build()))
+                .build();
+
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 10, "1000000")));
+        when(bookingRepository.findMaxBookingNumberByPrefix("FL-1-CGK-DPS-")).thenReturn(null);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(seat(1, 10, "EC001", false, null)));
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
+        when(classFlightRepository.decrementAvailableSeats(10, 1)).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> service.createBookings(List.of(dto)));
     }
 
     // -------------------- simple getters --------------------
@@ -406,20 +665,46 @@ public class BookingRestServiceTest {
     @DisplayName("getAllBookings(): default returns non-deleted")
     void getAllBookings_default() {
         when(bookingRepository.findByIsDeleted(false)).thenReturn(List.of(booking("B1", "FL-1", 10, 1, 1, false)));
-        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
-        when(bookingPassengerRepository.findByBookingId("B1")).thenReturn(Collections.emptyList());
 
         List<BookingResponseDTO> res = service.getAllBookings();
         assertEquals(1, res.size());
         assertEquals("B1", res.get(0).getId());
     }
 
+    @Test
+    @DisplayName("getAllBookings(): related rows are loaded once per table for the whole list")
+    void getAllBookings_batchedAssembly() {
+        UUID p1 = UUID.randomUUID();
+        UUID p2 = UUID.randomUUID();
+        when(bookingRepository.findByIsDeleted(false)).thenReturn(List.of(
+                booking("B1", "FL-1", 10, 1, 1, false), booking("B2", "FL-1", 10, 1, 1, false)));
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("B1", "B2"))).thenReturn(List.of(
+                new BookingPassengerLink("B1", p1), new BookingPassengerLink("B2", p2)));
+        when(passengerRepository.findAllById(List.of(p1, p2))).thenReturn(List.of(
+                Passenger.builder().id(p1).fullName("Ann").build(), Passenger.builder().id(p2).fullName("Ben").build()));
+        // p2 also holds a seat on another class flight, which must not show up on B2
+        when(seatRepository.findBookedSeatsByPassengerIdIn(List.of(p1, p2))).thenReturn(List.of(
+                new PassengerSeat(p1, 1, "EC001", 10), new PassengerSeat(p2, 7, "BU001", 11), new PassengerSeat(p2, 2, "EC002", 10)));
+        when(classFlightRepository.findClassTypesByIdIn(List.of(10))).thenReturn(List.of(new ClassFlightType(10, "economy")));
+        when(flightRepository.findRoutesByIdIn(List.of("FL-1"))).thenReturn(List.of(new FlightRoute("FL-1", "CGK", "DPS")));
+
+        List<BookingResponseDTO> res = service.getAllBookings();
+
+        assertEquals(2, res.size());
+        assertEquals("CGK-DPS", res.get(0).getRoute());
+        assertEquals("economy", res.get(1).getClassType());
+        assertEquals("Ann", res.get(0).getPassengers().get(0).getFullName());
+        assertEquals("EC001", res.get(0).getSeatAssignments().get(0).getSeatCode());
+        assertEquals("EC002", res.get(1).getSeatAssignments().get(0).getSeatCode());
+        assertEquals("Ben", res.get(1).getSeatAssignments().get(0).getPassengerName());
+        verify(passengerRepository, never()).findById(any());
+        verify(flightRepository, never()).findById(any());
+    }
+
     @Test
     @DisplayName("getAllBookings(includeDeleted=true): returns all")
     void getAllBookings_includeDeletedTrue() {
         when(bookingRepository.findAll()).thenReturn(List.of(booking("B1", "FL-1", 10, 1, 1, false), booking("B2", "FL-2", 11, 1, 1, true)));
-        when(classFlightRepository.findById(anyInt())).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
-        when(bookingPassengerRepository.findByBookingId(anyString())).thenReturn(Collections.emptyList());
 
         List<BookingResponseDTO> res = service.getAllBookings(true);
         assertEquals(2, res.size());
@@ -429,8 +714,6 @@ public class BookingRestServiceTest {
     @DisplayName("getBookingsByFlight(): returns non-deleted for a flight")
     void getBookingsByFlight_default() {
         when(bookingRepository.findByFlightIdAndIsDeleted("FL-1", false)).thenReturn(List.of(booking("B1", "FL-1", 10, 1, 1, false)));
-        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
-        when(bookingPassengerRepository.findByBookingId("B1")).thenReturn(Collections.emptyList());
 
         List<BookingResponseDTO> res = service.getBookingsByFlight("FL-1");
         assertEquals(1, res.size());
@@ -440,14 +723,14 @@ public class BookingRestServiceTest {
     @Test
     @DisplayName("getBookingsByFlight(includeDeleted=true): returns all for flight")
     void getBookingsByFlight_includeDeletedTrue() {
-        when(bookingRepository.findAll()).thenReturn(List.of(
-                booking("B1", "FL-1", 10, 1, 1, false), booking("B2", "FL-1", 10, 1, 1, true), booking("BX", "FL-2", 11, 1, 1, false)
+        // Flight and deletion filters run in the database
+        when(bookingRepository.findAll(any(Specification.class), eq(BookingSpecifications.LISTING_ORDER))).thenReturn(List.of(
+                booking("B1", "FL-1", 10, 1, 1, false), booking("B2", "FL-1", 10, 1, 1, true)
         ));
-        when(classFlightRepository.findById(anyInt())).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
-        when(bookingPassengerRepository.findByBookingId(anyString())).thenReturn(Collections.emptyList());
 
         List<BookingResponseDTO> res = service.getBookingsByFlight("FL-1", true);
         assertEquals(2, res.size());
+        verify(bookingRepository, never()).findAll();
     }
 
     @Test
@@ -457,11 +740,31 @@ public class BookingRestServiceTest {
         assertNull(service.getBooking("NF"));
 
         when(bookingRepository.findById("B1")).thenReturn(Optional.of(booking("B1", "FL-1", 10, 1, 1, false)));
-        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
-        when(bookingPassengerRepository.findByBookingId("B1")).thenReturn(Collections.emptyList());
         assertNotNull(service.getBooking("B1"));
     }
 
+    @Test
+    @DisplayName("getBooking(): detail assembled once per booking version, copies handed out")
+    void getBooking_cachedUntilBookingChanges() {
+        Booking booking = booking("B1", "FL-1", 10, 1, 1, false);
+        booking.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        when(bookingRepository.findById("B1")).thenReturn(Optional.of(booking));
+        when(classFlightRepository.findClassTypesByIdIn(List.of(10))).thenReturn(List.of(new ClassFlightType(10, "economy")));
+
+        BookingResponseDTO first = service.getBooking("B1");
+        first.setStatus(2); // a caller adjusting its copy
+        BookingResponseDTO second = service.getBooking("B1");
+
+        assertEquals(1, second.getStatus());
+        assertEquals("economy", second.getClassType());
+        verify(classFlightRepository, times(1)).findClassTypesByIdIn(List.of(10));
+
+        // A write to the booking row moves its version on, so the next read assembles again
+        booking.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 11, 0));
+        service.getBooking("B1");
+        verify(classFlightRepository, times(2)).findClassTypesByIdIn(List.of(10));
+    }
+
     // -------------------- updateBooking --------------------
 
     @Test
@@ -499,12 +802,11 @@ public class BookingRestServiceTest {
     void updateBooking_seatIdsMismatch() {
         when(bookingRepository.findById("U5")).thenReturn(Optional.of(booking("U5", "FL-1", 10, 2, 1, false)));
         when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
         // keep passenger count stable to avoid recompute branch that requires ClassFlight
-        when(bookingPassengerRepository.findByBookingId("U5"))
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U5")))
                 .thenReturn(List.of(
-                        BookingPassenger.builder().bookingId("U5").passengerId(UUID.randomUUID()).build(),
-                        BookingPassenger.builder().bookingId("U5").passengerId(UUID.randomUUID()).build()
+                        new BookingPassengerLink("U5", UUID.randomUUID()),
+                        new BookingPassengerLink("U5", UUID.randomUUID())
                 ));
 
         UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
@@ -520,12 +822,11 @@ public class BookingRestServiceTest {
     void updateBooking_duplicateSeatIds() {
         when(bookingRepository.findById("U6")).thenReturn(Optional.of(booking("U6", "FL-1", 10, 2, 1, false)));
         when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
         // keep passenger count stable to avoid recompute branch that requires ClassFlight
-        when(bookingPassengerRepository.findByBookingId("U6"))
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U6")))
                 .thenReturn(List.of(
-                        BookingPassenger.builder().bookingId("U6").passengerId(UUID.randomUUID()).build(),
-                        BookingPassenger.builder().bookingId("U6").passengerId(UUID.randomUUID()).build()
+                        new BookingPassengerLink("U6", UUID.randomUUID()),
+                        new BookingPassengerLink("U6", UUID.randomUUID())
                 ));
 
         UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
@@ -541,11 +842,10 @@ public class BookingRestServiceTest {
     void updateBooking_seatWrongClass() {
         when(bookingRepository.findById("U7")).thenReturn(Optional.of(booking("U7", "FL-1", 10, 1, 1, false)));
         when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(seatRepository.findById(5)).thenReturn(Optional.of(seat(5, 11, "EC001", false, null)));
-        // ensure downstream passenger lookups in validation branch have non-null list
-        when(bookingPassengerRepository.findByBookingId("U7"))
-                .thenReturn(Collections.singletonList(BookingPassenger.builder().bookingId("U7").passengerId(UUID.randomUUID()).build()));
+        // Seat 5 is not on the booking's seat map but exists elsewhere
+        when(seatRepository.existsById(5)).thenReturn(true);
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U7")))
+                .thenReturn(Collections.singletonList(new BookingPassengerLink("U7", UUID.randomUUID())));
 
         UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
                 .id("U7").seatIds(List.of(5))
@@ -561,13 +861,12 @@ public class BookingRestServiceTest {
         UUID other = UUID.randomUUID();
         when(bookingRepository.findById("U8")).thenReturn(Optional.of(booking("U8", "FL-1", 10, 1, 1, false)));
         when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
 
         // current passengers for booking (different id set)
-        when(bookingPassengerRepository.findByBookingId("U8"))
-                .thenReturn(List.of(BookingPassenger.builder().bookingId("U8").passengerId(UUID.randomUUID()).build()));
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U8")))
+                .thenReturn(List.of(new BookingPassengerLink("U8", UUID.randomUUID())));
 
-        when(seatRepository.findById(7)).thenReturn(Optional.of(seat(7, 10, "EC007", true, other)));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(seat(7, 10, "EC007", true, other)));
 
         UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
                 .id("U8").seatIds(List.of(7))
@@ -588,21 +887,21 @@ public class BookingRestServiceTest {
 
         UUID p1 = UUID.randomUUID();
         UUID p2 = UUID.randomUUID();
-        when(bookingPassengerRepository.findByBookingId("U9"))
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U9")))
                 .thenReturn(List.of(
-                        BookingPassenger.builder().bookingId("U9").passengerId(p1).build(),
-                        BookingPassenger.builder().bookingId("U9").passengerId(p2).build()
+                        new BookingPassengerLink("U9", p1),
+                        new BookingPassengerLink("U9", p2)
                 ));
 
         // No seats mapped currently for those passengers
-        when(seatRepository.findAll()).thenReturn(List.of(
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(
                 seat(1, 10, "EC001", false, null),
                 seat(2, 10, "EC002", false, null)
         ));
-        when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
 
         // classFlight to compute/ensure current pricing
-        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
+        when(classFlightRepository.findByIdForUpdate(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
         UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
                 .id("U9").contactEmail("new@x.com").contactPhone("08xx")
                 .build();
@@ -611,8 +910,37 @@ public class BookingRestServiceTest {
 
         assertNotNull(res);
         assertEquals("U9", res.getId());
-        verify(seatRepository, times(2)).save(any(Seat.class));
-        verify(bookingRepository, atLeastOnce()).save(any(Booking.class));
+        // Both seats written in one batch, the booking saved once
+        verify(seatRepository).updateSeatAssignments(argThat(seats -> seats.size() == 2
+                && seats.stream().allMatch(s -> s.getIsBooked() && s.getPassengerId() != null)), anyMap());
+        verify(seatRepository, never()).save(any(Seat.class));
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(bookingPassengerRepository, never()).findByBookingId(anyString());
+    }
+
+    @Test
+    @DisplayName("updateBooking: a seat booked by someone else before the write fails the update")
+    void updateBooking_seatTakenBeforeWrite_throws() {
+        Booking existing = booking("U10", "FL-1", 10, 2, 1, false);
+        when(bookingRepository.findById("U10")).thenReturn(Optional.of(existing));
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U10")))
+                .thenReturn(List.of(new BookingPassengerLink("U10", UUID.randomUUID()), new BookingPassengerLink("U10", UUID.randomUUID())));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(
+                seat(1, 10, "EC001", false, null),
+                seat(2, 10, "EC002", false, null)
+        ));
+        when(classFlightRepository.findByIdForUpdate(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
+        // The guarded update skips the seat that is no longer free
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenReturn(1);
+
+        UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
+                .id("U10").contactEmail("new@x.com").contactPhone("08xx")
+                .build();
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> service.updateBooking(dto));
+        assertTrue(ex.getMessage().contains("booked concurrently"));
+        verify(bookingRepository, never()).save(any(Booking.class));
     }
 
     @Test
@@ -625,17 +953,17 @@ public class BookingRestServiceTest {
         when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
 
         UUID p1 = UUID.randomUUID();
-        when(bookingPassengerRepository.findByBookingId("U10"))
-                .thenReturn(List.of(BookingPassenger.builder().bookingId("U10").passengerId(p1).build()));
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U10")))
+                .thenReturn(List.of(new BookingPassengerLink("U10", p1)));
 
         // For passenger update
-        when(passengerRepository.findById(p1)).thenReturn(Optional.of(Passenger.builder().id(p1).fullName("Old").build()));
-        when(passengerRepository.save(any(Passenger.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(passengerRepository.findAllById(Set.of(p1))).thenReturn(List.of(Passenger.builder().id(p1).fullName("Old").build()));
 
-        when(seatRepository.findAll()).thenReturn(List.of(seat(1, 10, "EC001", false, null)));
-        when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
+        // p1 already seated: no seat writes
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, 10, "EC001", true, p1)));
 
-        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
+        when(classFlightRepository.findByIdForUpdate(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
 
         UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
                 .id("U10").contactEmail("new@x.com").contactPhone("08xx")
@@ -647,8 +975,114 @@ public class BookingRestServiceTest {
 
         assertNotNull(res);
         assertEquals("U10", res.getId());
-        verify(passengerRepository).save(any(Passenger.class));
-        verify(bookingRepository, atLeastOnce()).save(any(Booking.class));
+        verify(passengerRepository).saveAll(argThat(passengers -> {
+            Passenger updated = passengers.iterator().next();
+            return updated.getId().equals(p1) && updated.getFullName().equals("New Name");
+        }));
+        verify(seatRepository, never()).updateSeatAssignments(any(), any());
+        verify(bookingRepository, times(1)).save(any(Booking.class));
+    }
+
+    @Test
+    @DisplayName("updateBooking: editing a passenger shared with another booking drops that booking's cached detail")
+    void updateBooking_sharedPassenger_invalidatesOtherBooking() {
+        UUID p1 = UUID.randomUUID();
+        Booking other = booking("B1", "FL-1", 10, 1, 1, false);
+        other.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        when(bookingRepository.findById("B1")).thenReturn(Optional.of(other));
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("B1")))
+                .thenReturn(List.of(new BookingPassengerLink("B1", p1)));
+        when(passengerRepository.findAllById(List.of(p1))).thenReturn(
+                List.of(Passenger.builder().id(p1).fullName("Old").build()),
+                List.of(Passenger.builder().id(p1).fullName("New Name").build()));
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(classFlightRepository.findByIdForUpdate(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
+        assertEquals("Old", service.getBooking("B1").getPassengers().get(0).getFullName());
+
+        // U10 carries the same passenger and edits it
+        when(bookingRepository.findById("U10")).thenReturn(Optional.of(booking("U10", "FL-1", 10, 1, 1, false)));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U10")))
+                .thenReturn(List.of(new BookingPassengerLink("U10", p1)));
+        when(passengerRepository.findAllById(Set.of(p1))).thenReturn(List.of(Passenger.builder().id(p1).fullName("Old").build()));
+        service.updateBooking(UpdateBookingRequestDTO.builder()
+                .id("U10")
+                .passengers(List.of(apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO.builder()
+                        .id(p1).fullName("New Name").birthDate(java.time.LocalDate.now()).gender(1).idPassport("P1").build()))
+                .build());
+
+        // B1's row did not change, yet its detail is assembled again with the new name
+        assertEquals("New Name", service.getBooking("B1").getPassengers().get(0).getFullName());
+        // B1 twice and the update's own response
+        verify(passengerRepository, times(3)).findAllById(List.of(p1));
+    }
+
+    @Test
+    @DisplayName("updateBooking: dropped passenger frees its seat, added passenger gets one, one write per kind")
+    void updateBooking_replacePassenger() {
+        Booking existing = booking("U11", "FL-1", 10, 2, 1, false);
+        when(bookingRepository.findById("U11")).thenReturn(Optional.of(existing));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+
+        UUID p1 = UUID.randomUUID();
+        UUID p2 = UUID.randomUUID();
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U11")))
+                .thenReturn(List.of(
+                        new BookingPassengerLink("U11", p1),
+                        new BookingPassengerLink("U11", p2)
+                ));
+        when(passengerRepository.findAllById(Set.of(p1))).thenReturn(List.of(Passenger.builder().id(p1).fullName("A").build()));
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(
+                seat(1, 10, "EC001", true, p1),
+                seat(2, 10, "EC002", true, p2),
+                seat(3, 10, "EC003", false, null)
+        ));
+        when(classFlightRepository.findByIdForUpdate(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
+        when(seatRepository.updateSeatAssignments(anyCollection(), anyMap())).thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
+
+        UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
+                .id("U11").contactEmail("e@x.com").contactPhone("08")
+                .passengers(List.of(apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO.builder()
+                        .id(p1).fullName("A").birthDate(java.time.LocalDate.now()).gender(1).idPassport("P1").build()))
+                .newPassengers(List.of(AddPassengerRequestDTO.builder().idPassport("P3").fullName("C").build()))
+                .build();
+
+        service.updateBooking(dto);
+
+        verify(bookingPassengerRepository).deleteLinks("U11", List.of(p2));
+        verify(passengerRepository).insertPassengers(argThat(created -> created.size() == 1));
+        verify(bookingPassengerRepository).insertLinks(eq("U11"), argThat(ids -> ids.size() == 1));
+        // Count unchanged: no counter update, p2's seat freed, the new passenger takes the first free seat
+        verify(classFlightRepository, never()).decrementAvailableSeats(anyInt(), anyInt());
+        verify(classFlightRepository, never()).incrementAvailableSeats(anyInt(), anyInt());
+        // The release only applies while p2 still holds the seat
+        verify(seatRepository).updateSeatAssignments(argThat(seats -> seats.size() == 1
+                && seats.iterator().next().getId() == 2 && !seats.iterator().next().getIsBooked()),
+                argThat(holders -> p2.equals(holders.get(2))));
+        verify(seatRepository).updateSeatAssignments(argThat(seats -> seats.size() == 1
+                && seats.iterator().next().getIsBooked() && !p1.equals(seats.iterator().next().getPassengerId())), anyMap());
+        verify(bookingRepository, times(1)).save(argThat(b -> b.getPassengerCount() == 2));
+    }
+
+    @Test
+    @DisplayName("updateBooking: editing a passenger of another booking -> IllegalArgumentException")
+    void updateBooking_passengerNotOnBooking() {
+        when(bookingRepository.findById("U12")).thenReturn(Optional.of(booking("U12", "FL-1", 10, 1, 1, false)));
+        when(flightRepository.findById("FL-1")).thenReturn(Optional.of(flight("FL-1", "CGK", "DPS", 1, false)));
+        when(bookingPassengerRepository.findLinksByBookingIdIn(List.of("U12")))
+                .thenReturn(List.of(new BookingPassengerLink("U12", UUID.randomUUID())));
+
+        UUID stranger = UUID.randomUUID();
+        UpdateBookingRequestDTO dto = UpdateBookingRequestDTO.builder()
+                .id("U12")
+                .passengers(List.of(apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO.builder()
+                        .id(stranger).fullName("X").build()))
+                .build();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> service.updateBooking(dto));
+        assertTrue(ex.getMessage().contains("Passenger to update not found"));
+        verify(passengerRepository, never()).saveAll(any());
     }
 
     // -------------------- deleteBooking --------------------
@@ -700,24 +1134,19 @@ public class BookingRestServiceTest {
         ));
 
         // seats allocated to those passengers -> deallocate
-        when(seatRepository.findAll()).thenReturn(List.of(
+        when(seatRepository.findByPassengerIdIn(List.of(p1, p2))).thenReturn(List.of(
                 seat(1, 10, "EC001", true, p1),
-                seat(2, 10, "EC002", true, p2),
-                seat(3, 10, "EC003", false, null)
+                seat(2, 10, "EC002", true, p2)
         ));
         when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        // restore class availability
-        ClassFlight cf = classFlight(10, "economy", 10, 5, "1000000");
-        when(classFlightRepository.findById(10)).thenReturn(Optional.of(cf));
-        when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
-
         BookingResponseDTO res = service.deleteBooking("D5");
         assertNotNull(res);
-        assertEquals(7, cf.getAvailableSeats());
         assertEquals(3, res.getStatus()); // Cancelled
         verify(seatRepository, times(2)).save(any(Seat.class));
-        verify(classFlightRepository).save(cf);
+        // availability restored with an atomic increment, not a read-modify-write of the entity
+        verify(classFlightRepository).incrementAvailableSeats(10, 2);
+        verify(classFlightRepository, never()).save(any(ClassFlight.class));
         verify(bookingRepository, atLeastOnce()).save(any(Booking.class));
     }
 
@@ -725,8 +1154,6 @@ public class BookingRestServiceTest {
     @DisplayName("getAllBookings(includeDeleted=true): returns all bookings")
     void getAllBookings_includeDeleted() {
         when(bookingRepository.findAll()).thenReturn(List.of(booking("B1", "FL-1", 10, 1, 1, false), booking("B2", "FL-2", 11, 1, 1, true)));
-        when(classFlightRepository.findById(anyInt())).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
-        when(bookingPassengerRepository.findByBookingId(anyString())).thenReturn(Collections.emptyList());
 
         List<BookingResponseDTO> res = service.getAllBookings(true);
         assertEquals(2, res.size());
@@ -739,15 +1166,55 @@ public class BookingRestServiceTest {
         b1.setContactEmail("test@x.com");
         var b2 = booking("B2", "FL-1", 10, 1, 2, false);
         b2.setContactEmail("other@y.com");
-        when(bookingRepository.findByFlightIdAndIsDeleted("FL-1", false)).thenReturn(List.of(b1, b2));
-        when(classFlightRepository.findById(10)).thenReturn(Optional.of(classFlight(10, "economy", 10, 8, "1000000")));
-        when(bookingPassengerRepository.findByBookingId(anyString())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAll(any(Specification.class), eq(BookingSpecifications.LISTING_ORDER))).thenReturn(List.of(b1));
 
         List<BookingResponseDTO> res = service.getBookingsByFlight("FL-1", false, "B1", "test@x.com", 1);
         assertEquals(1, res.size());
         assertEquals("B1", res.get(0).getId());
     }
 
+    @Test
+    @DisplayName("getBookingPage: reads one row past the limit and returns a cursor at the last booking")
+    void getBookingPage_nextCursor() {
+        LocalDateTime created = LocalDateTime.of(2025, 1, 1, 10, 0);
+        var b3 = booking("B3", "FL-1", 10, 1, 1, false);
+        b3.setCreatedAt(created);
+        var b2 = booking("B2", "FL-1", 10, 1, 1, false);
+        b2.setCreatedAt(created);
+        var b1 = booking("B1", "FL-1", 10, 1, 1, false);
+        b1.setCreatedAt(created.minusHours(1));
+        when(bookingRepository.findBy(any(Specification.class), any())).thenReturn(List.of(b3, b2, b1));
+
+        BookingPageResponseDTO page = service.getBookingPage(null, null, null, null, null, null, 2);
+
+        assertEquals(List.of("B3", "B2"), page.getBookings().stream().map(BookingResponseDTO::getId).toList());
+        assertEquals(new BookingCursor(created, "B2"), BookingCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    @DisplayName("getCustomerBookingPage: ownership is part of the single listing query")
+    void getCustomerBookingPage_scopedQuery() {
+        var mine = booking("B1", "FL-1", 10, 1, 1, false);
+        mine.setCreatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        mine.setContactEmail("Me@X.com");
+        when(bookingRepository.findBy(any(Specification.class), any())).thenReturn(List.of(mine));
+
+        BookingPageResponseDTO page = service.getCustomerBookingPage("me@x.com", null, null, null, null, null, null);
+
+        assertEquals(1, page.getBookings().size());
+        assertNull(page.getNextCursor());
+        verify(bookingRepository, times(1)).findBy(any(Specification.class), any());
+        verify(bookingRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("getBookingPage: malformed cursor or non-positive limit -> IllegalArgumentException")
+    void getBookingPage_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> service.getBookingPage(null, null, null, null, null, "not-a-cursor", null));
+        assertThrows(IllegalArgumentException.class, () -> service.getBookingPage(null, null, null, null, null, null, 0));
+        verifyNoInteractions(bookingRepository);
+    }
+
     @Test
     @DisplayName("getTodayBookings: counts bookings created today")
     void getTodayBookings() {
@@ -0,0 +1,189 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+import apap.ti._5.flight_2306211660_be.repository.BillingOutboxRepository;
+import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
+import apap.ti._5.flight_2306211660_be.restdto.request.booking.AddBookingRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.passenger.AddPassengerRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutbox;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutboxDispatcher;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingResponseAssembler;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingRestService;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingRestServiceImpl;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingSequencer;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import apap.ti._5.flight_2306211660_be.restservice.id.CounterTableIdBlockSource;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.ContiguousSeatAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHoldRegistry;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
+
+/**
+ * Runs the sequenced booking path against an embedded database and compares its throughput
+ * with one transaction per booking on a single hot flight.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookingSequencerIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingSequencerIntegrationTest.class);
+    private static final int CALLERS = 60;
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = SeatRepository.class)
+    @EntityScan(basePackageClasses = Seat.class)
+    @Import({ BookingRestServiceImpl.class, BookingResponseAssembler.class, SeatInventory.class, ContiguousSeatAllocator.class, SeatHoldRegistry.class,
+            IdAllocator.class, CounterTableIdBlockSource.class, BillingOutbox.class, BookingDetailCache.class,
+            RouteAvailabilityIndex.class })
+    static class JpaSliceConfig {
+
+        // Bookings write their outbox rows; dispatching them is not part of this test
+        @Bean
+        BillingOutboxDispatcher billingOutboxDispatcher(BillingOutboxRepository outboxRepository,
+                                                        PlatformTransactionManager transactionManager) {
+            return new BillingOutboxDispatcher(outboxRepository, null, transactionManager, false, 50, 8,
+                    Duration.ofSeconds(1), Duration.ofMinutes(5), Duration.ofSeconds(30),
+                    Executors.newVirtualThreadPerTaskExecutor(), Clock.systemDefaultZone());
+        }
+    }
+
+    @Autowired
+    private BookingRestService bookingRestService;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Flight, class and seats only, skip the airline/airplane fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM billing_outbox");
+        jdbcTemplate.update("DELETE FROM booking_passengers");
+        jdbcTemplate.update("DELETE FROM bookings");
+        jdbcTemplate.update("DELETE FROM passengers");
+        jdbcTemplate.update("DELETE FROM seats");
+        jdbcTemplate.update("DELETE FROM class_flights");
+        jdbcTemplate.update("DELETE FROM flights");
+        jdbcTemplate.update("INSERT INTO flights (id, airline_id, airplane_id, origin_airport_code, destination_airport_code, "
+                + "departure_time, arrival_time, terminal, gate, baggage_allowance, status, created_at, updated_at, is_deleted) "
+                + "VALUES ('FL-HOT', 'AL', 'AP', 'CGK', 'DPS', DATEADD('DAY', 7, NOW()), DATEADD('DAY', 8, NOW()), 'T1', 'G1', 20, 1, NOW(), NOW(), FALSE)");
+        jdbcTemplate.update("INSERT INTO class_flights (id, flight_id, class_type, seat_capacity, available_seats, price) "
+                + "VALUES (1, 'FL-HOT', 'economy', 300, 300, 1000000)");
+        seatRepository.insertSeatRange(1, "EC", 1, 300);
+        seatInventory.evict(List.of(1));
+    }
+
+    private AddBookingRequestDTO request(int i) {
+        return AddBookingRequestDTO.builder()
+                .flightId("FL-HOT").classFlightId(1).passengerCount(1)
+                .contactEmail("c" + i + "@x.com").contactPhone("0812" + i)
+                .passengers(List.of(AddPassengerRequestDTO.builder()
+                        .idPassport("PP" + i).fullName("P " + i).birthDate(LocalDate.of(1990, 1, 1)).gender(1).build()))
+                .build();
+    }
+
+    private int availableSeats() {
+        return jdbcTemplate.queryForObject("SELECT available_seats FROM class_flights WHERE id = 1", Integer.class);
+    }
+
+    private long run(BookingSequencer sequencer, List<BookingResponseDTO> created) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        List<CompletableFuture<BookingResponseDTO>> futures = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int i = 0; i < CALLERS; i++) {
+            AddBookingRequestDTO dto = request(i);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return sequencer.createBooking(dto);
+                } catch (RuntimeException ex) {
+                    return null;
+                }
+            }, callers));
+        }
+        for (CompletableFuture<BookingResponseDTO> future : futures) {
+            BookingResponseDTO booking = future.get(60, TimeUnit.SECONDS);
+            if (booking != null) {
+                created.add(booking);
+            }
+        }
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        callers.shutdown();
+        return millis;
+    }
+
+    @Test
+    void sequencedBookings_allSucceedWithDistinctSeatsAndCodes() throws Exception {
+        ExecutorService drainers = Executors.newCachedThreadPool();
+        List<BookingResponseDTO> created = new ArrayList<>();
+
+        long millis = run(new BookingSequencer(bookingRestService, true, 32, drainers), created);
+        drainers.shutdown();
+
+        assertEquals(CALLERS, created.size());
+        assertEquals(300 - CALLERS, availableSeats());
+        Set<String> codes = new HashSet<>();
+        Set<String> seats = new HashSet<>();
+        for (BookingResponseDTO booking : created) {
+            codes.add(booking.getId());
+            booking.getSeatAssignments().forEach(a -> seats.add(a.getSeatCode()));
+        }
+        assertEquals(CALLERS, codes.size());
+        assertEquals(CALLERS, seats.size());
+        assertEquals(CALLERS, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM seats WHERE is_booked = TRUE", Integer.class));
+        // Every committed booking left its bill request in the outbox
+        assertEquals(CALLERS, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM billing_outbox", Integer.class));
+        logger.info("Sequenced: {} bookings in {} ms ({} /s)", CALLERS, millis, CALLERS * 1000L / Math.max(millis, 1));
+    }
+
+    @Test
+    void directBookings_forComparison() throws Exception {
+        List<BookingResponseDTO> created = new ArrayList<>();
+
+        long millis = run(new BookingSequencer(bookingRestService, false, 32, null), created);
+
+        logger.info("Direct: {} of {} bookings succeeded in {} ms ({} /s)", created.size(), CALLERS, millis,
+                created.size() * 1000L / Math.max(millis, 1));
+        assertEquals(300 - created.size(), availableSeats());
+        // Booking codes come from the ID allocator, so parallel transactions never compute the same code
+        assertEquals(CALLERS, created.size());
+        assertEquals(CALLERS, created.stream().map(BookingResponseDTO::getId).distinct().count());
+    }
+}
@@ -0,0 +1,171 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import apap.ti._5.flight_2306211660_be.restdto.request.booking.AddBookingRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingBatchResult;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingRestService;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingSequencer;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingSequencerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingSequencerTest.class);
+
+    @Mock
+    private BookingRestService bookingRestService;
+
+    private ExecutorService drainers;
+
+    @BeforeEach
+    void setUp() {
+        drainers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        drainers.shutdownNow();
+    }
+
+    private AddBookingRequestDTO request(String flightId, String email) {
+        return AddBookingRequestDTO.builder().flightId(flightId).classFlightId(10).passengerCount(1).contactEmail(email).build();
+    }
+
+    /** Answers a batch like the real service: one result per request, echoing the contact email as booking ID. */
+    private List<BookingBatchResult> echo(List<AddBookingRequestDTO> dtos) {
+        List<BookingBatchResult> results = new ArrayList<>();
+        for (AddBookingRequestDTO dto : dtos) {
+            results.add("bad".equals(dto.getContactEmail())
+                    ? BookingBatchResult.failure(new IllegalArgumentException("Class flight not found"))
+                    : BookingBatchResult.success(BookingResponseDTO.builder().id(dto.getContactEmail()).build()));
+        }
+        return results;
+    }
+
+    @Test
+    void disabled_callsServiceDirectly() {
+        BookingSequencer sequencer = new BookingSequencer(bookingRestService, false, 32, drainers);
+        AddBookingRequestDTO dto = request("FL-1", "a");
+        when(bookingRestService.createBooking(dto)).thenReturn(BookingResponseDTO.builder().id("B-1").build());
+
+        assertEquals("B-1", sequencer.createBooking(dto).getId());
+        verify(bookingRestService, never()).createBookings(anyList());
+    }
+
+    @Test
+    void enabled_concurrentRequestsShareBatchesAndGetOwnResults() throws Exception {
+        BookingSequencer sequencer = new BookingSequencer(bookingRestService, true, 32, drainers);
+        AtomicInteger batches = new AtomicInteger();
+        when(bookingRestService.createBookings(anyList())).thenAnswer(inv -> {
+            batches.incrementAndGet();
+            // Stands in for the commit, lets the next requests pile up behind it
+            Thread.sleep(20);
+            return echo(inv.getArgument(0));
+        });
+
+        List<CompletableFuture<BookingResponseDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            futures.add(sequencer.submit(request("FL-1", "B-" + i)));
+        }
+
+        for (int i = 0; i < 64; i++) {
+            assertEquals("B-" + i, futures.get(i).get(5, TimeUnit.SECONDS).getId());
+        }
+        assertTrue(batches.get() < 64, "requests were not batched: " + batches.get());
+    }
+
+    @Test
+    void enabled_rejectedRequestSurfacesItsOwnError() {
+        BookingSequencer sequencer = new BookingSequencer(bookingRestService, true, 32, drainers);
+        when(bookingRestService.createBookings(anyList())).thenAnswer(inv -> echo(inv.getArgument(0)));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> sequencer.createBooking(request("FL-1", "bad")));
+        assertEquals("Class flight not found", ex.getMessage());
+    }
+
+    @Test
+    void enabled_failedBatchFallsBackToSingleBookings() {
+        BookingSequencer sequencer = new BookingSequencer(bookingRestService, true, 32, drainers);
+        AddBookingRequestDTO dto = request("FL-1", "a");
+        when(bookingRestService.createBookings(anyList())).thenThrow(new IllegalStateException("counter changed"));
+        when(bookingRestService.createBooking(dto)).thenReturn(BookingResponseDTO.builder().id("B-1").build());
+
+        assertEquals("B-1", sequencer.createBooking(dto).getId());
+        verify(bookingRestService, times(1)).createBooking(any());
+    }
+
+    @Test
+    void throughput_batchedVersusOneTransactionPerBooking() throws Exception {
+        // Simulated cost model: every transaction pays a fixed 5 ms commit, serialized on the class flight row lock
+        Object rowLock = new Object();
+        when(bookingRestService.createBooking(any())).thenAnswer(inv -> {
+            synchronized (rowLock) {
+                Thread.sleep(5);
+            }
+            return BookingResponseDTO.builder().build();
+        });
+        when(bookingRestService.createBookings(anyList())).thenAnswer(inv -> {
+            synchronized (rowLock) {
+                Thread.sleep(5);
+            }
+            return echo(inv.getArgument(0));
+        });
+
+        int callers = 200;
+        long direct = timeCallers(new BookingSequencer(bookingRestService, false, 32, drainers), callers);
+        long sequenced = timeCallers(new BookingSequencer(bookingRestService, true, 32, drainers), callers);
+
+        logger.info("{} bookings on one flight: one transaction each {} ms ({} /s), sequenced {} ms ({} /s)",
+                callers, direct, callers * 1000L / Math.max(direct, 1), sequenced, callers * 1000L / Math.max(sequenced, 1));
+        assertTrue(sequenced < direct, "sequencer slower than direct path");
+    }
+
+    private long timeCallers(BookingSequencer sequencer, int callers) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            AddBookingRequestDTO dto = request("FL-1", "B-" + i);
+            done.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                sequencer.createBooking(dto);
+            }, pool));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        return (System.nanoTime() - begin) / 1_000_000;
+    }
+}
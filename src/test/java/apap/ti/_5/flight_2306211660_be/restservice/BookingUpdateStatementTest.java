@@ -0,0 +1,226 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+import apap.ti._5.flight_2306211660_be.repository.BillingOutboxRepository;
+import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
+import apap.ti._5.flight_2306211660_be.restdto.request.booking.AddBookingRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.booking.UpdateBookingRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.passenger.AddPassengerRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.booking.BookingResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.passenger.PassengerResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutbox;
+import apap.ti._5.flight_2306211660_be.restservice.bill.BillingOutboxDispatcher;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingResponseAssembler;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingRestService;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingRestServiceImpl;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import apap.ti._5.flight_2306211660_be.restservice.id.CounterTableIdBlockSource;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.ContiguousSeatAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHoldRegistry;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pins the statements booking creation and updates issue against an embedded database, whatever the passenger count.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookingUpdateStatementTest {
+
+    static final AtomicInteger BATCHES = new AtomicInteger();
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = SeatRepository.class)
+    @EntityScan(basePackageClasses = Seat.class)
+    @Import({ BookingRestServiceImpl.class, BookingResponseAssembler.class, SeatInventory.class, ContiguousSeatAllocator.class, SeatHoldRegistry.class,
+            IdAllocator.class, CounterTableIdBlockSource.class, BillingOutbox.class, BookingDetailCache.class,
+            RouteAvailabilityIndex.class })
+    static class JpaSliceConfig {
+
+        // Bookings write their outbox rows; dispatching them is not part of this test
+        @Bean
+        BillingOutboxDispatcher billingOutboxDispatcher(BillingOutboxRepository outboxRepository,
+                                                        PlatformTransactionManager transactionManager) {
+            return new BillingOutboxDispatcher(outboxRepository, null, transactionManager, false, 50, 8,
+                    Duration.ofSeconds(1), Duration.ofMinutes(5), Duration.ofSeconds(30),
+                    Executors.newVirtualThreadPerTaskExecutor(), Clock.systemDefaultZone());
+        }
+
+        // Counts JDBC batches, which Hibernate statistics do not see
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource) {
+                @Override
+                public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                    BATCHES.incrementAndGet();
+                    return super.batchUpdate(sql, batchArgs);
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private BookingRestService bookingRestService;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Flight, class and seats only, skip the airline/airplane fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM billing_outbox");
+        jdbcTemplate.update("DELETE FROM booking_passengers");
+        jdbcTemplate.update("DELETE FROM bookings");
+        jdbcTemplate.update("DELETE FROM passengers");
+        jdbcTemplate.update("DELETE FROM seats");
+        jdbcTemplate.update("DELETE FROM class_flights");
+        jdbcTemplate.update("DELETE FROM flights");
+        jdbcTemplate.update("INSERT INTO flights (id, airline_id, airplane_id, origin_airport_code, destination_airport_code, "
+                + "departure_time, arrival_time, terminal, gate, baggage_allowance, status, created_at, updated_at, is_deleted) "
+                + "VALUES ('FL-UPD', 'AL', 'AP', 'CGK', 'DPS', DATEADD('DAY', 7, NOW()), DATEADD('DAY', 8, NOW()), 'T1', 'G1', 20, 1, NOW(), NOW(), FALSE)");
+        jdbcTemplate.update("INSERT INTO class_flights (id, flight_id, class_type, seat_capacity, available_seats, price) "
+                + "VALUES (1, 'FL-UPD', 'economy', 50, 50, 1000000)");
+        seatRepository.insertSeatRange(1, "EC", 1, 50);
+        seatInventory.evict(List.of(1));
+    }
+
+    private BookingResponseDTO book(String tag, int passengers) {
+        List<AddPassengerRequestDTO> list = new ArrayList<>();
+        for (int i = 0; i < passengers; i++) {
+            list.add(AddPassengerRequestDTO.builder()
+                    .idPassport(tag + "-" + i).fullName("P " + tag + i).birthDate(LocalDate.of(1990, 1, 1)).gender(1).build());
+        }
+        return bookingRestService.createBooking(AddBookingRequestDTO.builder()
+                .flightId("FL-UPD").classFlightId(1).passengerCount(passengers)
+                .contactEmail(tag + "@x.com").contactPhone("0812").passengers(list)
+                .build());
+    }
+
+    /** Creates a booking and returns the statements it issued: Hibernate statements plus JDBC batches. */
+    private int statementsFor(String tag, int passengers, List<BookingResponseDTO> out) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BATCHES.set(0);
+        out.add(book(tag, passengers));
+        return (int) statistics.getPrepareStatementCount() + BATCHES.get();
+    }
+
+    /** Runs the update and returns the statements it issued: Hibernate statements plus JDBC batches. */
+    private int statementsFor(UpdateBookingRequestDTO dto, List<BookingResponseDTO> out) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BATCHES.set(0);
+        out.add(bookingRestService.updateBooking(dto));
+        return (int) statistics.getPrepareStatementCount() + BATCHES.get();
+    }
+
+    private int availableSeats() {
+        return jdbcTemplate.queryForObject("SELECT available_seats FROM class_flights WHERE id = 1", Integer.class);
+    }
+
+    @Test
+    void createBooking_statementCountIndependentOfPassengers() {
+        // The first booking cold-loads the seat map
+        book("W", 1);
+        List<BookingResponseDTO> out = new ArrayList<>();
+
+        int single = statementsFor("C1", 1, out);
+        int nine = statementsFor("C9", 9, out);
+
+        // class flight lock, flight, booking code, passport lookup, booking insert, counter update,
+        // passenger, link and seat batches, outbox insert and the five reads of the response assembly
+        assertEquals(15, single);
+        assertEquals(single, nine);
+        assertEquals(9, out.get(1).getPassengers().size());
+        assertEquals(9, out.get(1).getSeatAssignments().size());
+        assertEquals(39, availableSeats());
+    }
+
+    @Test
+    void contactUpdate_statementCountIndependentOfPassengers() {
+        BookingResponseDTO small = book("S", 2);
+        BookingResponseDTO large = book("L", 6);
+        List<BookingResponseDTO> out = new ArrayList<>();
+
+        int smallStatements = statementsFor(UpdateBookingRequestDTO.builder()
+                .id(small.getId()).contactEmail("new-s@x.com").contactPhone("0899").build(), out);
+        int largeStatements = statementsFor(UpdateBookingRequestDTO.builder()
+                .id(large.getId()).contactEmail("new-l@x.com").contactPhone("0899").build(), out);
+
+        // booking, links, class flight row lock, booking update, and the five reads of the response assembly
+        assertEquals(9, smallStatements);
+        assertEquals(smallStatements, largeStatements);
+        assertEquals("new-l@x.com", out.get(1).getContactEmail());
+        assertEquals(6, out.get(1).getSeatAssignments().size());
+    }
+
+    @Test
+    void replacePassenger_pinnedStatementsAndSeats() {
+        BookingResponseDTO created = book("R", 3);
+        List<UpdatePassengerRequestDTO> kept = new ArrayList<>();
+        for (PassengerResponseDTO passenger : created.getPassengers().subList(0, 2)) {
+            kept.add(UpdatePassengerRequestDTO.builder().id(passenger.getId()).fullName(passenger.getFullName() + " Jr")
+                    .birthDate(passenger.getBirthDate()).gender(passenger.getGender()).idPassport(passenger.getIdPassport()).build());
+        }
+        List<BookingResponseDTO> out = new ArrayList<>();
+
+        int statements = statementsFor(UpdateBookingRequestDTO.builder()
+                .id(created.getId()).contactEmail("r@x.com").contactPhone("0812")
+                .passengers(kept)
+                .newPassengers(List.of(
+                        AddPassengerRequestDTO.builder().idPassport("R-new-1").fullName("New 1").birthDate(LocalDate.of(1991, 1, 1)).gender(2).build(),
+                        AddPassengerRequestDTO.builder().idPassport("R-new-2").fullName("New 2").birthDate(LocalDate.of(1992, 1, 1)).gender(2).build()))
+                .build(), out);
+
+        // On top of the contact update: passenger load and edit, link delete, passport lookup, passenger
+        // and link batches, counter update and the seat batches; none of them repeat per passenger
+        assertEquals(19, statements);
+        BookingResponseDTO updated = out.get(0);
+        assertEquals(4, updated.getPassengerCount());
+        assertEquals(4, updated.getPassengers().size());
+        assertEquals(4, updated.getSeatAssignments().size());
+        assertEquals(50 - 4, availableSeats());
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM seats WHERE is_booked = TRUE", Integer.class));
+    }
+}
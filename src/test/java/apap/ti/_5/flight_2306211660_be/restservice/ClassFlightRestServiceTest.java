@@ -6,23 +6,23 @@ import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
 import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.classFlight.AddClassFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.classFlight.UpdateClassFlightRequestDTO;
-import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.classFlight.ClassFlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.CompactSeatMapDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
 import apap.ti._5.flight_2306211660_be.restservice.classFlight.ClassFlightRestServiceImpl;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
 import apap.ti._5.flight_2306211660_be.restservice.seat.SeatRestService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,9 +37,15 @@ public class ClassFlightRestServiceTest {
     @Mock
     private SeatRepository seatRepository;
 
+    @Mock
+    private SeatInventory seatInventory;
+
     @Mock
     private SeatRestService seatRestService;
 
+    @Mock
+    private RouteAvailabilityIndex routeAvailabilityIndex;
+
     @InjectMocks
     private ClassFlightRestServiceImpl service;
 
@@ -54,17 +60,6 @@ public class ClassFlightRestServiceTest {
                 .build();
     }
 
-    private Seat seat(Integer id, Integer classFlightId, String code, boolean booked) {
-        return Seat.builder()
-                .id(id)
-                .classFlightId(classFlightId)
-                .seatCode(code)
-                .isBooked(booked)
-                .createdAt(LocalDateTime.now().minusDays(2))
-                .updatedAt(LocalDateTime.now().minusDays(1))
-                .build();
-    }
-
     @Test
     @DisplayName("createClassFlight: persist and map to response")
     void createClassFlight_success() {
@@ -105,17 +100,17 @@ public class ClassFlightRestServiceTest {
     }
 
     @Test
-    @DisplayName("getClassFlightsByFlight: filters by flightId and maps")
+    @DisplayName("getClassFlightsByFlight: queries by flightId and maps")
     void getClassFlightsByFlight_filters() {
         var c1 = cf(1, "FL-X", "first", 2, 2, new BigDecimal("5000000"));
-        var c2 = cf(2, "FL-Y", "economy", 3, 3, new BigDecimal("1000000"));
-        when(classFlightRepository.findAll()).thenReturn(Arrays.asList(c1, c2));
+        when(classFlightRepository.findByFlightId("FL-X")).thenReturn(List.of(c1));
 
         List<ClassFlightResponseDTO> res = service.getClassFlightsByFlight("FL-X");
 
         assertEquals(1, res.size());
         assertEquals("FL-X", res.get(0).getFlightId());
-        verify(classFlightRepository).findAll();
+        verify(classFlightRepository).findByFlightId("FL-X");
+        verify(classFlightRepository, never()).findAll();
     }
 
     @Test
@@ -159,6 +154,22 @@ public class ClassFlightRestServiceTest {
         verify(seatRestService).getSeatsByClassFlight(5);
     }
 
+    @Test
+    @DisplayName("getClassFlightDetail: compact format carries the run-length seat map instead of seats")
+    void getClassFlightDetail_compactSeatMap() {
+        var c = cf(6, "FL-6", "economy", 300, 288, new BigDecimal("1200000"));
+        when(classFlightRepository.findById(6)).thenReturn(Optional.of(c));
+        var seatMap = CompactSeatMapDTO.builder().codePattern("EC%03d").firstNumber(1).lastNumber(300).occupancy("12B288F").build();
+        when(seatRestService.getCompactSeatMap(6)).thenReturn(seatMap);
+
+        ClassFlightResponseDTO res = service.getClassFlightDetail(6, true);
+
+        assertNotNull(res);
+        assertNull(res.getSeats());
+        assertEquals("12B288F", res.getSeatMap().getOccupancy());
+        verify(seatRestService, never()).getSeatsByClassFlight(anyInt());
+    }
+
     @Test
     @DisplayName("getClassFlightDetail: returns null when not found")
     void getClassFlightDetail_notFound() {
@@ -173,7 +184,7 @@ public class ClassFlightRestServiceTest {
     @Test
     @DisplayName("updateClassFlight: returns null when target does not exist")
     void updateClassFlight_notFound() {
-        when(classFlightRepository.findById(77)).thenReturn(Optional.empty());
+        when(classFlightRepository.findByIdForUpdate(77)).thenReturn(Optional.empty());
 
         var req = UpdateClassFlightRequestDTO.builder()
                 .id(77)
@@ -183,7 +194,7 @@ public class ClassFlightRestServiceTest {
 
         ClassFlightResponseDTO res = service.updateClassFlight(req);
         assertNull(res);
-        verify(classFlightRepository).findById(77);
+        verify(classFlightRepository).findByIdForUpdate(77);
         verify(classFlightRepository, never()).save(any(ClassFlight.class));
     }
 
@@ -191,18 +202,10 @@ public class ClassFlightRestServiceTest {
     @DisplayName("updateClassFlight: validate bookedCount > newCap throws IllegalStateException")
     void updateClassFlight_validateBookedCount() {
         var existing = cf(88, "FL-8", "business", 6, 6, new BigDecimal("2000000"));
-        when(classFlightRepository.findById(88)).thenReturn(Optional.of(existing));
+        when(classFlightRepository.findByIdForUpdate(88)).thenReturn(Optional.of(existing));
 
         // Seats: 4 booked, 2 unbooked; newCap below booked(4) should throw
-        List<Seat> seats = Arrays.asList(
-                seat(1, 88, "BU001", true),
-                seat(2, 88, "BU002", true),
-                seat(3, 88, "BU003", true),
-                seat(4, 88, "BU004", true),
-                seat(5, 88, "BU005", false),
-                seat(6, 88, "BU006", false)
-        );
-        when(seatRepository.findAll()).thenReturn(seats);
+        when(seatRepository.countByClassFlightIdAndIsBooked(88, true)).thenReturn(4L);
 
         var req = UpdateClassFlightRequestDTO.builder()
                 .id(88)
@@ -212,22 +215,18 @@ public class ClassFlightRestServiceTest {
 
         IllegalStateException ex = assertThrows(IllegalStateException.class, () -> service.updateClassFlight(req));
         assertTrue(ex.getMessage().contains("Cannot set seat capacity below currently booked seats"));
-        verify(seatRepository).findAll();
+        verify(seatRepository).countByClassFlightIdAndIsBooked(88, true);
         verify(classFlightRepository, never()).save(any(ClassFlight.class));
     }
 
     @Test
-    @DisplayName("updateClassFlight: increase capacity adds seats with correct prefix and saves availability")
+    @DisplayName("updateClassFlight: increase capacity generates the new seat range and saves availability")
     void updateClassFlight_increaseCapacity_addsSeats() {
         var existing = cf(33, "FL-3", "economy", 2, 2, new BigDecimal("1000000"));
-        when(classFlightRepository.findById(33)).thenReturn(Optional.of(existing));
+        when(classFlightRepository.findByIdForUpdate(33)).thenReturn(Optional.of(existing));
 
         // current seats EC001, EC002 all unbooked
-        List<Seat> existingSeats = Arrays.asList(
-                seat(1, 33, "EC001", false),
-                seat(2, 33, "EC002", false)
-        );
-        when(seatRepository.findAll()).thenReturn(existingSeats);
+        when(seatRepository.countByClassFlightIdAndIsBooked(33, true)).thenReturn(0L);
 
         var req = UpdateClassFlightRequestDTO.builder()
                 .id(33)
@@ -235,14 +234,8 @@ public class ClassFlightRestServiceTest {
                 .price(new BigDecimal("1500000"))
                 .build();
 
-        // After creating seats, seatsAfter used to compute availability
-        List<Seat> seatsAfter = new ArrayList<>(existingSeats);
-        seatsAfter.add(seat(3, 33, "EC003", false));
-        seatsAfter.add(seat(4, 33, "EC004", false));
-        seatsAfter.add(seat(5, 33, "EC005", false));
-
-        // seatRepository.findAll() is called twice (before and after), return existing then updated
-        when(seatRepository.findAll()).thenReturn(existingSeats).thenReturn(seatsAfter);
+        // availability is recomputed with a COUNT after the insert
+        when(seatRepository.countByClassFlightIdAndIsBooked(33, false)).thenReturn(5L);
 
         // Save returns updated classFlight
         when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
@@ -250,10 +243,9 @@ public class ClassFlightRestServiceTest {
         ClassFlightResponseDTO res = service.updateClassFlight(req);
 
         // verify seat creation prefixes and codes
-        ArgumentCaptor<AddSeatRequestDTO> captor = ArgumentCaptor.forClass(AddSeatRequestDTO.class);
-        verify(seatRestService, times(3)).createSeat(captor.capture());
-        List<String> createdCodes = captor.getAllValues().stream().map(AddSeatRequestDTO::getSeatCode).collect(Collectors.toList());
-        assertEquals(Arrays.asList("EC003", "EC004", "EC005"), createdCodes);
+        verify(seatRestService).generateSeats(33, "economy", 3, 5);
+        verify(seatRestService, never()).createSeat(any());
+        verify(seatInventory, never()).getSeatMap(anyInt());
 
         assertNotNull(res);
         assertEquals(5, res.getSeatCapacity());
@@ -266,17 +258,12 @@ public class ClassFlightRestServiceTest {
     @DisplayName("updateClassFlight: decrease capacity removes highest-numbered unbooked seats")
     void updateClassFlight_decreaseCapacity_removeTailSeats() {
         var existing = cf(44, "FL-4", "economy", 5, 5, new BigDecimal("1000000"));
-        when(classFlightRepository.findById(44)).thenReturn(Optional.of(existing));
+        when(classFlightRepository.findByIdForUpdate(44)).thenReturn(Optional.of(existing));
 
         // Existing seats EC001..EC005 (EC005 and EC004 unbooked and should be removable), EC003 booked
-        List<Seat> existingSeats = Arrays.asList(
-                seat(1, 44, "EC001", false),
-                seat(2, 44, "EC002", false),
-                seat(3, 44, "EC003", true),
-                seat(4, 44, "EC004", false),
-                seat(5, 44, "EC005", false)
-        );
-        when(seatRepository.findAll()).thenReturn(existingSeats);
+        when(seatRepository.countByClassFlightIdAndIsBooked(44, true)).thenReturn(1L);
+        when(seatRepository.findFreeTailSeatIds(44, Limit.of(2))).thenReturn(Arrays.asList(5, 4));
+        when(seatInventory.deleteFreeSeats(44, Arrays.asList(5, 4))).thenReturn(2);
 
         var req = UpdateClassFlightRequestDTO.builder()
                 .id(44)
@@ -284,47 +271,75 @@ public class ClassFlightRestServiceTest {
                 .price(new BigDecimal("900000"))
                 .build();
 
-        // After removal, seatsAfter contains EC001, EC002, EC003 (EC003 booked)
-        List<Seat> seatsAfter = Arrays.asList(
-                seat(1, 44, "EC001", false),
-                seat(2, 44, "EC002", false),
-                seat(3, 44, "EC003", true)
-        );
-
-        // Return existingSeats (before) then seatsAfter (for availability calc)
-        when(seatRepository.findAll()).thenReturn(existingSeats).thenReturn(seatsAfter);
+        // After removal EC001, EC002 are free and EC003 booked
+        when(seatRepository.countByClassFlightIdAndIsBooked(44, false)).thenReturn(2L);
 
         when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
 
         ClassFlightResponseDTO res = service.updateClassFlight(req);
 
-        // Verify deletions
-        ArgumentCaptor<Seat> delCaptor = ArgumentCaptor.forClass(Seat.class);
-        verify(seatRepository, times(2)).delete(delCaptor.capture());
-        List<String> deletedCodes = delCaptor.getAllValues().stream().map(Seat::getSeatCode).collect(Collectors.toList());
-        assertEquals(Arrays.asList("EC005", "EC004"), deletedCodes);
+        // Both tail seats go in one bulk delete
+        verify(seatInventory).deleteFreeSeats(44, Arrays.asList(5, 4));
+        verify(seatInventory, never()).delete(any(Seat.class));
 
-        // Available seats should be count of unbooked in seatsAfter -> 2 (EC001, EC002)
+        // Available seats should be count of unbooked seats left -> 2 (EC001, EC002)
         assertNotNull(res);
         assertEquals(3, res.getSeatCapacity());
         assertEquals(2, res.getAvailableSeats());
         verify(classFlightRepository).save(any(ClassFlight.class));
     }
 
+    @Test
+    @DisplayName("updateClassFlight: decrease capacity without enough free tail seats throws")
+    void updateClassFlight_decreaseCapacity_notEnoughFreeSeats_throws() {
+        var existing = cf(45, "FL-4B", "economy", 5, 1, new BigDecimal("1000000"));
+        when(classFlightRepository.findByIdForUpdate(45)).thenReturn(Optional.of(existing));
+
+        when(seatRepository.countByClassFlightIdAndIsBooked(45, true)).thenReturn(3L);
+        when(seatRepository.findFreeTailSeatIds(45, Limit.of(2))).thenReturn(List.of(5));
+
+        var req = UpdateClassFlightRequestDTO.builder()
+                .id(45)
+                .seatCapacity(3)
+                .price(new BigDecimal("900000"))
+                .build();
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> service.updateClassFlight(req));
+        assertTrue(ex.getMessage().contains("not enough unbooked tail seats"));
+        verify(seatInventory, never()).deleteFreeSeats(anyInt(), any());
+        verify(classFlightRepository, never()).save(any(ClassFlight.class));
+    }
+
+    @Test
+    @DisplayName("updateClassFlight: decrease capacity fails when a picked seat got booked before the delete")
+    void updateClassFlight_decreaseCapacity_seatBookedMeanwhile_throws() {
+        var existing = cf(46, "FL-4C", "economy", 5, 4, new BigDecimal("1000000"));
+        when(classFlightRepository.findByIdForUpdate(46)).thenReturn(Optional.of(existing));
+
+        when(seatRepository.countByClassFlightIdAndIsBooked(46, true)).thenReturn(1L);
+        when(seatRepository.findFreeTailSeatIds(46, Limit.of(2))).thenReturn(Arrays.asList(5, 4));
+        // Seat 4 was booked after the lookup, so the conditional delete only removes seat 5
+        when(seatInventory.deleteFreeSeats(46, Arrays.asList(5, 4))).thenReturn(1);
+
+        var req = UpdateClassFlightRequestDTO.builder()
+                .id(46)
+                .seatCapacity(3)
+                .price(new BigDecimal("900000"))
+                .build();
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> service.updateClassFlight(req));
+        assertTrue(ex.getMessage().contains("booked while resizing"));
+        verify(classFlightRepository, never()).save(any(ClassFlight.class));
+    }
+
     @Test
     @DisplayName("updateClassFlight: decrease capacity below booked seats -> throws with bookedCount message")
     void updateClassFlight_decreaseCapacity_belowBooked_throws() {
         var existing = cf(66, "FL-6", "economy", 4, 4, new BigDecimal("1000000"));
-        when(classFlightRepository.findById(66)).thenReturn(Optional.of(existing));
+        when(classFlightRepository.findByIdForUpdate(66)).thenReturn(Optional.of(existing));
 
         // All seats booked -> newCap below bookedCount triggers first validation branch
-        List<Seat> existingSeats = Arrays.asList(
-                seat(1, 66, "EC001", true),
-                seat(2, 66, "EC002", true),
-                seat(3, 66, "EC003", true),
-                seat(4, 66, "EC004", true)
-        );
-        when(seatRepository.findAll()).thenReturn(existingSeats);
+        when(seatRepository.countByClassFlightIdAndIsBooked(66, true)).thenReturn(4L);
 
         var req = UpdateClassFlightRequestDTO.builder()
                 .id(66)
@@ -334,6 +349,7 @@ public class ClassFlightRestServiceTest {
 
         IllegalStateException ex = assertThrows(IllegalStateException.class, () -> service.updateClassFlight(req));
         assertTrue(ex.getMessage().contains("Cannot set seat capacity below currently booked seats"));
+        verify(seatRepository, never()).findFreeTailSeatIds(anyInt(), any());
         verify(classFlightRepository, never()).save(any(ClassFlight.class));
     }
 
@@ -348,6 +364,7 @@ public class ClassFlightRestServiceTest {
         assertNotNull(res);
         assertEquals(70, res.getId());
         verify(classFlightRepository).delete(existing);
+        verify(seatInventory).evict(List.of(70));
     }
 
     @Test
@@ -360,16 +377,11 @@ public class ClassFlightRestServiceTest {
         verify(classFlightRepository, never()).delete(any());
     }
     @Test
-    @DisplayName("updateClassFlight: increase capacity for business creates BU codes")
+    @DisplayName("updateClassFlight: increase capacity for business generates business seats")
     void updateClassFlight_increaseCapacity_prefixBusiness() {
         var existing = cf(101, "FL-BU", "business", 2, 2, new BigDecimal("3000000"));
-        when(classFlightRepository.findById(101)).thenReturn(Optional.of(existing));
-
-        List<Seat> existingSeats = Arrays.asList(
-                seat(1, 101, "BU001", false),
-                seat(2, 101, "BU002", false)
-        );
-        when(seatRepository.findAll()).thenReturn(existingSeats);
+        when(classFlightRepository.findByIdForUpdate(101)).thenReturn(Optional.of(existing));
+        when(seatRepository.countByClassFlightIdAndIsBooked(101, true)).thenReturn(0L);
 
         var req = UpdateClassFlightRequestDTO.builder()
                 .id(101)
@@ -377,31 +389,22 @@ public class ClassFlightRestServiceTest {
                 .price(new BigDecimal("3500000"))
                 .build();
 
-        List<Seat> seatsAfter = new ArrayList<>(existingSeats);
-        seatsAfter.add(seat(3, 101, "BU003", false));
-        seatsAfter.add(seat(4, 101, "BU004", false));
-
-        when(seatRepository.findAll()).thenReturn(existingSeats).thenReturn(seatsAfter);
+        when(seatRepository.countByClassFlightIdAndIsBooked(101, false)).thenReturn(4L);
         when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
 
         ClassFlightResponseDTO res = service.updateClassFlight(req);
 
-        ArgumentCaptor<AddSeatRequestDTO> captor = ArgumentCaptor.forClass(AddSeatRequestDTO.class);
-        verify(seatRestService, times(2)).createSeat(captor.capture());
-        List<String> created = captor.getAllValues().stream().map(AddSeatRequestDTO::getSeatCode).collect(Collectors.toList());
-        assertEquals(Arrays.asList("BU003", "BU004"), created);
+        verify(seatRestService).generateSeats(101, "business", 3, 4);
         assertEquals(4, res.getSeatCapacity());
         assertEquals(4, res.getAvailableSeats());
     }
 
     @Test
-    @DisplayName("updateClassFlight: increase capacity for first creates FI codes")
+    @DisplayName("updateClassFlight: increase capacity for first generates first seats")
     void updateClassFlight_increaseCapacity_prefixFirst() {
         var existing = cf(102, "FL-FI", "first", 0, 0, new BigDecimal("9000000"));
-        when(classFlightRepository.findById(102)).thenReturn(Optional.of(existing));
-
-        List<Seat> existingSeats = Collections.emptyList();
-        when(seatRepository.findAll()).thenReturn(existingSeats);
+        when(classFlightRepository.findByIdForUpdate(102)).thenReturn(Optional.of(existing));
+        when(seatRepository.countByClassFlightIdAndIsBooked(102, true)).thenReturn(0L);
 
         var req = UpdateClassFlightRequestDTO.builder()
                 .id(102)
@@ -409,32 +412,22 @@ public class ClassFlightRestServiceTest {
                 .price(new BigDecimal("9500000"))
                 .build();
 
-        List<Seat> seatsAfter = Arrays.asList(
-                seat(1, 102, "FI001", false),
-                seat(2, 102, "FI002", false)
-        );
-
-        when(seatRepository.findAll()).thenReturn(existingSeats).thenReturn(seatsAfter);
+        when(seatRepository.countByClassFlightIdAndIsBooked(102, false)).thenReturn(2L);
         when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
 
         ClassFlightResponseDTO res = service.updateClassFlight(req);
 
-        ArgumentCaptor<AddSeatRequestDTO> captor = ArgumentCaptor.forClass(AddSeatRequestDTO.class);
-        verify(seatRestService, times(2)).createSeat(captor.capture());
-        List<String> created = captor.getAllValues().stream().map(AddSeatRequestDTO::getSeatCode).collect(Collectors.toList());
-        assertEquals(Arrays.asList("FI001", "FI002"), created);
+        verify(seatRestService).generateSeats(102, "first", 1, 2);
         assertEquals(2, res.getSeatCapacity());
         assertEquals(2, res.getAvailableSeats());
     }
 
     @Test
-    @DisplayName("updateClassFlight: unknown/null classType defaults to EC prefix")
+    @DisplayName("updateClassFlight: null classType is passed through to seat generation")
     void updateClassFlight_increaseCapacity_defaultPrefix() {
-        var existing = cf(103, "FL-EC", null, 0, 0, new BigDecimal("1200000")); // null triggers default
-        when(classFlightRepository.findById(103)).thenReturn(Optional.of(existing));
-
-        List<Seat> existingSeats = Collections.emptyList();
-        when(seatRepository.findAll()).thenReturn(existingSeats);
+        var existing = cf(103, "FL-EC", null, 0, 0, new BigDecimal("1200000")); // null falls back to EC in SeatRestService
+        when(classFlightRepository.findByIdForUpdate(103)).thenReturn(Optional.of(existing));
+        when(seatRepository.countByClassFlightIdAndIsBooked(103, true)).thenReturn(0L);
 
         var req = UpdateClassFlightRequestDTO.builder()
                 .id(103)
@@ -442,16 +435,12 @@ public class ClassFlightRestServiceTest {
                 .price(new BigDecimal("1300000"))
                 .build();
 
-        List<Seat> seatsAfter = Collections.singletonList(seat(1, 103, "EC001", false));
-
-        when(seatRepository.findAll()).thenReturn(existingSeats).thenReturn(seatsAfter);
+        when(seatRepository.countByClassFlightIdAndIsBooked(103, false)).thenReturn(1L);
         when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
 
         ClassFlightResponseDTO res = service.updateClassFlight(req);
 
-        ArgumentCaptor<AddSeatRequestDTO> captor = ArgumentCaptor.forClass(AddSeatRequestDTO.class);
-        verify(seatRestService, times(1)).createSeat(captor.capture());
-        assertEquals("EC001", captor.getValue().getSeatCode());
+        verify(seatRestService).generateSeats(103, null, 1, 1);
         assertEquals(1, res.getSeatCapacity());
         assertEquals(1, res.getAvailableSeats());
     }
@@ -0,0 +1,128 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Flight;
+import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.flight.FlightResponseAssembler;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the statements the batched flight assembler issues against an embedded database.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class FlightResponseAssemblerTest {
+
+    private static final String[] AIRPORTS = { "CGK", "DPS", "SUB", "KNO" };
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = FlightRepository.class)
+    @EntityScan(basePackageClasses = Flight.class)
+    @Import(FlightResponseAssembler.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private FlightResponseAssembler assembler;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Flights, classes and airports only, skip the airline/airplane fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        clearFlights();
+        jdbcTemplate.update("DELETE FROM airports");
+        for (String code : AIRPORTS) {
+            jdbcTemplate.update("INSERT INTO airports (iata_code, name, city, country, created_at, updated_at) "
+                    + "VALUES (?, ?, 'City', 'Indonesia', NOW(), NOW())", code, "Airport " + code);
+        }
+    }
+
+    private void clearFlights() {
+        jdbcTemplate.update("DELETE FROM class_flights");
+        jdbcTemplate.update("DELETE FROM flights");
+    }
+
+    /** Seeds flights between the airports, each with an economy and a business class. */
+    private void seedFlights(int count) {
+        for (int i = 1; i <= count; i++) {
+            String flightId = String.format("FL-%03d", i);
+            jdbcTemplate.update("INSERT INTO flights (id, airline_id, airplane_id, origin_airport_code, destination_airport_code, "
+                    + "departure_time, arrival_time, terminal, gate, baggage_allowance, status, created_at, updated_at, is_deleted) "
+                    + "VALUES (?, 'AL', 'AP', ?, ?, DATEADD('DAY', 7, NOW()), DATEADD('HOUR', 170, NOW()), 'T1', 'G1', 20, 1, NOW(), NOW(), FALSE)",
+                    flightId, AIRPORTS[i % 4], AIRPORTS[(i + 1) % 4]);
+            jdbcTemplate.update("INSERT INTO class_flights (flight_id, class_type, seat_capacity, available_seats, price) "
+                    + "VALUES (?, 'economy', 150, 140, 1000000)", flightId);
+            jdbcTemplate.update("INSERT INTO class_flights (flight_id, class_type, seat_capacity, available_seats, price) "
+                    + "VALUES (?, 'business', 20, 20, 5000000)", flightId);
+        }
+    }
+
+    private long statementsFor(List<Flight> flights, List<FlightResponseDTO> out) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        out.addAll(assembler.toResponses(flights));
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void statementCount_doesNotGrowWithResultSize() {
+        seedFlights(3);
+        List<FlightResponseDTO> small = new ArrayList<>();
+        long smallStatements = statementsFor(flightRepository.findAll(), small);
+
+        clearFlights();
+        seedFlights(80);
+        List<FlightResponseDTO> large = new ArrayList<>();
+        long largeStatements = statementsFor(flightRepository.findAll(), large);
+
+        assertEquals(3, small.size());
+        assertEquals(80, large.size());
+        // class_flights, airports
+        assertEquals(2, smallStatements);
+        assertEquals(smallStatements, largeStatements);
+    }
+
+    @Test
+    void responses_carryClassesAirportsAndDuration() {
+        seedFlights(4);
+
+        List<FlightResponseDTO> responses = assembler.toResponses(flightRepository.findAll());
+
+        assertEquals(4, responses.size());
+        for (FlightResponseDTO response : responses) {
+            assertEquals(List.of("economy", "business"), response.getClasses().stream().map(c -> c.getClassType()).toList());
+            assertEquals(response.getId(), response.getClasses().get(0).getFlightId());
+            assertEquals("Airport " + response.getOriginAirportCode(), response.getOriginAirport().getName());
+            assertEquals(response.getDestinationAirportCode(), response.getDestinationAirport().getIataCode());
+            assertEquals(120L, response.getDurationMinutes());
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package apap.ti._5.flight_2306211660_be.restservice;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -15,9 +16,9 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -26,14 +27,18 @@ import org.mockito.Mock;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import apap.ti._5.flight_2306211660_be.model.Airline;
 import apap.ti._5.flight_2306211660_be.model.Airplane;
+import apap.ti._5.flight_2306211660_be.model.Airport;
 import apap.ti._5.flight_2306211660_be.model.Booking;
 import apap.ti._5.flight_2306211660_be.model.BookingPassenger;
 import apap.ti._5.flight_2306211660_be.model.ClassFlight;
@@ -41,21 +46,31 @@ import apap.ti._5.flight_2306211660_be.model.Flight;
 import apap.ti._5.flight_2306211660_be.model.Seat;
 import apap.ti._5.flight_2306211660_be.repository.AirlineRepository;
 import apap.ti._5.flight_2306211660_be.repository.AirplaneRepository;
+import apap.ti._5.flight_2306211660_be.repository.AirportRepository;
 import apap.ti._5.flight_2306211660_be.repository.BookingPassengerRepository;
 import apap.ti._5.flight_2306211660_be.repository.BookingRepository;
 import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightSummary;
 import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.FlightSpecifications;
 import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.classFlight.AddClassFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.AddFlightRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.flight.UpdateFlightRequestDTO;
-import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.classFlight.ClassFlightResponseDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightPageResponseDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightResponseDTO;
 import apap.ti._5.flight_2306211660_be.config.security.ProfileClient;
 import apap.ti._5.flight_2306211660_be.restservice.classFlight.ClassFlightRestService;
+import apap.ti._5.flight_2306211660_be.restservice.flight.FlightCursor;
+import apap.ti._5.flight_2306211660_be.restservice.flight.FlightResponseAssembler;
 import apap.ti._5.flight_2306211660_be.restservice.flight.FlightRestServiceImpl;
+import apap.ti._5.flight_2306211660_be.restservice.flight.FlightStatusScheduler;
+import apap.ti._5.flight_2306211660_be.restservice.flight.ItineraryPlanner;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
 import apap.ti._5.flight_2306211660_be.restservice.seat.SeatRestService;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
 
 @ExtendWith(MockitoExtension.class)
 public class FlightRestServiceTest {
@@ -67,13 +82,25 @@ public class FlightRestServiceTest {
     @Mock private BookingRepository bookingRepository;
     @Mock private BookingPassengerRepository bookingPassengerRepository;
     @Mock private SeatRepository seatRepository;
+    @Mock private SeatInventory seatInventory;
     @Mock private ClassFlightRepository classFlightRepository;
     @Mock private AirlineRepository airlineRepository;
+    @Mock private AirportRepository airportRepository;
     @Mock private ProfileClient profileClient;
+    @Mock private FlightStatusScheduler flightStatusScheduler;
+    @Mock private RouteAvailabilityIndex routeAvailabilityIndex;
+    @Mock private ItineraryPlanner itineraryPlanner;
 
     @InjectMocks
     private FlightRestServiceImpl service;
 
+    @BeforeEach
+    void setUp() {
+        // Block size 1 and a counter that always starts after the mocked max existing number
+        ReflectionTestUtils.setField(service, "idAllocator", new IdAllocator((key, size, highestExisting) -> highestExisting.getAsLong() + 1, 1));
+        ReflectionTestUtils.setField(service, "flightResponseAssembler", new FlightResponseAssembler(classFlightRepository, airportRepository));
+    }
+
     private Flight flight(String id, String airlineId, String airplaneId, String o, String d,
                           LocalDateTime dep, LocalDateTime arr, int status, boolean deleted) {
         return Flight.builder()
@@ -200,7 +227,7 @@ public class FlightRestServiceTest {
     }
 
     @Test
-    @DisplayName("createFlight: success generates ID and seats with proper prefixes")
+    @DisplayName("createFlight: success generates ID and seats per class")
     void createFlight_success_generatesSeats() {
         var now = LocalDateTime.now();
         var dto = AddFlightRequestDTO.builder()
@@ -230,12 +257,10 @@ public class FlightRestServiceTest {
         assertNotNull(res);
         assertEquals("AP-1-001", res.getId());
 
-        ArgumentCaptor<AddSeatRequestDTO> seatCaptor = ArgumentCaptor.forClass(AddSeatRequestDTO.class);
-        verify(seatRestService, times(4)).createSeat(seatCaptor.capture());
-        List<String> codes = new ArrayList<>();
-        for (AddSeatRequestDTO s : seatCaptor.getAllValues()) codes.add(s.getSeatCode());
-        // Expect EC001, EC002, BU001, BU002 (order by classes loop)
-        assertTrue(codes.containsAll(List.of("EC001", "EC002", "BU001", "BU002")));
+        // One batched generation per class instead of a createSeat call per seat
+        verify(seatRestService).generateSeats(10, "economy", 1, 2);
+        verify(seatRestService).generateSeats(11, "business", 1, 2);
+        verify(seatRestService, never()).createSeat(any());
     }
 
     @Test
@@ -244,11 +269,18 @@ public class FlightRestServiceTest {
         var now = LocalDateTime.now();
         var f = flight("F1", "AL", "AP", "CGK", "DPS", now.plusHours(1), now.plusHours(2), 1, false);
         when(flightRepository.findByIsDeleted(false)).thenReturn(List.of(f));
-        when(classFlightRestService.getClassFlightsByFlight("F1")).thenReturn(Collections.emptyList());
+        when(classFlightRepository.findSummariesByFlightIdIn(List.of("F1"))).thenReturn(List.of(
+                new ClassFlightSummary(7, "F1", "economy", 100, 90, new BigDecimal("1000000"))));
+        when(airportRepository.findAllById(List.of("CGK", "DPS"))).thenReturn(List.of(
+                Airport.builder().iataCode("CGK").name("Soekarno-Hatta").build()));
 
         List<FlightResponseDTO> res = service.getAllFlights();
         assertEquals(1, res.size());
         assertEquals("F1", res.get(0).getId());
+        assertEquals(90, res.get(0).getClasses().get(0).getAvailableSeats());
+        assertEquals("Soekarno-Hatta", res.get(0).getOriginAirport().getName());
+        assertNull(res.get(0).getDestinationAirport());
+        verify(classFlightRestService, never()).getClassFlightsByFlight(anyString());
     }
 
     @Test
@@ -257,7 +289,6 @@ public class FlightRestServiceTest {
         var now = LocalDateTime.now();
         var f = flight("F2", "AL-2", "AP", "CGK", "DPS", now.plusHours(1), now.plusHours(2), 1, false);
         when(flightRepository.findByAirlineIdAndIsDeleted("AL-2", false)).thenReturn(List.of(f));
-        when(classFlightRestService.getClassFlightsByFlight("F2")).thenReturn(Collections.emptyList());
 
         List<FlightResponseDTO> res = service.searchFlightsByAirline("AL-2");
         assertEquals(1, res.size());
@@ -281,18 +312,19 @@ public class FlightRestServiceTest {
     }
 
     @Test
-    @DisplayName("getFlight: updates status based on time and maps")
+    @DisplayName("getFlight: reports the time-based status without saving and maps")
     void getFlight_statusTransitionAndMap() {
-        var now = LocalDateTime.now();
-        // departure <= now < arrival -> should become In Flight(2)
+        var now = LocalDateTime.now(ZoneId.of("Asia/Jakarta"));
+        // departure <= now < arrival -> reported as In Flight(2), saved later by the status scheduler
         var f = flight("F4", "AL", "AP", "CGK", "DPS", now.minusMinutes(10), now.plusMinutes(10), 1, false);
         when(flightRepository.findById("F4")).thenReturn(Optional.of(f));
-        when(flightRepository.save(any(Flight.class))).thenAnswer(inv -> inv.getArgument(0));
         when(classFlightRestService.getClassFlightsByFlight("F4")).thenReturn(Collections.emptyList());
 
         FlightResponseDTO res = service.getFlight("F4");
         assertNotNull(res);
         assertEquals(2, res.getStatus()); // In Flight
+        assertEquals(1, f.getStatus());
+        verify(flightRepository, never()).save(any(Flight.class));
     }
 
 
@@ -312,7 +344,7 @@ public class FlightRestServiceTest {
         when(flightRepository.findById("F8")).thenReturn(Optional.of(f));
         lenient().when(classFlightRestService.getClassFlightsByFlight("F8"))
                 .thenReturn(List.of(ClassFlightResponseDTO.builder().id(10).build()));
-        lenient().when(classFlightRestService.getClassFlightDetail(10))
+        lenient().when(classFlightRestService.getClassFlightDetail(10, false))
                 .thenReturn(ClassFlightResponseDTO.builder().id(10).seats(Collections.emptyList()).build());
 
         FlightResponseDTO res = service.getFlightDetail("F8");
@@ -518,14 +550,14 @@ public class FlightRestServiceTest {
         // Seats assigned to those passengers in the class
         var s1 = Seat.builder().id(1).classFlightId(99).seatCode("EC001").isBooked(true).passengerId(p1).build();
         var s2 = Seat.builder().id(2).classFlightId(99).seatCode("EC002").isBooked(true).passengerId(p2).build();
-        var s3 = Seat.builder().id(3).classFlightId(99).seatCode("EC003").isBooked(false).passengerId(null).build();
-        when(seatRepository.findAll()).thenReturn(List.of(s1, s2, s3));
+        when(seatRepository.findByClassFlightIdAndPassengerIdIn(99, List.of(p1, p2))).thenReturn(List.of(s1, s2));
         when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
 
         // Class flight to restore availability
         var cf = ClassFlight.builder().id(99).availableSeats(5).seatCapacity(10).classType("economy").flightId("D4").price(new BigDecimal("1000000")).build();
         when(classFlightRepository.findById(99)).thenReturn(Optional.of(cf));
         when(classFlightRepository.save(any(ClassFlight.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(classFlightRepository.findByFlightId("D4")).thenReturn(List.of(cf));
 
         when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> inv.getArgument(0));
         when(classFlightRestService.getClassFlightsByFlight("D4")).thenReturn(Collections.emptyList());
@@ -550,19 +582,70 @@ public class FlightRestServiceTest {
         verify(bookingRepository).save(booking);
         verify(classFlightRepository).save(cf);
         verify(flightRepository, atLeastOnce()).save(any(Flight.class));
+        // Cancelled flight drops its seat bitmaps
+        verify(seatInventory).evict(List.of(99));
     }
 
     @Test
-    @DisplayName("getAllFlightsWithFilters: applies origin, destination, airline, status, search filters")
+    @DisplayName("getAllFlightsWithFilters: filters and orders in one query, no per-flight airline lookups")
     void getAllFlightsWithFilters_success() {
-        var f1 = flight("F1", "AL-1", "AP1", "CGK", "DPS", LocalDateTime.now().plusHours(1), LocalDateTime.now().plusHours(2), 1, false);
-        var f2 = flight("F2", "AL-2", "AP2", "SUB", "DPS", LocalDateTime.now().plusHours(3), LocalDateTime.now().plusHours(4), 2, false);
-        when(flightRepository.findByIsDeleted(false)).thenReturn(List.of(f1, f2));
-        when(classFlightRestService.getClassFlightsByFlight(anyString())).thenReturn(Collections.emptyList());
+        var f1 = flight("F1", "AL-1", "AP1", "CGK", "DPS", LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(1).plusHours(1), 1, false);
+        when(flightRepository.findAll(any(Specification.class), eq(FlightSpecifications.LISTING_ORDER))).thenReturn(List.of(f1));
 
         var res = service.getAllFlightsWithFilters("CGK", "DPS", "AL-1", 1, false, "F1");
         assertEquals(1, res.size());
         assertEquals("F1", res.get(0).getId());
+        verify(flightRepository, never()).findByIsDeleted(any());
+        verify(airlineRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("getFlightPage: reads one row past the page and returns a cursor to the next page")
+    void getFlightPage_limitAndCursor() {
+        LocalDateTime departure = LocalDateTime.now().plusDays(1);
+        var f1 = flight("F1", "AL-1", "AP1", "CGK", "DPS", departure, departure.plusHours(2), 1, false);
+        var f2 = flight("F2", "AL-1", "AP2", "CGK", "DPS", departure, departure.plusHours(2), 1, false);
+        var f3 = flight("F3", "AL-1", "AP3", "CGK", "DPS", departure.plusHours(1), departure.plusHours(3), 1, false);
+        when(flightRepository.findBy(any(Specification.class), any())).thenReturn(List.of(f1, f2, f3));
+
+        FlightPageResponseDTO page = service.getFlightPage("cgk", "dps", null, null, null, null, null, 2);
+
+        assertEquals(List.of("F1", "F2"), page.getFlights().stream().map(FlightResponseDTO::getId).toList());
+        assertEquals(new FlightCursor(departure, "F2"), FlightCursor.decode(page.getNextCursor()));
+        // Statuses are current, nothing to save
+        verify(flightRepository, never()).save(any(Flight.class));
+    }
+
+    @Test
+    @DisplayName("getFlightPage: malformed cursor or non-positive limit -> IllegalArgumentException")
+    void getFlightPage_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> service.getFlightPage(null, null, null, null, null, null, "not-a-cursor", null));
+        assertThrows(IllegalArgumentException.class, () -> service.getFlightPage(null, null, null, null, null, null, null, 0));
+    }
+
+    @Test
+    @DisplayName("searchItineraries: fills in defaults and caps the limit before planning")
+    void searchItineraries_defaultsAndCap() {
+        var day = LocalDate.of(2030, 1, 1);
+
+        service.searchItineraries("CGK", "DPS", day, null, null, null, null, null);
+        service.searchItineraries("CGK", "DPS", day, " Business ", 3, 0, "price", 500);
+
+        verify(itineraryPlanner).plan("CGK", "DPS", day, null, 1, ItineraryPlanner.MAX_CONNECTIONS,
+                ItineraryPlanner.Ranking.EARLIEST_ARRIVAL, 5);
+        verify(itineraryPlanner).plan("CGK", "DPS", day, "business", 3, 0, ItineraryPlanner.Ranking.CHEAPEST, 20);
+    }
+
+    @Test
+    @DisplayName("searchItineraries: same airports, too many connections or a bad sort -> IllegalArgumentException")
+    void searchItineraries_invalidArguments() {
+        var day = LocalDate.of(2030, 1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> service.searchItineraries("CGK", "cgk", day, null, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.searchItineraries("CGK", "DPS", day, null, null, 3, null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.searchItineraries("CGK", "DPS", day, null, null, null, "fastest", null));
+        assertThrows(IllegalArgumentException.class, () -> service.searchItineraries("CGK", "DPS", day, null, null, null, null, 0));
+        verify(itineraryPlanner, never()).plan(any(), any(), any(), any(), Mockito.anyInt(), Mockito.anyInt(), any(), Mockito.anyInt());
     }
 
     @Test
@@ -0,0 +1,184 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import org.mockito.Mockito;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Flight;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.restservice.flight.FlightStatusScheduler;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
+
+/**
+ * Scheduled flight status transitions against an embedded database, driven by a settable clock.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class FlightStatusSchedulerTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = FlightRepository.class)
+    @EntityScan(basePackageClasses = Flight.class)
+    static class JpaSliceConfig {
+    }
+
+    /** A clock the test moves forward by hand. */
+    static class SettableClock extends Clock {
+        private Instant instant;
+
+        SettableClock(LocalDateTime start) {
+            set(start);
+        }
+
+        void set(LocalDateTime time) {
+            instant = time.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private ClassFlightRepository classFlightRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SeatInventory seatInventory;
+    private SettableClock clock;
+    private FlightStatusScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        // Flights and classes only, skip the airline/airplane/airport fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM class_flights");
+        jdbcTemplate.update("DELETE FROM flights");
+        seatInventory = Mockito.mock(SeatInventory.class);
+        clock = new SettableClock(BASE);
+        scheduler = new FlightStatusScheduler(flightRepository, classFlightRepository, seatInventory, transactionManager,
+                false, Duration.ofDays(1), Duration.ofDays(1), clock);
+    }
+
+    private void insertFlight(String id, LocalDateTime departure, LocalDateTime arrival, int status, boolean deleted) {
+        jdbcTemplate.update("INSERT INTO flights (id, airline_id, airplane_id, origin_airport_code, destination_airport_code, "
+                + "departure_time, arrival_time, terminal, gate, baggage_allowance, status, created_at, updated_at, is_deleted) "
+                + "VALUES (?, 'AL', 'AP', 'CGK', 'DPS', ?, ?, 'T1', 'G1', 20, ?, ?, ?, ?)",
+                id, departure, arrival, status, BASE.minusDays(7), BASE.minusDays(7), deleted);
+    }
+
+    private Integer classFlight(String flightId) {
+        jdbcTemplate.update("INSERT INTO class_flights (flight_id, class_type, seat_capacity, available_seats, price) "
+                + "VALUES (?, 'economy', 150, 140, 1000000)", flightId);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM class_flights", Integer.class);
+    }
+
+    private Integer status(String id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM flights WHERE id = ?", Integer.class, id);
+    }
+
+    @Test
+    void tick_savesDueTransitionsInBulk() {
+        insertFlight("LANDED", BASE.minusHours(3), BASE.minusHours(1), 1, false);
+        insertFlight("AIRBORNE", BASE.minusHours(2), BASE.minusMinutes(5), 2, false);
+        insertFlight("DEPARTED", BASE.minusMinutes(10), BASE.plusHours(1), 4, false);
+        insertFlight("UPCOMING", BASE.plusHours(1), BASE.plusHours(3), 1, false);
+        insertFlight("CANCELLED", BASE.minusHours(3), BASE.minusHours(1), 1, true);
+        Integer landedClass = classFlight("LANDED");
+        Integer airborneClass = classFlight("AIRBORNE");
+        classFlight("DEPARTED");
+
+        assertEquals(3, scheduler.tick());
+
+        assertEquals(3, status("LANDED"));
+        assertEquals(3, status("AIRBORNE"));
+        assertEquals(2, status("DEPARTED"));
+        assertEquals(1, status("UPCOMING"));
+        assertEquals(1, status("CANCELLED"));
+        // Only finished flights release their seat bitmaps
+        verify(seatInventory).evict(List.of(landedClass, airborneClass));
+        assertEquals(BASE, jdbcTemplate.queryForObject("SELECT updated_at FROM flights WHERE id = 'DEPARTED'", LocalDateTime.class));
+    }
+
+    @Test
+    void tick_doesNothingUntilTheNextBoundary() {
+        insertFlight("UPCOMING", BASE.plusHours(1), BASE.plusHours(3), 1, false);
+
+        assertEquals(0, scheduler.tick());
+        assertEquals(2, scheduler.queuedBoundaries());
+
+        clock.set(BASE.plusMinutes(30));
+        assertEquals(0, scheduler.tick());
+        assertEquals(1, status("UPCOMING"));
+
+        clock.set(BASE.plusHours(1));
+        assertEquals(1, scheduler.tick());
+        assertEquals(2, status("UPCOMING"));
+        assertEquals(1, scheduler.queuedBoundaries());
+
+        clock.set(BASE.plusHours(3));
+        assertEquals(1, scheduler.tick());
+        assertEquals(3, status("UPCOMING"));
+        assertEquals(0, scheduler.queuedBoundaries());
+        verify(seatInventory).evict(List.of());
+    }
+
+    @Test
+    void track_queuesBoundariesWithinTheHorizon() {
+        assertEquals(0, scheduler.tick());
+        assertEquals(0, scheduler.queuedBoundaries());
+
+        // Created after the load; its arrival lies beyond the horizon and waits for a reload
+        insertFlight("LATE-ADD", BASE.plusMinutes(5), BASE.plusDays(2), 1, false);
+        scheduler.track(BASE.plusMinutes(5), BASE.plusDays(2));
+        assertEquals(1, scheduler.queuedBoundaries());
+
+        clock.set(BASE.plusMinutes(5));
+        assertEquals(1, scheduler.tick());
+        assertEquals(2, status("LATE-ADD"));
+        verify(seatInventory, never()).evict(anyCollection());
+    }
+}
@@ -0,0 +1,114 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.IdCounter;
+import apap.ti._5.flight_2306211660_be.repository.IdCounterRepository;
+import apap.ti._5.flight_2306211660_be.restservice.id.CounterTableIdBlockSource;
+import apap.ti._5.flight_2306211660_be.restservice.id.IdAllocator;
+
+/**
+ * Hi/lo allocation against the id_counters table of an embedded database. Two allocators over the
+ * same table stand in for two application instances.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IdAllocatorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 100;
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = IdCounterRepository.class)
+    @EntityScan(basePackageClasses = IdCounter.class)
+    @Import(CounterTableIdBlockSource.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private CounterTableIdBlockSource blockSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM id_counters");
+    }
+
+    @Test
+    void parallelAllocation_onTwoInstances_noDuplicates() throws Exception {
+        IdAllocator first = new IdAllocator(blockSource, 10);
+        IdAllocator second = new IdAllocator(blockSource, 10);
+        AtomicInteger seedCalls = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            IdAllocator allocator = t % 2 == 0 ? first : second;
+            results.add(pool.submit(() -> {
+                start.await();
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    ids.add(allocator.next("booking:GA-1-CGK-DPS", () -> {
+                        seedCalls.incrementAndGet();
+                        return 7;
+                    }));
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        Set<Long> all = new HashSet<>();
+        for (Future<List<Long>> result : results) {
+            all.addAll(result.get());
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, all.size());
+        // Numbers continue after the highest existing one
+        assertEquals(8L, all.stream().mapToLong(Long::longValue).min().getAsLong());
+        assertTrue(seedCalls.get() >= 1);
+        // One counter row moved by whole blocks: one reservation per ten numbers
+        long counter = jdbcTemplate.queryForObject("SELECT next_value FROM id_counters WHERE sequence_key = 'booking:GA-1-CGK-DPS'", Long.class);
+        assertEquals(8 + THREADS * IDS_PER_THREAD, counter);
+    }
+
+    @Test
+    void restart_continuesAfterReservedBlock() {
+        IdAllocator before = new IdAllocator(blockSource, 20);
+        assertEquals(1, before.next("flight:AP-1", () -> 0));
+        assertEquals(2, before.next("flight:AP-1", () -> 0));
+
+        // A new instance reserves the next block; the rest of the old one is skipped, never reused
+        IdAllocator after = new IdAllocator(blockSource, 20);
+        assertEquals(21, after.next("flight:AP-1", () -> 0));
+        assertEquals(3, before.next("flight:AP-1", () -> 0));
+    }
+}
@@ -0,0 +1,154 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import apap.ti._5.flight_2306211660_be.restdto.response.BaseResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.IdempotencyClaim;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.IdempotencyGuard;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.InMemoryIdempotencyStore;
+
+public class IdempotencyGuardTest {
+
+    /** Clock the test moves by hand so expiry is deterministic. */
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private MutableClock clock;
+    private InMemoryIdempotencyStore store;
+    private IdempotencyGuard guard;
+    private AtomicInteger runs;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        store = new InMemoryIdempotencyStore(3, clock);
+        guard = new IdempotencyGuard(store, new ObjectMapper().findAndRegisterModules(), 60);
+        runs = new AtomicInteger();
+    }
+
+    private ResponseEntity<BaseResponseDTO<String>> respond(HttpStatus status) {
+        var body = new BaseResponseDTO<String>();
+        body.setStatus(status.value());
+        body.setData("run-" + runs.incrementAndGet());
+        body.setTimestamp(new Date());
+        return new ResponseEntity<>(body, status);
+    }
+
+    @Test
+    void execute_withoutKey_alwaysRuns() {
+        guard.execute(null, "op", "body", String.class, () -> respond(HttpStatus.OK));
+        guard.execute(" ", "op", "body", String.class, () -> respond(HttpStatus.OK));
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void execute_clientErrorIsStoredAndReplayed() {
+        guard.execute("k", "op", "body", String.class, () -> respond(HttpStatus.BAD_REQUEST));
+        var replayed = guard.execute("k", "op", "body", String.class, () -> respond(HttpStatus.OK));
+
+        assertEquals(1, runs.get());
+        assertEquals(HttpStatus.BAD_REQUEST, replayed.getStatusCode());
+        assertEquals("run-1", replayed.getBody().getData());
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotencyGuard.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_serverErrorReleasesKey() {
+        guard.execute("k", "op", "body", String.class, () -> respond(HttpStatus.INTERNAL_SERVER_ERROR));
+        var retried = guard.execute("k", "op", "body", String.class, () -> respond(HttpStatus.OK));
+
+        assertEquals(2, runs.get());
+        assertEquals("run-2", retried.getBody().getData());
+    }
+
+    @Test
+    void execute_exceptionReleasesKey() {
+        assertThrows(IllegalStateException.class, () -> guard.execute("k", "op", "body", String.class, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        guard.execute("k", "op", "body", String.class, () -> respond(HttpStatus.OK));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_keyInUse_conflict() {
+        var nested = guard.execute("k", "op", "body", String.class,
+                () -> guard.execute("k", "op", "body", String.class, () -> respond(HttpStatus.OK)));
+
+        assertEquals(HttpStatus.CONFLICT, nested.getStatusCode());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void execute_sameKeyOtherOperationOrBody_isSeparateOrRefused() {
+        guard.execute("k", "op", "body", String.class, () -> respond(HttpStatus.OK));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+                guard.execute("k", "op", "other", String.class, () -> respond(HttpStatus.OK)).getStatusCode());
+        assertEquals(HttpStatus.OK,
+                guard.execute("k", "other-op", "body", String.class, () -> respond(HttpStatus.OK)).getStatusCode());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void store_expiredKeyRunsAgain() {
+        assertEquals(IdempotencyClaim.Outcome.ACQUIRED, store.claim("k", "f", Duration.ofMinutes(5)).outcome());
+        store.complete("k", 200, "{}");
+        assertEquals(IdempotencyClaim.Outcome.REPLAY, store.claim("k", "f", Duration.ofMinutes(5)).outcome());
+
+        clock.advance(Duration.ofMinutes(5));
+
+        assertEquals(IdempotencyClaim.Outcome.ACQUIRED, store.claim("k", "f", Duration.ofMinutes(5)).outcome());
+    }
+
+    @Test
+    void store_boundedAndPurged() {
+        for (int i = 0; i < 5; i++) {
+            store.claim("k" + i, "f", Duration.ofMinutes(i + 1));
+        }
+        // Oldest keys were dropped to keep three entries
+        assertEquals(3, store.size());
+        assertEquals(IdempotencyClaim.Outcome.ACQUIRED, store.claim("k0", "other", Duration.ofMinutes(1)).outcome());
+
+        clock.advance(Duration.ofMinutes(4));
+        // k0 (1 min) and k3 (4 min) expired, k4 is left
+        assertEquals(2, store.purgeExpired());
+        assertEquals(1, store.size());
+    }
+}
@@ -0,0 +1,227 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.Flight;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightAvailability;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItineraryDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.ItinerarySearchResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.flight.ItineraryPlanner;
+import apap.ti._5.flight_2306211660_be.restservice.flight.ItineraryPlanner.Ranking;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Connecting itineraries over a small network in an embedded database, with a one hour minimum connection.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ItineraryPlannerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+    private static final LocalDateTime NOW = DAY.atTime(6, 0);
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = FlightRepository.class)
+    @EntityScan(basePackageClasses = Flight.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private ClassFlightRepository classFlightRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private RouteAvailabilityIndex index;
+    private ItineraryPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        // Flights and classes only, skip the airline/airplane/airport fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM class_flights");
+        jdbcTemplate.update("DELETE FROM flights");
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        index = new RouteAvailabilityIndex(classFlightRepository, transactionManager, true, clock);
+        planner = new ItineraryPlanner(index, classFlightRepository, Duration.ofMinutes(60), Duration.ofHours(12), clock);
+        seedNetwork();
+    }
+
+    private void insertFlight(String id, String origin, String destination, String departure, String arrival,
+                              int economyPrice, int economySeats) {
+        jdbcTemplate.update("INSERT INTO flights (id, airline_id, airplane_id, origin_airport_code, destination_airport_code, "
+                + "departure_time, arrival_time, terminal, gate, baggage_allowance, status, created_at, updated_at, is_deleted) "
+                + "VALUES (?, 'AL', 'AP', ?, ?, ?, ?, 'T1', 'G1', 20, 1, ?, ?, FALSE)",
+                id, origin, destination, DAY.atTime(LocalTime.parse(departure)),
+                DAY.atTime(LocalTime.parse(arrival)), NOW, NOW);
+        insertClass(id, "economy", economyPrice, economySeats);
+    }
+
+    private void insertClass(String flightId, String classType, int price, int seats) {
+        jdbcTemplate.update("INSERT INTO class_flights (flight_id, class_type, seat_capacity, available_seats, price) "
+                + "VALUES (?, ?, 50, ?, ?)", flightId, classType, seats, price);
+    }
+
+    private void seedNetwork() {
+        insertFlight("DIRECT", "CGK", "DPS", "08:00", "10:00", 2000000, 10);
+        insertClass("DIRECT", "business", 5000000, 4);
+        insertFlight("LATE", "CGK", "DPS", "20:00", "22:00", 1500000, 10);
+        insertFlight("CS1", "CGK", "SUB", "07:00", "08:30", 500000, 10);
+        // Leaves 30 minutes after CS1 lands, too tight to connect
+        insertFlight("SD1", "SUB", "DPS", "09:00", "10:00", 400000, 10);
+        insertFlight("SD2", "SUB", "DPS", "10:00", "11:00", 600000, 10);
+        insertFlight("SD3", "SUB", "DPS", "12:30", "13:30", 300000, 10);
+        insertFlight("CU", "CGK", "UPG", "07:00", "09:00", 300000, 10);
+        insertFlight("US", "UPG", "SUB", "10:00", "11:00", 300000, 10);
+        // Back to the origin, never part of an itinerary
+        insertFlight("SC", "SUB", "CGK", "09:30", "11:00", 100000, 10);
+        insertFlight("CD", "CGK", "DPS", "23:00", "23:50", 100000, 1);
+    }
+
+    private static List<String> routes(ItinerarySearchResponseDTO response) {
+        return response.getItineraries().stream()
+                .map(itinerary -> itinerary.getLegs().stream().map(FlightAvailabilityDTO::getFlightId)
+                        .collect(Collectors.joining(">")))
+                .toList();
+    }
+
+    @Test
+    void plan_ranksByEarliestArrivalFewestLegsOrPrice() {
+        index.rebuild();
+
+        assertEquals(List.of("DIRECT", "CS1>SD2", "CS1>SD3", "CU>US>SD3", "LATE"),
+                routes(planner.plan("CGK", "DPS", DAY, null, 2, 2, Ranking.EARLIEST_ARRIVAL, 10)));
+        assertEquals(List.of("DIRECT", "LATE", "CS1>SD2", "CS1>SD3", "CU>US>SD3"),
+                routes(planner.plan("CGK", "DPS", DAY, null, 2, 2, Ranking.FEWEST_LEGS, 10)));
+        assertEquals(List.of("CS1>SD3", "CU>US>SD3", "CS1>SD2", "LATE", "DIRECT"),
+                routes(planner.plan("CGK", "DPS", DAY, null, 2, 2, Ranking.CHEAPEST, 10)));
+    }
+
+    @Test
+    void plan_respectsConnectionLimitTopKAndClass() {
+        index.rebuild();
+
+        assertEquals(List.of("DIRECT", "LATE"),
+                routes(planner.plan("CGK", "DPS", DAY, null, 2, 0, Ranking.EARLIEST_ARRIVAL, 10)));
+        assertEquals(List.of("DIRECT", "CS1>SD2", "CS1>SD3", "LATE"),
+                routes(planner.plan("CGK", "DPS", DAY, null, 2, 1, Ranking.EARLIEST_ARRIVAL, 10)));
+        assertEquals(List.of("CS1>SD3", "CU>US>SD3"),
+                routes(planner.plan("CGK", "DPS", DAY, null, 2, 2, Ranking.CHEAPEST, 2)));
+        assertEquals(List.of("DIRECT"),
+                routes(planner.plan("CGK", "DPS", DAY, "business", 2, 2, Ranking.EARLIEST_ARRIVAL, 10)));
+        // CD has a single seat, so it only shows up for one passenger
+        assertEquals("CD", routes(planner.plan("CGK", "DPS", DAY, null, 1, 0, Ranking.CHEAPEST, 1)).get(0));
+    }
+
+    @Test
+    void plan_reportsTimesAndPrices() {
+        index.rebuild();
+
+        ItineraryDTO itinerary = planner.plan("CGK", "DPS", DAY, null, 2, 2, Ranking.CHEAPEST, 1).getItineraries().get(0);
+
+        assertEquals(1, itinerary.getConnections());
+        assertEquals(DAY.atTime(7, 0), itinerary.getDepartureTime());
+        assertEquals(DAY.atTime(13, 30), itinerary.getArrivalTime());
+        assertEquals(390L, itinerary.getDurationMinutes());
+        assertEquals(0, new BigDecimal("800000").compareTo(itinerary.getPricePerPassenger()));
+        assertEquals(0, new BigDecimal("1600000").compareTo(itinerary.getTotalPrice()));
+        assertEquals("economy", itinerary.getLegs().get(0).getClassType());
+    }
+
+    @Test
+    void plan_onTheIndexRunsNoQueriesAndMatchesTheDatabaseFallback() {
+        ItinerarySearchResponseDTO cold = planner.plan("CGK", "DPS", DAY, null, 2, 2, Ranking.EARLIEST_ARRIVAL, 10);
+
+        index.rebuild();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ItinerarySearchResponseDTO warm = planner.plan("CGK", "DPS", DAY, null, 2, 2, Ranking.EARLIEST_ARRIVAL, 10);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals("database", cold.getSource());
+        assertEquals("index", warm.getSource());
+        assertEquals(routes(cold), routes(warm));
+    }
+
+    @Test
+    void plan_picksUpChangedFlights() {
+        index.rebuild();
+        insertFlight("EARLY", "CGK", "DPS", "06:30", "08:30", 2500000, 10);
+        jdbcTemplate.update("UPDATE flights SET is_deleted = TRUE, status = 5 WHERE id = 'SD2'");
+        index.flightChanged("EARLY");
+        index.flightChanged("SD2");
+        index.applyPendingRefreshes();
+
+        assertEquals(List.of("EARLY", "DIRECT", "CS1>SD3"),
+                routes(planner.plan("CGK", "DPS", DAY, null, 2, 2, Ranking.EARLIEST_ARRIVAL, 3)));
+    }
+
+    @Test
+    void plan_databaseFallbackSkipsClassesWithoutSeatCounter() {
+        // The column is NOT NULL here, so hand the planner a row to cover a class without a counter
+        ClassFlightRepository nullCounters = mock(ClassFlightRepository.class, AdditionalAnswers.delegatesTo(classFlightRepository));
+        doAnswer(inv -> {
+            List<ClassFlightAvailability> rows = classFlightRepository.findBookableDepartingBetween(
+                    inv.getArgument(0), inv.getArgument(1), inv.getArgument(2));
+            return rows.stream()
+                    .map(row -> !"DIRECT".equals(row.flightId()) ? row : new ClassFlightAvailability(
+                            row.classFlightId(), row.flightId(), row.airlineId(), row.originAirportCode(),
+                            row.destinationAirportCode(), row.departureTime(), row.arrivalTime(), row.classType(),
+                            null, row.price()))
+                    .toList();
+        }).when(nullCounters).findBookableDepartingBetween(any(), any(), any());
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        planner = new ItineraryPlanner(index, nullCounters, Duration.ofMinutes(60), Duration.ofHours(12), clock);
+
+        ItinerarySearchResponseDTO response = planner.plan("CGK", "DPS", DAY, null, 2, 0, Ranking.EARLIEST_ARRIVAL, 10);
+
+        assertEquals("database", response.getSource());
+        assertEquals(List.of("LATE"), routes(response));
+    }
+
+    @Test
+    void ranking_rejectsUnknownSort() {
+        assertEquals(Ranking.EARLIEST_ARRIVAL, Ranking.parse(null));
+        assertEquals(Ranking.CHEAPEST, Ranking.parse("PRICE"));
+        assertThrows(IllegalArgumentException.class, () -> Ranking.parse("fastest"));
+    }
+}
@@ -0,0 +1,105 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.IdempotencyRecord;
+import apap.ti._5.flight_2306211660_be.repository.BookingRepository;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.IdempotencyClaim;
+import apap.ti._5.flight_2306211660_be.restservice.idempotency.JdbcIdempotencyStore;
+
+/**
+ * Idempotency keys on the shared table, as seen by several replicas.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class JdbcIdempotencyStoreTest {
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = BookingRepository.class)
+    @EntityScan(basePackageClasses = IdempotencyRecord.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+    }
+
+    @Test
+    void claim_replayAcrossInstances() {
+        JdbcIdempotencyStore first = new JdbcIdempotencyStore(jdbcTemplate);
+        JdbcIdempotencyStore second = new JdbcIdempotencyStore(jdbcTemplate);
+
+        assertEquals(IdempotencyClaim.Outcome.ACQUIRED, first.claim("k", "f", Duration.ofHours(1)).outcome());
+        assertEquals(IdempotencyClaim.Outcome.IN_PROGRESS, second.claim("k", "f", Duration.ofHours(1)).outcome());
+
+        first.complete("k", 201, "{\"status\":201}");
+
+        IdempotencyClaim replay = second.claim("k", "f", Duration.ofHours(1));
+        assertEquals(IdempotencyClaim.Outcome.REPLAY, replay.outcome());
+        assertEquals(201, replay.statusCode());
+        assertEquals("{\"status\":201}", replay.responseBody());
+        assertEquals(IdempotencyClaim.Outcome.MISMATCH, second.claim("k", "other", Duration.ofHours(1)).outcome());
+    }
+
+    @Test
+    void claim_releasedOrExpiredKeyIsFreeAgain() {
+        JdbcIdempotencyStore store = new JdbcIdempotencyStore(jdbcTemplate);
+
+        store.claim("released", "f", Duration.ofHours(1));
+        store.release("released");
+        assertEquals(IdempotencyClaim.Outcome.ACQUIRED, store.claim("released", "f", Duration.ofHours(1)).outcome());
+
+        store.claim("expired", "f", Duration.ofSeconds(-1));
+        assertEquals(1, store.purgeExpired());
+        store.claim("expired", "f", Duration.ofSeconds(-1));
+        assertEquals(IdempotencyClaim.Outcome.ACQUIRED, store.claim("expired", "other", Duration.ofHours(1)).outcome());
+    }
+
+    @Test
+    void claim_concurrentRetries_singleWinner() throws Exception {
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotencyClaim.Outcome>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            JdbcIdempotencyStore replica = new JdbcIdempotencyStore(jdbcTemplate);
+            Callable<IdempotencyClaim.Outcome> claim = () -> {
+                start.await();
+                return replica.claim("k", "f", Duration.ofHours(1)).outcome();
+            };
+            results.add(pool.submit(claim));
+        }
+        start.countDown();
+
+        int acquired = 0;
+        for (Future<IdempotencyClaim.Outcome> result : results) {
+            acquired += result.get() == IdempotencyClaim.Outcome.ACQUIRED ? 1 : 0;
+        }
+        pool.shutdown();
+        assertEquals(1, acquired);
+    }
+}
@@ -27,6 +27,7 @@ import apap.ti._5.flight_2306211660_be.repository.PassengerRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.passenger.AddPassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.passenger.UpdatePassengerRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.passenger.PassengerResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
 import apap.ti._5.flight_2306211660_be.restservice.passenger.PassengerRestServiceImpl;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +36,9 @@ public class PassengerRestServiceTest {
     @Mock
     private PassengerRepository passengerRepository;
 
+    @Mock
+    private BookingDetailCache bookingDetailCache;
+
     @InjectMocks
     private PassengerRestServiceImpl passengerRestService;
 
@@ -165,6 +169,8 @@ public class PassengerRestServiceTest {
         ArgumentCaptor<Passenger> captor = ArgumentCaptor.forClass(Passenger.class);
         verify(passengerRepository).save(captor.capture());
         assertEquals("New Name", captor.getValue().getFullName());
+        // Bookings showing this passenger are dropped from the detail cache
+        verify(bookingDetailCache).invalidatePassenger(id);
     }
 
     @Test
@@ -0,0 +1,253 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import apap.ti._5.flight_2306211660_be.model.Flight;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightAvailability;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.FlightRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.FlightAvailabilityDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.flight.RouteIndexStatisticsDTO;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Route availability index against an embedded database, with the clock fixed before the searched day's flights.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RouteAvailabilityIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+    private static final LocalDateTime NOW = DAY.atTime(6, 0);
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = FlightRepository.class)
+    @EntityScan(basePackageClasses = Flight.class)
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private ClassFlightRepository classFlightRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private RouteAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Flights and classes only, skip the airline/airplane/airport fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM class_flights");
+        jdbcTemplate.update("DELETE FROM flights");
+        index = new RouteAvailabilityIndex(classFlightRepository, transactionManager, true,
+                Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private void insertFlight(String id, String origin, String destination, LocalDateTime departure, int status, boolean deleted) {
+        jdbcTemplate.update("INSERT INTO flights (id, airline_id, airplane_id, origin_airport_code, destination_airport_code, "
+                + "departure_time, arrival_time, terminal, gate, baggage_allowance, status, created_at, updated_at, is_deleted) "
+                + "VALUES (?, 'AL', 'AP', ?, ?, ?, ?, 'T1', 'G1', 20, ?, ?, ?, ?)",
+                id, origin, destination, departure, departure.plusHours(2), status, NOW, NOW, deleted);
+    }
+
+    private Integer insertClass(String flightId, String classType, int available, int price) {
+        jdbcTemplate.update("INSERT INTO class_flights (flight_id, class_type, seat_capacity, available_seats, price) "
+                + "VALUES (?, ?, 50, ?, ?)", flightId, classType, available, price);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM class_flights", Integer.class);
+    }
+
+    /** Flights on CGK-DPS around the searched day, plus ones the index must leave out. */
+    private Integer seedRoute() {
+        insertFlight("MORNING", "CGK", "DPS", DAY.atTime(8, 0), 1, false);
+        Integer morningEconomy = insertClass("MORNING", "economy", 10, 1000000);
+        insertClass("MORNING", "business", 2, 5000000);
+        insertFlight("EVENING", "CGK", "DPS", DAY.atTime(19, 30), 4, false);
+        insertClass("EVENING", "economy", 0, 900000);
+        insertClass("EVENING", "business", 8, 4500000);
+        insertFlight("NEXT-DAY", "CGK", "DPS", DAY.plusDays(1).atTime(0, 0), 1, false);
+        insertClass("NEXT-DAY", "economy", 30, 800000);
+        insertFlight("OTHER-ROUTE", "CGK", "SUB", DAY.atTime(9, 0), 1, false);
+        insertClass("OTHER-ROUTE", "economy", 30, 700000);
+        insertFlight("DEPARTED", "CGK", "DPS", DAY.atTime(5, 0), 1, false);
+        insertClass("DEPARTED", "economy", 30, 700000);
+        insertFlight("CANCELLED", "CGK", "DPS", DAY.atTime(10, 0), 5, true);
+        insertClass("CANCELLED", "economy", 30, 700000);
+        return morningEconomy;
+    }
+
+    private static List<String> describe(List<FlightAvailabilityDTO> results) {
+        return results.stream().map(r -> r.getFlightId() + "/" + r.getClassType() + "/" + r.getAvailableSeats()).toList();
+    }
+
+    private static List<String> describeRows(List<ClassFlightAvailability> rows) {
+        return rows.stream().map(r -> r.flightId() + "/" + r.classType() + "/" + r.availableSeats()).toList();
+    }
+
+    @Test
+    void search_answersFromMemoryOnceBuilt() {
+        seedRoute();
+
+        assertNull(index.search("CGK", "DPS", DAY, null, 1));
+        assertFalse(index.getStatistics().getWarm());
+
+        index.rebuild();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<FlightAvailabilityDTO> any = index.search("cgk", "dps", DAY, null, 1);
+        List<FlightAvailabilityDTO> economyForThree = index.search("CGK", "DPS", DAY, "ECONOMY", 3);
+        List<FlightAvailabilityDTO> businessForThree = index.search("CGK", "DPS", DAY, "business", 3);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(List.of("MORNING/economy/10", "MORNING/business/2", "EVENING/business/8"), describe(any));
+        assertEquals(List.of("MORNING/economy/10"), describe(economyForThree));
+        assertEquals(List.of("EVENING/business/8"), describe(businessForThree));
+        assertEquals(DAY.atTime(8, 0), any.get(0).getDepartureTime());
+        assertEquals(DAY.atTime(10, 0), any.get(0).getArrivalTime());
+        assertTrue(index.search("DPS", "CGK", DAY, null, 1).isEmpty());
+
+        RouteIndexStatisticsDTO stats = index.getStatistics();
+        assertTrue(stats.getWarm());
+        assertEquals(2, stats.getRoutes());
+        assertEquals(4, stats.getFlights());
+        assertEquals(1L, stats.getDatabaseSearches());
+        assertEquals(4L, stats.getIndexSearches());
+    }
+
+    @Test
+    void search_matchesTheDatabaseFallback() {
+        seedRoute();
+        index.rebuild();
+
+        for (String classType : new String[] { null, "economy", "business" }) {
+            for (int seats : new int[] { 1, 3, 9, 11 }) {
+                List<ClassFlightAvailability> rows = classFlightRepository.findBookableOnRoute(
+                        "CGK", "DPS", DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(), classType, seats, NOW);
+                assertEquals(describeRows(rows), describe(index.search("CGK", "DPS", DAY, classType, seats)),
+                        classType + " x" + seats);
+            }
+        }
+    }
+
+    @Test
+    void seatsChanged_appliesOnlyCommittedChanges() {
+        Integer morningEconomy = seedRoute();
+        index.rebuild();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> index.seatsChanged(morningEconomy, -4));
+        assertEquals(List.of("MORNING/economy/6"), describe(index.search("CGK", "DPS", DAY, "economy", 1)));
+
+        transaction.executeWithoutResult(status -> {
+            index.seatsChanged(morningEconomy, -6);
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of("MORNING/economy/6"), describe(index.search("CGK", "DPS", DAY, "economy", 1)));
+
+        // Outside a transaction the change applies right away
+        index.seatsChanged(morningEconomy, 1);
+        assertEquals(List.of("MORNING/economy/7"), describe(index.search("CGK", "DPS", DAY, "economy", 1)));
+        assertEquals(2L, index.getStatistics().getSeatUpdates());
+    }
+
+    @Test
+    void flightChanged_reReadsQueuedFlights() {
+        seedRoute();
+        index.rebuild();
+
+        // Moved to another day, cancelled, and a new flight on the route
+        jdbcTemplate.update("UPDATE flights SET departure_time = ?, arrival_time = ? WHERE id = 'MORNING'",
+                DAY.plusDays(1).atTime(8, 0), DAY.plusDays(1).atTime(10, 0));
+        jdbcTemplate.update("UPDATE flights SET is_deleted = TRUE, status = 5 WHERE id = 'EVENING'");
+        insertFlight("NOON", "CGK", "DPS", DAY.atTime(12, 0), 1, false);
+        insertClass("NOON", "first", 4, 9000000);
+        index.flightChanged("MORNING");
+        index.flightChanged("EVENING");
+        index.flightChanged("NOON");
+
+        assertEquals(3, index.getStatistics().getPendingRefreshes());
+        assertEquals(3, index.search("CGK", "DPS", DAY, null, 1).size());
+
+        assertEquals(3, index.applyPendingRefreshes());
+
+        assertEquals(List.of("NOON/first/4"), describe(index.search("CGK", "DPS", DAY, null, 1)));
+        assertEquals(List.of("NEXT-DAY/economy/30", "MORNING/economy/10", "MORNING/business/2"),
+                describe(index.search("CGK", "DPS", DAY.plusDays(1), null, 1)));
+        RouteIndexStatisticsDTO stats = index.getStatistics();
+        assertEquals(0, stats.getPendingRefreshes());
+        assertEquals(4, stats.getFlights());
+        assertEquals(3L, stats.getFlightRefreshes());
+    }
+
+    @Test
+    void seatsChanged_duringRefresh_queuesTheFlightAgain() throws Exception {
+        Integer morningEconomy = seedRoute();
+        ClassFlightRepository racingRepository = mock(ClassFlightRepository.class, AdditionalAnswers.delegatesTo(classFlightRepository));
+        index = new RouteAvailabilityIndex(racingRepository, transactionManager, true,
+                Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        index.rebuild();
+
+        // A booking on another thread commits after the refresh read the counter but before the route is swapped
+        AtomicBoolean raced = new AtomicBoolean();
+        doAnswer(inv -> {
+            List<ClassFlightAvailability> rows = classFlightRepository.findBookableAvailabilityByFlightIdIn(inv.getArgument(0), inv.getArgument(1));
+            if (raced.compareAndSet(false, true)) {
+                Thread booking = new Thread(() -> {
+                    jdbcTemplate.update("UPDATE class_flights SET available_seats = available_seats - 3 WHERE id = ?", morningEconomy);
+                    index.seatsChanged(morningEconomy, -3);
+                });
+                booking.start();
+                booking.join();
+            }
+            return rows;
+        }).when(racingRepository).findBookableAvailabilityByFlightIdIn(any(), any());
+
+        index.flightChanged("MORNING");
+        assertEquals(1, index.applyPendingRefreshes());
+
+        // The swap installed the stale read, but the flight is queued again instead of keeping it
+        assertEquals(List.of("MORNING/economy/10"), describe(index.search("CGK", "DPS", DAY, "economy", 1)));
+        assertEquals(1, index.getStatistics().getPendingRefreshes());
+
+        assertEquals(1, index.applyPendingRefreshes());
+        assertEquals(List.of("MORNING/economy/7"), describe(index.search("CGK", "DPS", DAY, "economy", 1)));
+        assertEquals(0, index.getStatistics().getPendingRefreshes());
+    }
+}
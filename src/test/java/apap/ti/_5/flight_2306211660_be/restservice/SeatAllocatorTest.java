@@ -0,0 +1,140 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
+import apap.ti._5.flight_2306211660_be.restservice.seat.ContiguousSeatAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.FirstFreeSeatAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatAllocator;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
+
+@ExtendWith(MockitoExtension.class)
+public class SeatAllocatorTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatAllocatorTest.class);
+
+    @Mock
+    private SeatRepository seatRepository;
+
+    private Seat seat(int number, boolean booked) {
+        return Seat.builder()
+                .id(number)
+                .classFlightId(10)
+                .seatCode(String.format("EC%03d", number))
+                .isBooked(booked)
+                .passengerId(booked ? UUID.randomUUID() : null)
+                .build();
+    }
+
+    /** Seats EC001..EC{size}, with the given seat numbers already booked. */
+    private SeatInventory inventory(SeatAllocator allocator, int size, Set<Integer> bookedNumbers) {
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            seats.add(seat(i, bookedNumbers.contains(i)));
+        }
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(seats);
+        return new SeatInventory(seatRepository, allocator);
+    }
+
+    private List<String> codes(List<Seat> seats) {
+        return seats.stream().map(Seat::getSeatCode).toList();
+    }
+
+    @Test
+    void contiguous_takesShortestRunThatFits() {
+        // Free runs: EC001 | EC003-EC004 | EC006-EC010
+        SeatInventory inventory = inventory(new ContiguousSeatAllocator(), 10, Set.of(2, 5));
+
+        assertEquals(List.of("EC003", "EC004"), codes(inventory.allocate(10, 2)));
+        assertEquals(List.of("EC006", "EC007", "EC008"), codes(inventory.allocate(10, 3)));
+        assertEquals(List.of("EC001"), codes(inventory.allocate(10, 1)));
+    }
+
+    @Test
+    void firstFree_keepsOldBehavior() {
+        SeatInventory inventory = inventory(new FirstFreeSeatAllocator(), 10, Set.of(2, 5));
+
+        assertEquals(List.of("EC001", "EC003", "EC004"), codes(inventory.allocate(10, 3)));
+    }
+
+    @Test
+    void contiguous_heldSeatBreaksRun() {
+        SeatInventory inventory = inventory(new ContiguousSeatAllocator(), 6, Set.of());
+
+        // EC002 is held by another customer, the group moves past it
+        assertEquals(List.of("EC003", "EC004", "EC005"), codes(inventory.allocate(10, 3, seatId -> seatId == 2)));
+    }
+
+    @Test
+    void contiguous_fallsBackWhenNoRunFits() {
+        SeatInventory inventory = inventory(new ContiguousSeatAllocator(), 6, Set.of(3, 5));
+
+        assertEquals(List.of("EC001", "EC002", "EC004"), codes(inventory.allocate(10, 3)));
+    }
+
+    @Test
+    void contiguous_releasedSeatMergesRuns() {
+        SeatInventory inventory = inventory(new ContiguousSeatAllocator(), 5, Set.of(3));
+        when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertEquals(4, inventory.countFree(10));
+        // Cancelling EC003 joins EC001-EC002 and EC004-EC005 into one run of five
+        inventory.save(seat(3, false));
+
+        assertEquals(List.of("EC001", "EC002", "EC003", "EC004", "EC005"), codes(inventory.allocate(10, 5)));
+    }
+
+    @Test
+    void benchmark_groupAllocationOnFragmentedCabin() {
+        for (SeatAllocator allocator : List.of(new FirstFreeSeatAllocator(), new ContiguousSeatAllocator())) {
+            // 800 seats, a third already taken at random; groups of 1-4 book until the cabin is full
+            Random random = new Random(42);
+            Set<Integer> booked = new HashSet<>();
+            while (booked.size() < 266) {
+                booked.add(1 + random.nextInt(800));
+            }
+            SeatInventory inventory = inventory(allocator, 800, booked);
+            inventory.countFree(10);
+
+            int groups = 0;
+            int splitGroups = 0;
+            long start = System.nanoTime();
+            List<Seat> claimed;
+            do {
+                int size = 1 + random.nextInt(4);
+                claimed = inventory.allocate(10, size);
+                if (!claimed.isEmpty()) {
+                    groups++;
+                    int first = claimed.get(0).getId();
+                    int last = claimed.get(claimed.size() - 1).getId();
+                    if (last - first + 1 != claimed.size()) {
+                        splitGroups++;
+                    }
+                }
+            } while (!claimed.isEmpty());
+            long micros = (System.nanoTime() - start) / 1_000;
+
+            logger.info("{}: {} groups allocated in {} us, {} groups split across non-adjacent seats",
+                    allocator.getClass().getSimpleName(), groups, micros, splitGroups);
+            assertEquals(0, inventory.countFree(10));
+            assertTrue(groups > 0);
+        }
+    }
+}
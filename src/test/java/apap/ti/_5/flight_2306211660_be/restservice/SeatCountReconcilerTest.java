@@ -0,0 +1,129 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import apap.ti._5.flight_2306211660_be.model.ClassFlight;
+import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
+import apap.ti._5.flight_2306211660_be.repository.SeatCountDrift;
+import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatReconciliationResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.flight.RouteAvailabilityIndex;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatCountReconciler;
+
+/**
+ * Seat counter reconciliation against an embedded database.
+ */
+@DataJpaTest(properties = "seat.reconciliation.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SeatCountReconcilerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatCountReconcilerTest.class);
+
+    // Keeps the application's seeding runners out of the JPA slice
+    @Configuration
+    @EnableJpaRepositories(basePackageClasses = ClassFlightRepository.class)
+    @EntityScan(basePackageClasses = ClassFlight.class)
+    @Import({ SeatCountReconciler.class, RouteAvailabilityIndex.class })
+    static class JpaSliceConfig {
+    }
+
+    @Autowired
+    private SeatCountReconciler reconciler;
+
+    @Autowired
+    private ClassFlightRepository classFlightRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Class flights and seats only, skip the flight/airline/airplane fixtures
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.update("DELETE FROM seats");
+        jdbcTemplate.update("DELETE FROM class_flights");
+    }
+
+    private void classFlight(int id, int seats, int booked, int availableSeats) {
+        jdbcTemplate.update("INSERT INTO class_flights (id, flight_id, class_type, seat_capacity, available_seats, price) "
+                + "VALUES (?, 'FL-REC', 'economy', ?, ?, 1000000)", id, seats, availableSeats);
+        seatRepository.insertSeatRange(id, "EC", 1, seats);
+        jdbcTemplate.update("UPDATE seats SET is_booked = TRUE WHERE class_flight_id = ? AND seat_code <= ?",
+                id, String.format("EC%03d", booked));
+    }
+
+    private int availableSeats(int id) {
+        return jdbcTemplate.queryForObject("SELECT available_seats FROM class_flights WHERE id = ?", Integer.class, id);
+    }
+
+    @Test
+    void reconcile_correctsOnlyDriftedClassFlights() {
+        classFlight(1, 10, 3, 7);   // in step
+        classFlight(2, 10, 3, 9);   // booking failed after the seats were written
+        classFlight(3, 10, 0, 4);   // seats released without the counter
+        classFlight(4, 0, 0, 5);    // no seats at all
+
+        SeatReconciliationResponseDTO stats = reconciler.reconcile();
+
+        assertEquals(3, stats.getLastDrifted());
+        assertEquals(3, stats.getLastCorrected());
+        assertEquals(1, stats.getTotalRuns());
+        assertEquals(3, stats.getTotalCorrected());
+        assertEquals(7, availableSeats(1));
+        assertEquals(7, availableSeats(2));
+        assertEquals(10, availableSeats(3));
+        assertEquals(0, availableSeats(4));
+
+        // A second pass finds nothing left to do
+        stats = reconciler.reconcile();
+        assertEquals(0, stats.getLastDrifted());
+        assertEquals(2, stats.getTotalRuns());
+        assertEquals(3, stats.getTotalCorrected());
+    }
+
+    @Test
+    void correctAvailableSeats_skipsRowsChangedSinceTheScan() {
+        classFlight(1, 10, 0, 8);
+        List<SeatCountDrift> drifts = classFlightRepository.findSeatCountDrift();
+        assertEquals(List.of(new SeatCountDrift(1, 8, 10)), drifts);
+
+        // A booking decremented the counter after the scan
+        jdbcTemplate.update("UPDATE class_flights SET available_seats = 7 WHERE id = 1");
+
+        assertEquals(0, classFlightRepository.correctAvailableSeats(drifts));
+        assertEquals(7, availableSeats(1));
+    }
+
+    @Test
+    void reconcile_manyClassFlights_timing() {
+        int classFlights = 300;
+        for (int id = 1; id <= classFlights; id++) {
+            // Every tenth counter is off by one
+            classFlight(id, 30, id % 5, 30 - id % 5 + (id % 10 == 0 ? 1 : 0));
+        }
+
+        SeatReconciliationResponseDTO stats = reconciler.reconcile();
+
+        logger.info("{} class flights / {} seats: {} corrected in {} ms", classFlights, classFlights * 30,
+                stats.getLastCorrected(), stats.getLastDurationMillis());
+        assertEquals(classFlights / 10, stats.getLastCorrected());
+    }
+}
@@ -0,0 +1,205 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHold;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHoldRegistry;
+
+public class SeatHoldRegistryTest {
+
+    /** Clock the test moves by hand so expiry is deterministic. */
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private MutableClock clock;
+    private SeatHoldRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        registry = new SeatHoldRegistry(Duration.ofMinutes(5), clock);
+    }
+
+    @Test
+    void hold_conflictingSeat_holdsNothing() {
+        registry.hold(10, List.of(2));
+
+        assertThrows(IllegalStateException.class, () -> registry.hold(10, List.of(1, 2)));
+        // All-or-nothing: seat 1 was released again when seat 2 conflicted
+        assertFalse(registry.isHeld(1));
+        assertTrue(registry.isHeld(2));
+    }
+
+    @Test
+    void consume_onlyOnce() {
+        SeatHold hold = registry.hold(10, List.of(1, 2));
+
+        SeatHold consumed = registry.consume(hold.getToken());
+
+        assertNotNull(consumed);
+        assertEquals(List.of(1, 2), consumed.getSeatIds());
+        assertNull(registry.consume(hold.getToken()));
+        assertFalse(registry.isHeld(1));
+    }
+
+    @Test
+    void expiredHold_sweptByWheelAndNotConsumable() {
+        SeatHold hold = registry.hold(10, List.of(1));
+
+        clock.advance(Duration.ofMinutes(4));
+        assertEquals(0, registry.expireDue());
+        assertTrue(registry.isHeld(1));
+
+        clock.advance(Duration.ofMinutes(1).plusSeconds(1));
+        assertEquals(1, registry.expireDue());
+        assertFalse(registry.isHeld(1));
+        assertNull(registry.consume(hold.getToken()));
+    }
+
+    @Test
+    void expiredButUnsweptSeat_canBeHeldAgain() {
+        registry.hold(10, List.of(1));
+        clock.advance(Duration.ofMinutes(6));
+
+        SeatHold second = registry.hold(10, List.of(1));
+
+        assertNotNull(second);
+        assertTrue(registry.isHeld(1));
+        // The stale wheel entry of the first hold must not drop the new one
+        registry.expireDue();
+        assertTrue(registry.isHeld(1));
+    }
+
+    @Test
+    void restore_putsConsumedHoldBack() {
+        SeatHold hold = registry.hold(10, List.of(1));
+        registry.consume(hold.getToken());
+
+        registry.restore(hold);
+
+        assertTrue(registry.isHeld(1));
+        assertNotNull(registry.consume(hold.getToken()));
+    }
+
+    /** Consumes the hold inside a simulated transaction and returns its completion callbacks. */
+    private List<TransactionSynchronization> consumeInTransaction(SeatHold hold) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertNotNull(registry.consume(hold.getToken()));
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void consumeInTransaction_keepsSeatsHeldUntilCommit() {
+        SeatHold hold = registry.hold(10, List.of(1, 2));
+
+        List<TransactionSynchronization> completion = consumeInTransaction(hold);
+
+        // Seats are not booked in the database yet, so nobody else may hold them
+        assertTrue(registry.isHeld(1));
+        assertThrows(IllegalStateException.class, () -> registry.hold(10, List.of(2)));
+        assertNull(registry.consume(hold.getToken()));
+        // A slow booking is not cut off by the hold's TTL
+        clock.advance(Duration.ofMinutes(6));
+        registry.expireDue();
+        assertTrue(registry.isHeld(2));
+
+        completion.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertFalse(registry.isHeld(1));
+        assertFalse(registry.isHeld(2));
+    }
+
+    @Test
+    void consumeInTransaction_rollbackPutsHoldBack() {
+        SeatHold hold = registry.hold(10, List.of(1));
+
+        List<TransactionSynchronization> completion = consumeInTransaction(hold);
+        completion.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(registry.isHeld(1));
+        assertNotNull(registry.consume(hold.getToken()));
+    }
+
+    @Test
+    void release_freesSeats() {
+        SeatHold hold = registry.hold(10, List.of(1, 2));
+
+        assertTrue(registry.release(hold.getToken()));
+        assertFalse(registry.release(hold.getToken()));
+        assertFalse(registry.isHeld(1));
+        assertFalse(registry.isHeld(2));
+    }
+
+    @Test
+    void concurrentHolds_sameSeat_singleWinner() throws Exception {
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    registry.hold(10, List.of(7));
+                    return true;
+                } catch (IllegalStateException ex) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        int winners = 0;
+        for (Future<Boolean> result : results) {
+            winners += result.get() ? 1 : 0;
+        }
+        assertEquals(1, winners);
+    }
+}
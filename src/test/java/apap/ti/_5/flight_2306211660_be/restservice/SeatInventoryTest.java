@@ -0,0 +1,178 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
+
+@ExtendWith(MockitoExtension.class)
+public class SeatInventoryTest {
+
+    @Mock
+    private SeatRepository seatRepository;
+
+    private SeatInventory seatInventory;
+
+    @BeforeEach
+    void setUp() {
+        seatInventory = new SeatInventory(seatRepository);
+    }
+
+    private Seat seat(Integer id, String code, boolean booked) {
+        return Seat.builder()
+                .id(id)
+                .classFlightId(10)
+                .seatCode(code)
+                .isBooked(booked)
+                .passengerId(booked ? UUID.randomUUID() : null)
+                .build();
+    }
+
+    @Test
+    void coldLoad_happensOncePerClassFlight() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, "EC001", true), seat(2, "EC002", false), seat(3, "EC003", false)));
+
+        assertFalse(seatInventory.isLoaded(10));
+        assertEquals(2, seatInventory.countFree(10));
+        assertFalse(seatInventory.isFree(10, "EC001"));
+        assertTrue(seatInventory.isFree(10, "EC003"));
+        assertFalse(seatInventory.isFree(10, "EC999"));
+        assertEquals(3, seatInventory.getSeatMap(10).size());
+
+        assertTrue(seatInventory.isLoaded(10));
+        verify(seatRepository, times(1)).findByClassFlightIdOrderBySeatCodeAsc(10);
+    }
+
+    @Test
+    void allocate_skipsBookedSeatsAndReservesInMemory() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, "EC001", true), seat(2, "EC002", false), seat(3, "EC003", false), seat(4, "EC004", false)));
+
+        List<Seat> first = seatInventory.allocate(10, 2);
+        List<Seat> second = seatInventory.allocate(10, 2);
+
+        assertEquals(List.of("EC002", "EC003"), first.stream().map(Seat::getSeatCode).toList());
+        // Only one seat left, a second claim cannot hand out the same seats again
+        assertEquals(List.of("EC004"), second.stream().map(Seat::getSeatCode).toList());
+        assertEquals(0, seatInventory.countFree(10));
+    }
+
+    @Test
+    void save_writesThroughAndUpdatesBitmap() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, "EC001", false), seat(2, "EC002", false)));
+        when(seatRepository.save(any(Seat.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Seat booked = seatInventory.getSeatMap(10).get(1);
+        booked.setIsBooked(true);
+        booked.setPassengerId(UUID.randomUUID());
+        seatInventory.save(booked);
+        seatInventory.save(seat(3, "EC003", false));
+
+        verify(seatRepository, times(2)).save(any(Seat.class));
+        assertFalse(seatInventory.isFree(10, "EC002"));
+        assertTrue(seatInventory.isFree(10, "EC003"));
+        assertEquals(List.of("EC001", "EC002", "EC003"),
+                seatInventory.getSeatMap(10).stream().map(Seat::getSeatCode).toList());
+    }
+
+    @Test
+    void getSeatMap_returnsCopies() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(seat(1, "EC001", false)));
+
+        seatInventory.getSeatMap(10).get(0).setIsBooked(true);
+
+        // Mutating a returned seat without saving it leaves the inventory untouched
+        assertTrue(seatInventory.isFree(10, "EC001"));
+    }
+
+    @Test
+    void delete_removesSeatFromBitmap() {
+        Seat tail = seat(2, "EC002", false);
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(seat(1, "EC001", false), tail));
+
+        assertEquals(2, seatInventory.countFree(10));
+        seatInventory.delete(tail);
+
+        verify(seatRepository).delete(tail);
+        assertEquals(1, seatInventory.countFree(10));
+        assertFalse(seatInventory.isFree(10, "EC002"));
+    }
+
+    @Test
+    void deleteFreeSeats_keepsSeatsClaimedByOthers() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, "EC001", false), seat(2, "EC002", false), seat(3, "EC003", false)));
+        when(seatRepository.deleteFreeByIdIn(List.of(1, 3))).thenReturn(1);
+
+        // Another transaction has claimed EC001 but not committed yet
+        assertEquals(List.of("EC001"), seatInventory.allocate(10, 1).stream().map(Seat::getSeatCode).toList());
+        assertEquals(1, seatInventory.deleteFreeSeats(10, List.of(1, 3)));
+
+        // The bitmap stays loaded: EC003 is gone, the claim on EC001 survives
+        assertTrue(seatInventory.isLoaded(10));
+        assertEquals(List.of("EC001", "EC002"), seatInventory.getSeatMap(10).stream().map(Seat::getSeatCode).toList());
+        assertFalse(seatInventory.isFree(10, "EC001"));
+        assertEquals(1, seatInventory.countFree(10));
+        verify(seatRepository, times(1)).findByClassFlightIdOrderBySeatCodeAsc(10);
+    }
+
+    @Test
+    void evict_forcesColdReload() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(List.of(seat(1, "EC001", false)));
+
+        seatInventory.countFree(10);
+        seatInventory.evict(List.of(10));
+
+        assertFalse(seatInventory.isLoaded(10));
+        seatInventory.countFree(10);
+        verify(seatRepository, times(2)).findByClassFlightIdOrderBySeatCodeAsc(10);
+    }
+
+    @Test
+    void insertSeatRange_extendsLoadedBitmap() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10))
+                .thenReturn(List.of(seat(1, "EC001", false), seat(2, "EC002", false)));
+        when(seatRepository.insertSeatRange(10, "EC", 3, 4)).thenReturn(2);
+        when(seatRepository.findByClassFlightIdAndSeatCodeInOrderBySeatCodeAsc(10, List.of("EC003", "EC004")))
+                .thenReturn(List.of(seat(3, "EC003", false), seat(4, "EC004", false)));
+
+        // Another transaction has claimed EC001 but not committed yet
+        seatInventory.allocate(10, 1);
+        assertEquals(2, seatInventory.insertSeatRange(10, "EC", 3, 4));
+
+        // The new seats are added to the loaded bitmap, the claim on EC001 survives
+        assertTrue(seatInventory.isLoaded(10));
+        assertEquals(List.of("EC001", "EC002", "EC003", "EC004"), seatInventory.getSeatMap(10).stream().map(Seat::getSeatCode).toList());
+        assertFalse(seatInventory.isFree(10, "EC001"));
+        assertEquals(3, seatInventory.countFree(10));
+        verify(seatRepository, times(1)).findByClassFlightIdOrderBySeatCodeAsc(10);
+    }
+
+    @Test
+    void insertSeatRange_leavesUnloadedBitmapCold() {
+        when(seatRepository.insertSeatRange(10, "EC", 1, 2)).thenReturn(2);
+
+        assertEquals(2, seatInventory.insertSeatRange(10, "EC", 1, 2));
+
+        assertFalse(seatInventory.isLoaded(10));
+        verify(seatRepository, never()).findByClassFlightIdAndSeatCodeInOrderBySeatCodeAsc(any(), any());
+    }
+}
@@ -0,0 +1,129 @@
+package apap.ti._5.flight_2306211660_be.restservice;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import apap.ti._5.flight_2306211660_be.model.Seat;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.CompactSeatMapDTO;
+import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatMapEncoder;
+
+public class SeatMapEncoderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatMapEncoderTest.class);
+
+    private Seat seat(String code, boolean booked) {
+        return Seat.builder().seatCode(code).isBooked(booked).build();
+    }
+
+    @Test
+    void encode_runsOfFreeBookedAndMissingSeats() {
+        // EC004 was removed by a capacity cut, EC002..EC003 are booked
+        List<Seat> seats = List.of(
+                seat("EC001", false),
+                seat("EC002", true),
+                seat("EC003", true),
+                seat("EC005", false),
+                seat("EC006", false));
+
+        CompactSeatMapDTO map = SeatMapEncoder.encode(seats);
+
+        assertEquals("EC%03d", map.getCodePattern());
+        assertEquals(1, map.getFirstNumber());
+        assertEquals(6, map.getLastNumber());
+        assertEquals("1F2B1X2F", map.getOccupancy());
+        assertTrue(map.getOtherSeats().isEmpty());
+    }
+
+    @Test
+    void encode_codesOutsideThePatternGoToOtherSeats() {
+        List<Seat> seats = List.of(
+                seat("BU001", true),
+                seat("BU002", false),
+                seat("BU02", false),
+                seat("VIP-A", true));
+
+        CompactSeatMapDTO map = SeatMapEncoder.encode(seats);
+
+        assertEquals("BU%03d", map.getCodePattern());
+        assertEquals("1B1F", map.getOccupancy());
+        assertEquals(Map.of("BU02", false, "VIP-A", true), map.getOtherSeats());
+    }
+
+    @Test
+    void encode_emptyClass() {
+        CompactSeatMapDTO map = SeatMapEncoder.encode(List.of());
+
+        assertNull(map.getCodePattern());
+        assertEquals("", map.getOccupancy());
+    }
+
+    @Test
+    void encode_numbersBeyondIntRange_fallBackToSeatList() {
+        List<Seat> seats = List.of(
+                seat("EC00000000001", false),
+                seat("EC00000000002", true),
+                seat("EC99999999999", false));
+
+        CompactSeatMapDTO map = SeatMapEncoder.encode(seats);
+
+        assertNull(map.getCodePattern());
+        assertEquals("", map.getOccupancy());
+        assertEquals(Map.of("EC00000000001", false, "EC00000000002", true, "EC99999999999", false), map.getOtherSeats());
+    }
+
+    @Test
+    void encode_outlierNumber_fallsBackToSeatList() {
+        // One stray code would otherwise stretch the runs over a million empty slots
+        List<Seat> seats = List.of(
+                seat("EC000001", false),
+                seat("EC000002", true),
+                seat("EC999999", false));
+
+        CompactSeatMapDTO map = SeatMapEncoder.encode(seats);
+
+        assertNull(map.getCodePattern());
+        assertNull(map.getFirstNumber());
+        assertEquals("", map.getOccupancy());
+        assertEquals(3, map.getOtherSeats().size());
+        assertEquals(true, map.getOtherSeats().get("EC000002"));
+    }
+
+    @Test
+    void compactPayload_muchSmallerThanSeatList() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        List<Seat> seats = new ArrayList<>();
+        List<SeatResponseDTO> fullSeats = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= 400; i++) {
+            // Booked in blocks, the way group bookings fill a cabin
+            boolean booked = (i / 7) % 3 == 0;
+            String code = String.format("EC%03d", i);
+            seats.add(seat(code, booked));
+            fullSeats.add(SeatResponseDTO.builder()
+                    .id(i).classFlightId(1).seatCode(code).isBooked(booked)
+                    .passengerId(booked ? UUID.randomUUID() : null)
+                    .createdAt(now).updatedAt(now)
+                    .build());
+        }
+
+        int fullBytes = objectMapper.writeValueAsBytes(fullSeats).length;
+        int compactBytes = objectMapper.writeValueAsBytes(SeatMapEncoder.encode(seats)).length;
+
+        logger.info("400 seats: full seat list {} bytes, compact seat map {} bytes", fullBytes, compactBytes);
+        assertTrue(compactBytes * 20 < fullBytes);
+    }
+}
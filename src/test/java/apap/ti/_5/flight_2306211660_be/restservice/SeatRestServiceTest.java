@@ -1,5 +1,7 @@
 package apap.ti._5.flight_2306211660_be.restservice;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -10,25 +12,34 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import apap.ti._5.flight_2306211660_be.model.ClassFlight;
 import apap.ti._5.flight_2306211660_be.model.Seat;
 import apap.ti._5.flight_2306211660_be.repository.ClassFlightRepository;
 import apap.ti._5.flight_2306211660_be.repository.SeatRepository;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.AddSeatRequestDTO;
+import apap.ti._5.flight_2306211660_be.restdto.request.seat.HoldSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.request.seat.UpdateSeatRequestDTO;
 import apap.ti._5.flight_2306211660_be.restdto.response.seat.SeatResponseDTO;
+import apap.ti._5.flight_2306211660_be.restservice.booking.BookingDetailCache;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatHoldRegistry;
+import apap.ti._5.flight_2306211660_be.restservice.seat.SeatInventory;
 import apap.ti._5.flight_2306211660_be.restservice.seat.SeatRestServiceImpl;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,9 +51,19 @@ public class SeatRestServiceTest {
     @Mock
     private ClassFlightRepository classFlightRepository;
 
+    @Mock
+    private BookingDetailCache bookingDetailCache;
+
     @InjectMocks
     private SeatRestServiceImpl seatRestService;
 
+    @BeforeEach
+    void setUp() {
+        // Real in-memory inventory backed by the mocked repository
+        ReflectionTestUtils.setField(seatRestService, "seatInventory", new SeatInventory(seatRepository));
+        ReflectionTestUtils.setField(seatRestService, "seatHoldRegistry", new SeatHoldRegistry(Duration.ofMinutes(5), Clock.systemUTC()));
+    }
+
     private Seat seat(Integer id, Integer classFlightId, String code, boolean booked, UUID passengerId) {
         return Seat.builder()
                 .id(id)
@@ -98,12 +119,11 @@ public class SeatRestServiceTest {
     }
 
     @Test
-    void getSeatsByClassFlight_filtersAndSorts() {
-        var s3 = seat(3, 10, "EC003", false, null);
+    void getSeatsByClassFlight_usesIndexedQuery() {
         var s1 = seat(1, 10, "EC001", false, null);
         var s2 = seat(2, 10, "EC002", false, null);
-        var otherClass = seat(9, 11, "EC009", false, null);
-        when(seatRepository.findAll()).thenReturn(Arrays.asList(s3, s1, s2, otherClass));
+        var s3 = seat(3, 10, "EC003", false, null);
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(10)).thenReturn(Arrays.asList(s1, s2, s3));
 
         var res = seatRestService.getSeatsByClassFlight(10);
 
@@ -111,6 +131,7 @@ public class SeatRestServiceTest {
         assertEquals("EC001", res.get(0).getSeatCode());
         assertEquals("EC002", res.get(1).getSeatCode());
         assertEquals("EC003", res.get(2).getSeatCode());
+        verify(seatRepository, never()).findAll();
     }
 
     @Test
@@ -151,7 +172,10 @@ public class SeatRestServiceTest {
         assertNotNull(res);
         assertEquals(newPid, res.getPassengerId());
         assertTrue(res.getIsBooked());
-        verify(seatRepository).save(any(Seat.class));
+        // Seat assignments are part of the cached booking details, dropped once the seat is written
+        InOrder order = inOrder(seatRepository, bookingDetailCache);
+        order.verify(seatRepository).save(any(Seat.class));
+        order.verify(bookingDetailCache).invalidateClassFlight(10);
     }
 
     @Test
@@ -194,18 +218,16 @@ public class SeatRestServiceTest {
     @Test
     void getSeatsByFlight_aggregatesFromClassFlightsAndSorts() {
         var cf1 = cf(100, "FL-1", "economy", 10, 10);
-        var cf2 = cf(101, "FL-2", "business", 5, 5);
         var cf3 = cf(102, "FL-1", "business", 7, 7);
 
-        when(classFlightRepository.findAll()).thenReturn(List.of(cf1, cf2, cf3));
+        when(classFlightRepository.findByFlightId("FL-1")).thenReturn(List.of(cf1, cf3));
 
         var s1 = seat(1, 100, "EC003", false, null);
         var s2 = seat(2, 100, "EC001", false, null);
         var s3 = seat(3, 102, "BU002", false, null);
         var s4 = seat(4, 102, "BU001", false, null);
-        var otherFlightSeat = seat(9, 101, "BU999", false, null);
 
-        when(seatRepository.findAll()).thenReturn(List.of(s1, s2, s3, s4, otherFlightSeat));
+        when(seatRepository.findByClassFlightIdInOrderBySeatCodeAsc(List.of(100, 102))).thenReturn(List.of(s4, s3, s2, s1));
 
         var res = seatRestService.getSeatsByFlight("FL-1");
 
@@ -215,5 +237,55 @@ public class SeatRestServiceTest {
         assertEquals("BU002", res.get(1).getSeatCode());
         assertEquals("EC001", res.get(2).getSeatCode());
         assertEquals("EC003", res.get(3).getSeatCode());
+        verify(seatRepository, never()).findAll();
+    }
+
+    @Test
+    void getSeatsByFlight_noClasses_skipsSeatQuery() {
+        when(classFlightRepository.findByFlightId("FL-X")).thenReturn(List.of());
+
+        var res = seatRestService.getSeatsByFlight("FL-X");
+
+        assertTrue(res.isEmpty());
+        verify(seatRepository, never()).findByClassFlightIdInOrderBySeatCodeAsc(any());
+    }
+
+    @Test
+    void holdSeats_freeSeats_returnsToken() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(100))
+                .thenReturn(List.of(seat(1, 100, "EC001", false, null), seat(2, 100, "EC002", false, null)));
+
+        var res = seatRestService.holdSeats(HoldSeatRequestDTO.builder().classFlightId(100).seatIds(List.of(1, 2)).build());
+
+        assertNotNull(res.getHoldToken());
+        assertEquals(List.of(1, 2), res.getSeatIds());
+        // The same seats cannot be held twice
+        assertThrows(IllegalStateException.class, () -> seatRestService.holdSeats(
+                HoldSeatRequestDTO.builder().classFlightId(100).seatIds(List.of(2)).build()));
+        assertTrue(seatRestService.releaseHold(res.getHoldToken()));
+        assertFalse(seatRestService.releaseHold(res.getHoldToken()));
+    }
+
+    @Test
+    void holdSeats_bookedOrForeignSeat_rejected() {
+        when(seatRepository.findByClassFlightIdOrderBySeatCodeAsc(100))
+                .thenReturn(List.of(seat(1, 100, "EC001", true, UUID.randomUUID())));
+
+        assertThrows(IllegalArgumentException.class, () -> seatRestService.holdSeats(
+                HoldSeatRequestDTO.builder().classFlightId(100).seatIds(List.of(1)).build()));
+        assertThrows(IllegalArgumentException.class, () -> seatRestService.holdSeats(
+                HoldSeatRequestDTO.builder().classFlightId(100).seatIds(List.of(99)).build()));
+    }
+
+    @Test
+    void generateSeats_usesBatchInsertWithClassPrefix() {
+        when(seatRepository.insertSeatRange(100, "BU", 1, 400)).thenReturn(400);
+        when(seatRepository.insertSeatRange(101, "FI", 3, 4)).thenReturn(2);
+        when(seatRepository.insertSeatRange(102, "EC", 1, 1)).thenReturn(1);
+
+        assertEquals(400, seatRestService.generateSeats(100, "Business", 1, 400));
+        assertEquals(2, seatRestService.generateSeats(101, "first", 3, 4));
+        assertEquals(1, seatRestService.generateSeats(102, null, 1, 1));
+        verify(seatRepository, never()).save(any());
     }
 }